@@ -0,0 +1,41 @@
+package backend.academy.logs.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Random log lines of the benchmarks, the same for the same arguments.
+ */
+@UtilityClass
+class BenchmarkLogs {
+    private static final String[] METHODS = {"GET", "GET", "GET", "POST", "HEAD"};
+    private static final int[] STATUSES = {200, 200, 200, 206, 304, 404, 500};
+
+    /**
+     * Generates the lines of a few days of May 2015.
+     *
+     * @param agentLength length of the user agents
+     * @param resources   number of distinct resources
+     */
+    static List<String> lines(int count, int agentLength, int resources, long seed) {
+        Random random = new Random(seed);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder agent = new StringBuilder(agentLength);
+            while (agent.length() < agentLength) {
+                agent.append("Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/").append(random.nextInt(1000)).append(' ');
+            }
+            lines.add(String.format(
+                "10.0.%d.%d - - [%02d/May/2015:%02d:%02d:%02d +0000] \"%s /downloads/product_%d HTTP/1.1\" %d %d"
+                    + " \"http://example.com/%d\" \"%s\"",
+                random.nextInt(256), random.nextInt(256), random.nextInt(17, 21), random.nextInt(24),
+                random.nextInt(60), random.nextInt(60), METHODS[random.nextInt(METHODS.length)],
+                random.nextInt(resources), STATUSES[random.nextInt(STATUSES.length)], random.nextInt(1 << 20),
+                random.nextInt(10), agent.substring(0, agentLength)
+            ));
+        }
+        return lines;
+    }
+}
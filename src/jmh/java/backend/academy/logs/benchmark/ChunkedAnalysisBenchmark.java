@@ -0,0 +1,104 @@
+package backend.academy.logs.benchmark;
+
+import backend.academy.logs.analyzer.LogAnalyzer;
+import backend.academy.logs.parser.NginxLogParser;
+import backend.academy.logs.provider.FileView;
+import backend.academy.logs.statistic.StatisticCollector;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Shows how the analysis of a single large local file scales with the number of threads.
+ * The {@code bytes} counter is the throughput in bytes per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+public class ChunkedAnalysisBenchmark {
+    private static final String[] METHODS = {"GET", "GET", "GET", "POST", "HEAD"};
+    private static final int[] STATUSES = {200, 200, 200, 304, 404, 500};
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    public int threads;
+
+    @Param("256")
+    public int fileSizeMb;
+
+    private Path file;
+    private long fileSize;
+    private List<FileView> files;
+    private LogAnalyzer analyzer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("chunked-benchmark", ".log");
+        Random random = new Random(fileSizeMb);
+        long targetSize = fileSizeMb * 1024L * 1024L;
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (long written = 0; written < targetSize; ) {
+                String line = String.format(
+                    "10.%d.%d.%d - - [%02d/May/2015:%02d:%02d:%02d +0000] \"%s /downloads/product_%d HTTP/1.1\""
+                        + " %d %d \"-\" \"Debian APT-HTTP/1.3 (0.8.16~exp12ubuntu10.%d)\"%n",
+                    random.nextInt(256), random.nextInt(256), random.nextInt(256),
+                    random.nextInt(1, 29), random.nextInt(24), random.nextInt(60), random.nextInt(60),
+                    METHODS[random.nextInt(METHODS.length)], random.nextInt(100),
+                    STATUSES[random.nextInt(STATUSES.length)], random.nextInt(1 << 20), random.nextInt(30)
+                );
+                writer.write(line);
+                written += line.length();
+            }
+        }
+        fileSize = Files.size(file);
+        files = List.of(FileView.ofLocalFile(file));
+        analyzer = LogAnalyzer.create(
+            new NginxLogParser(), List.of(), threads, new PrintStream(NullOutputStream.INSTANCE)
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public StatisticCollector analyze(BytesCounter counter) {
+        counter.bytes += fileSize;
+        return analyzer.analyze(files).collector();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class BytesCounter {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+}
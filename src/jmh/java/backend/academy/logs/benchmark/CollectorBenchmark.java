@@ -0,0 +1,81 @@
+package backend.academy.logs.benchmark;
+
+import backend.academy.logs.parser.LogRecord;
+import backend.academy.logs.parser.NginxLogParser;
+import backend.academy.logs.statistic.ExactSizeDistribution;
+import backend.academy.logs.statistic.LogLinearSizeDistribution;
+import backend.academy.logs.statistic.StatisticCollector;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Adding logs to the collector in logs per second and computing the reported percentiles
+ * of the collected sizes, with the exact and the sketched distribution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class CollectorBenchmark {
+    private static final int LINES = 100_000;
+    private static final double[] PERCENTILES = {50.0, 90.0, 95.0, 99.0, 99.9};
+
+    @Param({"exact", "sketch"})
+    public String percentiles;
+
+    @Param({"100", "100000"})
+    public int resources;
+
+    private List<LogRecord> logs;
+    private StatisticCollector filled;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        logs = new NginxLogParser().parse(BenchmarkLogs.lines(LINES, 20, resources, resources).stream()).toList();
+        filled = newCollector();
+        logs.forEach(filled::addLog);
+    }
+
+    private StatisticCollector newCollector() {
+        return new StatisticCollector(
+            "exact".equals(percentiles) ? new ExactSizeDistribution() : new LogLinearSizeDistribution()
+        );
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public StatisticCollector addLog() {
+        StatisticCollector collector = newCollector();
+        for (LogRecord log : logs) {
+            collector.addLog(log);
+        }
+        return collector;
+    }
+
+    /**
+     * Computes the percentiles of the report after a log is added, so the exact distribution can't reuse its order.
+     */
+    @Benchmark
+    public void percentile(Blackhole blackhole) {
+        filled.addLog(logs.getFirst());
+        for (double percentile : PERCENTILES) {
+            blackhole.consume(filled.percentile(percentile));
+        }
+    }
+}
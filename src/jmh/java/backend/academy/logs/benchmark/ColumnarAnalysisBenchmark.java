@@ -0,0 +1,105 @@
+package backend.academy.logs.benchmark;
+
+import backend.academy.logs.analyzer.LogAnalyzer;
+import backend.academy.logs.columnar.ColumnarIngest;
+import backend.academy.logs.columnar.ColumnarLogParser;
+import backend.academy.logs.filter.LogFilterField;
+import backend.academy.logs.parser.NginxLogParser;
+import backend.academy.logs.provider.FileView;
+import backend.academy.logs.statistic.StatisticCollector;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.file.PathUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the analysis of the same logs as text lines and as a columnar file written by the ingest,
+ * with all the statistics and with a method filter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+public class ColumnarAnalysisBenchmark {
+    private static final String[] METHODS = {"GET", "GET", "GET", "POST", "HEAD"};
+    private static final int[] STATUSES = {200, 200, 200, 304, 404, 500};
+
+    @Param({"text", "columnar"})
+    public String format;
+
+    @Param({"false", "true"})
+    public boolean filtered;
+
+    @Param("256")
+    public int fileSizeMb;
+
+    private Path directory;
+    private List<FileView> files;
+    private LogAnalyzer analyzer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("columnar-benchmark");
+        Path textFile = directory.resolve("access.log");
+        Random random = new Random(fileSizeMb);
+        long targetSize = fileSizeMb * 1024L * 1024L;
+        try (BufferedWriter writer = Files.newBufferedWriter(textFile, StandardCharsets.UTF_8)) {
+            for (long written = 0; written < targetSize; ) {
+                String line = String.format(
+                    "10.%d.%d.%d - - [%02d/May/2015:%02d:%02d:%02d +0000] \"%s /downloads/product_%d HTTP/1.1\""
+                        + " %d %d \"-\" \"Debian APT-HTTP/1.3 (0.8.16~exp12ubuntu10.%d)\"%n",
+                    random.nextInt(256), random.nextInt(256), random.nextInt(256),
+                    random.nextInt(1, 29), random.nextInt(24), random.nextInt(60), random.nextInt(60),
+                    METHODS[random.nextInt(METHODS.length)], random.nextInt(100),
+                    STATUSES[random.nextInt(STATUSES.length)], random.nextInt(1 << 20), random.nextInt(30)
+                );
+                writer.write(line);
+                written += line.length();
+            }
+        }
+        ColumnarLogParser parser = new ColumnarLogParser(new NginxLogParser());
+        PrintStream errors = new PrintStream(NullOutputStream.INSTANCE);
+        Path file = switch (format) {
+            case "text" -> textFile;
+            case "columnar" -> ColumnarIngest.create(parser, false, errors)
+                .ingest(List.of(FileView.ofLocalFile(textFile)), directory.resolve("columnar")).getFirst();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        files = List.of(FileView.ofLocalFile(file));
+        analyzer = LogAnalyzer.create(
+            parser, filtered ? List.of(LogFilterField.create("method", "POST")) : List.of(), 1, errors
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        PathUtils.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public StatisticCollector analyze() {
+        return analyzer.analyze(files).collector();
+    }
+}
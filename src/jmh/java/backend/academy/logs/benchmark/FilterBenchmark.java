@@ -0,0 +1,74 @@
+package backend.academy.logs.benchmark;
+
+import backend.academy.logs.filter.LogFilter;
+import backend.academy.logs.filter.LogFilterDate;
+import backend.academy.logs.filter.LogFilterField;
+import backend.academy.logs.parser.LogRecord;
+import backend.academy.logs.parser.NginxLogParser;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Evaluation of the filters on parsed logs and of their checks of raw lines, in logs per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class FilterBenchmark {
+    private static final int LINES = 100_000;
+
+    @Param({"date", "method", "resource", "agent"})
+    public String filterKind;
+
+    private List<String> lines;
+    private List<LogRecord> logs;
+    private LogFilter filter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        lines = BenchmarkLogs.lines(LINES, 100, 1000, LINES);
+        logs = new NginxLogParser().parse(lines.stream()).toList();
+        filter = switch (filterKind) {
+            case "date" -> LogFilterDate.create(
+                OffsetDateTime.of(2015, 5, 18, 0, 0, 0, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(2015, 5, 19, 12, 0, 0, 0, ZoneOffset.UTC)
+            );
+            case "method" -> LogFilterField.create("method", "POST|HEAD");
+            case "resource" -> LogFilterField.create("resource", "/downloads/product_1\\d*");
+            case "agent" -> LogFilterField.create("agent", ".*AppleWebKit/99\\d.*");
+            default -> throw new IllegalArgumentException("Unknown filter " + filterKind);
+        };
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public long logs() {
+        return filter.filter(logs.stream()).count();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public long lines() {
+        Predicate<String> lineFilter = filter.createLineFilter().orElse(line -> true);
+        return lines.stream().filter(lineFilter).count();
+    }
+}
@@ -0,0 +1,65 @@
+package backend.academy.logs.benchmark;
+
+import backend.academy.logs.filter.LogFilterField;
+import backend.academy.logs.format.AdocFormatter;
+import backend.academy.logs.format.FormaterAdditionalData;
+import backend.academy.logs.format.MarkdownFormatter;
+import backend.academy.logs.format.StatisticFormatter;
+import backend.academy.logs.parser.NginxLogParser;
+import backend.academy.logs.statistic.StatisticCollector;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendering of the report, the exactly counted resources are all listed,
+ * so the number of distinct resources is the size of the largest table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class FormatterBenchmark {
+    @Param({"markdown", "adoc"})
+    public String format;
+
+    @Param({"100", "10000"})
+    public int resources;
+
+    private StatisticFormatter formatter;
+    private StatisticCollector collector;
+    private FormaterAdditionalData additionalData;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        formatter = switch (format) {
+            case "markdown" -> new MarkdownFormatter();
+            case "adoc" -> new AdocFormatter();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        collector = new StatisticCollector();
+        new NginxLogParser().parse(BenchmarkLogs.lines(20 * resources, 20, resources, resources).stream())
+            .forEach(collector::addLog);
+        additionalData = new FormaterAdditionalData(
+            List.of("access.log"), List.of(LogFilterField.create("method", "GET"))
+        );
+    }
+
+    @Benchmark
+    public String format() {
+        return formatter.format(collector, additionalData);
+    }
+}
@@ -0,0 +1,87 @@
+package backend.academy.logs.benchmark;
+
+import backend.academy.logs.parser.LogField;
+import backend.academy.logs.parser.LogParser;
+import backend.academy.logs.parser.NginxLogParser;
+import backend.academy.logs.parser.NginxScanningLogParser;
+import backend.academy.logs.statistic.StatisticCollector;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares parsing of all the fields with parsing of only the fields the default report needs
+ * on logs with short and long user agents.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ProjectedParsingBenchmark {
+    private static final int LINES = 100_000;
+
+    @Param({"regex", "scanner"})
+    public String parserKind;
+
+    @Param({"20", "200", "1000"})
+    public int agentLength;
+
+    private List<String> lines;
+    private LogParser parser;
+    private Set<LogField> reportFields;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(agentLength);
+        lines = new ArrayList<>(LINES);
+        for (int i = 0; i < LINES; i++) {
+            StringBuilder agent = new StringBuilder(agentLength);
+            while (agent.length() < agentLength) {
+                agent.append("Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/").append(random.nextInt(1000)).append(' ');
+            }
+            lines.add(String.format(
+                "10.0.%d.%d - - [18/May/2015:06:%02d:%02d +0000] \"GET /downloads/product_%d HTTP/1.1\" 200 %d"
+                    + " \"http://example.com/%d\" \"%s\"",
+                random.nextInt(256), random.nextInt(256), random.nextInt(60), random.nextInt(60),
+                random.nextInt(100), random.nextInt(1 << 20), random.nextInt(10), agent.substring(0, agentLength)
+            ));
+        }
+        parser = "regex".equals(parserKind) ? new NginxLogParser() : new NginxScanningLogParser();
+        reportFields = EnumSet.copyOf(new StatisticCollector().requiredFields());
+    }
+
+    @Benchmark
+    public void allFields(Blackhole blackhole) {
+        parser.parse(lines.stream()).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void reportFields(Blackhole blackhole) {
+        parser.parse(lines.stream(), reportFields).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public long reportFieldsCollected() {
+        StatisticCollector collector = new StatisticCollector();
+        parser.parse(lines.stream(), reportFields).forEach(collector::addLog);
+        return collector.requestsCount();
+    }
+}
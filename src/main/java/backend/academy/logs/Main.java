@@ -1,7 +1,13 @@
 package backend.academy.logs;
 
+import backend.academy.logs.analyzer.AnalysisResult;
+import backend.academy.logs.analyzer.AnalyzerOptions;
+import backend.academy.logs.analyzer.LogAnalyzer;
+import backend.academy.logs.analyzer.MalformedLinesPolicy;
+import backend.academy.logs.analyzer.SourceLimits;
+import backend.academy.logs.columnar.ColumnarIngest;
+import backend.academy.logs.columnar.ColumnarLogParser;
 import backend.academy.logs.exceptions.BadFieldException;
-import backend.academy.logs.exceptions.ParseException;
 import backend.academy.logs.filter.LogFilter;
 import backend.academy.logs.filter.LogFilterDate;
 import backend.academy.logs.filter.LogFilterField;
@@ -9,40 +15,80 @@ import backend.academy.logs.format.AdocFormatter;
 import backend.academy.logs.format.FormaterAdditionalData;
 import backend.academy.logs.format.MarkdownFormatter;
 import backend.academy.logs.format.StatisticFormatter;
+import backend.academy.logs.index.TimeIndexStore;
+import backend.academy.logs.metrics.MetricsReport;
+import backend.academy.logs.metrics.PipelineMetrics;
 import backend.academy.logs.output.StatisticFileOutput;
 import backend.academy.logs.parser.LogParser;
-import backend.academy.logs.parser.LogRecord;
+import backend.academy.logs.parser.MalformedLines;
 import backend.academy.logs.parser.NginxLogParser;
+import backend.academy.logs.parser.NginxScanningLogParser;
+import backend.academy.logs.provider.CompositeLogProvider;
+import backend.academy.logs.provider.FileFollower;
 import backend.academy.logs.provider.FileLogProvider;
 import backend.academy.logs.provider.FileView;
 import backend.academy.logs.provider.LogProvider;
+import backend.academy.logs.provider.ReadAhead;
+import backend.academy.logs.provider.ReadAheadStats;
 import backend.academy.logs.provider.UrlLogProvider;
+import backend.academy.logs.serve.ReportServer;
+import backend.academy.logs.serve.ReportService;
+import backend.academy.logs.state.CheckpointStore;
+import backend.academy.logs.statistic.ExactKeyCounter;
+import backend.academy.logs.statistic.ExactSizeDistribution;
+import backend.academy.logs.statistic.KeyCounter;
+import backend.academy.logs.statistic.LogLinearSizeDistribution;
+import backend.academy.logs.statistic.SizeDistribution;
+import backend.academy.logs.statistic.SpaceSavingKeyCounter;
 import backend.academy.logs.statistic.StatisticCollector;
+import backend.academy.logs.statistic.TimeResolution;
+import com.beust.jcommander.IParameterValidator;
 import com.beust.jcommander.IParametersValidator;
 import com.beust.jcommander.IStringConverter;
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
 import com.beust.jcommander.Parameters;
+import com.beust.jcommander.validators.PositiveInteger;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.regex.PatternSyntaxException;
-import java.util.stream.Stream;
+import java.util.stream.Collectors;
 import lombok.experimental.UtilityClass;
+import org.apache.commons.io.function.Uncheck;
 
 @UtilityClass
 public class Main {
+    private static final int PERCENTS = 100;
+    private static final int DEFAULT_REFRESH_INTERVAL_SECONDS = 5;
+    private static final String FOLLOW = "--follow";
+    private static final String STATE_DIR = "--state-dir";
+    private static final String TIME_INDEX_DIR = "--time-index-dir";
+    private static final String INGEST_DIR = "--ingest-dir";
+    private static final String SERVE = "--serve";
+    private static final String METRICS = "--metrics";
+    private static final String READ_AHEAD = "--read-ahead";
+
     @SuppressWarnings(value = "ReturnCount") // otherwise more nested scopes that is harder to read
     public static void main(String[] args) {
         LogAnalyzerArgs jArgs = new LogAnalyzerArgs();
@@ -63,56 +109,219 @@ public class Main {
         }
 
         try {
-            LogProvider provider = getProvider(jArgs.src);
+            List<String> sources = getSources(jArgs);
+            LogProvider provider = getProvider(sources, jArgs.connections);
+            SourceLimits sourceLimits = getSourceLimits(jArgs);
 
             try {
                 List<LogFilter> filters = getFilters(jArgs);
 
                 try {
-                    List<FileView> files = provider.getLogs();
-                    LogParser parser = new NginxLogParser();
-                    StatisticCollector collector = new StatisticCollector();
-                    List<String> filenames = new ArrayList<>();
-
-                    for (FileView file : files) {
-                        collectLogsFromFile(file, parser, filters, filenames, collector);
+                    LogParser parser = new ColumnarLogParser(getParser(jArgs.parser, jArgs.dictionarySize));
+                    if (Objects.nonNull(jArgs.ingestDir)) {
+                        ingest(parser, provider.getLogs(), jArgs);
+                        return;
+                    }
+                    AnalyzerOptions options = getAnalyzerOptions(jArgs, filters);
+                    LogAnalyzer analyzer = LogAnalyzer.create(parser, filters, options, System.err);
+                    if (Objects.nonNull(jArgs.serve)) {
+                        serve(provider, analyzer, filters, parser, sources, sourceLimits, jArgs);
+                    } else if (jArgs.follow) {
+                        Consumer<AnalysisResult> report = analysis ->
+                            printAnalysis(analysis, filters, parser, Optional.empty(), Optional.empty(), jArgs, cmd);
+                        follow(provider, analyzer, report, jArgs);
+                    } else {
+                        AnalysisResult analysis = analyze(
+                            analyzer, sources, provider.getLogs(), sourceLimits, jArgs
+                        );
+                        printAnalysis(
+                            analysis, filters, parser, writeMetrics(options.metrics(), jArgs),
+                            options.readAhead().map(ReadAhead::stats), jArgs, cmd
+                        );
                     }
-
-                    FormaterAdditionalData additionalData = new FormaterAdditionalData(filenames, filters);
-                    StatisticFormatter formatter = getFormatter(jArgs.outputFormat);
-                    String result = formatter.format(collector, additionalData);
-                    printResult(jArgs.dst, System.out, result, cmd);
-
                 } catch (IOException | UncheckedIOException e) {
                     errorAndUsage(cmd, "Can't read provided source: ", e);
                 }
             } catch (BadFieldException | PatternSyntaxException e) {
                 errorAndUsage(cmd, "Bad filters provided: ", e);
             }
-        } catch (IllegalArgumentException | UnsupportedOperationException e) {
+        } catch (IllegalArgumentException | UnsupportedOperationException | UncheckedIOException e) {
             errorAndUsage(cmd, "Can't get source: ", e);
         }
     }
 
-    private static void collectLogsFromFile(
-        FileView file,
+    private static void printAnalysis(
+        AnalysisResult analysis,
+        List<LogFilter> filters,
         LogParser parser,
+        Optional<MetricsReport> pipeline,
+        Optional<ReadAheadStats> readAhead,
+        LogAnalyzerArgs jArgs,
+        JCommander cmd
+    ) {
+        String result = formatAnalysis(analysis, filters, parser, pipeline, readAhead, jArgs.outputFormat);
+        printResult(jArgs.dst, System.out, result, cmd);
+    }
+
+    private static String formatAnalysis(
+        AnalysisResult analysis,
         List<LogFilter> filters,
-        List<String> filenames,
-        StatisticCollector collector
+        LogParser parser,
+        Optional<MetricsReport> pipeline,
+        Optional<ReadAheadStats> readAhead,
+        OutputFormats format
     ) {
-        try (Stream<String> lines = file.getContent()) {
-            Stream<LogRecord> logs = parser.parse(lines);
-            for (LogFilter filter : filters) {
-                logs = filter.filter(logs);
+        List<List<String>> extraMetrics = new ArrayList<>(getParserMetrics(parser));
+        readAhead.ifPresent(stats -> extraMetrics.addAll(getReadAheadMetrics(stats)));
+        if (!analysis.failedSources().isEmpty()) {
+            extraMetrics.add(List.of("Skipped sources", analysis.failedSources().entrySet().stream()
+                .map(failed -> failed.getKey() + " (" + failed.getValue() + ")")
+                .collect(Collectors.joining(", "))));
+        }
+        FormaterAdditionalData additionalData = new FormaterAdditionalData(
+            analysis.fileNames(), filters, extraMetrics, analysis.malformedLines(), pipeline
+        );
+        return getFormatter(format).format(analysis.collector(), additionalData);
+    }
+
+    /**
+     * Ingests the sources and serves the reports of queries until the analyzer is stopped,
+     * in the follow mode the ingested result is updated with the appended lines.
+     */
+    private static void serve(
+        LogProvider provider,
+        LogAnalyzer analyzer,
+        List<LogFilter> filters,
+        LogParser parser,
+        List<String> sources,
+        SourceLimits sourceLimits,
+        LogAnalyzerArgs jArgs
+    ) throws IOException {
+        ReportService service = ReportService.create(
+            analyzer,
+            filters,
+            queried -> Uncheck.apply(
+                filtered -> analyze(filtered, sources, provider.getLogs(), sourceLimits, jArgs), queried
+            ),
+            (analysis, allFilters, format) -> formatAnalysis(
+                analysis, allFilters, parser, Optional.empty(), Optional.empty(), getOutputFormat(format)
+            ),
+            ReportService.DEFAULT_CACHED_QUERIES
+        );
+        if (!jArgs.follow) {
+            service.ingest();
+            // the server keeps running after the main thread ends
+            startServer(service, jArgs);
+            return;
+        }
+        try (FileFollower follower = createFollower(provider)) {
+            service.poll(follower);
+            ReportServer server = startServer(service, jArgs);
+            try {
+                service.follow(follower, getRefreshInterval(jArgs));
+            } finally {
+                server.close();
             }
-            filenames.add(file.name());
-            logs.forEach(collector::addLog);
-        } catch (ParseException e) {
-            System.err.printf("Bad logs in file %s: %s%n", file.name(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
+    private static ReportServer startServer(ReportService service, LogAnalyzerArgs jArgs) throws IOException {
+        ReportServer server = ReportServer.start(service, jArgs.serve, jArgs.outputFormat.name());
+        System.err.println("Serving the reports at " + server.uri());
+        return server;
+    }
+
+    private static void ingest(LogParser parser, List<FileView> sources, LogAnalyzerArgs jArgs) throws IOException {
+        List<Path> files = ColumnarIngest.create(parser, jArgs.skipMalformed, System.err)
+            .ingest(sources, Path.of(jArgs.ingestDir));
+        files.forEach(System.out::println);
+    }
+
+    /**
+     * Writes the collected pipeline metrics to the metrics file.
+     *
+     * @param metrics the metrics or empty if they aren't collected
+     * @return the written metrics
+     */
+    private static Optional<MetricsReport> writeMetrics(Optional<PipelineMetrics> metrics, LogAnalyzerArgs jArgs)
+        throws IOException {
+        if (metrics.isEmpty()) {
+            return Optional.empty();
+        }
+        MetricsReport report = metrics.orElseThrow().report();
+        report.writeJson(Path.of(jArgs.metrics));
+        return Optional.of(report);
+    }
+
+    /**
+     * Analyzes the files with the options.
+     *
+     * @param sources      the given globs and urls
+     * @param files        the files of the sources
+     * @param sourceLimits limits of the sources read at once, see {@link #limitsSources(List, List)}
+     */
+    private static AnalysisResult analyze(
+        LogAnalyzer analyzer,
+        List<String> sources,
+        List<FileView> files,
+        SourceLimits sourceLimits,
+        LogAnalyzerArgs jArgs
+    ) throws IOException {
+        if (Objects.nonNull(jArgs.stateDir)) {
+            return analyzer.analyze(files, CheckpointStore.create(jArgs.stateDir, getConfiguration(jArgs)));
+        }
+        return limitsSources(sources, files) ? analyzer.analyze(files, sourceLimits) : analyzer.analyze(files);
+    }
+
+    /**
+     * Tells whether the files are analyzed as many sources at once with their limits and timeouts:
+     * when several sources are given or some of the files are remote. The files of a single local glob
+     * (e.g. rotated logs) are analyzed by the pool of {@code --threads} with large files split into chunks.
+     *
+     * @param sources the given globs and urls
+     * @param files   the files of the sources
+     */
+    static boolean limitsSources(List<String> sources, List<FileView> files) {
+        return files.size() > 1
+            && (sources.size() > 1 || files.stream().anyMatch(file -> file.localFile().isEmpty()));
+    }
+
+    /**
+     * Describes the options the statistics depend on, so checkpoints of other options aren't continued.
+     */
+    private static String getConfiguration(LogAnalyzerArgs jArgs) {
+        return Arrays.asList(
+            jArgs.from, jArgs.to, jArgs.filtersFields, jArgs.filtersPatterns, jArgs.percentiles,
+            jArgs.topResources, jArgs.topResourcesCapacity, jArgs.skipMalformed, jArgs.maxMalformed, jArgs.series
+        ).toString();
+    }
+
+    private static void follow(
+        LogProvider provider,
+        LogAnalyzer analyzer,
+        Consumer<AnalysisResult> report,
+        LogAnalyzerArgs jArgs
+    ) throws IOException {
+        try (FileFollower follower = createFollower(provider)) {
+            analyzer.follow().follow(follower, getRefreshInterval(jArgs), report);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static FileFollower createFollower(LogProvider provider) throws IOException {
+        if (!(provider instanceof FileLogProvider fileProvider)) {
+            throw new UnsupportedOperationException("only a single glob of local files can be followed");
+        }
+        return FileFollower.create(fileProvider);
+    }
+
+    private static Duration getRefreshInterval(LogAnalyzerArgs jArgs) {
+        return Duration.ofSeconds(Objects.requireNonNullElse(jArgs.refreshInterval, DEFAULT_REFRESH_INTERVAL_SECONDS));
+    }
+
     private static List<LogFilter> getFilters(LogAnalyzerArgs jArgs) {
         List<LogFilter> filters = new ArrayList<>();
         if (Objects.nonNull(jArgs.from) || Objects.nonNull(jArgs.to)) {
@@ -133,9 +342,134 @@ public class Main {
         };
     }
 
-    private static LogProvider getProvider(String src) {
+    private static OutputFormats getOutputFormat(String format) {
+        return Arrays.stream(OutputFormats.values())
+            .filter(value -> value.name().equals(format))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException(
+                "Unknown format " + format + ", expected one of " + Arrays.toString(OutputFormats.values())
+            ));
+    }
+
+    private static LogParser getParser(Parsers parser, int dictionarySize) {
+        return switch (parser) {
+            case regex -> new NginxLogParser(dictionarySize);
+            case scanner -> new NginxScanningLogParser(dictionarySize);
+        };
+    }
+
+    private static List<List<String>> getParserMetrics(LogParser parser) {
+        return parser.dictionaryStats()
+            .map(stats -> List.of(List.of(
+                "Dictionary hit rate",
+                String.format(Locale.ROOT, "%.2f%% of %d lookups, %d evictions",
+                    stats.hitRate() * PERCENTS, stats.lookups(), stats.evictions())
+            )))
+            .orElse(List.of());
+    }
+
+    private static List<List<String>> getReadAheadMetrics(ReadAheadStats stats) {
+        return List.of(
+            List.of(
+                "Read-ahead queue depth",
+                String.format(Locale.ROOT, "%.2f of %d batches on average, %d at most",
+                    stats.averageQueued(), stats.depth(), stats.maxQueued())
+            ),
+            List.of(
+                "Read-ahead stalls",
+                String.format(Locale.ROOT, "readers waited %d ms for the parser, the parser waited %d ms for reads: %s",
+                    TimeUnit.NANOSECONDS.toMillis(stats.readerStallNanos()),
+                    TimeUnit.NANOSECONDS.toMillis(stats.consumerStallNanos()),
+                    stats.readBound() ? "I/O-bound" : "CPU-bound")
+            )
+        );
+    }
+
+    /**
+     * Gets the options of the analyzer, the options which can't be used together are excluded by the validators.
+     */
+    private static AnalyzerOptions getAnalyzerOptions(LogAnalyzerArgs jArgs, List<LogFilter> filters)
+        throws IOException {
+        Optional<TimeIndexStore> timeIndexes = Objects.isNull(jArgs.timeIndexDir)
+            ? Optional.empty()
+            : Optional.of(TimeIndexStore.create(jArgs.timeIndexDir, TimeIndexStore.DEFAULT_BLOCK_SIZE));
+        return new AnalyzerOptions(
+            getCollectorFactory(jArgs),
+            getMalformedLinesPolicy(jArgs),
+            jArgs.threads,
+            LogAnalyzer.DEFAULT_MIN_CHUNK_SIZE,
+            timeIndexes,
+            Optional.ofNullable(jArgs.metrics).map(file -> PipelineMetrics.create(filters)),
+            Optional.ofNullable(jArgs.readAhead).map(depth -> ReadAhead.create(depth, ReadAhead.DEFAULT_BATCH_LINES))
+        );
+    }
+
+    private static Supplier<StatisticCollector> getCollectorFactory(LogAnalyzerArgs jArgs) {
+        Supplier<SizeDistribution> distributionFactory = switch (jArgs.percentiles) {
+            case exact -> ExactSizeDistribution::new;
+            case sketch -> LogLinearSizeDistribution::new;
+        };
+        Supplier<KeyCounter> resourcesCounterFactory;
+        if (Objects.isNull(jArgs.topResources)) {
+            resourcesCounterFactory = ExactKeyCounter::new;
+        } else if (Objects.isNull(jArgs.topResourcesCapacity)) {
+            resourcesCounterFactory = () -> new SpaceSavingKeyCounter(jArgs.topResources);
+        } else {
+            resourcesCounterFactory = () -> new SpaceSavingKeyCounter(jArgs.topResources, jArgs.topResourcesCapacity);
+        }
+        Optional<TimeResolution> seriesResolution = Optional.ofNullable(jArgs.series).map(series -> switch (series) {
+            case minute -> TimeResolution.MINUTE;
+            case hour -> TimeResolution.HOUR;
+            case day -> TimeResolution.DAY;
+        });
+        return () -> new StatisticCollector(
+            distributionFactory.get(), resourcesCounterFactory.get(), seriesResolution
+        );
+    }
+
+    private static MalformedLinesPolicy getMalformedLinesPolicy(LogAnalyzerArgs jArgs) {
+        if (!jArgs.skipMalformed) {
+            return MalformedLinesPolicy.STOP_AT_FIRST;
+        }
+        return MalformedLinesPolicy.skipUpTo(
+            Objects.isNull(jArgs.maxMalformed) ? MalformedLines.UNLIMITED : jArgs.maxMalformed
+        );
+    }
+
+    /**
+     * Gets the sources given by the options and listed in the sources file.
+     *
+     * @throws UncheckedIOException if the sources file can't be read
+     */
+    private static List<String> getSources(LogAnalyzerArgs jArgs) {
+        List<String> sources = new ArrayList<>(Objects.requireNonNullElse(jArgs.src, List.of()));
+        if (Objects.nonNull(jArgs.sourcesFile)) {
+            Uncheck.get(() -> Files.readAllLines(Path.of(jArgs.sourcesFile))).stream()
+                .map(String::strip)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .forEach(sources::add);
+        }
+        return sources;
+    }
+
+    private static LogProvider getProvider(List<String> sources, int connections) {
+        if (sources.size() == 1) {
+            return getProvider(sources.getFirst(), connections);
+        }
+        return CompositeLogProvider.create(sources.stream().map(src -> getProvider(src, connections)).toList());
+    }
+
+    private static SourceLimits getSourceLimits(LogAnalyzerArgs jArgs) {
+        return new SourceLimits(
+            jArgs.concurrentSources,
+            jArgs.concurrentSourcesPerHost,
+            Optional.ofNullable(jArgs.sourceTimeout).map(Duration::ofSeconds)
+        );
+    }
+
+    private static LogProvider getProvider(String src, int connections) {
         try {
-            return UrlLogProvider.create(src);
+            return UrlLogProvider.create(src, connections, UrlLogProvider.DEFAULT_SEGMENT_SIZE);
         } catch (MalformedURLException | URISyntaxException | IllegalArgumentException e) {
             return FileLogProvider.create(".", src);
         }
@@ -171,6 +505,23 @@ public class Main {
         }
     }
 
+    /**
+     * Validates counts and intervals which can't be 0, unlike {@link PositiveInteger} which accepts it.
+     */
+    public static class StrictlyPositiveInteger implements IParameterValidator {
+        @Override
+        public void validate(String name, String value) throws ParameterException {
+            try {
+                if (Integer.parseInt(value) > 0) {
+                    return;
+                }
+            } catch (NumberFormatException e) {
+                // reported as not positive below
+            }
+            throw new ParameterException("Parameter " + name + " should be strictly positive (found " + value + ")");
+        }
+    }
+
     public static class FieldsAndPatternToFilterHaveTheSameLength implements IParametersValidator {
         @Override
         public void validate(Map<String, Object> parameters) throws ParameterException {
@@ -183,18 +534,149 @@ public class Main {
         }
     }
 
+    public static class TopResourcesCapacityFitsTopResources implements IParametersValidator {
+        @Override
+        public void validate(Map<String, Object> parameters) throws ParameterException {
+            Integer top = (Integer) parameters.get("--top-resources");
+            Integer capacity = (Integer) parameters.get("--top-resources-capacity");
+            if (Objects.nonNull(capacity) && (Objects.isNull(top) || capacity < top)) {
+                throw new ParameterException("top resources capacity requires top resources and can't be less");
+            }
+        }
+    }
+
+    public static class RefreshIntervalRequiresFollow implements IParametersValidator {
+        @Override
+        public void validate(Map<String, Object> parameters) throws ParameterException {
+            if (Objects.nonNull(parameters.get("--refresh-interval"))
+                && !Boolean.TRUE.equals(parameters.get(FOLLOW))) {
+                throw new ParameterException("refresh interval requires following the files");
+            }
+        }
+    }
+
+    public static class TimeIndexDirRequiresTimeRange implements IParametersValidator {
+        @Override
+        public void validate(Map<String, Object> parameters) throws ParameterException {
+            if (Objects.nonNull(parameters.get(TIME_INDEX_DIR)) && Objects.isNull(parameters.get(SERVE))
+                && Objects.isNull(parameters.get("--from")) && Objects.isNull(parameters.get("--to"))) {
+                throw new ParameterException("time index directory requires the time range to analyze");
+            }
+        }
+    }
+
+    /**
+     * Rejects the options given together with the options they exclude, a new mode adds only its row.
+     */
+    public static class ExclusiveOptions implements IParametersValidator {
+        private static final List<Map.Entry<String, List<String>>> EXCLUDED = List.of(
+            Map.entry(STATE_DIR, List.of(FOLLOW)),
+            Map.entry(INGEST_DIR, List.of(FOLLOW, STATE_DIR)),
+            Map.entry(TIME_INDEX_DIR, List.of(FOLLOW, STATE_DIR)),
+            Map.entry(METRICS, List.of(FOLLOW, INGEST_DIR)),
+            Map.entry(READ_AHEAD, List.of(FOLLOW, INGEST_DIR)),
+            Map.entry(SERVE, List.of(STATE_DIR, INGEST_DIR, METRICS, READ_AHEAD))
+        );
+
+        @Override
+        public void validate(Map<String, Object> parameters) throws ParameterException {
+            for (Map.Entry<String, List<String>> entry : EXCLUDED) {
+                if (isGiven(parameters, entry.getKey())) {
+                    for (String excluded : entry.getValue()) {
+                        if (isGiven(parameters, excluded)) {
+                            throw new ParameterException(entry.getKey() + " can't be used with " + excluded);
+                        }
+                    }
+                }
+            }
+        }
+
+        private static boolean isGiven(Map<String, Object> parameters, String name) {
+            Object value = parameters.get(name);
+            return Objects.nonNull(value) && !Boolean.FALSE.equals(value);
+        }
+    }
+
+    public static class MaxMalformedRequiresSkipMalformed implements IParametersValidator {
+        @Override
+        public void validate(Map<String, Object> parameters) throws ParameterException {
+            if (Objects.nonNull(parameters.get("--max-malformed"))
+                && !Boolean.TRUE.equals(parameters.get("--skip-malformed"))) {
+                throw new ParameterException("max malformed lines requires skipping malformed lines");
+            }
+        }
+    }
+
     public enum OutputFormats {
         markdown, adoc
     }
 
-    @Parameters(parametersValidators = FieldsAndPatternToFilterHaveTheSameLength.class)
+    public enum Parsers {
+        regex, scanner
+    }
+
+    public enum PercentileModes {
+        exact, sketch
+    }
+
+    public enum SeriesResolutions {
+        minute, hour, day
+    }
+
+    public static class SourcesGiven implements IParametersValidator {
+        @Override
+        public void validate(Map<String, Object> parameters) throws ParameterException {
+            boolean sourcesGiven = parameters.get("--source") instanceof List<?> sources && !sources.isEmpty();
+            if (!sourcesGiven && Objects.isNull(parameters.get("--sources-file"))) {
+                throw new ParameterException("sources or a file listing the sources should be given");
+            }
+        }
+    }
+
+    @Parameters(parametersValidators = {
+        SourcesGiven.class,
+        FieldsAndPatternToFilterHaveTheSameLength.class,
+        TopResourcesCapacityFitsTopResources.class,
+        MaxMalformedRequiresSkipMalformed.class,
+        RefreshIntervalRequiresFollow.class,
+        TimeIndexDirRequiresTimeRange.class,
+        ExclusiveOptions.class
+    })
     public static class LogAnalyzerArgs {
         @Parameter(
             names = {"--source", "--src", "-s"},
-            description = "glob/url for log file(-s) to analyze",
-            required = true
+            description = "globs/urls for log file(-s) to analyze",
+            variableArity = true
+        )
+        public List<String> src;
+
+        @Parameter(
+            names = "--sources-file",
+            description = "file listing globs/urls to analyze, one per line, blank lines and lines starting with # "
+                + "are ignored"
+        )
+        public String sourcesFile;
+
+        @Parameter(
+            names = "--concurrent-sources",
+            description = "maximum number of sources read at once when several sources are given",
+            validateWith = StrictlyPositiveInteger.class
+        )
+        public int concurrentSources = SourceLimits.DEFAULT_CONCURRENT_SOURCES;
+
+        @Parameter(
+            names = "--concurrent-sources-per-host",
+            description = "maximum number of sources of the same host read at once when several sources are given",
+            validateWith = StrictlyPositiveInteger.class
         )
-        public String src;
+        public int concurrentSourcesPerHost = SourceLimits.DEFAULT_PER_HOST;
+
+        @Parameter(
+            names = "--source-timeout",
+            description = "seconds to read a source when several sources are given, after which it is skipped",
+            validateWith = StrictlyPositiveInteger.class
+        )
+        public Integer sourceTimeout;
 
         @Parameter(
             names = {"--from", "-f"},
@@ -236,6 +718,133 @@ public class Main {
         )
         public String dst;
 
+        @Parameter(
+            names = {"--parser", "-p"},
+            description = "parser implementation, the scanner falls back to the regex for lines it rejects"
+        )
+        public Parsers parser = Parsers.regex;
+
+        @Parameter(
+            names = {"--threads", "-j"},
+            description = "number of files or chunks of large files analyzed in parallel",
+            validateWith = StrictlyPositiveInteger.class
+        )
+        public int threads = 1;
+
+        @Parameter(
+            names = READ_AHEAD,
+            description = "number of batches of lines of a file read ahead of the parser by a separate thread",
+            validateWith = StrictlyPositiveInteger.class
+        )
+        public Integer readAhead;
+
+        @Parameter(
+            names = "--connections",
+            description = "number of parallel HTTP range requests downloading a URL source",
+            validateWith = StrictlyPositiveInteger.class
+        )
+        public int connections = UrlLogProvider.DEFAULT_CONNECTIONS;
+
+        @Parameter(
+            names = {"--percentiles", "-q"},
+            description = "response size percentiles: exact keeps every size, sketch uses fixed memory with 0.4% error"
+        )
+        public PercentileModes percentiles = PercentileModes.exact;
+
+        @Parameter(
+            names = {"--series"},
+            description = "add a table of requests, bytes, status classes and response sizes "
+                + "per time bucket of this resolution"
+        )
+        public SeriesResolutions series;
+
+        @Parameter(
+            names = {"--top-resources", "-k"},
+            description = "report only this number of the most requested resources counted approximately "
+                + "in fixed memory, all the resources are counted exactly by default",
+            validateWith = StrictlyPositiveInteger.class
+        )
+        public Integer topResources;
+
+        @Parameter(
+            names = {"--top-resources-capacity"},
+            description = "number of resources monitored to find the top ones, 10 times the top by default",
+            validateWith = StrictlyPositiveInteger.class
+        )
+        public Integer topResourcesCapacity;
+
+        @Parameter(
+            names = {"--dictionary-size"},
+            description = "number of repeated methods, users, referers and agents kept to reuse "
+                + "instead of copying them for every log, 0 disables the dictionary",
+            validateWith = PositiveInteger.class
+        )
+        public int dictionarySize = 0;
+
+        @Parameter(
+            names = {"--skip-malformed"},
+            description = "skip and count malformed lines instead of stopping the analysis of their file"
+        )
+        public boolean skipMalformed = false;
+
+        @Parameter(
+            names = {"--max-malformed"},
+            description = "number of skipped malformed lines in a file after which the rest of the file is skipped, "
+                + "unlimited by default",
+            validateWith = PositiveInteger.class
+        )
+        public Integer maxMalformed;
+
+        @Parameter(
+            names = {FOLLOW, "-F"},
+            description = "keep reading the lines appended to the local files like tail -F "
+                + "and print the report every refresh interval until stopped"
+        )
+        public boolean follow = false;
+
+        @Parameter(
+            names = {"--refresh-interval"},
+            description = "seconds between the reports in the follow mode, 5 by default",
+            validateWith = StrictlyPositiveInteger.class
+        )
+        public Integer refreshInterval;
+
+        @Parameter(
+            names = {STATE_DIR},
+            description = "directory to keep checkpoints of the analyzed files in, "
+                + "so the next analysis reads only the appended bytes"
+        )
+        public String stateDir;
+
+        @Parameter(
+            names = {TIME_INDEX_DIR},
+            description = "directory to keep time indexes of the analyzed local files in, so only the parts "
+                + "of the files which may have logs in the time range are read"
+        )
+        public String timeIndexDir;
+
+        @Parameter(
+            names = {INGEST_DIR},
+            description = "instead of analyzing, convert every source into a columnar file of parsed logs "
+                + "in this directory, the files are analyzed as sources much faster than the lines"
+        )
+        public String ingestDir;
+
+        @Parameter(
+            names = {SERVE},
+            description = "instead of printing the report, ingest the sources once and serve the reports "
+                + "of queries with the filters and the format at http://127.0.0.1:<port>/report",
+            validateWith = PositiveInteger.class
+        )
+        public Integer serve;
+
+        @Parameter(
+            names = {METRICS},
+            description = "time and count the pipeline stages of every file, add them to the report "
+                + "and write them as JSON to this file"
+        )
+        public String metrics;
+
         @Parameter(
             names = {"--help", "-h"},
             description = "show help",
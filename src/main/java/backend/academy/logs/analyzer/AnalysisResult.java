@@ -0,0 +1,33 @@
+package backend.academy.logs.analyzer;
+
+import backend.academy.logs.parser.MalformedLines;
+import backend.academy.logs.statistic.StatisticCollector;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of the analysis.
+ *
+ * @param fileNames      names of the analyzed files, the failed sources aren't included
+ * @param malformedLines malformed lines skipped in the files by their names in the order of files,
+ *                       empty if malformed lines stop the files
+ * @param failedSources  reasons of the sources which couldn't be read by their names, their logs aren't counted
+ */
+public record AnalysisResult(
+    StatisticCollector collector,
+    List<String> fileNames,
+    Map<String, MalformedLines> malformedLines,
+    Map<String, String> failedSources
+) {
+    public AnalysisResult(StatisticCollector collector, List<String> fileNames) {
+        this(collector, fileNames, Map.of());
+    }
+
+    public AnalysisResult(
+        StatisticCollector collector,
+        List<String> fileNames,
+        Map<String, MalformedLines> malformedLines
+    ) {
+        this(collector, fileNames, malformedLines, Map.of());
+    }
+}
@@ -0,0 +1,58 @@
+package backend.academy.logs.analyzer;
+
+import backend.academy.logs.index.TimeIndexStore;
+import backend.academy.logs.metrics.PipelineMetrics;
+import backend.academy.logs.provider.ReadAhead;
+import backend.academy.logs.statistic.StatisticCollector;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+import lombok.With;
+
+/**
+ * Options of a {@link LogAnalyzer} besides its parser and filters.
+ *
+ * @param collectorFactory creates empty collectors of the same kind, one per file or chunk in the parallel mode
+ * @param malformedPolicy  whether malformed lines stop their file or are skipped
+ * @param threads          number of files or their chunks analyzed simultaneously
+ * @param minChunkSize     minimum size in bytes of a chunk a local file is split into to be analyzed in parallel
+ * @param timeIndexes      store of the time indexes of the local plain files, so only the parts of the files
+ *                         which may have logs passing the time filters are read
+ * @param metrics          metrics to add the counts and the times of the stages of every analyzed file to
+ * @param readAhead        read-ahead reading the lines of every file or chunk by a separate thread ahead of the parser
+ */
+@With
+public record AnalyzerOptions(
+    Supplier<StatisticCollector> collectorFactory,
+    MalformedLinesPolicy malformedPolicy,
+    int threads,
+    long minChunkSize,
+    Optional<TimeIndexStore> timeIndexes,
+    Optional<PipelineMetrics> metrics,
+    Optional<ReadAhead> readAhead
+) {
+    public AnalyzerOptions {
+        Objects.requireNonNull(collectorFactory);
+        Objects.requireNonNull(malformedPolicy);
+        Objects.requireNonNull(timeIndexes);
+        Objects.requireNonNull(metrics);
+        Objects.requireNonNull(readAhead);
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads count must be positive, got " + threads);
+        }
+        if (minChunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive, got " + minChunkSize);
+        }
+    }
+
+    /**
+     * Options of a single thread collecting the full statistics and stopping a file at its first malformed line,
+     * without indexes, metrics and read-ahead.
+     */
+    public static AnalyzerOptions defaults() {
+        return new AnalyzerOptions(
+            StatisticCollector::new, MalformedLinesPolicy.STOP_AT_FIRST, 1, LogAnalyzer.DEFAULT_MIN_CHUNK_SIZE,
+            Optional.empty(), Optional.empty(), Optional.empty()
+        );
+    }
+}
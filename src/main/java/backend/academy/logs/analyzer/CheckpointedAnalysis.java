@@ -0,0 +1,133 @@
+package backend.academy.logs.analyzer;
+
+import backend.academy.logs.parser.MalformedLines;
+import backend.academy.logs.provider.FileView;
+import backend.academy.logs.state.CheckpointStore;
+import backend.academy.logs.state.FileCheckpoint;
+import backend.academy.logs.state.FileIdentity;
+import backend.academy.logs.statistic.StatisticCollector;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.io.function.Uncheck;
+
+/**
+ * Analysis continuing from the checkpoints of the files, see {@link LogAnalyzer#analyze(List, CheckpointStore)}.
+ * The new bytes of all the files are analyzed in chunks in parallel and the results are merged in the order
+ * of files into the statistics restored from their checkpoints.
+ */
+class CheckpointedAnalysis {
+    private final LogAnalyzer analyzer;
+    private final CheckpointStore checkpoints;
+
+    CheckpointedAnalysis(LogAnalyzer analyzer, CheckpointStore checkpoints) {
+        this.analyzer = analyzer;
+        this.checkpoints = checkpoints;
+    }
+
+    AnalysisResult analyze(List<FileView> files) {
+        Map<String, MalformedLines> malformed = new LinkedHashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(analyzer.options().threads());
+        try {
+            List<ResumedFile> resumed = new ArrayList<>(files.size());
+            for (FileView file : files) {
+                resumed.add(Uncheck.apply(this::resume, file, executor));
+            }
+
+            StatisticCollector collector = analyzer.newCollector();
+            for (ResumedFile file : resumed) {
+                StatisticCollector fileCollector = finish(file, malformed);
+                collector.merge(fileCollector);
+            }
+            return new AnalysisResult(
+                collector, files.stream().map(FileView::name).toList(), Collections.unmodifiableMap(malformed)
+            );
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Restores the checkpoint of the file and starts the analysis of the new bytes.
+     */
+    private ResumedFile resume(FileView file, ExecutorService executor) throws IOException {
+        Optional<Path> path = file.localFile();
+        FileIdentity identity = path.isPresent() ? FileIdentity.of(path.orElseThrow()) : null;
+        Optional<FileCheckpoint> checkpoint = path.isPresent()
+            ? checkpoints.load(path.orElseThrow())
+            : Optional.empty();
+        boolean whole = file.isLocalGzip() || analyzer.preparsedFile(file).isPresent();
+        if (whole) {
+            // compressed and preparsed files can't be continued, they are analyzed again unless they are the same
+            checkpoint = checkpoint.filter(previous -> previous.identity().size() == identity.size());
+        }
+
+        List<FileView> chunks;
+        long end;
+        if (checkpoint.isPresent() && checkpoint.orElseThrow().stopped()) {
+            chunks = List.of();
+            end = checkpoint.orElseThrow().offset();
+        } else if (path.isEmpty() || whole) {
+            chunks = checkpoint.isPresent() ? List.of() : analyzer.splitFile(file);
+            end = identity == null ? 0 : identity.size();
+        } else {
+            long start = checkpoint.map(FileCheckpoint::offset).orElse(0L);
+            end = Math.max(start, file.completeLinesEnd());
+            chunks = file.splitRange(start, end, analyzer.options().threads(), analyzer.options().minChunkSize());
+        }
+
+        StatisticCollector collector = checkpoint.map(FileCheckpoint::collector).orElseGet(analyzer::newCollector);
+        MalformedLines malformed = checkpoint.map(FileCheckpoint::malformed)
+            .orElseGet(() -> new MalformedLines(analyzer.options().malformedPolicy().limit()));
+        long remainingLimit = malformed.limit() - malformed.count();
+        List<Future<LogAnalyzer.ChunkResult>> results = new ArrayList<>(chunks.size());
+        for (FileView chunk : chunks) {
+            results.add(executor.submit(() -> analyzer.analyzeChunk(chunk, remainingLimit)));
+        }
+        String badLogs = checkpoint.map(FileCheckpoint::badLogs).orElse(null);
+        return new ResumedFile(file, identity, end, chunks, results, collector, malformed, badLogs);
+    }
+
+    /**
+     * Merges the results of the new bytes into the restored statistics of the file and saves its checkpoint.
+     *
+     * @return the statistics of the whole file
+     */
+    private StatisticCollector finish(ResumedFile file, Map<String, MalformedLines> malformed) {
+        String badLogs = file.badLogs() != null
+            ? file.badLogs()
+            : analyzer.mergeChunks(file.chunks(), file.results(), file.collector(), file.malformed()).orElse(null);
+        if (badLogs != null) {
+            analyzer.reportBadLogs(file.view().name(), badLogs);
+        }
+        analyzer.addMalformedLines(file.view(), file.malformed(), malformed);
+
+        if (file.identity() != null) {
+            FileCheckpoint checkpoint = new FileCheckpoint(
+                checkpoints.configuration(), file.identity(), file.end(), file.collector(), file.malformed(), badLogs
+            );
+            Uncheck.accept(saved -> checkpoints.save(file.view().localFile().orElseThrow(), saved), checkpoint);
+        }
+        return file.collector();
+    }
+
+    private record ResumedFile(
+        FileView view,
+        FileIdentity identity,
+        long end,
+        List<FileView> chunks,
+        List<Future<LogAnalyzer.ChunkResult>> results,
+        StatisticCollector collector,
+        MalformedLines malformed,
+        String badLogs
+    ) {
+    }
+}
@@ -0,0 +1,144 @@
+package backend.academy.logs.analyzer;
+
+import backend.academy.logs.jfr.AnalyzerEvents;
+import backend.academy.logs.parser.MalformedLines;
+import backend.academy.logs.provider.FileView;
+import backend.academy.logs.statistic.StatisticCollector;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Analysis of many sources at once, see {@link LogAnalyzer#analyze(List, SourceLimits)}.
+ * Every source takes a permit of its host first and then a permit of all the sources, so the sources waiting
+ * for a busy host don't take the permits the other hosts could use. Every source is collected apart,
+ * so a failed source leaves nothing in the result and doesn't stop the other sources.
+ */
+class ConcurrentSourcesAnalysis {
+    private final LogAnalyzer analyzer;
+    private final SourceLimits limits;
+    private final Semaphore sourcePermits;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    ConcurrentSourcesAnalysis(LogAnalyzer analyzer, SourceLimits limits) {
+        this.analyzer = analyzer;
+        this.limits = limits;
+        this.sourcePermits = new Semaphore(limits.concurrentSources());
+    }
+
+    AnalysisResult analyze(List<FileView> sources) {
+        try {
+            List<Future<SourceResult>> results = new ArrayList<>(sources.size());
+            for (FileView source : sources) {
+                results.add(executor.submit(() -> analyzeSource(source)));
+            }
+
+            StatisticCollector collector = analyzer.newCollector();
+            List<String> fileNames = new ArrayList<>(sources.size());
+            Map<String, MalformedLines> malformed = new LinkedHashMap<>();
+            Map<String, String> failed = new LinkedHashMap<>();
+            for (int i = 0; i < sources.size(); i++) {
+                FileView source = sources.get(i);
+                SourceResult result = LogAnalyzer.await(results.get(i));
+                if (result.failure().isPresent()) {
+                    analyzer.reportFailedSource(source.name(), result.failure().orElseThrow());
+                    failed.put(source.name(), result.failure().orElseThrow());
+                    continue;
+                }
+                LogAnalyzer.ChunkResult analysis = result.analysis().orElseThrow();
+                fileNames.add(source.name());
+                AnalyzerEvents.merge(collector, analysis.collector());
+                analysis.error().ifPresent(error -> analyzer.reportBadLogs(source.name(), error));
+                analyzer.addMalformedLines(source, analysis.malformed(), malformed);
+            }
+            return new AnalysisResult(
+                collector, fileNames, Collections.unmodifiableMap(malformed), Collections.unmodifiableMap(failed)
+            );
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private SourceResult analyzeSource(FileView source) throws InterruptedException {
+        Optional<Semaphore> host = source.host()
+            .map(name -> hostPermits.computeIfAbsent(name, key -> new Semaphore(limits.perHost())));
+        if (host.isPresent()) {
+            host.orElseThrow().acquire();
+        }
+        try {
+            sourcePermits.acquire();
+            try {
+                return limits.timeout().isEmpty() ? read(source) : readWithTimeout(source);
+            } finally {
+                sourcePermits.release();
+            }
+        } finally {
+            host.ifPresent(Semaphore::release);
+        }
+    }
+
+    /**
+     * Reads the source by another virtual thread, which is interrupted after the timeout.
+     * The permits are kept until the interrupted thread actually stops, so the sources read at once
+     * never exceed the limits, even if a source in I/O which ignores interrupts (e.g. a local file)
+     * is still read for a while after its timeout.
+     */
+    private SourceResult readWithTimeout(FileView source) throws InterruptedException {
+        CountDownLatch stopped = new CountDownLatch(1);
+        Future<SourceResult> reading = executor.submit(() -> {
+            try {
+                return read(source);
+            } finally {
+                stopped.countDown();
+            }
+        });
+        try {
+            return reading.get(limits.timeout().orElseThrow().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            reading.cancel(true);
+            stopped.await();
+            return SourceResult.failed("not read in " + limits.timeout().orElseThrow());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Analysis of " + source.name() + " failed", e.getCause());
+        }
+    }
+
+    /**
+     * Reads the source, any failure of the source (e.g. a bad response of its host) fails only the source.
+     */
+    private SourceResult read(FileView source) {
+        try {
+            return new SourceResult(Optional.of(analyzer.analyzeFile(source)), Optional.empty());
+        } catch (UncheckedIOException e) {
+            return SourceResult.failed(e.getCause().toString());
+        } catch (RuntimeException e) {
+            return SourceResult.failed(e.toString());
+        }
+    }
+
+    /**
+     * Result of a source, either the analysis or the reason of the failure.
+     */
+    private record SourceResult(Optional<LogAnalyzer.ChunkResult> analysis, Optional<String> failure) {
+        static SourceResult failed(String reason) {
+            return new SourceResult(Optional.empty(), Optional.of(reason));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package backend.academy.logs.analyzer;
+
+import backend.academy.logs.parser.MalformedLines;
+import backend.academy.logs.provider.FileFollower;
+import backend.academy.logs.statistic.StatisticCollector;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Analysis of growing files: the lines are added to a single collector as they are appended,
+ * so the result can be reported at any moment without reading the files again.
+ * Malformed lines are handled per file as in {@link LogAnalyzer#analyze(List)}: a bad log stops its file
+ * and skipped malformed lines are counted across all the lines appended to the file. The files are told apart
+ * by the read ids of {@link FileFollower}, so a file renamed by rotation keeps its state under its new name,
+ * while a new or truncated file with the same name is analyzed from scratch. The malformed lines of the files
+ * which had the same name are reported together.
+ * Not thread-safe, the lines are appended and the result is reported by the same thread.
+ */
+public class FollowingAnalysis {
+    private final LogAnalyzer analyzer;
+    private final StatisticCollector collector;
+    private final Set<String> fileNames = new LinkedHashSet<>();
+    private final Map<Object, FollowedFile> files = new LinkedHashMap<>();
+
+    FollowingAnalysis(LogAnalyzer analyzer, StatisticCollector collector) {
+        this.analyzer = analyzer;
+        this.collector = collector;
+    }
+
+    /**
+     * Analyzes the lines appended to the file, the file is identified by its name.
+     *
+     * @param fileName name of the file to be shown in the report
+     * @param lines    complete lines in the order of the file
+     */
+    public void append(String fileName, List<String> lines) {
+        append((Object) fileName, fileName, lines);
+    }
+
+    /**
+     * Analyzes the lines read by {@link FileFollower} from the file.
+     *
+     * @param readId   read id of the file given by the follower
+     * @param fileName current name of the file to be shown in the report
+     * @param lines    complete lines in the order of the file
+     */
+    public void append(long readId, String fileName, List<String> lines) {
+        append((Object) readId, fileName, lines);
+    }
+
+    private void append(Object key, String fileName, List<String> lines) {
+        fileNames.add(fileName);
+        FollowedFile file = files.computeIfAbsent(
+            key, k -> new FollowedFile(new MalformedLines(analyzer.options().malformedPolicy().limit()))
+        );
+        file.name = fileName;
+        if (file.stopped) {
+            return;
+        }
+        Optional<String> error;
+        try (Stream<String> stream = lines.stream()) {
+            error = analyzer.collectLogs(stream, collector, file.malformed);
+        }
+        if (error.isPresent()) {
+            analyzer.reportBadLogs(fileName, error.orElseThrow());
+            file.stopped = true;
+        } else if (file.malformed.limitExceeded()) {
+            analyzer.reportTooManyMalformedLines(fileName, file.malformed.limit());
+            file.stopped = true;
+        }
+    }
+
+    /**
+     * Gets the result of the lines appended so far.
+     * The collector is the live one, so it must not be used after the next lines are appended.
+     *
+     * @return the result of the analysis
+     */
+    public AnalysisResult result() {
+        if (!analyzer.options().malformedPolicy().skip()) {
+            return new AnalysisResult(collector, List.copyOf(fileNames), Map.of());
+        }
+        Map<String, MalformedLines> malformed = new LinkedHashMap<>();
+        for (FollowedFile file : files.values()) {
+            malformed.merge(file.name, file.malformed, (first, second) -> {
+                MalformedLines merged = new MalformedLines(first.limit());
+                merged.merge(first);
+                merged.merge(second);
+                return merged;
+            });
+        }
+        return new AnalysisResult(collector, List.copyOf(fileNames), Collections.unmodifiableMap(malformed));
+    }
+
+    /**
+     * Reads the lines appended to the followed files and reports the result every interval,
+     * until the thread is interrupted.
+     *
+     * @param follower follower of the files, the first poll reads them from the start
+     * @param interval interval between the reports
+     * @param report   consumer of the results
+     * @throws IOException          if the files can't be read
+     * @throws InterruptedException when the thread is interrupted
+     */
+    public void follow(FileFollower follower, Duration interval, Consumer<AnalysisResult> report)
+        throws IOException, InterruptedException {
+        while (true) {
+            long start = System.nanoTime();
+            follower.poll((readId, fileName, lines) -> append(readId, fileName, lines));
+            report.accept(result());
+            long elapsed = System.nanoTime() - start;
+            Thread.sleep(Duration.ofNanos(Math.max(0, interval.toNanos() - elapsed)));
+        }
+    }
+
+    /**
+     * State of a file: its current name, its malformed lines and whether the rest of it is skipped.
+     */
+    private static final class FollowedFile {
+        private final MalformedLines malformed;
+        private String name;
+        private boolean stopped = false;
+
+        private FollowedFile(MalformedLines malformed) {
+            this.malformed = malformed;
+        }
+    }
+}
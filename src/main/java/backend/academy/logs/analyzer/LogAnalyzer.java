@@ -0,0 +1,481 @@
+package backend.academy.logs.analyzer;
+
+import backend.academy.logs.exceptions.ParseException;
+import backend.academy.logs.filter.LogFilter;
+import backend.academy.logs.index.TimeIndex;
+import backend.academy.logs.jfr.AnalyzerEvents;
+import backend.academy.logs.metrics.PipelineMetrics;
+import backend.academy.logs.metrics.Stage;
+import backend.academy.logs.metrics.StageMetrics;
+import backend.academy.logs.parser.LogField;
+import backend.academy.logs.parser.LogParser;
+import backend.academy.logs.parser.LogRecord;
+import backend.academy.logs.parser.MalformedLines;
+import backend.academy.logs.provider.FileView;
+import backend.academy.logs.state.CheckpointStore;
+import backend.academy.logs.statistic.StatisticCollector;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import org.apache.commons.io.function.Uncheck;
+
+/**
+ * Runs the analysis pipeline (read, parse, filter, collect) over the given files.
+ * In the parallel mode large local files are split into line-aligned chunks, every file or chunk
+ * is analyzed into its own collector and the collectors are merged in the order of files,
+ * so the result is the same as for the sequential run.
+ * The parser extracts only the fields read by the filters and the collectors,
+ * lines the filters can reject without parsing aren't parsed at all.
+ * Local files the parser reads as already parsed logs (see {@link LogParser#isPreparsed}) skip the line stages.
+ * Malformed lines either stop the analysis of their file or are skipped and counted per file
+ * until the limit of {@link MalformedLinesPolicy}.
+ * The stages can be timed and counted per file into {@link PipelineMetrics}, the pipeline isn't instrumented otherwise.
+ */
+public class LogAnalyzer {
+    public static final long DEFAULT_MIN_CHUNK_SIZE = 8L * 1024 * 1024;
+
+    private final LogParser parser;
+    private final List<LogFilter> filters;
+    private final AnalyzerOptions options;
+    private final PrintStream errors;
+    private final Set<LogField> requiredFields;
+    private final Optional<BiPredicate<LocalDateTime, LocalDateTime>> timeRangeFilter;
+
+    private LogAnalyzer(LogParser parser, List<LogFilter> filters, AnalyzerOptions options, PrintStream errors) {
+        this.parser = parser;
+        this.filters = List.copyOf(filters);
+        this.options = options;
+        this.errors = errors;
+        this.requiredFields = requiredFields(this.filters, options.collectorFactory().get());
+        this.timeRangeFilter = timeRangeFilter(this.filters);
+    }
+
+    /**
+     * Creates the analyzer with the {@link AnalyzerOptions#defaults() default options}.
+     *
+     * @param parser  parser of raw log lines, must be thread-safe if more than one thread is used
+     * @param filters filters applied to parsed logs
+     * @param threads number of files or their chunks analyzed simultaneously
+     * @param errors  stream to report files with bad logs to
+     * @return the analyzer
+     */
+    public static LogAnalyzer create(LogParser parser, List<LogFilter> filters, int threads, PrintStream errors) {
+        return create(parser, filters, AnalyzerOptions.defaults().withThreads(threads), errors);
+    }
+
+    /**
+     * Creates the analyzer.
+     *
+     * @param options options of the analysis, e.g. {@code AnalyzerOptions.defaults().withThreads(4)}
+     * @see #create(LogParser, List, int, PrintStream)
+     */
+    public static LogAnalyzer create(
+        LogParser parser,
+        List<LogFilter> filters,
+        AnalyzerOptions options,
+        PrintStream errors
+    ) {
+        return new LogAnalyzer(parser, filters, options, errors);
+    }
+
+    private static Set<LogField> requiredFields(List<LogFilter> filters, StatisticCollector collector) {
+        Set<LogField> fields = EnumSet.noneOf(LogField.class);
+        fields.addAll(collector.requiredFields());
+        filters.forEach(filter -> fields.addAll(filter.requiredFields()));
+        return fields;
+    }
+
+    private static Optional<BiPredicate<LocalDateTime, LocalDateTime>> timeRangeFilter(List<LogFilter> filters) {
+        return filters.stream()
+            .map(LogFilter::createTimeRangeFilter)
+            .flatMap(Optional::stream)
+            .reduce(BiPredicate::and);
+    }
+
+    /**
+     * Creates the analyzer of the same files with other filters, e.g. for another query of the same sources.
+     *
+     * @param otherFilters filters replacing the filters of this analyzer
+     * @return the analyzer with the same options
+     */
+    public LogAnalyzer withFilters(List<LogFilter> otherFilters) {
+        return new LogAnalyzer(parser, otherFilters, options, errors);
+    }
+
+    public AnalysisResult analyze(List<FileView> files) {
+        List<String> filenames = files.stream().map(FileView::name).toList();
+        Map<String, MalformedLines> malformed = new LinkedHashMap<>();
+        StatisticCollector collector = options.threads() == 1
+            ? analyzeSequentially(files, malformed)
+            : analyzeInParallel(files, malformed);
+        return new AnalysisResult(collector, filenames, Collections.unmodifiableMap(malformed));
+    }
+
+    private StatisticCollector analyzeSequentially(List<FileView> files, Map<String, MalformedLines> malformed) {
+        StatisticCollector collector = newCollector();
+        for (FileView file : files) {
+            MalformedLines fileMalformed = new MalformedLines(options.malformedPolicy().limit());
+            // a single part unless the file is split by its time index
+            for (FileView part : splitFile(file)) {
+                Optional<String> error = collectLogsFromFile(part, collector, fileMalformed);
+                if (error.isPresent()) {
+                    reportBadLogs(file.name(), error.orElseThrow());
+                    break;
+                }
+            }
+            addMalformedLines(file, fileMalformed, malformed);
+        }
+        return collector;
+    }
+
+    private StatisticCollector analyzeInParallel(List<FileView> files, Map<String, MalformedLines> malformed) {
+        ExecutorService executor = Executors.newFixedThreadPool(options.threads());
+        try {
+            List<List<FileView>> chunks = new ArrayList<>(files.size());
+            List<List<Future<ChunkResult>>> chunkResults = new ArrayList<>(files.size());
+            for (FileView file : files) {
+                List<FileView> fileChunks = splitFile(file);
+                List<Future<ChunkResult>> fileChunkResults = new ArrayList<>();
+                for (FileView chunk : fileChunks) {
+                    fileChunkResults.add(executor.submit(() -> analyzeChunk(chunk, options.malformedPolicy().limit())));
+                }
+                chunks.add(fileChunks);
+                chunkResults.add(fileChunkResults);
+            }
+
+            StatisticCollector collector = newCollector();
+            for (int i = 0; i < files.size(); i++) {
+                mergeFileChunks(files.get(i), chunks.get(i), chunkResults.get(i), collector, malformed);
+            }
+            return collector;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Splits the file into chunks to be analyzed in parallel, preparsed files are read as a whole.
+     * Only the range of an indexed file which may have logs passing the time filters is split.
+     */
+    List<FileView> splitFile(FileView file) {
+        if (preparsedFile(file).isPresent()) {
+            return List.of(file);
+        }
+        return Uncheck.get(() -> {
+            Optional<TimeIndex.Range> range = indexedRange(file);
+            if (range.isEmpty()) {
+                return file.split(options.threads(), options.minChunkSize());
+            }
+            TimeIndex.Range bytes = range.orElseThrow();
+            return file.splitRange(bytes.start(), bytes.end(), options.threads(), options.minChunkSize());
+        });
+    }
+
+    private Optional<TimeIndex.Range> indexedRange(FileView file) throws IOException {
+        if (options.timeIndexes().isEmpty() || timeRangeFilter.isEmpty()
+            || file.localFile().isEmpty() || file.isLocalGzip()) {
+            return Optional.empty();
+        }
+        Path path = file.localFile().orElseThrow();
+        TimeIndex index = options.timeIndexes().orElseThrow().get(path, parser);
+        return Optional.of(index.coveringRange(timeRangeFilter.orElseThrow(), Files.size(path)));
+    }
+
+    /**
+     * Gets the local file of the source if the parser reads it as already parsed logs instead of lines.
+     */
+    Optional<Path> preparsedFile(FileView file) {
+        return file.localFile().filter(path -> Uncheck.test(parser::isPreparsed, path));
+    }
+
+    /**
+     * Analyzes the whole file by a single thread, its parts are analyzed one after another.
+     */
+    ChunkResult analyzeFile(FileView file) {
+        StatisticCollector collector = newCollector();
+        MalformedLines malformed = new MalformedLines(options.malformedPolicy().limit());
+        Optional<String> error = Optional.empty();
+        for (FileView part : splitFile(file)) {
+            error = collectLogsFromFile(part, collector, malformed);
+            if (error.isPresent()) {
+                break;
+            }
+        }
+        return new ChunkResult(collector, malformed, error);
+    }
+
+    ChunkResult analyzeChunk(FileView chunk, long malformedLimit) {
+        StatisticCollector collector = newCollector();
+        MalformedLines malformed = new MalformedLines(malformedLimit);
+        Optional<String> error = collectLogsFromFile(chunk, collector, malformed);
+        return new ChunkResult(collector, malformed, error);
+    }
+
+    private void mergeFileChunks(
+        FileView file,
+        List<FileView> chunkViews,
+        List<Future<ChunkResult>> chunks,
+        StatisticCollector collector,
+        Map<String, MalformedLines> malformed
+    ) {
+        MalformedLines fileMalformed = new MalformedLines(options.malformedPolicy().limit());
+        mergeChunks(chunkViews, chunks, collector, fileMalformed).ifPresent(error -> reportBadLogs(file.name(), error));
+        addMalformedLines(file, fileMalformed, malformed);
+    }
+
+    /**
+     * Merges results of the file chunks in the order of the file.
+     * Chunks after the first bad log or after the limit of malformed lines are dropped as in the sequential run.
+     * The chunk where the limit is exceeded for the whole file is analyzed again with the rest of the limit.
+     *
+     * @param fileMalformed malformed lines of the file, which may already contain the lines before the chunks
+     * @return the error message if the chunks contain bad logs and they aren't skipped
+     */
+    Optional<String> mergeChunks(
+        List<FileView> chunkViews,
+        List<Future<ChunkResult>> chunks,
+        StatisticCollector collector,
+        MalformedLines fileMalformed
+    ) {
+        for (int i = 0; i < chunks.size(); i++) {
+            ChunkResult chunk = await(chunks.get(i));
+            if (fileMalformed.count() + chunk.malformed().count() > fileMalformed.limit()) {
+                chunk = analyzeChunk(chunkViews.get(i), fileMalformed.limit() - fileMalformed.count());
+            }
+            AnalyzerEvents.merge(collector, chunk.collector());
+            fileMalformed.merge(chunk.malformed());
+            if (chunk.error().isPresent() || fileMalformed.limitExceeded()) {
+                chunks.subList(i + 1, chunks.size()).forEach(rest -> rest.cancel(true));
+                return chunk.error();
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Collects logs of the file until the first bad log or until the limit of skipped malformed lines.
+     *
+     * @param malformed counts to add skipped malformed lines to if they are skipped
+     * @return the error message if the file contains bad logs and they aren't skipped
+     */
+    private Optional<String> collectLogsFromFile(
+        FileView file,
+        StatisticCollector collector,
+        MalformedLines malformed
+    ) {
+        Optional<AnalyzerEvents> events = AnalyzerEvents.begin(file.name(), filters);
+        Optional<PipelineMetrics> metrics = options.metrics();
+        if (metrics.isEmpty() && events.isEmpty()) {
+            return collectLogsFromFile(file, collector, malformed, null);
+        }
+        StageMetrics stages = metrics.map(PipelineMetrics::newStageMetrics)
+            .orElseGet(() -> new StageMetrics(filters.size()));
+        events.ifPresent(recorded -> stages.onBatch(AnalyzerEvents.BATCH_LINES, recorded::batch));
+        long start = System.nanoTime();
+        try {
+            return collectLogsFromFile(file, collector, malformed, stages);
+        } finally {
+            stages.addElapsed(System.nanoTime() - start);
+            metrics.ifPresent(shared -> shared.add(file.name(), stages));
+            events.ifPresent(recorded -> recorded.end(stages));
+        }
+    }
+
+    /**
+     * Collects logs of the file as {@link #collectLogsFromFile(FileView, StatisticCollector, MalformedLines)}.
+     *
+     * @param stages metrics of the file or null if the stages aren't measured
+     */
+    private Optional<String> collectLogsFromFile(
+        FileView file,
+        StatisticCollector collector,
+        MalformedLines malformed,
+        StageMetrics stages
+    ) {
+        Optional<Path> preparsed = preparsedFile(file);
+        if (preparsed.isPresent()) {
+            Path path = preparsed.orElseThrow();
+            try (Stream<LogRecord> logs = Uncheck.get(() -> parser.parseFile(path, requiredFields))) {
+                if (stages == null) {
+                    collectParsedLogs(logs, collector, null);
+                } else {
+                    stages.addBytes(Uncheck.getAsLong(() -> Files.size(path)));
+                    collectParsedLogs(stages.measure(logs, Stage.PARSE, log -> 0), collector, stages);
+                }
+            }
+            return Optional.empty();
+        }
+        try (Stream<String> lines = options.readAhead().map(ahead -> ahead.lines(file)).orElseGet(file::getContent)) {
+            return collectLogs(
+                stages == null ? lines : stages.measure(lines, Stage.READ, line -> line.length() + 1L),
+                collector, malformed, stages
+            );
+        }
+    }
+
+    /**
+     * Collects the logs until the first bad log or until the limit of skipped malformed lines.
+     *
+     * @see #collectLogsFromFile(FileView, StatisticCollector, MalformedLines)
+     */
+    Optional<String> collectLogs(Stream<String> lines, StatisticCollector collector, MalformedLines malformed) {
+        return collectLogs(lines, collector, malformed, null);
+    }
+
+    private Optional<String> collectLogs(
+        Stream<String> lines,
+        StatisticCollector collector,
+        MalformedLines malformed,
+        StageMetrics stages
+    ) {
+        try {
+            Stream<String> prefiltered = options.malformedPolicy().skip()
+                ? lines.takeWhile(line -> !malformed.limitExceeded())
+                : lines;
+            Predicate<String> lineCheck = null;
+            for (int i = 0; i < filters.size(); i++) {
+                Optional<Predicate<String>> lineFilter = filters.get(i).createLineFilter();
+                if (lineFilter.isPresent()) {
+                    if (lineCheck == null) {
+                        lineCheck = parser.createLineCheck();
+                    }
+                    // only the lines the filter accepts are counted, malformed lines are still passed
+                    // to be reported at the same place as without the filter
+                    Predicate<String> accepted = stages == null
+                        ? lineFilter.orElseThrow()
+                        : stages.countLines(i, lineFilter.orElseThrow());
+                    prefiltered = prefiltered.filter(accepted.or(lineCheck.negate()));
+                }
+            }
+            if (stages != null) {
+                prefiltered = prefiltered.peek(stages.marker(Stage.LINE_FILTER));
+            }
+            Stream<LogRecord> logs = options.malformedPolicy().skip()
+                ? parser.parse(prefiltered, requiredFields, malformed)
+                : parser.parse(prefiltered, requiredFields);
+            collectParsedLogs(stages == null ? logs : logs.peek(stages.marker(Stage.PARSE)), collector, stages);
+            return Optional.empty();
+        } catch (ParseException e) {
+            return Optional.of(e.getMessage());
+        }
+    }
+
+    private void collectParsedLogs(Stream<LogRecord> logs, StatisticCollector collector, StageMetrics stages) {
+        Stream<LogRecord> filtered = logs;
+        for (int i = 0; i < filters.size(); i++) {
+            LogFilter filter = filters.get(i);
+            filtered = stages == null ? filter.filter(filtered) : stages.countLogs(i, filtered, filter::filter);
+        }
+        if (stages == null) {
+            filtered.forEach(collector::addLog);
+            return;
+        }
+        filtered.peek(stages.marker(Stage.FILTER)).forEach(log -> {
+            collector.addLog(log);
+            stages.mark(Stage.COLLECT);
+        });
+    }
+
+    /**
+     * Analyzes only the bytes appended to the local files since their checkpoints and updates the checkpoints.
+     * The statistics of the analyzed bytes are restored from the checkpoints, files which have changed
+     * other than by appending are analyzed from the start. The incomplete last lines of plain files
+     * are left to the next analysis. Sources which aren't local files are analyzed from the start every time.
+     *
+     * @param checkpoints store of the checkpoints
+     * @return the result of the analysis of the whole files
+     */
+    public AnalysisResult analyze(List<FileView> files, CheckpointStore checkpoints) {
+        return new CheckpointedAnalysis(this, checkpoints).analyze(files);
+    }
+
+    /**
+     * Analyzes many sources at once, every source is opened and read by its own virtual thread, so the sources
+     * waiting for their hosts don't hold the others. A source which can't be read or exceeds the timeout
+     * is reported and left out of the result, while the other ones are merged in the order of the sources.
+     *
+     * @param limits limits of the sources read at once overall and per host, and the timeout of a source
+     * @return the result of the sources which have been read
+     */
+    public AnalysisResult analyze(List<FileView> sources, SourceLimits limits) {
+        return new ConcurrentSourcesAnalysis(this, limits).analyze(sources);
+    }
+
+    /**
+     * Starts the analysis of files followed while they grow, the logs are added to it as they are appended.
+     *
+     * @return the empty analysis
+     */
+    public FollowingAnalysis follow() {
+        return new FollowingAnalysis(this, newCollector());
+    }
+
+    AnalyzerOptions options() {
+        return options;
+    }
+
+    StatisticCollector newCollector() {
+        return options.collectorFactory().get();
+    }
+
+    void reportBadLogs(String fileName, String error) {
+        errors.printf("Bad logs in file %s: %s%n", fileName, error);
+    }
+
+    void reportFailedSource(String sourceName, String reason) {
+        errors.printf("Source %s is skipped: %s%n", sourceName, reason);
+    }
+
+    void reportTooManyMalformedLines(String fileName, long limit) {
+        errors.printf(
+            "Too many malformed logs in file %s: more than %d, the rest of the file is skipped%n", fileName, limit
+        );
+    }
+
+    void addMalformedLines(FileView file, MalformedLines fileMalformed, Map<String, MalformedLines> malformed) {
+        if (!options.malformedPolicy().skip()) {
+            return;
+        }
+        if (fileMalformed.limitExceeded()) {
+            reportTooManyMalformedLines(file.name(), fileMalformed.limit());
+        }
+        malformed.merge(file.name(), fileMalformed, (previous, next) -> {
+            previous.merge(next);
+            return previous;
+        });
+    }
+
+    static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Analysis was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Analysis failed", e.getCause());
+        }
+    }
+
+    record ChunkResult(StatisticCollector collector, MalformedLines malformed, Optional<String> error) {
+    }
+}
@@ -0,0 +1,28 @@
+package backend.academy.logs.analyzer;
+
+import backend.academy.logs.parser.MalformedLines;
+
+/**
+ * What to do with malformed lines of a file: stop the analysis of the file at the first of them
+ * or skip and count them until there are more of them than the limit.
+ */
+public record MalformedLinesPolicy(boolean skip, long limit) {
+    public static final MalformedLinesPolicy STOP_AT_FIRST = new MalformedLinesPolicy(false, 0);
+
+    public MalformedLinesPolicy {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Malformed lines limit can't be negative, got " + limit);
+        }
+    }
+
+    /**
+     * Creates the policy to skip malformed lines.
+     *
+     * @param limit number of malformed lines after which the rest of the file is skipped,
+     *              {@link MalformedLines#UNLIMITED} to never stop
+     * @return the policy
+     */
+    public static MalformedLinesPolicy skipUpTo(long limit) {
+        return new MalformedLinesPolicy(true, limit);
+    }
+}
@@ -0,0 +1,29 @@
+package backend.academy.logs.analyzer;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Limits of the sources analyzed at once by {@link LogAnalyzer#analyze(java.util.List, SourceLimits)}.
+ *
+ * @param concurrentSources maximum number of the sources read at once
+ * @param perHost           maximum number of the sources of the same host read at once
+ * @param timeout           time to read and analyze a source after which it is abandoned, unlimited if empty
+ */
+public record SourceLimits(int concurrentSources, int perHost, Optional<Duration> timeout) {
+    public static final int DEFAULT_CONCURRENT_SOURCES = 64;
+    public static final int DEFAULT_PER_HOST = 4;
+
+    public SourceLimits {
+        if (concurrentSources < 1 || perHost < 1) {
+            throw new IllegalArgumentException("Limits of the sources must be positive");
+        }
+        if (timeout.isPresent() && (timeout.orElseThrow().isNegative() || timeout.orElseThrow().isZero())) {
+            throw new IllegalArgumentException("Timeout of a source must be positive");
+        }
+    }
+
+    public static SourceLimits defaults() {
+        return new SourceLimits(DEFAULT_CONCURRENT_SOURCES, DEFAULT_PER_HOST, Optional.empty());
+    }
+}
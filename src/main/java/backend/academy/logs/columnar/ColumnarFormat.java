@@ -0,0 +1,71 @@
+package backend.academy.logs.columnar;
+
+import backend.academy.logs.parser.LogField;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Layout of a columnar file of parsed logs.
+ * The header is the magic bytes, the number of rows and the table of the sections (offset and length of each),
+ * then the sections follow: the name of the source, the epoch seconds of the times, the unsigned short statuses,
+ * the int response sizes and, for every string field, its dictionary of distinct values followed by
+ * the codes of the rows. A code takes 1, 2 or 4 bytes depending on the size of the dictionary.
+ * A dictionary is its size followed by the length and UTF-8 bytes of every value. All numbers are big-endian.
+ * A section is mapped by a single buffer, so it can't be longer than {@link #MAX_SECTION_LENGTH}, which limits
+ * the number of rows by the widest column, the times.
+ */
+@UtilityClass
+class ColumnarFormat {
+    static final String MAGIC = "LOGCOLS1";
+    static final String EXTENSION = ".logcols";
+    static final List<LogField> STRING_FIELDS = List.of(
+        LogField.ADDRESS, LogField.USER, LogField.METHOD, LogField.RESOURCE, LogField.REFERER, LogField.AGENT
+    );
+    static final int NAME_SECTION = 0;
+    static final int TIME_SECTION = 1;
+    static final int STATUS_SECTION = 2;
+    static final int BYTES_SECTION = 3;
+    static final int SECTIONS = 4 + 2 * STRING_FIELDS.size();
+    static final int MAX_STATUS = 0xffff;
+    static final long MAX_SECTION_LENGTH = Integer.MAX_VALUE;
+    static final long MAX_ROWS = MAX_SECTION_LENGTH / Long.BYTES;
+
+    static final int HEADER_SIZE = MAGIC.length() + Long.BYTES + SECTIONS * 2 * Long.BYTES;
+
+    private static final int BYTE_CODES_LIMIT = 1 << Byte.SIZE;
+    private static final int SHORT_CODES_LIMIT = 1 << Short.SIZE;
+
+    static byte[] magicBytes() {
+        return MAGIC.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    static int dictionarySection(LogField field) {
+        return BYTES_SECTION + 1 + 2 * STRING_FIELDS.indexOf(field);
+    }
+
+    static int codesSection(LogField field) {
+        return dictionarySection(field) + 1;
+    }
+
+    /**
+     * Gets the number of bytes of a code.
+     */
+    static int codeWidth(int dictionarySize) {
+        if (dictionarySize <= BYTE_CODES_LIMIT) {
+            return Byte.BYTES;
+        }
+        return dictionarySize <= SHORT_CODES_LIMIT ? Short.BYTES : Integer.BYTES;
+    }
+
+    static boolean isColumnar(Path file) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return Arrays.equals(input.readNBytes(MAGIC.length()), magicBytes());
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package backend.academy.logs.columnar;
+
+import backend.academy.logs.exceptions.ParseException;
+import backend.academy.logs.parser.LogField;
+import backend.academy.logs.parser.LogParser;
+import backend.academy.logs.parser.LogRecord;
+import backend.academy.logs.parser.MalformedLines;
+import backend.academy.logs.provider.FileView;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Converts log sources once into columnar files, so repeated analyses read the parsed logs
+ * instead of parsing the lines again, see {@link ColumnarLogParser}.
+ * Every log of a source is kept, the filters are applied when the columnar file is analyzed.
+ * A bad log stops its source as in the analysis, the logs before it are kept.
+ */
+public class ColumnarIngest {
+    private final LogParser parser;
+    private final boolean skipMalformed;
+    private final PrintStream errors;
+    private final long maxRows;
+
+    private ColumnarIngest(LogParser parser, boolean skipMalformed, PrintStream errors, long maxRows) {
+        this.parser = parser;
+        this.skipMalformed = skipMalformed;
+        this.errors = errors;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * Creates the ingest.
+     *
+     * @param parser        parser of the sources, preparsed sources are read with it as well
+     * @param skipMalformed whether malformed lines are skipped and counted instead of stopping their source
+     * @param errors        stream to report sources with bad logs to
+     * @return the ingest
+     */
+    public static ColumnarIngest create(LogParser parser, boolean skipMalformed, PrintStream errors) {
+        return create(parser, skipMalformed, errors, ColumnarFormat.MAX_ROWS);
+    }
+
+    static ColumnarIngest create(LogParser parser, boolean skipMalformed, PrintStream errors, long maxRows) {
+        return new ColumnarIngest(parser, skipMalformed, errors, maxRows);
+    }
+
+    /**
+     * Writes a columnar file per source into the directory, named after the file name of the source
+     * with the {@code .logcols} extension. Sources with the same file name get numbered names.
+     * A source too large for one file is split into parts, the second one is named
+     * e.g. {@code access.log.part2.logcols}.
+     *
+     * @param directory directory for the files, created if it doesn't exist
+     * @return the written files in the order of the sources and their parts
+     * @throws IOException if a source can't be read or a file can't be written
+     */
+    public List<Path> ingest(List<FileView> sources, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Set<String> names = new HashSet<>();
+        List<Path> written = new ArrayList<>(sources.size());
+        for (FileView source : sources) {
+            written.addAll(ingest(source, directory, names));
+        }
+        return written;
+    }
+
+    private List<Path> ingest(FileView source, Path directory, Set<String> names) throws IOException {
+        MalformedLines malformed = new MalformedLines(MalformedLines.UNLIMITED);
+        Optional<Path> file = source.localFile();
+        List<Path> written;
+        try (Parts parts = new Parts(source.name(), directory, names)) {
+            try {
+                if (file.isPresent() && parser.isPreparsed(file.orElseThrow())) {
+                    try (Stream<LogRecord> logs = parser.parseFile(file.orElseThrow(), LogField.ALL)) {
+                        write(logs, parts);
+                    }
+                } else {
+                    try (Stream<String> lines = source.getContent()) {
+                        write(skipMalformed
+                            ? parser.parse(lines, LogField.ALL, malformed)
+                            : parser.parse(lines, LogField.ALL), parts);
+                    }
+                }
+            } catch (ParseException e) {
+                errors.printf(
+                    "Bad logs in file %s: %s, only the logs before it are ingested%n", source.name(), e.getMessage()
+                );
+            }
+            // a source which can't be read leaves no file, so it's never analyzed as a complete one
+            written = parts.finish();
+        }
+        if (malformed.count() > 0) {
+            errors.printf("Skipped %d malformed logs in file %s%n", malformed.count(), source.name());
+        }
+        return written;
+    }
+
+    private static void write(Stream<LogRecord> logs, Parts parts) throws IOException {
+        Iterator<LogRecord> iterator = logs.iterator();
+        while (iterator.hasNext()) {
+            parts.add(iterator.next());
+        }
+    }
+
+    private static String targetName(String sourceName, Set<String> names) {
+        int separator = Math.max(sourceName.lastIndexOf('/'), sourceName.lastIndexOf('\\'));
+        String fileName = sourceName.substring(separator + 1).replaceAll("[^\\w.-]", "_");
+        if (fileName.isEmpty()) {
+            fileName = "source";
+        }
+        String name = fileName + ColumnarFormat.EXTENSION;
+        for (int i = 2; !names.add(name); i++) {
+            name = fileName + "-" + i + ColumnarFormat.EXTENSION;
+        }
+        return name;
+    }
+
+    /**
+     * Columnar files of a source, the next part is started when a log doesn't fit into the current one.
+     * The parts are kept only if all of them are finished.
+     */
+    private final class Parts implements Closeable {
+        private final String sourceName;
+        private final Path directory;
+        private final Set<String> names;
+        private final List<Path> files = new ArrayList<>();
+        private Path target;
+        private ColumnarWriter writer;
+        private boolean finished = false;
+
+        private Parts(String sourceName, Path directory, Set<String> names) throws IOException {
+            this.sourceName = sourceName;
+            this.directory = directory;
+            this.names = names;
+            start();
+        }
+
+        private void add(LogRecord log) throws IOException {
+            if (!writer.add(log)) {
+                writer.finish();
+                files.add(target);
+                start();
+                if (!writer.add(log)) {
+                    throw new ParseException("Log doesn't fit a columnar file");
+                }
+            }
+        }
+
+        private List<Path> finish() throws IOException {
+            writer.finish();
+            files.add(target);
+            finished = true;
+            return files;
+        }
+
+        private void start() throws IOException {
+            String name = files.isEmpty() ? sourceName : sourceName + ".part" + (files.size() + 1);
+            target = directory.resolve(targetName(name, names));
+            writer = ColumnarWriter.create(target, sourceName, maxRows);
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+            if (!finished) {
+                for (Path part : files) {
+                    Files.deleteIfExists(part);
+                }
+            }
+        }
+    }
+}
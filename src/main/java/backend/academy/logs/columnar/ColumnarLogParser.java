@@ -0,0 +1,62 @@
+package backend.academy.logs.columnar;
+
+import backend.academy.logs.parser.DictionaryStats;
+import backend.academy.logs.parser.LogField;
+import backend.academy.logs.parser.LogParser;
+import backend.academy.logs.parser.LogRecord;
+import backend.academy.logs.parser.MalformedLines;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Parser reading the columnar files written by {@link ColumnarIngest} directly
+ * and the lines of the other sources with the text parser, so both kinds of sources can be analyzed together.
+ */
+public class ColumnarLogParser implements LogParser {
+    private final LogParser textParser;
+
+    public ColumnarLogParser(LogParser textParser) {
+        this.textParser = textParser;
+    }
+
+    @Override
+    public Stream<LogRecord> parse(Stream<String> logLines) {
+        return textParser.parse(logLines);
+    }
+
+    @Override
+    public Stream<LogRecord> parse(Stream<String> logLines, Set<LogField> fields) {
+        return textParser.parse(logLines, fields);
+    }
+
+    @Override
+    public Stream<LogRecord> parse(Stream<String> logLines, Set<LogField> fields, MalformedLines malformed) {
+        return textParser.parse(logLines, fields, malformed);
+    }
+
+    @Override
+    public Predicate<String> createLineCheck() {
+        return textParser.createLineCheck();
+    }
+
+    @Override
+    public boolean isPreparsed(Path file) throws IOException {
+        return ColumnarFormat.isColumnar(file);
+    }
+
+    @Override
+    public Stream<LogRecord> parseFile(Path file, Set<LogField> fields) throws IOException {
+        try (ColumnarReader reader = ColumnarReader.open(file)) {
+            return reader.records(fields);
+        }
+    }
+
+    @Override
+    public Optional<DictionaryStats> dictionaryStats() {
+        return textParser.dictionaryStats();
+    }
+}
@@ -0,0 +1,209 @@
+package backend.academy.logs.columnar;
+
+import backend.academy.logs.parser.LogField;
+import backend.academy.logs.parser.LogRecord;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Reads the logs of a columnar file written by {@link ColumnarWriter}.
+ * Only the sections of the needed fields are memory-mapped, so the cost of reading depends on the fields
+ * rather than on the size of the file. The dictionaries are decoded once per stream of logs,
+ * so every value of a string field is a shared instance.
+ */
+public class ColumnarReader implements Closeable {
+    private final Path file;
+    private final FileChannel channel;
+    private final int rows;
+    private final long[] sections;
+
+    private ColumnarReader(Path file, FileChannel channel, int rows, long[] sections) {
+        this.file = file;
+        this.channel = channel;
+        this.rows = rows;
+        this.sections = sections;
+    }
+
+    /**
+     * Opens the columnar file and reads its header.
+     *
+     * @return the reader to be closed after usage
+     * @throws IOException if the file can't be read or isn't a columnar file
+     */
+    public static ColumnarReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(ColumnarFormat.HEADER_SIZE);
+            int read = 0;
+            while (header.hasRemaining() && read >= 0) {
+                read = channel.read(header, header.position());
+            }
+            header.flip();
+            byte[] magic = new byte[ColumnarFormat.MAGIC.length()];
+            boolean complete = header.remaining() == ColumnarFormat.HEADER_SIZE;
+            if (complete) {
+                header.get(magic);
+            }
+            if (!complete || !Arrays.equals(magic, ColumnarFormat.magicBytes())) {
+                throw new IOException(file + " is not a columnar log file");
+            }
+            long rows = header.getLong();
+            long[] sections = new long[ColumnarFormat.SECTIONS * 2];
+            header.asLongBuffer().get(sections);
+            if (rows < 0 || rows > Integer.MAX_VALUE) {
+                throw new IOException(file + " has bad number of rows " + rows);
+            }
+            return new ColumnarReader(file, channel, (int) rows, sections);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * Reads the name of the source the logs were ingested from.
+     */
+    public String sourceName() throws IOException {
+        ByteBuffer name = map(ColumnarFormat.NAME_SECTION);
+        return StandardCharsets.UTF_8.decode(name).toString();
+    }
+
+    /**
+     * Reads the logs in the order of the source extracting only the needed fields, the others are left null or 0.
+     *
+     * @return the lazy stream of logs, which stays valid after the reader is closed
+     * @throws IOException if the sections can't be mapped
+     */
+    public Stream<LogRecord> records(Set<LogField> fields) throws IOException {
+        LongBuffer times = fields.contains(LogField.TIME) ? map(ColumnarFormat.TIME_SECTION).asLongBuffer() : null;
+        ShortBuffer statuses = fields.contains(LogField.STATUS)
+            ? map(ColumnarFormat.STATUS_SECTION).asShortBuffer()
+            : null;
+        IntBuffer sizes = fields.contains(LogField.BYTES_SENT)
+            ? map(ColumnarFormat.BYTES_SECTION).asIntBuffer()
+            : null;
+        Map<LogField, StringColumn> strings = new EnumMap<>(LogField.class);
+        for (LogField field : ColumnarFormat.STRING_FIELDS) {
+            strings.put(field, fields.contains(field) ? readStringColumn(field) : StringColumn.SKIPPED);
+        }
+        Rows rowReader = new Rows(times, statuses, sizes, strings);
+        return IntStream.range(0, rows).mapToObj(rowReader::read);
+    }
+
+    private StringColumn readStringColumn(LogField field) throws IOException {
+        ByteBuffer dictionary = map(ColumnarFormat.dictionarySection(field));
+        String[] values = new String[dictionary.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            byte[] bytes = new byte[dictionary.getInt()];
+            dictionary.get(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        ByteBuffer codes = map(ColumnarFormat.codesSection(field));
+        return new StringColumn(values, codes, ColumnarFormat.codeWidth(values.length));
+    }
+
+    private ByteBuffer map(int section) throws IOException {
+        long offset = sections[2 * section];
+        long length = sections[2 * section + 1];
+        if (offset < ColumnarFormat.HEADER_SIZE || length < 0 || length > ColumnarFormat.MAX_SECTION_LENGTH
+            || offset + length > channel.size()) {
+            throw new IOException(file + " has bad section " + section);
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Dictionary of a string field with the codes of the rows, null codes mean the field isn't read.
+     */
+    private record StringColumn(String[] values, ByteBuffer codes, int width) {
+        private static final StringColumn SKIPPED = new StringColumn(new String[0], null, Byte.BYTES);
+
+        String get(int row) {
+            if (codes == null) {
+                return null;
+            }
+            int code = switch (width) {
+                case Byte.BYTES -> Byte.toUnsignedInt(codes.get(row));
+                case Short.BYTES -> Short.toUnsignedInt(codes.getShort(row * Short.BYTES));
+                default -> codes.getInt(row * Integer.BYTES);
+            };
+            return values[code];
+        }
+    }
+
+    /**
+     * Assembles the logs from the columns, the time of the previous row is reused since logs are mostly ordered.
+     */
+    private static final class Rows {
+        private final LongBuffer times;
+        private final ShortBuffer statuses;
+        private final IntBuffer sizes;
+        private final StringColumn addresses;
+        private final StringColumn users;
+        private final StringColumn methods;
+        private final StringColumn resources;
+        private final StringColumn referers;
+        private final StringColumn agents;
+        private long lastSecond;
+        private LocalDateTime lastTime;
+
+        private Rows(LongBuffer times, ShortBuffer statuses, IntBuffer sizes, Map<LogField, StringColumn> strings) {
+            this.times = times;
+            this.statuses = statuses;
+            this.sizes = sizes;
+            this.addresses = strings.get(LogField.ADDRESS);
+            this.users = strings.get(LogField.USER);
+            this.methods = strings.get(LogField.METHOD);
+            this.resources = strings.get(LogField.RESOURCE);
+            this.referers = strings.get(LogField.REFERER);
+            this.agents = strings.get(LogField.AGENT);
+        }
+
+        private LogRecord read(int row) {
+            return new LogRecord(
+                addresses.get(row),
+                users.get(row),
+                times == null ? null : time(times.get(row)),
+                methods.get(row),
+                resources.get(row),
+                statuses == null ? 0 : Short.toUnsignedInt(statuses.get(row)),
+                sizes == null ? 0 : sizes.get(row),
+                referers.get(row),
+                agents.get(row)
+            );
+        }
+
+        private LocalDateTime time(long second) {
+            if (lastTime == null || second != lastSecond) {
+                lastTime = LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC);
+                lastSecond = second;
+            }
+            return lastTime;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package backend.academy.logs.columnar;
+
+import backend.academy.logs.exceptions.ParseException;
+import backend.academy.logs.parser.LogField;
+import backend.academy.logs.parser.LogRecord;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.output.CountingOutputStream;
+
+/**
+ * Writes the logs of a source into a columnar file, see {@link ColumnarFormat}.
+ * The columns are written to temporary files next to the target while the logs are added and are joined
+ * into the target by {@link #finish()}, only the dictionaries of the string fields are kept in memory.
+ * The target is replaced atomically, so readers never see a partially written file, and a writer closed
+ * without finishing (e.g. after a failed read of the source) leaves the target as it was.
+ * A file holds only the logs whose sections fit {@link ColumnarFormat#MAX_SECTION_LENGTH},
+ * the logs after them are to be written to a next file.
+ */
+public class ColumnarWriter implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path target;
+    private final String sourceName;
+    private final long maxRows;
+    private final List<Column> columns = new ArrayList<>();
+    private final Column times;
+    private final Column statuses;
+    private final Column sizes;
+    private final Map<LogField, DictionaryColumn> strings = new EnumMap<>(LogField.class);
+    private long rows = 0;
+    private boolean finished = false;
+
+    private ColumnarWriter(Path target, String sourceName, long maxRows) throws IOException {
+        this.target = target;
+        this.sourceName = sourceName;
+        this.maxRows = maxRows;
+        try {
+            times = newColumn();
+            statuses = newColumn();
+            sizes = newColumn();
+            for (LogField field : ColumnarFormat.STRING_FIELDS) {
+                strings.put(field, new DictionaryColumn(newColumn()));
+            }
+        } catch (IOException e) {
+            discard();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates the writer of a columnar file.
+     *
+     * @param target     the file to be written by {@link #finish()}
+     * @param sourceName name of the source of the logs kept in the file
+     * @return the writer to be finished after all the logs are added and to be closed after usage
+     * @throws IOException if the temporary files can't be created
+     */
+    public static ColumnarWriter create(Path target, String sourceName) throws IOException {
+        return create(target, sourceName, ColumnarFormat.MAX_ROWS);
+    }
+
+    static ColumnarWriter create(Path target, String sourceName, long maxRows) throws IOException {
+        return new ColumnarWriter(target, sourceName, maxRows);
+    }
+
+    /**
+     * Adds the log with all its fields unless the file is full.
+     *
+     * @return false if the log would make a section too long, the log isn't added then
+     * @throws ParseException if the status doesn't fit the format
+     * @throws IOException    if the columns can't be written
+     */
+    public boolean add(LogRecord log) throws IOException {
+        if (log.status() < 0 || log.status() > ColumnarFormat.MAX_STATUS) {
+            throw new ParseException("Status " + log.status() + " doesn't fit the columnar format");
+        }
+        if (rows >= maxRows
+            || !strings.get(LogField.ADDRESS).fits(log.remoteAddr())
+            || !strings.get(LogField.USER).fits(log.remoteUser())
+            || !strings.get(LogField.METHOD).fits(log.method())
+            || !strings.get(LogField.RESOURCE).fits(log.resource())
+            || !strings.get(LogField.REFERER).fits(log.httpReferer())
+            || !strings.get(LogField.AGENT).fits(log.httpUserAgent())) {
+            return false;
+        }
+        times.output.writeLong(log.timeLocal().toEpochSecond(ZoneOffset.UTC));
+        statuses.output.writeShort(log.status());
+        sizes.output.writeInt(log.bytesSent());
+        strings.get(LogField.ADDRESS).add(log.remoteAddr());
+        strings.get(LogField.USER).add(log.remoteUser());
+        strings.get(LogField.METHOD).add(log.method());
+        strings.get(LogField.RESOURCE).add(log.resource());
+        strings.get(LogField.REFERER).add(log.httpReferer());
+        strings.get(LogField.AGENT).add(log.httpUserAgent());
+        rows++;
+        return true;
+    }
+
+    /**
+     * Joins the columns into the target file and deletes the temporary files, no logs can be added after it.
+     *
+     * @throws IOException if the target can't be written
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            throw new IllegalStateException("Columnar file " + target + " is already finished");
+        }
+        finished = true;
+        Path temporary = null;
+        try {
+            for (Column column : columns) {
+                column.output.close();
+            }
+            temporary = createTempFile(".tmp");
+            long[] sections = writeSections(temporary);
+            writeHeader(temporary, sections);
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            if (temporary != null) {
+                Files.deleteIfExists(temporary);
+            }
+            discard();
+        }
+    }
+
+    /**
+     * Deletes the temporary files, the target isn't written unless the writer is finished.
+     */
+    @Override
+    public void close() throws IOException {
+        discard();
+    }
+
+    /**
+     * Writes the sections after the space of the header.
+     *
+     * @return offsets and lengths of the sections
+     */
+    private long[] writeSections(Path file) throws IOException {
+        long[] sections = new long[ColumnarFormat.SECTIONS * 2];
+        try (SectionOutput output = new SectionOutput(Files.newOutputStream(file), sections)) {
+            output.write(new byte[ColumnarFormat.HEADER_SIZE]);
+
+            output.startSection(ColumnarFormat.NAME_SECTION);
+            output.write(sourceName.getBytes(StandardCharsets.UTF_8));
+            output.startSection(ColumnarFormat.TIME_SECTION);
+            output.copy(times.file);
+            output.startSection(ColumnarFormat.STATUS_SECTION);
+            output.copy(statuses.file);
+            output.startSection(ColumnarFormat.BYTES_SECTION);
+            output.copy(sizes.file);
+
+            for (LogField field : ColumnarFormat.STRING_FIELDS) {
+                DictionaryColumn column = strings.get(field);
+                output.startSection(ColumnarFormat.dictionarySection(field));
+                output.writeInt(column.values.size());
+                for (byte[] bytes : column.values) {
+                    output.writeInt(bytes.length);
+                    output.write(bytes);
+                }
+                output.startSection(ColumnarFormat.codesSection(field));
+                output.copyCodes(column.codes.file, ColumnarFormat.codeWidth(column.values.size()));
+            }
+            output.startSection(ColumnarFormat.SECTIONS);
+        }
+        return sections;
+    }
+
+    private void writeHeader(Path file, long[] sections) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(ColumnarFormat.HEADER_SIZE);
+        header.put(ColumnarFormat.magicBytes());
+        header.putLong(rows);
+        for (long value : sections) {
+            header.putLong(value);
+        }
+        header.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+    }
+
+    private Column newColumn() throws IOException {
+        Path file = createTempFile(".column");
+        Column column = new Column(file, new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE)
+        ));
+        columns.add(column);
+        return column;
+    }
+
+    private Path createTempFile(String suffix) throws IOException {
+        return Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), suffix);
+    }
+
+    private void discard() throws IOException {
+        IOException failure = null;
+        for (Column column : columns) {
+            try {
+                column.output.close();
+                Files.deleteIfExists(column.file);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        columns.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private record Column(Path file, DataOutputStream output) {
+    }
+
+    /**
+     * Column of dictionary codes written while the dictionary grows, the values are kept encoded.
+     */
+    private static final class DictionaryColumn {
+        private static final int MAX_CHAR_BYTES = 3;
+
+        private final Column codes;
+        private final Object2IntMap<String> dictionary = new Object2IntOpenHashMap<>();
+        private final List<byte[]> values = new ArrayList<>();
+        private long length = Integer.BYTES;
+
+        private DictionaryColumn(Column codes) {
+            this.codes = codes;
+            dictionary.defaultReturnValue(-1);
+        }
+
+        /**
+         * Checks whether the dictionary section stays short enough with the value,
+         * the value is encoded only when the dictionary is close to the limit.
+         */
+        private boolean fits(String value) {
+            long limit = ColumnarFormat.MAX_SECTION_LENGTH - length - Integer.BYTES;
+            return (long) MAX_CHAR_BYTES * value.length() <= limit
+                || dictionary.containsKey(value)
+                || value.getBytes(StandardCharsets.UTF_8).length <= limit;
+        }
+
+        private void add(String value) throws IOException {
+            int code = dictionary.getInt(value);
+            if (code < 0) {
+                code = values.size();
+                dictionary.put(value, code);
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                values.add(bytes);
+                length += Integer.BYTES + bytes.length;
+            }
+            codes.output.writeInt(code);
+        }
+    }
+
+    /**
+     * Output of the sections recording their offsets and lengths.
+     */
+    private static final class SectionOutput implements Closeable {
+        private final CountingOutputStream counter;
+        private final DataOutputStream output;
+        private final long[] sections;
+        private int section = -1;
+
+        private SectionOutput(OutputStream output, long[] sections) {
+            this.counter = new CountingOutputStream(new BufferedOutputStream(output, BUFFER_SIZE));
+            this.output = new DataOutputStream(counter);
+            this.sections = sections;
+        }
+
+        private void startSection(int next) {
+            long position = counter.getByteCount();
+            if (section >= 0) {
+                sections[2 * section + 1] = position - sections[2 * section];
+            }
+            if (next < ColumnarFormat.SECTIONS) {
+                sections[2 * next] = position;
+            }
+            section = next;
+        }
+
+        private void write(byte[] bytes) throws IOException {
+            output.write(bytes);
+        }
+
+        private void writeInt(int value) throws IOException {
+            output.writeInt(value);
+        }
+
+        private void copy(Path file) throws IOException {
+            Files.copy(file, output);
+        }
+
+        private void copyCodes(Path file, int width) throws IOException {
+            try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE)
+            )) {
+                long count = Files.size(file) / Integer.BYTES;
+                for (long i = 0; i < count; i++) {
+                    int code = input.readInt();
+                    switch (width) {
+                        case Byte.BYTES -> output.writeByte(code);
+                        case Short.BYTES -> output.writeShort(code);
+                        default -> output.writeInt(code);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            output.close();
+        }
+    }
+}
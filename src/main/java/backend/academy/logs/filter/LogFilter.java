@@ -1,8 +1,44 @@
 package backend.academy.logs.filter;
 
+import backend.academy.logs.parser.LogField;
+import backend.academy.logs.parser.LogParser;
 import backend.academy.logs.parser.LogRecord;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 public interface LogFilter {
     Stream<LogRecord> filter(Stream<LogRecord> logs);
+
+    /**
+     * Fields of the logs the filter reads, the parser may skip the others.
+     */
+    default Set<LogField> requiredFields() {
+        return LogField.ALL;
+    }
+
+    /**
+     * Creates a cheap check of raw lines for a single stream, applied before parsing.
+     * It must reject only lines whose logs the filter would reject, the passed lines are still filtered
+     * after parsing. Rejected lines are still checked by {@link LogParser#createLineCheck()}
+     * and the malformed ones are passed to the parser to be reported.
+     *
+     * @return the check or empty if the filter can't tell anything by a raw line
+     */
+    default Optional<Predicate<String>> createLineFilter() {
+        return Optional.empty();
+    }
+
+    /**
+     * Creates a check of time ranges: whether the filter may pass a log with the time in the range (inclusive).
+     * Parts of indexed files whose logs all have times in rejected ranges aren't read at all.
+     *
+     * @return the check or empty if the filter doesn't depend on the time
+     */
+    default Optional<BiPredicate<LocalDateTime, LocalDateTime>> createTimeRangeFilter() {
+        return Optional.empty();
+    }
 }
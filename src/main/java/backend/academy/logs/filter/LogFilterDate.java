@@ -1,10 +1,15 @@
 package backend.academy.logs.filter;
 
+import backend.academy.logs.parser.LogField;
 import backend.academy.logs.parser.LogRecord;
 import backend.academy.logs.parser.NginxLogFormatConfig;
+import backend.academy.logs.parser.NginxTimestampDecoder;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 public class LogFilterDate implements LogFilter {
@@ -28,8 +33,12 @@ public class LogFilterDate implements LogFilter {
     }
 
     private boolean filterRecord(LogRecord log) {
-        return (from.isEmpty() || log.timeLocal().isAfter(from.orElseThrow()))
-            && (to.isEmpty() || log.timeLocal().isBefore(to.orElseThrow()));
+        return inRange(log.timeLocal());
+    }
+
+    private boolean inRange(LocalDateTime time) {
+        return (from.isEmpty() || time.isAfter(from.orElseThrow()))
+            && (to.isEmpty() || time.isBefore(to.orElseThrow()));
     }
 
     @Override
@@ -37,6 +46,36 @@ public class LogFilterDate implements LogFilter {
         return logs.filter(this::filterRecord);
     }
 
+    /**
+     * Creates the check of the bracketed timestamp of raw NGINX lines, lines with timestamps
+     * the check can't decode are passed to the parser.
+     */
+    @Override
+    public Optional<Predicate<String>> createLineFilter() {
+        if (from.isEmpty() && to.isEmpty()) {
+            return Optional.empty();
+        }
+        NginxTimestampDecoder decoder = new NginxTimestampDecoder();
+        return Optional.of(line -> {
+            LocalDateTime time = decoder.decodeLineTime(line);
+            return time == null || inRange(time);
+        });
+    }
+
+    @Override
+    public Optional<BiPredicate<LocalDateTime, LocalDateTime>> createTimeRangeFilter() {
+        if (from.isEmpty() && to.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of((min, max) -> (from.isEmpty() || max.isAfter(from.orElseThrow()))
+            && (to.isEmpty() || min.isBefore(to.orElseThrow())));
+    }
+
+    @Override
+    public Set<LogField> requiredFields() {
+        return Set.of(LogField.TIME);
+    }
+
     @Override
     public String toString() {
         return String.format("dateFilter{from=%s, to=%s}", getTime(from), getTime(to));
@@ -1,8 +1,12 @@
 package backend.academy.logs.filter;
 
 import backend.academy.logs.exceptions.BadFieldException;
+import backend.academy.logs.parser.LogField;
 import backend.academy.logs.parser.LogRecord;
 import backend.academy.logs.parser.NginxLogFormatConfig;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
@@ -12,6 +16,8 @@ public class LogFilterField implements LogFilter {
     private final Predicate<LogRecord> predicate;
     private final String patternString;
     private final String selectorString;
+    private final LogField field;
+    private final List<String> requiredLiterals;
 
     private LogFilterField(
         Pattern pattern,
@@ -22,6 +28,8 @@ public class LogFilterField implements LogFilter {
         predicate = l -> pattern.matcher(selector.apply(l)).matches();
         this.patternString = patternString;
         this.selectorString = selectorString;
+        this.field = NginxLogFormatConfig.FIELDS.get(selectorString);
+        this.requiredLiterals = RequiredLiterals.of(patternString);
     }
 
     public static LogFilterField create(String field, String pattern) {
@@ -38,6 +46,30 @@ public class LogFilterField implements LogFilter {
         return logs.filter(predicate);
     }
 
+    /**
+     * Creates the check that the raw line contains the literals every matching value contains.
+     * Values of all the fields are substrings of the raw line, numbers may only lose leading zeros.
+     */
+    @Override
+    public Optional<Predicate<String>> createLineFilter() {
+        if (requiredLiterals.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(line -> {
+            for (String literal : requiredLiterals) {
+                if (!line.contains(literal)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    @Override
+    public Set<LogField> requiredFields() {
+        return Set.of(field);
+    }
+
     @Override
     public String toString() {
         return String.format("%sFilter{pattern=%s}", selectorString, patternString);
@@ -0,0 +1,179 @@
+package backend.academy.logs.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Derives the literals every string fully matching a regular expression contains.
+ * Only plain top-level sequences are looked at: groups, classes and escapes of letters split the literals,
+ * alternations, inline flags, quoting and escapes with arguments give no literals at all,
+ * so the result is conservative.
+ */
+@UtilityClass
+class RequiredLiterals {
+    private static final String METACHARACTERS = ".^$|?*+{}[]()\\";
+    /**
+     * Escapes of a single letter, the others (e.g. {@code \x41} or {@code \p{L}}) are followed by arguments.
+     */
+    private static final String LETTER_ESCAPES = "dDsSwWbBAGZzRXhHvVtnrfea";
+
+    /**
+     * Finds the required literals of the regular expression.
+     *
+     * @return the non-empty literals or an empty list if nothing is known
+     */
+    static List<String> of(String regex) {
+        if (regex.contains("(?") || regex.contains("\\Q")) {
+            return List.of();
+        }
+        List<String> literals = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '|') {
+                return List.of();
+            }
+            if (c == '\\' && i + 1 < regex.length() && !Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                literal.append(regex.charAt(i + 1));
+                i += 2;
+            } else if (METACHARACTERS.indexOf(c) < 0) {
+                literal.append(c);
+                i++;
+            } else {
+                addLiteral(literal, literals);
+                i = skipToken(regex, i);
+                if (i < 0) {
+                    return List.of();
+                }
+                continue;
+            }
+            i = applyQuantifier(regex, i, literal, literals);
+        }
+        addLiteral(literal, literals);
+        return List.copyOf(literals);
+    }
+
+    /**
+     * Applies a quantifier following the last appended char: an optional char is removed from the literal
+     * and a repeated one ends it.
+     *
+     * @return the position after the quantifier
+     */
+    private static int applyQuantifier(String regex, int position, StringBuilder literal, List<String> literals) {
+        if (position >= regex.length()) {
+            return position;
+        }
+        char quantifier = regex.charAt(position);
+        if (quantifier == '?' || quantifier == '*' || quantifier == '{') {
+            literal.setLength(literal.length() - 1);
+            if (!literal.isEmpty() && Character.isHighSurrogate(literal.charAt(literal.length() - 1))) {
+                literal.setLength(literal.length() - 1);
+            }
+        } else if (quantifier != '+') {
+            return position;
+        }
+        addLiteral(literal, literals);
+        return position;
+    }
+
+    /**
+     * Skips a metacharacter with its content (a group or a class) and following quantifiers.
+     *
+     * @return the position after the token or -1 if the expression contains alternations or is malformed
+     */
+    private static int skipToken(String regex, int position) {
+        int i = position;
+        char c = regex.charAt(i);
+        if (c == '(') {
+            i = skipGroup(regex, i);
+        } else if (c == '[') {
+            i = skipClass(regex, i);
+        } else if (c == '{') {
+            i = regex.indexOf('}', i) + 1;
+            if (i == 0) {
+                return -1;
+            }
+        } else if (c == '\\') {
+            if (i + 1 >= regex.length() || LETTER_ESCAPES.indexOf(regex.charAt(i + 1)) < 0) {
+                return -1;
+            }
+            i += 2;
+        } else {
+            i++;
+        }
+        while (i >= 0 && i < regex.length() && "?*+{".indexOf(regex.charAt(i)) >= 0) {
+            i = regex.charAt(i) == '{' ? regex.indexOf('}', i) + 1 : i + 1;
+            if (i == 0) {
+                return -1;
+            }
+        }
+        return i;
+    }
+
+    private static int skipGroup(String regex, int position) {
+        int depth = 0;
+        int i = position;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '[') {
+                i = skipClass(regex, i);
+                if (i < 0) {
+                    return -1;
+                }
+            } else {
+                depth += c == '(' ? 1 : 0;
+                depth -= c == ')' ? 1 : 0;
+                i++;
+                if (c == ')' && depth == 0) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static int skipClass(String regex, int position) {
+        int depth = 0;
+        int i = position;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '[') {
+                depth++;
+                i = skipLeadingBracket(regex, i + 1);
+            } else {
+                i++;
+                if (c == ']' && --depth == 0) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Skips the negation and the closing bracket which is a literal at the start of a class.
+     */
+    private static int skipLeadingBracket(String regex, int position) {
+        int i = position;
+        if (i < regex.length() && regex.charAt(i) == '^') {
+            i++;
+        }
+        if (i < regex.length() && regex.charAt(i) == ']') {
+            i++;
+        }
+        return i;
+    }
+
+    private static void addLiteral(StringBuilder literal, List<String> literals) {
+        if (!literal.isEmpty()) {
+            literals.add(literal.toString());
+            literal.setLength(0);
+        }
+    }
+}
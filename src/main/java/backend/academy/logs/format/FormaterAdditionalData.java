@@ -1,7 +1,44 @@
 package backend.academy.logs.format;
 
 import backend.academy.logs.filter.LogFilter;
+import backend.academy.logs.metrics.MetricsReport;
+import backend.academy.logs.parser.MalformedLines;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
-public record FormaterAdditionalData(List<String> fileNames, List<LogFilter> filtersApplied) {
+/**
+ * Data about the analysis itself.
+ *
+ * @param extraMetrics   additional rows of metric names and values for the general information
+ * @param malformedLines malformed lines skipped in the files by their names, empty if they aren't skipped
+ * @param pipeline       metrics of the pipeline stages if they were collected
+ */
+public record FormaterAdditionalData(
+    List<String> fileNames,
+    List<LogFilter> filtersApplied,
+    List<List<String>> extraMetrics,
+    Map<String, MalformedLines> malformedLines,
+    Optional<MetricsReport> pipeline
+) {
+    public FormaterAdditionalData(List<String> fileNames, List<LogFilter> filtersApplied) {
+        this(fileNames, filtersApplied, List.of());
+    }
+
+    public FormaterAdditionalData(
+        List<String> fileNames,
+        List<LogFilter> filtersApplied,
+        List<List<String>> extraMetrics
+    ) {
+        this(fileNames, filtersApplied, extraMetrics, Map.of());
+    }
+
+    public FormaterAdditionalData(
+        List<String> fileNames,
+        List<LogFilter> filtersApplied,
+        List<List<String>> extraMetrics,
+        Map<String, MalformedLines> malformedLines
+    ) {
+        this(fileNames, filtersApplied, extraMetrics, malformedLines, Optional.empty());
+    }
 }
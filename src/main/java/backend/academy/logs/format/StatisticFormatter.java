@@ -1,11 +1,25 @@
 package backend.academy.logs.format;
 
+import backend.academy.logs.jfr.ReportFormatEvent;
+import backend.academy.logs.metrics.MetricsReport;
+import backend.academy.logs.metrics.Stage;
+import backend.academy.logs.parser.MalformedLines;
+import backend.academy.logs.parser.MalformedReason;
+import backend.academy.logs.parser.MalformedSample;
+import backend.academy.logs.statistic.KeyCount;
+import backend.academy.logs.statistic.SizeRange;
 import backend.academy.logs.statistic.StatisticCollector;
+import backend.academy.logs.statistic.TimeBucket;
+import backend.academy.logs.statistic.TimeResolution;
+import backend.academy.logs.statistic.TimeSeries;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMaps;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public abstract class StatisticFormatter {
@@ -37,17 +51,38 @@ public abstract class StatisticFormatter {
         Map.entry(504, "Gateway Timeout")
     );
 
-    private static final Comparator<Map.Entry<?, Integer>> ENTRY_VALUES_COMPARATOR =
-        Comparator.<Map.Entry<?, Integer>>comparingInt(Map.Entry::getValue).reversed();
+    private static final String FILE_HEADER = "File";
+    private static final String BYTES_HEADER = "Bytes";
+    private static final String LINES_PER_SECOND = "Lines per second";
+    private static final String PERCENT_FORMAT = "%.2f%%";
+
+    private static final List<Double> PERCENTILES = List.of(50.0, 90.0, 95.0, 99.0, 99.9);
+
+    private static final Comparator<CountedRow> ROW_COUNTS_COMPARATOR =
+        Comparator.comparingLong(CountedRow::count).reversed();
 
-    @SuppressWarnings(value = {"MagicNumber", "MultipleStringLiterals"})
     public String format(StatisticCollector collector, FormaterAdditionalData additionalData) {
+        ReportFormatEvent event = new ReportFormatEvent();
+        event.begin();
+        String report = formatReport(collector, additionalData);
+        event.end();
+        if (event.shouldCommit()) {
+            event.formatter = getClass().getSimpleName();
+            event.files = additionalData.fileNames().size();
+            event.characters = report.length();
+            event.commit();
+        }
+        return report;
+    }
+
+    @SuppressWarnings(value = {"MagicNumber", "MultipleStringLiterals"})
+    private String formatReport(StatisticCollector collector, FormaterAdditionalData additionalData) {
         String filtersApplied = additionalData.filtersApplied().isEmpty() ? "-"
             : additionalData.filtersApplied().stream()
             .map(f -> highlight(f.toString()))
             .collect(Collectors.joining(", "));
 
-        List<List<String>> generalMetrics = List.of(
+        List<List<String>> generalMetrics = new ArrayList<>(List.of(
             List.of(
                 "Metric",
                 "Value"
@@ -67,10 +102,18 @@ public abstract class StatisticFormatter {
             List.of(
                 "Average response size",
                 String.valueOf(collector.average())
-            ),
+            )
+        ));
+        for (double percentile : PERCENTILES) {
+            generalMetrics.add(List.of(
+                formatPercentile(percentile) + "p response size",
+                collector.percentile(percentile).map(String::valueOf).orElse("-")
+            ));
+        }
+        generalMetrics.addAll(List.of(
             List.of(
-                "95p response size",
-                collector.percentile(95).map(String::valueOf).orElse("-")
+                "Percentiles relative error",
+                formatRelativeError(collector.percentileRelativeError())
             ),
             List.of(
                 "Max response size",
@@ -80,36 +123,57 @@ public abstract class StatisticFormatter {
                 "Total response size",
                 String.valueOf(collector.totalResponseSize())
             )
-        );
+        ));
+        if (!additionalData.malformedLines().isEmpty()) {
+            generalMetrics.add(List.of(
+                "Malformed lines skipped",
+                String.valueOf(additionalData.malformedLines().values().stream().mapToLong(MalformedLines::count).sum())
+            ));
+        }
+        generalMetrics.addAll(additionalData.extraMetrics());
 
-        List<List<String>> accessedResources = generateTable(
-            List.of("Resource", "Count"),
-            collector.resourcesCount(),
-            entry -> List.of(entry.getKey(), String.valueOf(entry.getValue()))
-        );
+        List<List<String>> accessedResources = new ArrayList<>();
+        if (collector.resourcesCountedExactly()) {
+            accessedResources.add(List.of("Resource", "Count"));
+            for (KeyCount resource : collector.topResources()) {
+                accessedResources.add(List.of(resource.key(), String.valueOf(resource.count())));
+            }
+        } else {
+            accessedResources.add(List.of("Resource", "Count (at most)", "Overcount (at most)"));
+            for (KeyCount resource : collector.topResources()) {
+                accessedResources.add(List.of(
+                    resource.key(), String.valueOf(resource.count()), String.valueOf(resource.error())
+                ));
+            }
+        }
+
+        List<CountedRow> statusRows = new ArrayList<>();
+        collector.forEachStatus((status, count) -> statusRows.add(new CountedRow(
+            List.of(String.valueOf(status), getStatusName(status)), count
+        )));
+        List<List<String>> statusCodes = generateTable(List.of("Code", "Name", "Count"), statusRows);
 
-        List<List<String>> statusCodes = generateTable(
-            List.of("Code", "Name", "Count"),
-            collector.statusCount(),
-            entry -> List.of(
-                String.valueOf(entry.getKey()), getStatusName(entry.getKey()), String.valueOf(entry.getValue())
-            )
-        );
         List<List<String>> methods = generateTable(
             List.of("Method", "Count"),
-            collector.methodsCount(),
-            entry -> List.of(entry.getKey(), String.valueOf(entry.getValue()))
+            countedRows(collector.methodsCount())
         );
 
-        List<List<String>> requestsPerDay = generateTable(
-            List.of("Day", "Count"),
-            collector.requestsPerDay(),
-            entry -> List.of(entry.getKey().toString(), String.valueOf(entry.getValue()))
-        );
+        List<CountedRow> dayRows = new ArrayList<>();
+        collector.forEachEpochDay((day, count) -> dayRows.add(new CountedRow(
+            List.of(LocalDate.ofEpochDay(day).toString()), count
+        )));
+        List<List<String>> requestsPerDay = generateTable(List.of("Day", "Count"), dayRows);
 
-        List<String> lines = List.of(
+        List<List<String>> responseSizes = new ArrayList<>(List.of(List.of("Size", "Count")));
+        for (SizeRange range : collector.sizeHistogram()) {
+            responseSizes.add(List.of(formatSizeRange(range), String.valueOf(range.count())));
+        }
+
+        List<String> lines = new ArrayList<>(List.of(
             formatHeader("General information"),
             formatTable(generalMetrics),
+            formatHeader("Response sizes"),
+            formatTable(responseSizes),
             formatHeader("Accessed resources"),
             formatTable(accessedResources),
             formatHeader("Status codes"),
@@ -118,29 +182,177 @@ public abstract class StatisticFormatter {
             formatTable(methods),
             formatHeader("Requests per day"),
             formatTable(requestsPerDay)
-        );
+        ));
+        collector.timeSeries().ifPresent(series -> lines.addAll(formatTimeSeries(series)));
+        if (!additionalData.malformedLines().isEmpty()) {
+            lines.addAll(formatMalformedLines(additionalData.malformedLines()));
+        }
+        additionalData.pipeline().ifPresent(pipeline -> lines.addAll(formatPipeline(pipeline)));
 
         return lines.stream().collect(Collectors.joining(String.format("%n%n")));
 
     }
 
-    private static <T> List<List<String>> generateTable(
-        List<String> headers,
-        Map<T, Integer> data,
-        Function<Map.Entry<T, Integer>, List<String>> mapper
-    ) {
+    private List<String> formatMalformedLines(Map<String, MalformedLines> malformedLines) {
+        List<String> header = new ArrayList<>(List.of(FILE_HEADER));
+        for (MalformedReason reason : MalformedReason.values()) {
+            header.add(reason.description());
+        }
+        header.addAll(List.of("Total", "Rest skipped"));
+        List<List<String>> counts = new ArrayList<>(List.of(header));
+        List<List<String>> samples = new ArrayList<>(List.of(List.of(FILE_HEADER, "Reason", "Line")));
+        for (Map.Entry<String, MalformedLines> file : malformedLines.entrySet()) {
+            List<String> row = new ArrayList<>(List.of(highlight(file.getKey())));
+            for (MalformedReason reason : MalformedReason.values()) {
+                row.add(String.valueOf(file.getValue().count(reason)));
+            }
+            row.add(String.valueOf(file.getValue().count()));
+            row.add(file.getValue().limitExceeded() ? "yes" : "no");
+            counts.add(row);
+            for (MalformedSample sample : file.getValue().samples()) {
+                // malformed lines may contain the cell separator which is escaped the same way in both formats
+                samples.add(List.of(
+                    highlight(file.getKey()), sample.reason().description(), sample.line().replace("|", "\\|")
+                ));
+            }
+        }
+        return List.of(
+            formatHeader("Malformed lines"),
+            formatTable(counts),
+            formatHeader("Malformed line samples"),
+            formatTable(samples)
+        );
+    }
+
+    /**
+     * Formats a row per bucket with logs, the sizes are the ranges of the size classes of the percentiles.
+     */
+    @SuppressWarnings(value = "MagicNumber") // status classes and percentiles
+    private List<String> formatTimeSeries(TimeSeries series) {
+        List<List<String>> rows = new ArrayList<>(List.of(List.of(
+            "Time", "Requests", BYTES_HEADER, "1xx", "2xx", "3xx", "4xx", "5xx", "5xx rate", "50p size", "99p size"
+        )));
+        for (TimeBucket bucket : series.buckets()) {
+            rows.add(List.of(
+                series.resolution() == TimeResolution.DAY
+                    ? bucket.start().toLocalDate().toString()
+                    : bucket.start().toString(),
+                String.valueOf(bucket.requests()),
+                String.valueOf(bucket.bytes()),
+                String.valueOf(bucket.statusClassCount(100)),
+                String.valueOf(bucket.statusClassCount(200)),
+                String.valueOf(bucket.statusClassCount(300)),
+                String.valueOf(bucket.statusClassCount(400)),
+                String.valueOf(bucket.statusClassCount(500)),
+                formatRatio(bucket.statusClassCount(500), bucket.requests()),
+                formatSizeClass(bucket.sizePercentile(50)),
+                formatSizeClass(bucket.sizePercentile(99))
+            ));
+        }
+        return List.of(
+            formatHeader("Requests per " + series.resolution().name().toLowerCase(Locale.ROOT)),
+            formatTable(rows)
+        );
+    }
+
+    @SuppressWarnings(value = "MagicNumber") // bytes in a megabyte and nanoseconds in a millisecond
+    private List<String> formatPipeline(MetricsReport pipeline) {
+        List<List<String>> general = List.of(
+            List.of("Metric", "Value"),
+            List.of("Wall time, ms", formatDecimal(pipeline.wallNanos() / 1e6)),
+            List.of(LINES_PER_SECOND, formatDecimal(pipeline.linesPerSecond())),
+            List.of("Peak heap, MB", formatDecimal(pipeline.peakHeapBytes() / 1024.0 / 1024.0))
+        );
+        List<List<String>> files = new ArrayList<>(List.of(
+            List.of(FILE_HEADER, "Lines", "Logs", BYTES_HEADER, "Time, ms", LINES_PER_SECOND)
+        ));
+        List<String> stageHeader = new ArrayList<>(List.of(FILE_HEADER));
+        for (Stage stage : Stage.values()) {
+            stageHeader.add(stage.description() + ", ns per item");
+        }
+        List<List<String>> stages = new ArrayList<>(List.of(stageHeader));
+        for (MetricsReport.FileMetrics file : pipeline.files()) {
+            files.add(List.of(
+                highlight(file.file()), String.valueOf(file.lines()), String.valueOf(file.logs()),
+                String.valueOf(file.bytes()), formatDecimal(file.busyNanos() / 1e6),
+                formatDecimal(file.linesPerSecond())
+            ));
+            List<String> row = new ArrayList<>(List.of(highlight(file.file())));
+            for (MetricsReport.StageTime stage : file.stages()) {
+                row.add(stage.items() == 0 ? "-" : formatDecimal(stage.nanosPerItem()));
+            }
+            stages.add(row);
+        }
+        List<List<String>> filters = new ArrayList<>(List.of(
+            List.of("Filter", "Lines checked", "Lines pass ratio", "Logs checked", "Logs pass ratio")
+        ));
+        for (MetricsReport.FilterMetrics filter : pipeline.filters()) {
+            filters.add(List.of(
+                highlight(filter.filter()),
+                String.valueOf(filter.linesChecked()), formatRatio(filter.linesPassed(), filter.linesChecked()),
+                String.valueOf(filter.logsChecked()), formatRatio(filter.logsPassed(), filter.logsChecked())
+            ));
+        }
+        return List.of(
+            formatHeader("Pipeline metrics"),
+            formatTable(general),
+            formatTable(files),
+            formatTable(stages),
+            formatTable(filters)
+        );
+    }
+
+    @SuppressWarnings(value = "MagicNumber") // 100 is not a magic number, it is a maximum percentage
+    private static String formatRatio(long passed, long checked) {
+        return checked == 0 ? "-" : String.format(Locale.ROOT, PERCENT_FORMAT, 100.0 * passed / checked);
+    }
+
+    private static String formatDecimal(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    private static List<CountedRow> countedRows(Object2LongMap<String> counts) {
+        List<CountedRow> rows = new ArrayList<>(counts.size());
+        for (Object2LongMap.Entry<String> entry : Object2LongMaps.fastIterable(counts)) {
+            rows.add(new CountedRow(List.of(entry.getKey()), entry.getLongValue()));
+        }
+        return rows;
+    }
+
+    private static List<List<String>> generateTable(List<String> headers, List<CountedRow> rows) {
         List<List<String>> table = new ArrayList<>(List.of(headers));
 
         table.addAll(
-            data.entrySet().stream()
-                .sorted(ENTRY_VALUES_COMPARATOR)
-                .map(mapper)
+            rows.stream()
+                .sorted(ROW_COUNTS_COMPARATOR)
+                .map(row -> {
+                    List<String> cells = new ArrayList<>(row.cells());
+                    cells.add(String.valueOf(row.count()));
+                    return cells;
+                })
                 .toList()
         );
 
         return table;
     }
 
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+
+    @SuppressWarnings(value = "MagicNumber") // 100 is not a magic number, it is a maximum percentage
+    private static String formatRelativeError(double error) {
+        return error == 0 ? "exact" : String.format(Locale.ROOT, PERCENT_FORMAT, error * 100);
+    }
+
+    private static String formatSizeRange(SizeRange range) {
+        return range.from() == range.to() ? String.valueOf(range.from()) : range.from() + "-" + range.to();
+    }
+
+    private static String formatSizeClass(SizeRange range) {
+        return range.to() == Integer.MAX_VALUE ? range.from() + "+" : formatSizeRange(range);
+    }
+
     private static String getStatusName(int status) {
         return HTTP_STATUS_NAMES.getOrDefault(status, "-");
     }
@@ -150,4 +362,10 @@ public abstract class StatisticFormatter {
     protected abstract String formatHeader(String name);
 
     protected abstract String highlight(String word);
+
+    /**
+     * Row of a table with the count in the last column.
+     */
+    private record CountedRow(List<String> cells, long count) {
+    }
 }
@@ -0,0 +1,93 @@
+package backend.academy.logs.generator;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import lombok.With;
+
+/**
+ * Distributions of the generated logs.
+ *
+ * @param seed            seed of the random numbers, the same settings always give the same lines
+ * @param lines           number of lines including the malformed ones
+ * @param resources       number of distinct resources
+ * @param resourceSkew    exponent of the Zipf distribution of the resources, 0 for the uniform one
+ * @param statusMix       weights of the statuses
+ * @param minBytes        smallest response size, the scale of the Pareto distribution of the sizes
+ * @param bytesTailIndex  shape of the Pareto distribution of the sizes, the smaller the heavier the tail
+ * @param agents          number of distinct user agents
+ * @param start           time of the first line
+ * @param span            time between the first and the last line
+ * @param outOfOrderRatio fraction of the lines written later than their time
+ * @param maxDelay        longest delay of the lines out of order
+ * @param malformedRatio  fraction of the lines which aren't valid logs
+ */
+@With
+@SuppressWarnings("RecordComponentNumber")
+public record GeneratorSettings(
+    long seed,
+    long lines,
+    int resources,
+    double resourceSkew,
+    Map<Integer, Double> statusMix,
+    int minBytes,
+    double bytesTailIndex,
+    int agents,
+    OffsetDateTime start,
+    Duration span,
+    double outOfOrderRatio,
+    Duration maxDelay,
+    double malformedRatio
+) {
+    private static final int MIN_STATUS = 100;
+    private static final int MAX_STATUS = 999;
+
+    public GeneratorSettings {
+        requireAtLeast("lines", lines, 0);
+        requireAtLeast("resources", resources, 1);
+        requireAtLeast("min bytes", minBytes, 1);
+        requireAtLeast("agents", agents, 1);
+        if (!(resourceSkew >= 0) || !(bytesTailIndex > 0)) {
+            throw new IllegalArgumentException("Resource skew can't be negative and bytes tail index must be positive");
+        }
+        if (statusMix.isEmpty() || statusMix.entrySet().stream().anyMatch(
+            e -> e.getKey() < MIN_STATUS || e.getKey() > MAX_STATUS || !(e.getValue() > 0)
+        )) {
+            throw new IllegalArgumentException("Status mix must have positive weights of 3-digit statuses");
+        }
+        if (span.isNegative() || maxDelay.isNegative()) {
+            throw new IllegalArgumentException("Time span and max delay can't be negative");
+        }
+        if (!(outOfOrderRatio >= 0 && outOfOrderRatio <= 1) || !(malformedRatio >= 0 && malformedRatio <= 1)) {
+            throw new IllegalArgumentException("Ratios must be between 0 and 1");
+        }
+        // sorted to draw the statuses in the same order whatever map is given
+        statusMix = Collections.unmodifiableSortedMap(new TreeMap<>(statusMix));
+    }
+
+    /**
+     * Settings of a day of logs with a typical mix of statuses, a few popular resources and a few lines
+     * out of order, but without malformed lines.
+     */
+    @SuppressWarnings("MagicNumber")
+    public static GeneratorSettings defaults() {
+        SortedMap<Integer, Double> statusMix = new TreeMap<>(Map.of(
+            200, 80.0, 206, 2.0, 301, 1.0, 304, 8.0, 403, 1.0, 404, 6.0, 500, 1.5, 503, 0.5
+        ));
+        return new GeneratorSettings(
+            0, 1_000_000, 10_000, 1.1, statusMix, 200, 1.2, 1000,
+            OffsetDateTime.of(2015, 5, 17, 0, 0, 0, 0, ZoneOffset.UTC), Duration.ofDays(1),
+            0.01, Duration.ofMinutes(5), 0
+        );
+    }
+
+    private static void requireAtLeast(String name, long value, long min) {
+        if (value < min) {
+            throw new IllegalArgumentException("Number of " + name + " must be at least " + min + ", got " + value);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package backend.academy.logs.generator;
+
+import backend.academy.logs.parser.NginxLogFormatConfig;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Generates NGINX access logs matching {@link NginxLogFormatConfig#NGINX_LOG_PATTERN} from the settings.
+ * The lines are evenly spread over the time span, the lines out of order are delayed by up to the max delay.
+ * Malformed lines are truncated lines, lines with invalid times and lines with statuses out of range,
+ * so every reason of malformed lines is met.
+ */
+public class LogGenerator {
+    private static final String[] METHODS = {"GET", "POST", "HEAD", "PUT", "DELETE"};
+    private static final double[] METHOD_WEIGHTS = {85, 8, 5, 1.5, 0.5};
+    private static final String[] RESOURCE_PREFIXES = {
+        "/downloads/product_", "/static/img/", "/api/v1/items/", "/blog/"
+    };
+    private static final String[] AGENT_TEMPLATES = {
+        "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/%d.0.%d.0 Safari/537.36",
+        "Mozilla/5.0 (Windows NT 10.0; Win64; x64; rv:%d.0) Gecko/20100101 Firefox/%d.0",
+        "Debian APT-HTTP/1.3 (%d.%d)",
+        "Wget/1.%d.%d (linux-gnu)"
+    };
+    private static final int[] NO_BODY_STATUSES = {204, 304};
+    private static final int MALFORMED_KINDS = 4;
+    private static final int OCTET = 256;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final GeneratorSettings settings;
+    private final SplittableRandom random;
+    private final double[] resourceCumulative;
+    private final int[] statuses;
+    private final double[] statusCumulative;
+    private final double[] methodCumulative;
+    private final String[] agents;
+    private final long startSecond;
+    private final StringBuilder line = new StringBuilder(OCTET);
+    private long generated;
+    private long formattedSecond = Long.MIN_VALUE;
+    private String formattedTime;
+
+    private LogGenerator(GeneratorSettings settings) {
+        this.settings = settings;
+        this.random = new SplittableRandom(settings.seed());
+        this.resourceCumulative = zipfCumulative(settings.resources(), settings.resourceSkew());
+        this.statuses = settings.statusMix().keySet().stream().mapToInt(Integer::intValue).toArray();
+        this.statusCumulative = cumulative(settings.statusMix().values().stream().mapToDouble(Double::doubleValue)
+            .toArray());
+        this.methodCumulative = cumulative(METHOD_WEIGHTS);
+        this.agents = new String[settings.agents()];
+        for (int i = 0; i < agents.length; i++) {
+            agents[i] = String.format(AGENT_TEMPLATES[i % AGENT_TEMPLATES.length],
+                i / AGENT_TEMPLATES.length % OCTET, i / AGENT_TEMPLATES.length / OCTET);
+        }
+        this.startSecond = settings.start().toEpochSecond();
+    }
+
+    public static LogGenerator create(GeneratorSettings settings) {
+        return new LogGenerator(settings);
+    }
+
+    /**
+     * Generates the settings' lines to the file.
+     *
+     * @param gzip whether to compress the file as a single gzip member
+     * @throws IOException if the file can't be written
+     */
+    public static void write(GeneratorSettings settings, Path target, boolean gzip) throws IOException {
+        try (OutputStream file = Files.newOutputStream(target);
+             OutputStream output = gzip ? new GZIPOutputStream(file, BUFFER_SIZE) : file;
+             Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            create(settings).write(writer);
+        }
+    }
+
+    public boolean hasNext() {
+        return generated < settings.lines();
+    }
+
+    /**
+     * Generates the next line.
+     *
+     * @return the line without a line feed
+     * @throws NoSuchElementException if all the lines are generated
+     */
+    public String nextLine() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("All " + settings.lines() + " lines are generated");
+        }
+        line.setLength(0);
+        appendLog();
+        generated++;
+        if (random.nextDouble() < settings.malformedRatio()) {
+            corrupt();
+        }
+        return line.toString();
+    }
+
+    /**
+     * Writes the rest of the lines, every line is followed by a line feed.
+     */
+    public void write(Writer writer) throws IOException {
+        while (hasNext()) {
+            writer.write(nextLine());
+            writer.write('\n');
+        }
+    }
+
+    private void appendLog() {
+        int status = statuses[draw(statusCumulative)];
+        int bytes = Arrays.binarySearch(NO_BODY_STATUSES, status) >= 0 ? 0 : bytesSent();
+        int resource = draw(resourceCumulative);
+        line.append(random.nextInt(1, OCTET - 1)).append('.').append(random.nextInt(OCTET)).append('.')
+            .append(random.nextInt(OCTET)).append('.').append(random.nextInt(1, OCTET - 1))
+            .append(" - - [").append(time()).append("] \"")
+            .append(METHODS[draw(methodCumulative)]).append(' ')
+            .append(RESOURCE_PREFIXES[resource % RESOURCE_PREFIXES.length]).append(resource)
+            .append(" HTTP/1.1\" ").append(status).append(' ').append(bytes).append(" \"")
+            .append(random.nextInt(2) == 0 ? "-" : "https://example.com/")
+            .append("\" \"").append(agents[random.nextInt(agents.length)]).append('"');
+    }
+
+    /**
+     * Draws a size from the Pareto distribution.
+     */
+    private int bytesSent() {
+        double size = settings.minBytes() / Math.pow(1 - random.nextDouble(), 1 / settings.bytesTailIndex());
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    private String time() {
+        long second = startSecond;
+        if (settings.lines() > 1) {
+            second += (long) ((double) settings.span().toSeconds() * generated / (settings.lines() - 1));
+        }
+        if (random.nextDouble() < settings.outOfOrderRatio() && settings.maxDelay().toSeconds() > 0) {
+            second -= random.nextLong(1, settings.maxDelay().toSeconds() + 1);
+        }
+        if (second != formattedSecond) {
+            formattedSecond = second;
+            formattedTime = NginxLogFormatConfig.NGINX_TIME_FORMAT.format(
+                settings.start().plusSeconds(second - startSecond)
+            );
+        }
+        return formattedTime;
+    }
+
+    /**
+     * Turns the generated log into a malformed line.
+     */
+    @SuppressWarnings("MagicNumber")
+    private void corrupt() {
+        switch (random.nextInt(MALFORMED_KINDS)) {
+            case 0 -> line.setLength(random.nextInt(line.indexOf("\"") + 1));
+            case 1 -> {
+                int month = line.indexOf("/") + 1;
+                line.replace(month, month + 3, "Foo");
+            }
+            case 2 -> {
+                int status = line.indexOf("\" ", line.indexOf("HTTP/")) + 2;
+                line.replace(status, line.indexOf(" ", status), "99999999999");
+            }
+            default -> line.replace(0, line.length(), "GET /downloads/product_" + random.nextInt(OCTET));
+        }
+    }
+
+    private int draw(double[] cumulative) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble() * cumulative[cumulative.length - 1]);
+        return Math.min(index < 0 ? -index - 1 : index + 1, cumulative.length - 1);
+    }
+
+    private static double[] zipfCumulative(int count, double skew) {
+        double[] weights = new double[count];
+        for (int rank = 0; rank < count; rank++) {
+            weights[rank] = Math.pow(rank + 1, -skew);
+        }
+        return cumulative(weights);
+    }
+
+    private static double[] cumulative(double[] weights) {
+        double[] cumulative = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cumulative[i] = sum;
+        }
+        return cumulative;
+    }
+}
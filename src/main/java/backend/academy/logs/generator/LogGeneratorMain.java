@@ -0,0 +1,213 @@
+package backend.academy.logs.generator;
+
+import backend.academy.logs.Main;
+import com.beust.jcommander.IStringConverter;
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Writes a synthetic log file, e.g. the input of the benchmarks or of scaling tests.
+ */
+@UtilityClass
+public class LogGeneratorMain {
+    @SuppressWarnings(value = "ReturnCount")
+    public static void main(String[] args) {
+        GeneratorArgs jArgs = new GeneratorArgs();
+        JCommander cmd = JCommander.newBuilder()
+            .addObject(jArgs)
+            .programName(LogGeneratorMain.class.getName())
+            .build();
+
+        try {
+            cmd.parse(args);
+        } catch (ParameterException e) {
+            errorAndUsage(cmd, "Bad generator arguments: ", e);
+            return;
+        }
+
+        if (jArgs.help) {
+            cmd.usage();
+            return;
+        }
+
+        try {
+            LogGenerator.write(getSettings(jArgs), Path.of(jArgs.dst), jArgs.gzip);
+        } catch (IOException | InvalidPathException e) {
+            errorAndUsage(cmd, "Can't write to output file: ", e);
+        } catch (IllegalArgumentException e) {
+            errorAndUsage(cmd, "Bad distributions: ", e);
+        }
+    }
+
+    private static GeneratorSettings getSettings(GeneratorArgs jArgs) {
+        GeneratorSettings settings = GeneratorSettings.defaults()
+            .withSeed(jArgs.seed)
+            .withLines(jArgs.lines)
+            .withResources(jArgs.resources)
+            .withResourceSkew(jArgs.resourceSkew)
+            .withMinBytes(jArgs.minBytes)
+            .withBytesTailIndex(jArgs.bytesTailIndex)
+            .withAgents(jArgs.agents)
+            .withSpan(jArgs.span)
+            .withOutOfOrderRatio(jArgs.outOfOrderRatio)
+            .withMaxDelay(jArgs.maxDelay)
+            .withMalformedRatio(jArgs.malformedRatio);
+        if (Objects.nonNull(jArgs.statusMix)) {
+            settings = settings.withStatusMix(jArgs.statusMix);
+        }
+        return Objects.isNull(jArgs.start) ? settings : settings.withStart(jArgs.start);
+    }
+
+    private static void errorAndUsage(JCommander cmd, String msg, Throwable e) {
+        System.err.println(msg + e.getMessage());
+        cmd.usage();
+    }
+
+    public static class DurationConverter implements IStringConverter<Duration> {
+        @Override
+        public Duration convert(String value) {
+            try {
+                return Duration.parse(value);
+            } catch (DateTimeParseException e) {
+                throw new ParameterException("Invalid duration: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    public static class StatusMixConverter implements IStringConverter<Map<Integer, Double>> {
+        @Override
+        public Map<Integer, Double> convert(String value) {
+            Map<Integer, Double> statusMix = new LinkedHashMap<>();
+            for (String entry : value.split(",")) {
+                String[] statusAndWeight = entry.split(":");
+                try {
+                    if (statusAndWeight.length != 2) {
+                        throw new NumberFormatException(entry);
+                    }
+                    statusMix.put(Integer.parseInt(statusAndWeight[0].trim()),
+                        Double.parseDouble(statusAndWeight[1].trim()));
+                } catch (NumberFormatException e) {
+                    throw new ParameterException("Invalid status weight, expected status:weight, got " + entry, e);
+                }
+            }
+            return statusMix;
+        }
+    }
+
+    public static class GeneratorArgs {
+        private final GeneratorSettings defaults = GeneratorSettings.defaults();
+
+        @Parameter(
+            names = {"--destination", "--dst", "-d"},
+            description = "file to write the logs to",
+            required = true
+        )
+        public String dst;
+
+        @Parameter(
+            names = "--gzip",
+            description = "compress the file with gzip"
+        )
+        public boolean gzip;
+
+        @Parameter(
+            names = "--seed",
+            description = "seed of the random numbers, the same arguments always give the same file"
+        )
+        public long seed = defaults.seed();
+
+        @Parameter(
+            names = {"--lines", "-n"},
+            description = "number of lines"
+        )
+        public long lines = defaults.lines();
+
+        @Parameter(
+            names = "--resources",
+            description = "number of distinct resources"
+        )
+        public int resources = defaults.resources();
+
+        @Parameter(
+            names = "--resource-skew",
+            description = "exponent of the Zipf distribution of the resources, 0 for the uniform one"
+        )
+        public double resourceSkew = defaults.resourceSkew();
+
+        @Parameter(
+            names = "--status-mix",
+            description = "weights of the statuses like 200:90,404:9,500:1",
+            converter = StatusMixConverter.class
+        )
+        public Map<Integer, Double> statusMix;
+
+        @Parameter(
+            names = "--min-bytes",
+            description = "smallest response size, the scale of the Pareto distribution of the sizes"
+        )
+        public int minBytes = defaults.minBytes();
+
+        @Parameter(
+            names = "--bytes-tail-index",
+            description = "shape of the Pareto distribution of the sizes, the smaller the heavier the tail"
+        )
+        public double bytesTailIndex = defaults.bytesTailIndex();
+
+        @Parameter(
+            names = "--agents",
+            description = "number of distinct user agents"
+        )
+        public int agents = defaults.agents();
+
+        @Parameter(
+            names = "--start",
+            description = "time of the first line in ISO8601 format",
+            converter = Main.TimeConverter.class
+        )
+        public OffsetDateTime start;
+
+        @Parameter(
+            names = "--span",
+            description = "ISO8601 duration between the first and the last line",
+            converter = DurationConverter.class
+        )
+        public Duration span = defaults.span();
+
+        @Parameter(
+            names = "--out-of-order",
+            description = "fraction of the lines written later than their time"
+        )
+        public double outOfOrderRatio = defaults.outOfOrderRatio();
+
+        @Parameter(
+            names = "--max-delay",
+            description = "ISO8601 duration, the longest delay of the lines out of order",
+            converter = DurationConverter.class
+        )
+        public Duration maxDelay = defaults.maxDelay();
+
+        @Parameter(
+            names = "--malformed",
+            description = "fraction of the lines which aren't valid logs"
+        )
+        public double malformedRatio = defaults.malformedRatio();
+
+        @Parameter(
+            names = {"--help", "-h"},
+            description = "show help",
+            help = true
+        )
+        public boolean help;
+    }
+}
@@ -0,0 +1,224 @@
+package backend.academy.logs.index;
+
+import backend.academy.logs.parser.LogParser;
+import backend.academy.logs.parser.NginxTimestampDecoder;
+import backend.academy.logs.state.FileIdentity;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import java.io.IOException;
+import java.io.Serial;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Sparse index of the times of a plain log file: the file is divided into blocks of whole lines
+ * of about the block size and the earliest and the latest time of the lines of every block are kept.
+ * The times are decoded from the raw lines as by the line filter of {@link backend.academy.logs.filter.LogFilterDate},
+ * a block with a line whose time can't be decoded or which the parser rejects (e.g. an empty or malformed line)
+ * has an unknown range, so it's never skipped and the malformed line is reported as without the index.
+ * Since the blocks keep the ranges rather than sampled times, lines out of order only widen the range of their block.
+ *
+ * @param identity   identity of the file when it was indexed
+ * @param end        position after the last indexed line, the incomplete last line isn't indexed
+ * @param starts     start positions of the blocks
+ * @param minSeconds earliest UTC epoch second of every block, {@link Long#MIN_VALUE} if unknown
+ * @param maxSeconds latest UTC epoch second of every block, {@link Long#MAX_VALUE} if unknown
+ */
+public record TimeIndex(FileIdentity identity, long end, long[] starts, long[] minSeconds, long[] maxSeconds)
+    implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 2L;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Indexes the lines of the file after the end of the previous index.
+     *
+     * @param previous  index of the file before bytes were appended to it or null to index the whole file
+     * @param blockSize approximate size of a block in bytes
+     * @param parser    parser of the analyzed lines to check them with
+     * @return the index of the whole file
+     * @throws IOException if the file can't be read
+     */
+    public static TimeIndex build(Path file, TimeIndex previous, long blockSize, LogParser parser)
+        throws IOException {
+        FileIdentity identity = FileIdentity.of(file);
+        Builder builder = new Builder(blockSize, previous, parser.createLineCheck());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            long position = builder.end;
+            while (position < identity.size()) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), identity.size() - position));
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                long consumed = builder.addLines(buffer.array(), read, position);
+                if (consumed == 0 && read == buffer.capacity()) {
+                    consumed = builder.addLongLine(channel, position, identity.size());
+                }
+                if (consumed == 0) {
+                    break;
+                }
+                position += consumed;
+            }
+        }
+        return builder.build(identity);
+    }
+
+    /**
+     * Finds the range of the file covering all the lines the filter may pass.
+     *
+     * @param mayPass  check whether the filter may pass a log with the time in the range (inclusive)
+     * @param fileSize current size of the file, the bytes after the indexed ones are always covered
+     * @return the range starting with a line and ending after a line feed or at the file size, empty if nothing passes
+     */
+    public Range coveringRange(BiPredicate<LocalDateTime, LocalDateTime> mayPass, long fileSize) {
+        long start = -1;
+        long rangeEnd = 0;
+        for (int i = 0; i < starts.length; i++) {
+            if (mayPass.test(time(minSeconds[i], LocalDateTime.MIN), time(maxSeconds[i], LocalDateTime.MAX))) {
+                if (start < 0) {
+                    start = starts[i];
+                }
+                rangeEnd = i + 1 < starts.length ? starts[i + 1] : end;
+            }
+        }
+        if (fileSize > end) {
+            return new Range(start < 0 ? end : start, fileSize);
+        }
+        return start < 0 ? new Range(0, 0) : new Range(start, rangeEnd);
+    }
+
+    private static LocalDateTime time(long second, LocalDateTime unknown) {
+        return second == Long.MIN_VALUE || second == Long.MAX_VALUE
+            ? unknown
+            : LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Byte range of a file.
+     *
+     * @param start position of the first byte
+     * @param end   position after the last byte
+     */
+    public record Range(long start, long end) {
+        public boolean isEmpty() {
+            return start >= end;
+        }
+    }
+
+    /**
+     * Accumulates the blocks while the lines are read.
+     */
+    private static final class Builder {
+        private final long blockSize;
+        private final LongArrayList starts = new LongArrayList();
+        private final LongArrayList minSeconds = new LongArrayList();
+        private final LongArrayList maxSeconds = new LongArrayList();
+        private final NginxTimestampDecoder decoder = new NginxTimestampDecoder();
+        private final Predicate<String> lineCheck;
+        private long end;
+
+        private Builder(long blockSize, TimeIndex previous, Predicate<String> lineCheck) {
+            this.blockSize = blockSize;
+            this.lineCheck = lineCheck;
+            if (previous != null) {
+                starts.addElements(0, previous.starts);
+                minSeconds.addElements(0, previous.minSeconds);
+                maxSeconds.addElements(0, previous.maxSeconds);
+                end = previous.end;
+            }
+        }
+
+        /**
+         * Adds the complete lines of the bytes read at the position.
+         *
+         * @return the number of bytes of the complete lines
+         */
+        private long addLines(byte[] bytes, int length, long position) {
+            int lineStart = 0;
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] == '\n') {
+                    addLine(position + lineStart, position + i + 1, lineTime(bytes, lineStart, i));
+                    lineStart = i + 1;
+                }
+            }
+            return lineStart;
+        }
+
+        /**
+         * Adds a line longer than the buffer, its time is unknown.
+         *
+         * @return the number of bytes of the line or 0 if it's incomplete
+         */
+        private long addLongLine(FileChannel channel, long lineStart, long size) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            long current = lineStart;
+            while (current < size) {
+                buffer.clear().limit((int) Math.min(BUFFER_SIZE, size - current));
+                int read = channel.read(buffer, current);
+                if (read <= 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (buffer.get(i) == '\n') {
+                        addLine(lineStart, current + i + 1, Long.MIN_VALUE);
+                        return current + i + 1 - lineStart;
+                    }
+                }
+                current += read;
+            }
+            return 0;
+        }
+
+        /**
+         * Decodes the time of the line as the line filter does if the parser accepts the line.
+         *
+         * @return the epoch second or {@link Long#MIN_VALUE} if unknown or the line is malformed
+         */
+        private long lineTime(byte[] bytes, int start, int lineFeed) {
+            int lineEnd = lineFeed > start && bytes[lineFeed - 1] == '\r' ? lineFeed - 1 : lineFeed;
+            for (int i = start; i < lineEnd; i++) {
+                if (bytes[i] == '\r') {
+                    // the line is split in two by the reader
+                    return Long.MIN_VALUE;
+                }
+            }
+            String line = new String(bytes, start, lineEnd - start, StandardCharsets.UTF_8);
+            LocalDateTime time = lineCheck.test(line) ? decoder.decodeLineTime(line) : null;
+            return time == null ? Long.MIN_VALUE : time.toEpochSecond(ZoneOffset.UTC);
+        }
+
+        private void addLine(long lineStart, long lineEnd, long second) {
+            int last = starts.size() - 1;
+            if (last < 0 || lineStart - starts.getLong(last) >= blockSize) {
+                starts.add(lineStart);
+                minSeconds.add(Long.MAX_VALUE);
+                maxSeconds.add(Long.MIN_VALUE);
+                last++;
+            }
+            if (second == Long.MIN_VALUE) {
+                minSeconds.set(last, Long.MIN_VALUE);
+                maxSeconds.set(last, Long.MAX_VALUE);
+            } else {
+                minSeconds.set(last, Math.min(minSeconds.getLong(last), second));
+                maxSeconds.set(last, Math.max(maxSeconds.getLong(last), second));
+            }
+            end = lineEnd;
+        }
+
+        private TimeIndex build(FileIdentity identity) {
+            return new TimeIndex(
+                identity, end, starts.toLongArray(), minSeconds.toLongArray(), maxSeconds.toLongArray()
+            );
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package backend.academy.logs.index;
+
+import backend.academy.logs.parser.LogParser;
+import backend.academy.logs.state.SidecarStore;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Directory keeping a {@link TimeIndex} per local file. An index is built on the first request of the file
+ * and is kept as long as the file only grows: the appended lines are indexed on the next request.
+ * Indexes of files which have been replaced, truncated or rewritten since and unreadable ones are built again.
+ */
+public class TimeIndexStore {
+    public static final long DEFAULT_BLOCK_SIZE = 1024L * 1024;
+
+    private static final String EXTENSION = ".timeindex";
+    private static final String CLASSES = "backend.academy.logs.**;java.base/*;!*";
+
+    private final SidecarStore<TimeIndex> indexes;
+    private final long blockSize;
+
+    private TimeIndexStore(SidecarStore<TimeIndex> indexes, long blockSize) {
+        this.indexes = indexes;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Creates the store in the directory, the directory is created if it doesn't exist.
+     *
+     * @param blockSize approximate size in bytes of the parts of the files with their own time ranges
+     * @return the store
+     * @throws IOException if the directory can't be created
+     */
+    public static TimeIndexStore create(String dir, long blockSize) throws IOException {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive, got " + blockSize);
+        }
+        return new TimeIndexStore(SidecarStore.create(dir, EXTENSION, TimeIndex.class, CLASSES), blockSize);
+    }
+
+    /**
+     * Gets the index of the whole file building or extending it if needed.
+     *
+     * @param parser parser of the analyzed lines, blocks with lines it rejects are never skipped
+     * @return the index of the file as it is now
+     * @throws IOException if the file can't be read or the index can't be saved
+     */
+    public TimeIndex get(Path file, LogParser parser) throws IOException {
+        Optional<TimeIndex> previous = load(file);
+        if (previous.isPresent() && previous.orElseThrow().identity().size() == Files.size(file)) {
+            return previous.orElseThrow();
+        }
+        TimeIndex index = TimeIndex.build(file, previous.orElse(null), blockSize, parser);
+        indexes.save(file, index);
+        return index;
+    }
+
+    private Optional<TimeIndex> load(Path file) throws IOException {
+        Optional<TimeIndex> index = indexes.load(file);
+        return index.isPresent() && index.orElseThrow().identity().isPrefixOf(file) ? index : Optional.empty();
+    }
+}
@@ -0,0 +1,118 @@
+package backend.academy.logs.jfr;
+
+import backend.academy.logs.filter.LogFilter;
+import backend.academy.logs.metrics.Stage;
+import backend.academy.logs.metrics.StageMetrics;
+import backend.academy.logs.statistic.StatisticCollector;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JFR events of a file or a chunk analyzed by a thread. The events are taken from the counters of
+ * {@link StageMetrics}, so the lines are counted only while File Analysis events are recorded:
+ * otherwise the check costs a single call per chunk and the pipeline isn't instrumented at all.
+ * Parse Batch events sample the pipeline once per batch of lines rather than per line.
+ */
+public final class AnalyzerEvents {
+    public static final String CATEGORY = "Logs Analyzer";
+    public static final long BATCH_LINES = 64 * 1024;
+
+    private final String file;
+    private final List<String> filterNames;
+    private final FileAnalysisEvent fileEvent;
+    private ParseBatchEvent batch;
+    private long batchStartLines;
+    private long batchStartLogs;
+    private long batchStartParseNanos;
+
+    private AnalyzerEvents(String file, List<String> filterNames, FileAnalysisEvent fileEvent) {
+        this.file = file;
+        this.filterNames = filterNames;
+        this.fileEvent = fileEvent;
+        this.batch = beginBatch();
+    }
+
+    /**
+     * Begins the events of a file or a chunk being opened.
+     *
+     * @param filters filters in the order the analyzer applies them
+     * @return the events or empty if File Analysis events aren't recorded
+     */
+    public static Optional<AnalyzerEvents> begin(String file, List<LogFilter> filters) {
+        FileAnalysisEvent fileEvent = new FileAnalysisEvent();
+        if (!fileEvent.isEnabled()) {
+            return Optional.empty();
+        }
+        fileEvent.begin();
+        return Optional.of(new AnalyzerEvents(file, filters.stream().map(LogFilter::toString).toList(), fileEvent));
+    }
+
+    /**
+     * Merges the statistics of a chunk recording the merge.
+     */
+    public static void merge(StatisticCollector collector, StatisticCollector chunk) {
+        CollectorMergeEvent event = new CollectorMergeEvent();
+        event.begin();
+        collector.merge(chunk);
+        event.end();
+        if (event.shouldCommit()) {
+            event.requests = chunk.requestsCount();
+            event.commit();
+        }
+    }
+
+    /**
+     * Records the batch of lines read since the previous batch, to be called by the stage metrics.
+     */
+    public void batch(StageMetrics stages) {
+        batch.end();
+        if (batch.shouldCommit()) {
+            batch.file = file;
+            batch.lines = stages.completed(Stage.READ) - batchStartLines;
+            batch.logs = stages.completed(Stage.PARSE) - batchStartLogs;
+            batch.parseTime = stages.nanos(Stage.PARSE) - batchStartParseNanos;
+            batch.commit();
+        }
+        batchStartLines = stages.completed(Stage.READ);
+        batchStartLogs = stages.completed(Stage.PARSE);
+        batchStartParseNanos = stages.nanos(Stage.PARSE);
+        batch = beginBatch();
+    }
+
+    /**
+     * Records the last batch, the filters and the file or the chunk being closed.
+     */
+    public void end(StageMetrics stages) {
+        if (stages.completed(Stage.READ) > batchStartLines || stages.completed(Stage.PARSE) > batchStartLogs) {
+            batch(stages);
+        }
+        for (int i = 0; i < filterNames.size(); i++) {
+            FilterEvaluationEvent event = new FilterEvaluationEvent();
+            if (event.shouldCommit()) {
+                event.file = file;
+                event.filter = filterNames.get(i);
+                event.linesChecked = stages.linesChecked(i);
+                event.linesPassed = stages.linesPassed(i);
+                event.logsChecked = stages.logsChecked(i);
+                event.logsPassed = stages.logsPassed(i);
+                event.commit();
+            }
+        }
+        fileEvent.end();
+        if (fileEvent.shouldCommit()) {
+            fileEvent.file = file;
+            fileEvent.bytes = stages.bytes();
+            fileEvent.lines = stages.completed(Stage.READ);
+            fileEvent.logs = stages.completed(Stage.PARSE);
+            fileEvent.collected = stages.completed(Stage.COLLECT);
+            fileEvent.filterTime = stages.nanos(Stage.FILTER);
+            fileEvent.commit();
+        }
+    }
+
+    private static ParseBatchEvent beginBatch() {
+        ParseBatchEvent event = new ParseBatchEvent();
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,19 @@
+package backend.academy.logs.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("backend.academy.logs.CollectorMerge")
+@Label("Collector Merge")
+@Category(AnalyzerEvents.CATEGORY)
+@Description("Merge of the statistics of a chunk into the statistics of the analysis")
+@StackTrace(false)
+public class CollectorMergeEvent extends Event {
+    @Label("Requests")
+    @Description("Requests of the merged statistics")
+    public long requests;
+}
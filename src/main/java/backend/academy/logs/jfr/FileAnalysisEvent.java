@@ -0,0 +1,41 @@
+package backend.academy.logs.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("backend.academy.logs.FileAnalysis")
+@Label("File Analysis")
+@Category(AnalyzerEvents.CATEGORY)
+@Description("Analysis of a file or of a chunk of it from opening to closing")
+@StackTrace(false)
+public class FileAnalysisEvent extends Event {
+    @Label("File")
+    public String file;
+
+    @Label("Bytes")
+    @Description("Characters of the read lines with line feeds or the size of a preparsed file")
+    @DataAmount
+    public long bytes;
+
+    @Label("Lines")
+    public long lines;
+
+    @Label("Logs")
+    @Description("Parsed or decoded logs")
+    public long logs;
+
+    @Label("Collected Logs")
+    @Description("Logs passed by the filters")
+    public long collected;
+
+    @Label("Filter Time")
+    @Description("Time of all the filters on the parsed logs, the filters aren't timed one by one")
+    @Timespan(Timespan.NANOSECONDS)
+    public long filterTime;
+}
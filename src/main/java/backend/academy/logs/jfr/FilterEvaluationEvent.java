@@ -0,0 +1,33 @@
+package backend.academy.logs.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("backend.academy.logs.FilterEvaluation")
+@Label("Filter Evaluation")
+@Category(AnalyzerEvents.CATEGORY)
+@Description("Lines and logs checked and passed by a filter in a file or a chunk of it")
+@StackTrace(false)
+public class FilterEvaluationEvent extends Event {
+    @Label("File")
+    public String file;
+
+    @Label("Filter")
+    public String filter;
+
+    @Label("Lines Checked")
+    public long linesChecked;
+
+    @Label("Lines Passed")
+    public long linesPassed;
+
+    @Label("Logs Checked")
+    public long logsChecked;
+
+    @Label("Logs Passed")
+    public long logsPassed;
+}
@@ -0,0 +1,30 @@
+package backend.academy.logs.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("backend.academy.logs.ParseBatch")
+@Label("Parse Batch")
+@Category(AnalyzerEvents.CATEGORY)
+@Description("Batch of lines passed through the pipeline, the parse time is the part spent in the parser")
+@StackTrace(false)
+public class ParseBatchEvent extends Event {
+    @Label("File")
+    public String file;
+
+    @Label("Lines")
+    public long lines;
+
+    @Label("Logs")
+    @Description("Logs parsed from the lines")
+    public long logs;
+
+    @Label("Parse Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long parseTime;
+}
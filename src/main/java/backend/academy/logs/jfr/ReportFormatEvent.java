@@ -0,0 +1,22 @@
+package backend.academy.logs.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("backend.academy.logs.ReportFormat")
+@Label("Report Format")
+@Category(AnalyzerEvents.CATEGORY)
+@StackTrace(false)
+public class ReportFormatEvent extends Event {
+    @Label("Formatter")
+    public String formatter;
+
+    @Label("Files")
+    public int files;
+
+    @Label("Characters")
+    public long characters;
+}
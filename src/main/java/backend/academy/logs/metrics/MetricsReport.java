@@ -0,0 +1,81 @@
+package backend.academy.logs.metrics;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Metrics of the pipeline at the end of the analysis.
+ *
+ * @param wallNanos     time since the metrics were created
+ * @param peakHeapBytes sum of the peak usages of the heap memory pools since the metrics were created
+ * @param files         metrics of the files in the order of their first analysis
+ * @param filters       pass rates of the filters in all the files
+ */
+public record MetricsReport(long wallNanos, long peakHeapBytes, List<FileMetrics> files, List<FilterMetrics> filters) {
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * Writes the report as JSON.
+     *
+     * @throws IOException if the file can't be written
+     */
+    public void writeJson(Path file) throws IOException {
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), this);
+    }
+
+    /**
+     * Number of lines read per second of the wall time.
+     */
+    @JsonProperty
+    public double linesPerSecond() {
+        return rate(files.stream().mapToLong(FileMetrics::lines).sum(), wallNanos);
+    }
+
+    private static double rate(long count, long nanos) {
+        return nanos == 0 ? 0 : count * NANOS_PER_SECOND / nanos;
+    }
+
+    /**
+     * Metrics of a file.
+     *
+     * @param lines     number of the lines read
+     * @param logs      number of the parsed or decoded logs
+     * @param bytes     bytes of the read lines counted as characters with line feeds, or the size of a preparsed file
+     * @param busyNanos time of the file in all the threads
+     * @param stages    time of every stage
+     */
+    public record FileMetrics(
+        String file, long lines, long logs, long bytes, long busyNanos, List<StageTime> stages
+    ) {
+        /**
+         * Number of lines read per second of the time of the file.
+         */
+        @JsonProperty
+        public double linesPerSecond() {
+            return rate(lines, busyNanos);
+        }
+    }
+
+    /**
+     * Time of a stage.
+     *
+     * @param items number of the elements which have entered the stage including the ones dropped by it
+     * @param nanos time of the stage
+     */
+    public record StageTime(Stage stage, long items, long nanos) {
+        @JsonProperty
+        public double nanosPerItem() {
+            return items == 0 ? 0 : (double) nanos / items;
+        }
+    }
+
+    /**
+     * Pass rates of a filter, lines are checked before parsing by the filters which can reject raw lines.
+     */
+    public record FilterMetrics(String filter, long linesChecked, long linesPassed, long logsChecked, long logsPassed) {
+    }
+}
@@ -0,0 +1,88 @@
+package backend.academy.logs.metrics;
+
+import backend.academy.logs.filter.LogFilter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Metrics of the pipeline stages per file, collected from all the threads of the analysis.
+ * Every thread counts a file or a chunk in its own {@link StageMetrics}, which is added when the chunk is done,
+ * so the counting costs only a few clock readings per line and nothing is shared while the lines are analyzed.
+ */
+public class PipelineMetrics {
+    private static final Stage[] STAGES = Stage.values();
+
+    private final List<String> filterNames;
+    private final long start;
+    private final Map<String, StageMetrics> files = new LinkedHashMap<>();
+
+    private PipelineMetrics(List<String> filterNames) {
+        this.filterNames = filterNames;
+        this.start = System.nanoTime();
+    }
+
+    /**
+     * Starts collecting the metrics, the peak heap usage is counted from now on.
+     *
+     * @param filters filters of the analysis in the order the analyzer applies them
+     * @return the empty metrics
+     */
+    public static PipelineMetrics create(List<LogFilter> filters) {
+        heapPools().forEach(MemoryPoolMXBean::resetPeakUsage);
+        return new PipelineMetrics(filters.stream().map(LogFilter::toString).toList());
+    }
+
+    /**
+     * Creates the metrics of a file or a chunk to be analyzed by a thread.
+     */
+    public StageMetrics newStageMetrics() {
+        return new StageMetrics(filterNames.size());
+    }
+
+    /**
+     * Adds the metrics of a file or a chunk.
+     */
+    public synchronized void add(String file, StageMetrics metrics) {
+        files.computeIfAbsent(file, name -> newStageMetrics()).merge(metrics);
+    }
+
+    /**
+     * Takes the metrics collected so far.
+     */
+    public synchronized MetricsReport report() {
+        List<MetricsReport.FileMetrics> fileMetrics = new ArrayList<>(files.size());
+        StageMetrics total = newStageMetrics();
+        for (Map.Entry<String, StageMetrics> file : files.entrySet()) {
+            StageMetrics metrics = file.getValue();
+            total.merge(metrics);
+            List<MetricsReport.StageTime> stages = new ArrayList<>(STAGES.length);
+            for (Stage stage : STAGES) {
+                stages.add(new MetricsReport.StageTime(stage, metrics.entered(stage), metrics.nanos(stage)));
+            }
+            fileMetrics.add(new MetricsReport.FileMetrics(
+                file.getKey(), metrics.completed(Stage.READ), metrics.completed(Stage.PARSE), metrics.bytes(),
+                metrics.elapsedNanos(), stages
+            ));
+        }
+        List<MetricsReport.FilterMetrics> filterMetrics = new ArrayList<>(filterNames.size());
+        for (int i = 0; i < filterNames.size(); i++) {
+            filterMetrics.add(new MetricsReport.FilterMetrics(
+                filterNames.get(i), total.linesChecked(i), total.linesPassed(i), total.logsChecked(i),
+                total.logsPassed(i)
+            ));
+        }
+        long peakHeap = heapPools().stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        return new MetricsReport(System.nanoTime() - start, peakHeap, fileMetrics, filterMetrics);
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP && pool.isValid())
+            .toList();
+    }
+}
@@ -0,0 +1,22 @@
+package backend.academy.logs.metrics;
+
+/**
+ * Stages of the analysis pipeline in the order a line passes them.
+ */
+public enum Stage {
+    READ("Read"),
+    LINE_FILTER("Line filters"),
+    PARSE("Parse"),
+    FILTER("Filters"),
+    COLLECT("Collect");
+
+    private final String description;
+
+    Stage(String description) {
+        this.description = description;
+    }
+
+    public String description() {
+        return description;
+    }
+}
@@ -0,0 +1,253 @@
+package backend.academy.logs.metrics;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Counters and timers of the stages of a file or a chunk analyzed by a single thread.
+ * The stages of a line run lazily one after another in the stream pipeline, so the time between two stage marks
+ * is the time of the later stage. The time after the last mark of a line dropped by a filter or by the parser
+ * belongs to the stage after that mark. Reading is timed apart, so it never includes the later stages.
+ */
+public class StageMetrics {
+    private static final Stage[] STAGES = Stage.values();
+
+    private final long[] nanos = new long[STAGES.length];
+    private final long[] entered = new long[STAGES.length];
+    private final long[] completed = new long[STAGES.length];
+    private final long[] linesChecked;
+    private final long[] linesPassed;
+    private final long[] logsChecked;
+    private final long[] logsPassed;
+    private long bytes;
+    private long elapsedNanos;
+    private long mark;
+    private Stage lastStage = Stage.COLLECT;
+    private long batchSize;
+    private Consumer<StageMetrics> batchListener;
+
+    /**
+     * Creates empty metrics.
+     *
+     * @param filters number of the filters, which pass rates are counted
+     */
+    public StageMetrics(int filters) {
+        linesChecked = new long[filters];
+        linesPassed = new long[filters];
+        logsChecked = new long[filters];
+        logsPassed = new long[filters];
+    }
+
+    /**
+     * Times the elements taken from the source as the source stage, every element is pushed to the rest
+     * of the pipeline after its time is taken.
+     *
+     * @param sourceStage stage of the elements of the source, the read lines or the decoded logs
+     * @param size        size of an element in bytes
+     * @return the sequential stream of the elements
+     */
+    public <T> Stream<T> measure(Stream<T> source, Stage sourceStage, ToLongFunction<T> size) {
+        return StreamSupport.stream(new TimedSpliterator<>(source.spliterator(), sourceStage, size), false)
+            .onClose(source::close);
+    }
+
+    /**
+     * Calls the listener after every batch of elements taken from the source of the measured stream.
+     *
+     * @param size number of the elements in a batch
+     */
+    public void onBatch(long size, Consumer<StageMetrics> listener) {
+        batchSize = size;
+        batchListener = listener;
+    }
+
+    /**
+     * Marks the end of the stage of the current element.
+     */
+    public void mark(Stage stage) {
+        long now = System.nanoTime();
+        nanos[stage.ordinal()] += now - mark;
+        entered[stage.ordinal()]++;
+        completed[stage.ordinal()]++;
+        mark = now;
+        lastStage = stage;
+    }
+
+    /**
+     * Marks the end of the stage and passes the element on, to be used with {@link Stream#peek}.
+     */
+    public <T> Consumer<T> marker(Stage stage) {
+        return element -> mark(stage);
+    }
+
+    /**
+     * Wraps the line filter of the filter at the index to count the lines it checks and passes.
+     */
+    public Predicate<String> countLines(int filter, Predicate<String> lineFilter) {
+        return line -> {
+            linesChecked[filter]++;
+            boolean passed = lineFilter.test(line);
+            if (passed) {
+                linesPassed[filter]++;
+            }
+            return passed;
+        };
+    }
+
+    /**
+     * Counts the logs the filter at the index checks and passes.
+     *
+     * @param filter   index of the filter
+     * @param filtered applies the filter to the logs
+     * @return the filtered logs
+     */
+    public <T> Stream<T> countLogs(int filter, Stream<T> logs, UnaryOperator<Stream<T>> filtered) {
+        return filtered.apply(logs.peek(log -> logsChecked[filter]++)).peek(log -> logsPassed[filter]++);
+    }
+
+    public void addBytes(long count) {
+        bytes += count;
+    }
+
+    /**
+     * Adds the time spent on the file or the chunk in all the stages and in between.
+     */
+    public void addElapsed(long nanoseconds) {
+        elapsedNanos += nanoseconds;
+    }
+
+    /**
+     * Adds the metrics of another file or chunk.
+     */
+    public void merge(StageMetrics other) {
+        for (int i = 0; i < STAGES.length; i++) {
+            nanos[i] += other.nanos[i];
+            entered[i] += other.entered[i];
+            completed[i] += other.completed[i];
+        }
+        for (int i = 0; i < linesChecked.length; i++) {
+            linesChecked[i] += other.linesChecked[i];
+            linesPassed[i] += other.linesPassed[i];
+            logsChecked[i] += other.logsChecked[i];
+            logsPassed[i] += other.logsPassed[i];
+        }
+        bytes += other.bytes;
+        elapsedNanos += other.elapsedNanos;
+    }
+
+    /**
+     * Time of the stage in nanoseconds.
+     */
+    public long nanos(Stage stage) {
+        return nanos[stage.ordinal()];
+    }
+
+    /**
+     * Number of the elements which have entered the stage including the ones dropped by it.
+     */
+    public long entered(Stage stage) {
+        return entered[stage.ordinal()];
+    }
+
+    /**
+     * Number of the elements which have passed the stage, dropped ones aren't counted.
+     */
+    public long completed(Stage stage) {
+        return completed[stage.ordinal()];
+    }
+
+    public long bytes() {
+        return bytes;
+    }
+
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long linesChecked(int filter) {
+        return linesChecked[filter];
+    }
+
+    public long linesPassed(int filter) {
+        return linesPassed[filter];
+    }
+
+    public long logsChecked(int filter) {
+        return logsChecked[filter];
+    }
+
+    public long logsPassed(int filter) {
+        return logsPassed[filter];
+    }
+
+    /**
+     * Gives the time after the last mark of the element to the next stage, which has dropped the element.
+     */
+    private void finish() {
+        if (lastStage != Stage.COLLECT) {
+            int dropping = lastStage.ordinal() + 1;
+            nanos[dropping] += System.nanoTime() - mark;
+            entered[dropping]++;
+        }
+    }
+
+    /**
+     * Takes the elements of the source one at a time to time them.
+     */
+    private final class TimedSpliterator<T> implements Spliterator<T>, Consumer<T> {
+        private final Spliterator<T> source;
+        private final Stage sourceStage;
+        private final ToLongFunction<T> size;
+        private T element;
+
+        private TimedSpliterator(Spliterator<T> source, Stage sourceStage, ToLongFunction<T> size) {
+            this.source = source;
+            this.sourceStage = sourceStage;
+            this.size = size;
+        }
+
+        @Override
+        public void accept(T next) {
+            element = next;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            mark = System.nanoTime();
+            if (!source.tryAdvance(this)) {
+                nanos[sourceStage.ordinal()] += System.nanoTime() - mark;
+                return false;
+            }
+            T next = element;
+            element = null;
+            bytes += size.applyAsLong(next);
+            mark(sourceStage);
+            action.accept(next);
+            finish();
+            if (batchListener != null && completed[sourceStage.ordinal()] % batchSize == 0) {
+                batchListener.accept(StageMetrics.this);
+            }
+            return true;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return source.characteristics() & (ORDERED | NONNULL);
+        }
+    }
+}
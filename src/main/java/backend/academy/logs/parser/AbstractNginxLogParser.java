@@ -0,0 +1,77 @@
+package backend.academy.logs.parser;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Parser of NGINX logs line by line, every parsed stream gets its own timestamp decoder
+ * and {@link StringDictionary} of the repeated fields.
+ */
+abstract class AbstractNginxLogParser implements LogParser {
+    private final StringDictionaryFactory dictionaries;
+
+    /**
+     * Creates the parser.
+     *
+     * @param dictionarySize capacity of the {@link StringDictionary} of methods, users, referers and agents
+     *                       for every parsed stream, 0 disables the dictionaries
+     */
+    AbstractNginxLogParser(int dictionarySize) {
+        this.dictionaries = new StringDictionaryFactory(dictionarySize);
+    }
+
+    /**
+     * Parses the line, malformed lines are either added to the counts or reported with exceptions.
+     *
+     * @param malformed counts to add malformed lines to or null to throw exceptions
+     * @return the log or null if the line is malformed
+     */
+    abstract LogRecord parseLine(
+        String line,
+        NginxTimestampDecoder timestampDecoder,
+        FieldExtractor extractor,
+        MalformedLines malformed
+    );
+
+    @Override
+    public Stream<LogRecord> parse(Stream<String> logLines) {
+        return parse(logLines, LogField.ALL);
+    }
+
+    @Override
+    public Stream<LogRecord> parse(Stream<String> logLines, Set<LogField> fields) {
+        NginxTimestampDecoder timestampDecoder = new NginxTimestampDecoder();
+        FieldExtractor extractor = new FieldExtractor(fields, dictionaries.create());
+        return logLines.map(line -> parseLine(line, timestampDecoder, extractor, null))
+            .onClose(() -> dictionaries.collectStats(extractor.dictionary()));
+    }
+
+    @Override
+    public Stream<LogRecord> parse(Stream<String> logLines, Set<LogField> fields, MalformedLines malformed) {
+        NginxTimestampDecoder timestampDecoder = new NginxTimestampDecoder();
+        FieldExtractor extractor = new FieldExtractor(fields, dictionaries.create());
+        return logLines.<LogRecord>mapMulti((line, logs) -> {
+            LogRecord log = parseLine(line, timestampDecoder, extractor, malformed);
+            if (log != null) {
+                logs.accept(log);
+            }
+        }).onClose(() -> dictionaries.collectStats(extractor.dictionary()));
+    }
+
+    /**
+     * Creates the check scanning the line without extracting any fields and without exceptions,
+     * see {@link NginxLogParser#isWellFormed(String, NginxTimestampDecoder)}.
+     */
+    @Override
+    public Predicate<String> createLineCheck() {
+        NginxTimestampDecoder timestampDecoder = new NginxTimestampDecoder();
+        return line -> NginxLogParser.isWellFormed(line, timestampDecoder);
+    }
+
+    @Override
+    public Optional<DictionaryStats> dictionaryStats() {
+        return dictionaries.stats();
+    }
+}
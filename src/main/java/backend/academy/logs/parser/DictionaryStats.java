@@ -0,0 +1,20 @@
+package backend.academy.logs.parser;
+
+/**
+ * Usage of {@link StringDictionary}: hits return cached values, misses copy them and evictions drop cached ones.
+ */
+public record DictionaryStats(long hits, long misses, long evictions) {
+    public static final DictionaryStats EMPTY = new DictionaryStats(0, 0, 0);
+
+    public long lookups() {
+        return hits + misses;
+    }
+
+    public double hitRate() {
+        return lookups() == 0 ? 0 : hits / (double) lookups();
+    }
+
+    public DictionaryStats plus(DictionaryStats other) {
+        return new DictionaryStats(hits + other.hits, misses + other.misses, evictions + other.evictions);
+    }
+}
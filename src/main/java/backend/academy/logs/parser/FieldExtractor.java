@@ -0,0 +1,40 @@
+package backend.academy.logs.parser;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Extracts string fields from the line for a single stream of lines: the fields which aren't needed
+ * are skipped as null and repeated low-cardinality values are taken from the dictionary.
+ */
+class FieldExtractor {
+    static final FieldExtractor ALL_FIELDS = new FieldExtractor(LogField.ALL, StringDictionary.NONE);
+    static final FieldExtractor NO_FIELDS = new FieldExtractor(Set.of(), StringDictionary.NONE);
+
+    private static final Set<LogField> DICTIONARY_FIELDS =
+        EnumSet.of(LogField.USER, LogField.METHOD, LogField.REFERER, LogField.AGENT);
+
+    private final Set<LogField> fields;
+    private final StringDictionary dictionary;
+
+    FieldExtractor(Set<LogField> fields, StringDictionary dictionary) {
+        this.fields = fields.isEmpty() ? EnumSet.noneOf(LogField.class) : EnumSet.copyOf(fields);
+        this.dictionary = dictionary;
+    }
+
+    StringDictionary dictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Extracts {@code line.substring(start, end)} as the field.
+     *
+     * @return the value or null if the field isn't needed
+     */
+    String extract(String line, int start, int end, LogField field) {
+        if (!fields.contains(field)) {
+            return null;
+        }
+        return DICTIONARY_FIELDS.contains(field) ? dictionary.intern(line, start, end) : line.substring(start, end);
+    }
+}
@@ -0,0 +1,14 @@
+package backend.academy.logs.parser;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Fields of {@link LogRecord}, used to tell the parser which of them are needed.
+ */
+public enum LogField {
+    ADDRESS, USER, TIME, METHOD, RESOURCE, STATUS, BYTES_SENT, REFERER, AGENT;
+
+    public static final Set<LogField> ALL = Collections.unmodifiableSet(EnumSet.allOf(LogField.class));
+}
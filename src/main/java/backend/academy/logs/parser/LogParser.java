@@ -1,7 +1,84 @@
 package backend.academy.logs.parser;
 
+import backend.academy.logs.exceptions.ParseException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 public interface LogParser {
     Stream<LogRecord> parse(Stream<String> logLines);
+
+    /**
+     * Parses the logs extracting only the needed fields, the others may be left null.
+     * The lines are validated as for {@link #parse(Stream)}, so the same lines are rejected.
+     */
+    default Stream<LogRecord> parse(Stream<String> logLines, Set<LogField> fields) {
+        return parse(logLines);
+    }
+
+    /**
+     * Parses the logs as {@link #parse(Stream, Set)}, but skips malformed lines adding them to the given counts
+     * instead of throwing {@link ParseException}. The stream of lines should be stopped by the caller
+     * once the limit of the counts is exceeded.
+     * The default implementation parses every line separately, so the parsers should override it
+     * with a cheaper check which doesn't use exceptions.
+     */
+    default Stream<LogRecord> parse(Stream<String> logLines, Set<LogField> fields, MalformedLines malformed) {
+        return logLines.mapMulti((line, logs) -> {
+            try (Stream<LogRecord> parsed = parse(Stream.of(line), fields)) {
+                parsed.forEach(logs);
+            } catch (ParseException e) {
+                malformed.add(line, MalformedReason.FORMAT);
+            }
+        });
+    }
+
+    /**
+     * Creates a check of single lines for a single stream: whether {@link #parse(Stream, Set)} accepts the line.
+     * It's for lines whose logs aren't needed, but which must still be reported if they're malformed,
+     * so the malformed lines are passed to the parser to be reported as usual.
+     * The default implementation parses the line by a stream of its own, so the parsers should override it
+     * with a check which doesn't extract any fields.
+     */
+    default Predicate<String> createLineCheck() {
+        return line -> {
+            try (Stream<LogRecord> parsed = parse(Stream.of(line), Set.of())) {
+                parsed.forEach(log -> {
+                });
+                return true;
+            } catch (ParseException | NumberFormatException e) {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Checks whether the local file keeps already parsed logs in a format this parser reads
+     * with {@link #parseFile(Path, Set)} instead of parsing its lines.
+     */
+    default boolean isPreparsed(Path file) throws IOException {
+        return false;
+    }
+
+    /**
+     * Reads the logs of a preparsed file extracting only the needed fields, the others may be left null.
+     * The file is read as a whole, its logs are valid, so nothing is reported as malformed.
+     *
+     * @throws UnsupportedOperationException if the file isn't {@link #isPreparsed(Path) preparsed}
+     */
+    default Stream<LogRecord> parseFile(Path file, Set<LogField> fields) throws IOException {
+        throw new UnsupportedOperationException(file + " is not a preparsed file");
+    }
+
+    /**
+     * Gets the usage of string dictionaries by the closed streams of parsed logs.
+     *
+     * @return the stats or empty if the parser doesn't use dictionaries
+     */
+    default Optional<DictionaryStats> dictionaryStats() {
+        return Optional.empty();
+    }
 }
@@ -0,0 +1,88 @@
+package backend.academy.logs.parser;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Counts malformed lines skipped by a tolerant parser per reason and keeps the first few of them as samples.
+ * Counts of a file analyzed in chunks are merged in the order of the chunks.
+ */
+public class MalformedLines implements Serializable {
+    public static final int DEFAULT_MAX_SAMPLES = 5;
+    public static final long UNLIMITED = Long.MAX_VALUE;
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private static final int MAX_SAMPLE_LENGTH = 200;
+
+    private final long limit;
+    private final long[] counts = new long[MalformedReason.values().length];
+    private final ArrayList<MalformedSample> samples = new ArrayList<>(DEFAULT_MAX_SAMPLES);
+    private long count = 0;
+
+    public MalformedLines() {
+        this(UNLIMITED);
+    }
+
+    /**
+     * Creates the empty counts.
+     *
+     * @param limit number of malformed lines after which the rest of the file should be skipped
+     */
+    public MalformedLines(long limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Malformed lines limit can't be negative, got " + limit);
+        }
+        this.limit = limit;
+    }
+
+    public void add(String line, MalformedReason reason) {
+        counts[reason.ordinal()]++;
+        count++;
+        if (samples.size() < DEFAULT_MAX_SAMPLES) {
+            samples.add(new MalformedSample(
+                reason, line.length() > MAX_SAMPLE_LENGTH ? line.substring(0, MAX_SAMPLE_LENGTH) + "..." : line
+            ));
+        }
+    }
+
+    public void merge(MalformedLines other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        for (MalformedSample sample : other.samples) {
+            if (samples.size() >= DEFAULT_MAX_SAMPLES) {
+                break;
+            }
+            samples.add(sample);
+        }
+    }
+
+    public long count(MalformedReason reason) {
+        return counts[reason.ordinal()];
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long limit() {
+        return limit;
+    }
+
+    /**
+     * Tells whether there are more malformed lines than the limit.
+     *
+     * @return true if the rest of the file should be skipped
+     */
+    public boolean limitExceeded() {
+        return count() > limit;
+    }
+
+    public List<MalformedSample> samples() {
+        return Collections.unmodifiableList(samples);
+    }
+}
@@ -0,0 +1,20 @@
+package backend.academy.logs.parser;
+
+/**
+ * Reasons why a line isn't a valid log.
+ */
+public enum MalformedReason {
+    FORMAT("Bad format"),
+    TIME("Invalid time"),
+    NUMBER("Status or size out of range");
+
+    private final String description;
+
+    MalformedReason(String description) {
+        this.description = description;
+    }
+
+    public String description() {
+        return description;
+    }
+}
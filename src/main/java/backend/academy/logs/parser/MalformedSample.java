@@ -0,0 +1,9 @@
+package backend.academy.logs.parser;
+
+import java.io.Serializable;
+
+/**
+ * Malformed line kept to show in the report, long lines are truncated.
+ */
+public record MalformedSample(MalformedReason reason, String line) implements Serializable {
+}
@@ -6,6 +6,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import lombok.experimental.UtilityClass;
 
 @UtilityClass
@@ -28,15 +29,34 @@ public class NginxLogFormatConfig {
     public static final int REFERER_GROUP = 9;
     public static final int USER_AGENT_GROUP = 10;
 
-    public static final Map<String, Function<LogRecord, String>> SELECTORS = Map.of(
-        "address", LogRecord::remoteAddr,
-        "user", LogRecord::remoteUser,
-        "method", LogRecord::method,
-        "resource", LogRecord::resource,
-        "status", l -> String.valueOf(l.status()),
-        "bytesSent", l -> String.valueOf(l.bytesSent()),
-        "referer", LogRecord::httpReferer,
-        "agent", LogRecord::httpUserAgent
+    /**
+     * Fields which can be selected by their names, e.g. to be filtered.
+     */
+    public static final Map<String, LogField> FIELDS = Map.of(
+        "address", LogField.ADDRESS,
+        "user", LogField.USER,
+        "method", LogField.METHOD,
+        "resource", LogField.RESOURCE,
+        "status", LogField.STATUS,
+        "bytesSent", LogField.BYTES_SENT,
+        "referer", LogField.REFERER,
+        "agent", LogField.AGENT
     );
 
+    public static final Map<String, Function<LogRecord, String>> SELECTORS = FIELDS.entrySet().stream()
+        .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, entry -> selector(entry.getValue())));
+
+    private static Function<LogRecord, String> selector(LogField field) {
+        return switch (field) {
+            case ADDRESS -> LogRecord::remoteAddr;
+            case USER -> LogRecord::remoteUser;
+            case METHOD -> LogRecord::method;
+            case RESOURCE -> LogRecord::resource;
+            case STATUS -> l -> String.valueOf(l.status());
+            case BYTES_SENT -> l -> String.valueOf(l.bytesSent());
+            case REFERER -> LogRecord::httpReferer;
+            case AGENT -> LogRecord::httpUserAgent;
+            case TIME -> throw new IllegalArgumentException("Time can't be selected as a string");
+        };
+    }
 }
@@ -1,49 +1,183 @@
 package backend.academy.logs.parser;
 
 import backend.academy.logs.exceptions.ParseException;
+import java.text.ParsePosition;
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
 import java.util.regex.Matcher;
-import java.util.stream.Stream;
 
 /**
  * Parses NGINX logs with date format "dd/MMM/yyyy:HH:mm:ss Z" converting dates to the UTC offset.
  */
-public class NginxLogParser implements LogParser {
+public class NginxLogParser extends AbstractNginxLogParser {
+    private static final int RADIX = 10;
+
+    public NginxLogParser() {
+        this(0);
+    }
+
+    /**
+     * Creates the parser.
+     *
+     * @param dictionarySize capacity of the {@link StringDictionary} of methods, users, referers and agents
+     *                       for every parsed stream, 0 disables the dictionaries
+     */
+    public NginxLogParser(int dictionarySize) {
+        super(dictionarySize);
+    }
+
     @Override
-    public Stream<LogRecord> parse(Stream<String> logLines) {
-        return logLines.map(NginxLogParser::parseNginx);
+    LogRecord parseLine(
+        String line,
+        NginxTimestampDecoder timestampDecoder,
+        FieldExtractor extractor,
+        MalformedLines malformed
+    ) {
+        return parseNginx(line, timestampDecoder, extractor, malformed);
+    }
+
+    static LogRecord parseNginx(String line, NginxTimestampDecoder timestampDecoder, FieldExtractor extractor) {
+        return parseNginx(line, timestampDecoder, extractor, null);
+    }
+
+    /**
+     * Checks whether {@link #parseNginx(String, NginxTimestampDecoder, FieldExtractor)} accepts the line.
+     * Most lines are accepted by {@link NginxScanningLogParser#scan}, only the lines it rejects
+     * are matched with the regular expression, and none of the checks throws exceptions.
+     */
+    static boolean isWellFormed(String line, NginxTimestampDecoder timestampDecoder) {
+        if (NginxScanningLogParser.scan(line, timestampDecoder, FieldExtractor.NO_FIELDS) != null) {
+            return true;
+        }
+        Matcher matcher = NginxLogFormatConfig.NGINX_LOG_PATTERN.matcher(line);
+        if (!matcher.matches()) {
+            return false;
+        }
+        int dateStart = matcher.start(NginxLogFormatConfig.DATE_GROUP);
+        int dateEnd = matcher.end(NginxLogFormatConfig.DATE_GROUP);
+        if (timestampDecoder.tryDecode(line, dateStart, dateEnd) == null
+            && tryParseTime(line.substring(dateStart, dateEnd)) == null) {
+            return false;
+        }
+        return tryParseNumber(line, matcher, NginxLogFormatConfig.STATUS_GROUP) >= 0
+            && tryParseNumber(line, matcher, NginxLogFormatConfig.BYTE_SENT_GROUP) >= 0;
     }
 
-    private static LogRecord parseNginx(String line) {
+    /**
+     * Parses the line, malformed lines are either added to the counts or reported with exceptions.
+     *
+     * @param malformed counts to add malformed lines to or null to throw {@link ParseException}
+     *                  (or {@link NumberFormatException} for numbers out of range)
+     * @return the log or null if the line is malformed
+     */
+    static LogRecord parseNginx(
+        String line,
+        NginxTimestampDecoder timestampDecoder,
+        FieldExtractor extractor,
+        MalformedLines malformed
+    ) {
         Matcher matcher = NginxLogFormatConfig.NGINX_LOG_PATTERN.matcher(line);
         if (!matcher.matches()) {
-            throw new ParseException("Invalid Nginx log line: " + line);
+            if (malformed == null) {
+                throw new ParseException("Invalid Nginx log line: " + line);
+            }
+            malformed.add(line, MalformedReason.FORMAT);
+            return null;
+        }
+
+        String remoteAddr = extract(line, matcher, NginxLogFormatConfig.REMOTE_ADDR_GROUP, LogField.ADDRESS, extractor);
+        String remoteUser = extract(line, matcher, NginxLogFormatConfig.REMOTE_USER_GROUP, LogField.USER, extractor);
+        int dateStart = matcher.start(NginxLogFormatConfig.DATE_GROUP);
+        int dateEnd = matcher.end(NginxLogFormatConfig.DATE_GROUP);
+        LocalDateTime timeLocal = malformed == null
+            ? timestampDecoder.decode(line, dateStart, dateEnd)
+            : timestampDecoder.tryDecode(line, dateStart, dateEnd);
+        if (timeLocal == null) {
+            malformed.add(line, MalformedReason.TIME);
+            return null;
         }
 
+        String method = extract(line, matcher, NginxLogFormatConfig.METHOD_GROUP, LogField.METHOD, extractor);
+        String resource = extract(line, matcher, NginxLogFormatConfig.RESOURCE_GROUP, LogField.RESOURCE, extractor);
+        int status = parseNumber(line, matcher, NginxLogFormatConfig.STATUS_GROUP, malformed);
+        int bytesSent = parseNumber(line, matcher, NginxLogFormatConfig.BYTE_SENT_GROUP, malformed);
+        if (status < 0 || bytesSent < 0) {
+            malformed.add(line, MalformedReason.NUMBER);
+            return null;
+        }
+        String referer = extract(line, matcher, NginxLogFormatConfig.REFERER_GROUP, LogField.REFERER, extractor);
+        String userAgent = extract(line, matcher, NginxLogFormatConfig.USER_AGENT_GROUP, LogField.AGENT, extractor);
+
+        return new LogRecord(
+            remoteAddr, remoteUser, timeLocal, method, resource, status, bytesSent, referer, userAgent
+        );
+    }
+
+    private static String extract(String line, Matcher matcher, int group, LogField field, FieldExtractor extractor) {
+        return extractor.extract(line, matcher.start(group), matcher.end(group), field);
+    }
+
+    /**
+     * Parses the digits of the group as an int.
+     *
+     * @return the number or -1 if it's empty or doesn't fit an int and there are counts of malformed lines
+     */
+    private static int parseNumber(String line, Matcher matcher, int group, MalformedLines malformed) {
+        return malformed == null ? Integer.parseInt(matcher.group(group)) : tryParseNumber(line, matcher, group);
+    }
+
+    /**
+     * Parses the digits of the group as an int.
+     *
+     * @return the number or -1 if it's empty or doesn't fit an int
+     */
+    private static int tryParseNumber(String line, Matcher matcher, int group) {
+        int start = matcher.start(group);
+        int end = matcher.end(group);
+        if (start == end) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * RADIX + line.charAt(i) - '0';
+            if (value > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses the date with {@link NginxLogFormatConfig#NGINX_TIME_FORMAT}.
+     * Prefer {@link NginxTimestampDecoder} which is much faster and gives the same results.
+     */
+    static LocalDateTime parseTime(String date) {
         try {
-            String remoteAddr = matcher.group(NginxLogFormatConfig.REMOTE_ADDR_GROUP);
-            String remoteUser = matcher.group(NginxLogFormatConfig.REMOTE_USER_GROUP);
-            LocalDateTime timeLocal =
-                NginxLogFormatConfig.NGINX_TIME_FORMAT.parse(
-                        matcher.group(NginxLogFormatConfig.DATE_GROUP), OffsetDateTime::from
-                    )
-                    .atZoneSameInstant(NginxLogFormatConfig.NGINX_DEFAULT_ZONE)
-                    .toLocalDateTime();
-
-            String method = matcher.group(NginxLogFormatConfig.METHOD_GROUP);
-            String resource = matcher.group(NginxLogFormatConfig.RESOURCE_GROUP);
-            int status = Integer.parseInt(matcher.group(NginxLogFormatConfig.STATUS_GROUP));
-            int bytesSent = Integer.parseInt(matcher.group(NginxLogFormatConfig.BYTE_SENT_GROUP));
-            String referer = matcher.group(NginxLogFormatConfig.REFERER_GROUP);
-            String userAgent = matcher.group(NginxLogFormatConfig.USER_AGENT_GROUP);
-
-            return new LogRecord(
-                remoteAddr, remoteUser, timeLocal, method, resource, status, bytesSent, referer, userAgent
-            );
+            return NginxLogFormatConfig.NGINX_TIME_FORMAT.parse(date, OffsetDateTime::from)
+                .atZoneSameInstant(NginxLogFormatConfig.NGINX_DEFAULT_ZONE)
+                .toLocalDateTime();
         } catch (DateTimeParseException e) {
-            throw new ParseException("Invalid date in Nginx log: " + matcher.group(NginxLogFormatConfig.DATE_GROUP), e);
+            throw new ParseException("Invalid date in Nginx log: " + date, e);
+        }
+    }
+
+    /**
+     * Parses the date as {@link #parseTime(String)}, but returns null for invalid dates. Dates with bad syntax
+     * are rejected without exceptions, only values out of ranges (e.g. the 32nd day) are checked by the formatter.
+     */
+    static LocalDateTime tryParseTime(String date) {
+        try {
+            ParsePosition position = new ParsePosition(0);
+            TemporalAccessor parsed = NginxLogFormatConfig.NGINX_TIME_FORMAT.parseUnresolved(date, position);
+            if (parsed == null || position.getErrorIndex() >= 0 || position.getIndex() != date.length()) {
+                return null;
+            }
+            return parseTime(date);
+        } catch (DateTimeException | ParseException e) {
+            return null;
         }
     }
 }
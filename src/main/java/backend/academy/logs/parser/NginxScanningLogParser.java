@@ -0,0 +1,228 @@
+package backend.academy.logs.parser;
+
+import java.time.LocalDateTime;
+
+/**
+ * Parses the same NGINX logs as {@link NginxLogParser}, but finds the fields in a single pass
+ * over the line looking for their delimiters (spaces, quotes and brackets) instead of matching
+ * {@link NginxLogFormatConfig#NGINX_LOG_PATTERN}.
+ * Lines the scanner rejects (malformed or splittable into the fields in several ways)
+ * are parsed by {@link NginxLogParser}, so the results are always the same.
+ */
+public class NginxScanningLogParser extends AbstractNginxLogParser {
+    public NginxScanningLogParser() {
+        this(0);
+    }
+
+    /**
+     * Creates the parser.
+     *
+     * @param dictionarySize capacity of the {@link StringDictionary} of methods, users, referers and agents
+     *                       for every parsed stream, 0 disables the dictionaries
+     */
+    public NginxScanningLogParser(int dictionarySize) {
+        super(dictionarySize);
+    }
+
+    @Override
+    LogRecord parseLine(
+        String line,
+        NginxTimestampDecoder timestampDecoder,
+        FieldExtractor extractor,
+        MalformedLines malformed
+    ) {
+        LogRecord log = scan(line, timestampDecoder, extractor);
+        return log == null ? NginxLogParser.parseNginx(line, timestampDecoder, extractor, malformed) : log;
+    }
+
+    static LogRecord parseNginx(String line, NginxTimestampDecoder timestampDecoder, FieldExtractor extractor) {
+        LogRecord log = scan(line, timestampDecoder, extractor);
+        return log == null ? NginxLogParser.parseNginx(line, timestampDecoder, extractor) : log;
+    }
+
+    /**
+     * Scans the line in the format of {@link NginxLogFormatConfig#NGINX_LOG_PATTERN}.
+     *
+     * @return the log or null if the line should be left to the regular expression, e.g. if it's malformed
+     */
+    static LogRecord scan(String line, NginxTimestampDecoder timestampDecoder, FieldExtractor extractor) {
+        LineCursor cursor = new LineCursor(line, extractor);
+        String remoteAddr = cursor.token(' ', LogField.ADDRESS);
+        cursor.expect("- ");
+        String remoteUser = cursor.token(' ', LogField.USER);
+        cursor.expect("[");
+        int dateStart = cursor.position();
+        int dateEnd = cursor.skipDate();
+        String method = cursor.word(' ', LogField.METHOD);
+        String resource = cursor.token(' ', LogField.RESOURCE);
+        cursor.skipQuotedToken();
+        int status = cursor.number(' ');
+        int bytesSent = cursor.number(' ');
+        cursor.expect("\"");
+        String referer = cursor.quotedToken(LogField.REFERER);
+        cursor.expect("\"");
+        String userAgent = cursor.quotedRest(LogField.AGENT);
+        if (cursor.failed()) {
+            return null;
+        }
+        LocalDateTime timeLocal = timestampDecoder.tryDecode(line, dateStart, dateEnd);
+        if (timeLocal == null) {
+            return null;
+        }
+
+        return new LogRecord(
+            remoteAddr, remoteUser, timeLocal, method, resource, status, bytesSent, referer, userAgent
+        );
+    }
+
+    /**
+     * Position in the scanned line. Once any step fails, all the next steps do nothing.
+     * The fields are still validated when they aren't needed, but their strings aren't created.
+     */
+    private static final class LineCursor {
+        private static final String DATE_END = "] \"";
+        private static final int MAX_NUMBER_DIGITS = 9;
+        private static final int RADIX = 10;
+
+        private final String line;
+        private final FieldExtractor extractor;
+        private int position = 0;
+        private boolean failed = false;
+
+        private LineCursor(String line, FieldExtractor extractor) {
+            this.line = line;
+            this.extractor = extractor;
+        }
+
+        boolean failed() {
+            return failed;
+        }
+
+        int position() {
+            return position;
+        }
+
+        void expect(String literal) {
+            if (!failed && line.startsWith(literal, position)) {
+                position += literal.length();
+            } else {
+                failed = true;
+            }
+        }
+
+        /**
+         * Reads {@code \S*} followed by the end char, the end char is skipped.
+         */
+        String token(char end, LogField field) {
+            int start = position;
+            int tokenEnd = skipToken(end);
+            return failed ? null : extractor.extract(line, start, tokenEnd, field);
+        }
+
+        /**
+         * Reads {@code \w*} followed by the end char, the end char is skipped.
+         */
+        String word(char end, LogField field) {
+            int start = position;
+            int wordEnd = skipToken(end);
+            for (int i = start; !failed && i < wordEnd; i++) {
+                failed = !isWordChar(line.charAt(i));
+            }
+            return failed ? null : extractor.extract(line, start, wordEnd, field);
+        }
+
+        /**
+         * Reads {@code \d+} which fits in an int followed by the end char, the end char is skipped.
+         */
+        int number(char end) {
+            int start = position;
+            int numberEnd = skipToken(end);
+            failed |= numberEnd == start || numberEnd - start > MAX_NUMBER_DIGITS;
+            int value = 0;
+            for (int i = start; !failed && i < numberEnd; i++) {
+                char c = line.charAt(i);
+                failed = c < '0' || c > '9';
+                value = value * RADIX + (c - '0');
+            }
+            return value;
+        }
+
+        /**
+         * Reads {@code \S*"} followed by a space, the quote and the space are skipped.
+         */
+        String quotedToken(LogField field) {
+            int start = position;
+            int tokenEnd = skipQuotedToken();
+            return failed ? null : extractor.extract(line, start, tokenEnd, field);
+        }
+
+        /**
+         * Skips {@code \S*"} followed by a space.
+         *
+         * @return the position of the closing quote
+         */
+        int skipQuotedToken() {
+            int start = position;
+            int tokenEnd = skipToken(' ') - 1;
+            failed |= tokenEnd < start || line.charAt(tokenEnd) != '"';
+            return tokenEnd;
+        }
+
+        /**
+         * Skips the date till the only {@code ] "} in the rest of the line.
+         * If there are several of them the greedy regular expression could choose any, so the line is rejected.
+         *
+         * @return the end position of the date
+         */
+        int skipDate() {
+            if (failed) {
+                return position;
+            }
+            int start = position;
+            int dateEnd = line.indexOf(DATE_END, start);
+            failed = dateEnd < 0
+                || line.indexOf(DATE_END, dateEnd + 1) >= 0
+                || hasLineTerminator(start, dateEnd);
+            position = dateEnd + DATE_END.length();
+            return dateEnd;
+        }
+
+        /**
+         * Reads {@code .*} till the closing quote which must be the last char of the line.
+         */
+        String quotedRest(LogField field) {
+            int end = line.length() - 1;
+            failed |= end < position || line.charAt(end) != '"' || hasLineTerminator(position, end);
+            return failed ? null : extractor.extract(line, position, end, field);
+        }
+
+        private int skipToken(char end) {
+            int i = position;
+            while (!failed && i < line.length() && line.charAt(i) != end) {
+                failed = isWhitespace(line.charAt(i));
+                i++;
+            }
+            failed |= i >= line.length();
+            position = i + 1;
+            return i;
+        }
+
+        private boolean hasLineTerminator(int start, int end) {
+            for (int i = start; i < end; i++) {
+                char c = line.charAt(i);
+                if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isWhitespace(char c) {
+            return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+        }
+
+        private static boolean isWordChar(char c) {
+            return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_';
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package backend.academy.logs.parser;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.Year;
+
+/**
+ * Decodes timestamps in the {@link NginxLogFormatConfig#NGINX_TIME_FORMAT} layout to the local date-time
+ * in {@link NginxLogFormatConfig#NGINX_DEFAULT_ZONE} reading the fixed-width digits directly.
+ * Logs are mostly ordered and many of them share a second, so the last decoded second and its UTC day are cached.
+ * Timestamps which don't fit the layout or need resolving (e.g. the 31st of February) are left to the formatter,
+ * so the results are always the same.
+ * The decoder isn't thread-safe, it's intended to be used for a single stream of lines.
+ */
+public class NginxTimestampDecoder {
+    private static final int LENGTH = "dd/MMM/yyyy:HH:mm:ss +hhmm".length();
+    private static final String ADDRESS_END = " - ";
+    private static final String DATE_START = " [";
+    private static final String DATE_END = "] \"";
+    private static final String[] MONTHS = {
+        "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+    private static final int MONTH_POSITION = 3;
+    private static final int YEAR_POSITION = 7;
+    private static final int HOUR_POSITION = 12;
+    private static final int MINUTE_POSITION = 15;
+    private static final int SECOND_POSITION = 18;
+    private static final int OFFSET_SIGN_POSITION = 21;
+    private static final int OFFSET_HOUR_POSITION = 22;
+    private static final int OFFSET_MINUTE_POSITION = 24;
+    private static final String SEPARATORS = "//:::";
+    private static final int[] SEPARATOR_POSITIONS = {2, 6, 11, 14, 17};
+
+    private static final int MAX_HOUR = 23;
+    private static final int MAX_MINUTE = 59;
+    private static final int MAX_OFFSET_HOURS = 18;
+    private static final int SECONDS_PER_MINUTE = 60;
+    private static final int SECONDS_PER_HOUR = 3600;
+    private static final int SECONDS_PER_DAY = 86_400;
+    private static final int RADIX = 10;
+
+    private String lastText;
+    private LocalDateTime lastTime;
+
+    /**
+     * Decodes the whole text as a timestamp.
+     *
+     * @throws backend.academy.logs.exceptions.ParseException if the text isn't a valid timestamp
+     */
+    public LocalDateTime decode(String text) {
+        return decode(text, 0, text.length());
+    }
+
+    /**
+     * Decodes the timestamp located in the line between the given positions.
+     *
+     * @throws backend.academy.logs.exceptions.ParseException if the text isn't a valid timestamp
+     */
+    public LocalDateTime decode(String line, int start, int end) {
+        LocalDateTime time = tryDecode(line, start, end);
+        return time == null ? NginxLogParser.parseTime(line.substring(start, end)) : time;
+    }
+
+    /**
+     * Decodes the timestamp located in the line between the given positions without throwing exceptions
+     * for timestamps of a wrong layout.
+     *
+     * @return the time or null if the text isn't a valid timestamp
+     */
+    public LocalDateTime tryDecode(String line, int start, int end) {
+        if (lastText != null && lastText.length() == end - start && line.startsWith(lastText, start)) {
+            return lastTime;
+        }
+
+        String text = line.substring(start, end);
+        LocalDateTime time = decodeFixedWidth(text);
+        if (time == null) {
+            time = NginxLogParser.tryParseTime(text);
+            if (time == null) {
+                return null;
+            }
+        }
+        lastText = text;
+        lastTime = time;
+        return time;
+    }
+
+    /**
+     * Finds and decodes the timestamp of a raw line in the {@link NginxLogFormatConfig#NGINX_LOG_PATTERN} format
+     * without parsing the rest of the line. Only the bracketed timestamp after the address and the user is looked at,
+     * so the line may still be invalid.
+     *
+     * @return the time or null if the timestamp can't be decoded this way
+     */
+    public LocalDateTime decodeLineTime(String line) {
+        int userStart = line.indexOf(ADDRESS_END);
+        if (userStart < 0) {
+            return null;
+        }
+        int dateStart = line.indexOf(' ', userStart + ADDRESS_END.length()) + DATE_START.length();
+        int dateEnd = dateStart + LENGTH;
+        if (dateStart < DATE_START.length() || !line.startsWith(DATE_START, dateStart - DATE_START.length())
+            || !line.startsWith(DATE_END, dateEnd)) {
+            return null;
+        }
+        if (lastText != null && lastText.length() == LENGTH && line.startsWith(lastText, dateStart)) {
+            return lastTime;
+        }
+        String text = line.substring(dateStart, dateEnd);
+        LocalDateTime time = decodeFixedWidth(text);
+        if (time != null) {
+            lastText = text;
+            lastTime = time;
+        }
+        return time;
+    }
+
+    /**
+     * Decodes the text if it exactly fits the layout and doesn't need any resolving.
+     *
+     * @return the decoded time or null if the text should be parsed by the formatter
+     */
+    private LocalDateTime decodeFixedWidth(String text) {
+        if (text.length() != LENGTH || !hasSeparators(text)) {
+            return null;
+        }
+        int day = twoDigits(text, 0);
+        int month = month(text);
+        int year = year(text);
+        int hour = twoDigits(text, HOUR_POSITION);
+        int minute = twoDigits(text, MINUTE_POSITION);
+        int second = twoDigits(text, SECOND_POSITION);
+        int offset = offsetSeconds(text);
+        if (month < 1 || year < 1 || day < 1 || day > Month.of(month).length(Year.isLeap(year))
+            || hour < 0 || hour > MAX_HOUR || minute < 0 || minute > MAX_MINUTE
+            || second < 0 || second > MAX_MINUTE || offset == Integer.MIN_VALUE) {
+            return null;
+        }
+
+        long epochDay = LocalDate.of(year, month, day).toEpochDay();
+        long epochSecond = epochDay * SECONDS_PER_DAY + hour * SECONDS_PER_HOUR + minute * SECONDS_PER_MINUTE
+            + second - offset;
+        long utcDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+        LocalDate date = lastTime != null && lastTime.toLocalDate().toEpochDay() == utcDay
+            ? lastTime.toLocalDate()
+            : LocalDate.ofEpochDay(utcDay);
+        return LocalDateTime.of(date, LocalTime.ofSecondOfDay(Math.floorMod(epochSecond, SECONDS_PER_DAY)));
+    }
+
+    /**
+     * Decodes the four digits of the year.
+     *
+     * @return the year or -1 if either half of it isn't two digits
+     */
+    private static int year(String text) {
+        int century = twoDigits(text, YEAR_POSITION);
+        int yearOfCentury = twoDigits(text, YEAR_POSITION + 2);
+        return century < 0 || yearOfCentury < 0 ? -1 : century * RADIX * RADIX + yearOfCentury;
+    }
+
+    private static boolean hasSeparators(String text) {
+        for (int i = 0; i < SEPARATOR_POSITIONS.length; i++) {
+            if (text.charAt(SEPARATOR_POSITIONS[i]) != SEPARATORS.charAt(i)) {
+                return false;
+            }
+        }
+        return text.charAt(OFFSET_SIGN_POSITION - 1) == ' ';
+    }
+
+    /**
+     * Reads two ASCII digits.
+     *
+     * @return the number or a negative value if there are non-digits
+     */
+    private static int twoDigits(String text, int position) {
+        int high = text.charAt(position) - '0';
+        int low = text.charAt(position + 1) - '0';
+        if (high < 0 || high >= RADIX || low < 0 || low >= RADIX) {
+            return -1;
+        }
+        return high * RADIX + low;
+    }
+
+    /**
+     * Reads the English month abbreviation.
+     *
+     * @return the month number starting from 1 or 0 if it's not a month
+     */
+    private static int month(String text) {
+        for (int i = 0; i < MONTHS.length; i++) {
+            if (text.startsWith(MONTHS[i], MONTH_POSITION)) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Reads the offset in the {@code +hhmm} form.
+     *
+     * @return the offset in seconds or {@link Integer#MIN_VALUE} if it's not a valid offset
+     */
+    private static int offsetSeconds(String text) {
+        char sign = text.charAt(OFFSET_SIGN_POSITION);
+        int hours = twoDigits(text, OFFSET_HOUR_POSITION);
+        int minutes = twoDigits(text, OFFSET_MINUTE_POSITION);
+        if (sign != '+' && sign != '-' || hours < 0 || minutes < 0 || minutes > MAX_MINUTE
+            || hours > MAX_OFFSET_HOURS || hours == MAX_OFFSET_HOURS && minutes > 0) {
+            return Integer.MIN_VALUE;
+        }
+        int seconds = hours * SECONDS_PER_HOUR + minutes * SECONDS_PER_MINUTE;
+        return sign == '+' ? seconds : -seconds;
+    }
+}
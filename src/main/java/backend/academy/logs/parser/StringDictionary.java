@@ -0,0 +1,85 @@
+package backend.academy.logs.parser;
+
+/**
+ * Bounded cache of canonical strings for low-cardinality fields like methods and user agents.
+ * A field is looked up by its position in the line, so a repeated value is neither copied nor allocated.
+ * The cache is two-way set-associative: every hash selects a pair of entries, a hit moves the entry first
+ * and a miss evicts the second entry, so values alternating in the same set are both kept.
+ * Values longer than {@link #MAX_VALUE_LENGTH} are not cached.
+ * The dictionary isn't thread-safe, it's intended to be used for a single stream of lines.
+ */
+public class StringDictionary {
+    public static final int MAX_VALUE_LENGTH = 1024;
+    /**
+     * Dictionary which just copies the values and doesn't count anything.
+     */
+    public static final StringDictionary NONE = new StringDictionary(0);
+
+    private static final int WAYS = 2;
+    private static final int HASH_MULTIPLIER = 31;
+
+    private final String[] entries;
+    private final int setMask;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * Creates an empty dictionary.
+     *
+     * @param capacity maximum number of kept values, it's rounded up to a power of two
+     */
+    public StringDictionary(int capacity) {
+        if (capacity < 0 || capacity > 1 << (Integer.SIZE - 2)) {
+            throw new IllegalArgumentException("Bad dictionary capacity: " + capacity);
+        }
+        int size = capacity == 0 ? 0 : Math.max(WAYS, Integer.highestOneBit(capacity - 1) << 1);
+        this.entries = new String[size];
+        this.setMask = size / WAYS - 1;
+    }
+
+    /**
+     * Gets the canonical instance of {@code line.substring(start, end)}.
+     */
+    public String intern(String line, int start, int end) {
+        int length = end - start;
+        if (entries.length == 0 || length > MAX_VALUE_LENGTH) {
+            return line.substring(start, end);
+        }
+
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = HASH_MULTIPLIER * hash + line.charAt(i);
+        }
+        int first = ((hash ^ hash >>> (Integer.SIZE / 2)) & setMask) * WAYS;
+        String firstEntry = entries[first];
+        if (matches(firstEntry, line, start, length)) {
+            hits++;
+            return firstEntry;
+        }
+        String secondEntry = entries[first + 1];
+        if (matches(secondEntry, line, start, length)) {
+            hits++;
+            entries[first + 1] = firstEntry;
+            entries[first] = secondEntry;
+            return secondEntry;
+        }
+
+        misses++;
+        if (secondEntry != null) {
+            evictions++;
+        }
+        String value = line.substring(start, end);
+        entries[first + 1] = firstEntry;
+        entries[first] = value;
+        return value;
+    }
+
+    public DictionaryStats stats() {
+        return new DictionaryStats(hits, misses, evictions);
+    }
+
+    private static boolean matches(String entry, String line, int start, int length) {
+        return entry != null && entry.length() == length && line.startsWith(entry, start);
+    }
+}
@@ -0,0 +1,39 @@
+package backend.academy.logs.parser;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Creates a dictionary for every parsed stream of lines and sums up their stats when the streams are closed,
+ * so a parser can be used by several threads.
+ */
+class StringDictionaryFactory {
+    private final int capacity;
+    private final AtomicReference<DictionaryStats> stats = new AtomicReference<>(DictionaryStats.EMPTY);
+
+    /**
+     * Creates the factory.
+     *
+     * @param capacity capacity of every dictionary, 0 disables the dictionaries
+     */
+    StringDictionaryFactory(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Dictionary capacity can't be negative, got " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    StringDictionary create() {
+        return capacity == 0 ? StringDictionary.NONE : new StringDictionary(capacity);
+    }
+
+    void collectStats(StringDictionary dictionary) {
+        if (dictionary != StringDictionary.NONE) {
+            stats.accumulateAndGet(dictionary.stats(), DictionaryStats::plus);
+        }
+    }
+
+    Optional<DictionaryStats> stats() {
+        return capacity == 0 ? Optional.empty() : Optional.of(stats.get());
+    }
+}
@@ -0,0 +1,29 @@
+package backend.academy.logs.provider;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Provider of the sources of several providers, e.g. of URLs and globs given together, in the order of providers.
+ */
+public class CompositeLogProvider implements LogProvider {
+    private final List<LogProvider> providers;
+
+    private CompositeLogProvider(List<LogProvider> providers) {
+        this.providers = providers;
+    }
+
+    public static CompositeLogProvider create(List<LogProvider> providers) {
+        return new CompositeLogProvider(List.copyOf(providers));
+    }
+
+    @Override
+    public List<FileView> getLogs() throws IOException {
+        List<FileView> files = new ArrayList<>();
+        for (LogProvider provider : providers) {
+            files.addAll(provider.getLogs());
+        }
+        return files;
+    }
+}
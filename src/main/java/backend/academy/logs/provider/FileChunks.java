@@ -0,0 +1,119 @@
+package backend.academy.logs.provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.experimental.UtilityClass;
+import org.apache.commons.io.function.Uncheck;
+import org.apache.commons.io.input.BoundedInputStream;
+
+@UtilityClass
+class FileChunks {
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    static List<FileView> split(FileView view, Path file, int parts, long minChunkSize) throws IOException {
+        long size = Files.size(file);
+        if (Math.min(parts, size / Math.max(1, minChunkSize)) < 2) {
+            return List.of(view);
+        }
+        return split(view.name(), file, 0, size, parts, minChunkSize);
+    }
+
+    /**
+     * Splits the range of the file starting with a line and ending after a line feed or at the end of the file.
+     *
+     * @return the chunks in the order of the file, empty if the range is empty
+     */
+    static List<FileView> split(String name, Path file, long start, long end, int parts, long minChunkSize)
+        throws IOException {
+        long size = end - start;
+        long chunksCount = Math.max(1, Math.min(parts, size / Math.max(1, minChunkSize)));
+
+        List<FileView> chunks = new ArrayList<>((int) chunksCount);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long chunkStart = start;
+            for (long i = 1; i <= chunksCount && chunkStart < end; i++) {
+                long chunkEnd = i == chunksCount
+                    ? end
+                    : Math.min(end, nextLineStart(channel, Math.max(chunkStart, start + size * i / chunksCount)));
+                if (chunkEnd > chunkStart) {
+                    chunks.add(chunk(name, file, chunkStart, chunkEnd - chunkStart));
+                    chunkStart = chunkEnd;
+                }
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Finds the end of the last complete line of the file.
+     *
+     * @return the position after the last line feed or 0 if there are no line feeds
+     */
+    static long completeLinesEnd(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+            long end = channel.size();
+            while (end > 0) {
+                long start = Math.max(0, end - SCAN_BUFFER_SIZE);
+                buffer.clear().limit((int) (end - start));
+                int read = channel.read(buffer, start);
+                for (int i = read - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n') {
+                        return start + i + 1;
+                    }
+                }
+                end = start;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Finds the first line beginning at or after the given position.
+     *
+     * @return the position of the line or the channel size if there are no more lines
+     */
+    static long nextLineStart(FileChannel channel, long position) throws IOException {
+        if (position == 0) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        // a line begins at the position only if the previous byte ends a line
+        long current = position - 1;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, current);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return current + i + 1;
+                }
+            }
+            current += read;
+        }
+    }
+
+    private static FileView chunk(String name, Path file, long start, long length) {
+        return new FileView(name, () -> Uncheck.get(() -> openRange(file, start, length)));
+    }
+
+    private static InputStream openRange(Path file, long start, long length) throws IOException {
+        InputStream input = Files.newInputStream(file);
+        try {
+            input.skipNBytes(start);
+            return BoundedInputStream.builder().setInputStream(input).setMaxCount(length).get();
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+    }
+}
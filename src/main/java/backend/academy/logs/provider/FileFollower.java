@@ -0,0 +1,241 @@
+package backend.academy.logs.provider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import org.apache.commons.io.function.Uncheck;
+
+/**
+ * Reads the lines appended to the files matching the glob of a {@link FileLogProvider}, like {@code tail -F}.
+ * The files are tracked by their identity (the inode), so a file renamed by rotation is read till its end
+ * and the new file created in its place is read from the start. A file which becomes shorter is considered
+ * truncated and is read from the start again. The directories are watched for created and deleted entries,
+ * they are walked again only when there are such changes.
+ * Gzip files are ignored, since they are usually compressed copies of rotated logs which have already been read.
+ * An incomplete last line is kept until its line feed is appended.
+ * Every read of a file from its start has its own read id, so the consumers can tell a renamed file
+ * from a new or truncated file with the same name.
+ */
+public class FileFollower implements Closeable {
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final FileLogProvider provider;
+    private final WatchService watchService;
+    private final Map<Object, FollowedFile> files = new LinkedHashMap<>();
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private boolean rescanNeeded = true;
+    private long nextReadId = 0;
+
+    private FileFollower(FileLogProvider provider, WatchService watchService) {
+        this.provider = provider;
+        this.watchService = watchService;
+    }
+
+    /**
+     * Creates the follower of the files matching the provider.
+     * Nothing is read until the first {@link #poll(BiConsumer)}, which reads the files from the start.
+     *
+     * @return the follower to be closed after usage
+     * @throws IOException if the file system can't be watched
+     */
+    public static FileFollower create(FileLogProvider provider) throws IOException {
+        return new FileFollower(provider, provider.fileSystem().newWatchService());
+    }
+
+    /**
+     * Reads the complete lines appended since the previous poll.
+     * Every file found for the first time is passed to the consumer, even if it's empty.
+     *
+     * @param consumer consumer of the file names and their lines, called with batches of lines in the file order
+     * @throws IOException if the files can't be read
+     */
+    public void poll(BiConsumer<String, List<String>> consumer) throws IOException {
+        poll((readId, fileName, lines) -> consumer.accept(fileName, lines));
+    }
+
+    /**
+     * Reads the complete lines appended since the previous poll as {@link #poll(BiConsumer)},
+     * passing the read ids of the files to the consumer.
+     *
+     * @param consumer consumer of the lines, called with batches of lines in the file order
+     * @throws IOException if the files can't be read
+     */
+    public void poll(LinesConsumer consumer) throws IOException {
+        Map<Object, Path> found = rescanIfNeeded();
+        Iterator<Map.Entry<Object, FollowedFile>> followed = files.entrySet().iterator();
+        while (followed.hasNext()) {
+            Map.Entry<Object, FollowedFile> entry = followed.next();
+            FollowedFile file = entry.getValue();
+            Path path = found == null ? file.path : found.remove(entry.getKey());
+            if (path == null) {
+                // renamed out of the glob or deleted, but the open channel still reads the rest of the file
+                file.read(consumer, true);
+                file.channel.close();
+                followed.remove();
+            } else {
+                file.path = path;
+                file.read(consumer, false);
+            }
+        }
+        if (found != null) {
+            for (Map.Entry<Object, Path> entry : found.entrySet()) {
+                FollowedFile file = open(entry.getValue());
+                if (file != null) {
+                    files.put(entry.getKey(), file);
+                    consumer.accept(file.readId, file.path.toString(), List.of());
+                    file.read(consumer, false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Walks the directories if the watcher reported changes in them or on the first poll.
+     *
+     * @return the paths of the matching files by their keys or null if the directories haven't changed
+     */
+    private Map<Object, Path> rescanIfNeeded() throws IOException {
+        if (!hasDirectoryChanges()) {
+            return null;
+        }
+        rescanNeeded = false;
+        Map<Path, BasicFileAttributes> matching = provider.findFiles(directory -> Uncheck.run(() -> directory.register(
+            watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE
+        )));
+        Map<Object, Path> found = new LinkedHashMap<>();
+        matching.forEach((path, attributes) -> found.put(
+            attributes.fileKey() == null ? path.toAbsolutePath() : attributes.fileKey(), path
+        ));
+        return found;
+    }
+
+    /**
+     * Checks whether the watcher has reported created or deleted entries in the directories since the last walk.
+     */
+    boolean hasDirectoryChanges() {
+        WatchKey key = watchService.poll();
+        while (key != null) {
+            rescanNeeded |= !key.pollEvents().isEmpty();
+            key.reset();
+            key = watchService.poll();
+        }
+        return rescanNeeded;
+    }
+
+    private FollowedFile open(Path path) throws IOException {
+        if (GzipInput.isGzip(path)) {
+            return null;
+        }
+        return new FollowedFile(path, FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            watchService.close();
+        } catch (ClosedWatchServiceException e) {
+            // already closed
+        }
+        for (FollowedFile file : files.values()) {
+            file.channel.close();
+        }
+        files.clear();
+    }
+
+    /**
+     * Consumer of the lines read by the follower.
+     */
+    @FunctionalInterface
+    public interface LinesConsumer {
+        /**
+         * Accepts the lines read from the file.
+         *
+         * @param readId   id of the read of the file from its start: it's new for every found file
+         *                 and every truncation, and it's kept when the file is renamed
+         * @param fileName current name of the file
+         * @param lines    complete lines in the order of the file
+         */
+        void accept(long readId, String fileName, List<String> lines);
+    }
+
+    /**
+     * Read position in a followed file with the bytes of its incomplete last line.
+     */
+    private final class FollowedFile {
+        private Path path;
+        private final FileChannel channel;
+        private long readId = nextReadId++;
+        private long position = 0;
+        private final ByteArrayOutputStream incompleteLine = new ByteArrayOutputStream();
+
+        private FollowedFile(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+
+        /**
+         * Reads the bytes appended since the previous read.
+         *
+         * @param last whether nothing will be appended anymore, so the incomplete line is complete
+         */
+        private void read(LinesConsumer consumer, boolean last) throws IOException {
+            if (channel.size() < position) {
+                readId = nextReadId++;
+                position = 0;
+                incompleteLine.reset();
+            }
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            while (read > 0) {
+                position += read;
+                List<String> lines = splitLines(buffer.array(), read);
+                if (!lines.isEmpty()) {
+                    consumer.accept(readId, path.toString(), lines);
+                }
+                buffer.clear();
+                read = channel.read(buffer, position);
+            }
+            if (last && incompleteLine.size() > 0) {
+                String lastLine = decode(incompleteLine.toByteArray(), incompleteLine.size());
+                consumer.accept(readId, path.toString(), List.of(lastLine));
+                incompleteLine.reset();
+            }
+        }
+
+        private List<String> splitLines(byte[] bytes, int length) {
+            List<String> lines = new ArrayList<>();
+            int lineStart = 0;
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] == '\n') {
+                    incompleteLine.write(bytes, lineStart, i - lineStart);
+                    lines.add(decode(incompleteLine.toByteArray(), incompleteLine.size()));
+                    incompleteLine.reset();
+                    lineStart = i + 1;
+                }
+            }
+            incompleteLine.write(bytes, lineStart, length - lineStart);
+            return lines;
+        }
+
+        private static String decode(byte[] bytes, int length) {
+            int end = length > 0 && bytes[length - 1] == '\r' ? length - 1 : length;
+            return new String(bytes, 0, end, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package backend.academy.logs.provider;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.IOException;
+import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -11,8 +12,10 @@ import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import org.apache.commons.io.function.Uncheck;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public class FileLogProvider implements LogProvider {
     private final Path dir;
@@ -27,21 +30,43 @@ public class FileLogProvider implements LogProvider {
         return new FileLogProvider(Paths.get(dir), FileSystems.getDefault().getPathMatcher("glob:" + glob));
     }
 
+    FileSystem fileSystem() {
+        return dir.getFileSystem();
+    }
+
     @Override
+    public List<FileView> getLogs() throws IOException {
+        List<FileView> files = new ArrayList<>();
+        for (Path path : findFiles(directory -> { }).keySet()) {
+            files.add(FileView.ofLocalFile(path));
+        }
+        return files;
+    }
+
+    /**
+     * Walks the directory tree looking for the files matching the glob.
+     *
+     * @param directories consumer of every visited directory
+     * @return the attributes of the matching files by their paths in the order of the walk
+     * @throws IOException if the directory tree can't be walked
+     */
     @SuppressFBWarnings(
         value = "PATH_TRAVERSAL_IN",
         justification = "Logs can be located anywhere, so we can't filter the path anyhow"
     )
-    public List<FileView> getLogs() throws IOException {
-        List<FileView> files = new ArrayList<>();
+    Map<Path, BasicFileAttributes> findFiles(Consumer<Path> directories) throws IOException {
+        Map<Path, BasicFileAttributes> files = new LinkedHashMap<>();
         Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attrs) {
+                directories.accept(directory);
+                return FileVisitResult.CONTINUE;
+            }
+
             @Override
             public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
                 if (pathMatcher.matches(path)) {
-                    files.add(new FileView(
-                        path.toString(),
-                        () -> Uncheck.get(() -> Files.newInputStream(path))
-                    ));
+                    files.put(path, attrs);
                 }
                 return FileVisitResult.CONTINUE;
             }
@@ -2,16 +2,41 @@ package backend.academy.logs.provider;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 import org.apache.commons.io.function.Uncheck;
 
-public record FileView(String name, Supplier<InputStream> inputSupplier) {
+/**
+ * View of a single log source.
+ *
+ * @param name          name of the source to be shown in the report
+ * @param inputSupplier supplier of the source content
+ * @param localFile     the file of the source if it is a regular local file, so it can be read by parts
+ */
+public record FileView(String name, Supplier<InputStream> inputSupplier, Optional<Path> localFile) {
+    public FileView(String name, Supplier<InputStream> inputSupplier) {
+        this(name, inputSupplier, Optional.empty());
+    }
+
     /**
-     * Get the stream of lines from the given input.
+     * Creates the view of a regular local file named by its path.
+     */
+    public static FileView ofLocalFile(Path file) {
+        return new FileView(file.toString(), () -> Uncheck.get(() -> Files.newInputStream(file)), Optional.of(file));
+    }
+
+    /**
+     * Get the stream of lines from the given input, gzip input is inflated while reading.
      * Important: the returned stream must be closed after its usage in order to prevent a file descriptor leak.
      *
      * @return stream of lines
@@ -22,8 +47,10 @@ public record FileView(String name, Supplier<InputStream> inputSupplier) {
             + " so it's a responsibility of other classes "
     )
     public Stream<String> getContent() {
-        InputStream inputStream = inputSupplier.get();
-        BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        InputStream inputStream = Uncheck.apply(GzipInput::open, inputSupplier.get());
+        BufferedReader bufferedReader = new BufferedReader(
+            new InputStreamReader(inputStream, StandardCharsets.UTF_8), GzipInput.BUFFER_SIZE
+        );
         return bufferedReader.lines().onClose(
             () -> Uncheck.run(() -> {
                 bufferedReader.close();
@@ -31,4 +58,80 @@ public record FileView(String name, Supplier<InputStream> inputSupplier) {
             })
         );
     }
+
+    /**
+     * Splits the local file into byte ranges aligned on line boundaries,
+     * so the lines of all the ranges taken in order are exactly the lines of the whole file.
+     * Gzip files are split on member boundaries, so files of a single member are never split.
+     * Sources which are not local files are never split.
+     *
+     * @param parts        maximum number of ranges
+     * @param minChunkSize minimum size of a range in bytes
+     * @return views of the ranges in the order of the file, all having the name of this view
+     * @throws IOException if the file can't be read
+     */
+    public List<FileView> split(int parts, long minChunkSize) throws IOException {
+        if (localFile.isEmpty() || parts < 2) {
+            return List.of(this);
+        }
+        Path file = localFile.orElseThrow();
+        if (GzipInput.isGzip(file)) {
+            return GzipChunks.split(this, file, parts, minChunkSize);
+        }
+        return FileChunks.split(this, file, parts, minChunkSize);
+    }
+
+    /**
+     * Splits the range of the local file into byte ranges aligned on line boundaries as {@link #split(int, long)}.
+     *
+     * @param start position of a line beginning
+     * @param end   position after a line feed or the file size
+     * @return views of the ranges in the order of the file, empty if the range is empty
+     * @throws IOException                   if the file can't be read
+     * @throws UnsupportedOperationException if the source isn't a local file
+     */
+    public List<FileView> splitRange(long start, long end, int parts, long minChunkSize) throws IOException {
+        return FileChunks.split(name, requireLocalFile(), start, end, parts, minChunkSize);
+    }
+
+    /**
+     * Finds the end of the complete lines of the local file, so the incomplete line being written can be left.
+     *
+     * @return the position after the last line feed or 0 if there are no line feeds
+     * @throws IOException                   if the file can't be read
+     * @throws UnsupportedOperationException if the source isn't a local file
+     */
+    public long completeLinesEnd() throws IOException {
+        return FileChunks.completeLinesEnd(requireLocalFile());
+    }
+
+    /**
+     * Checks whether the source is a local gzip file.
+     *
+     * @return false for sources which aren't local files
+     * @throws IOException if the file can't be read
+     */
+    public boolean isLocalGzip() throws IOException {
+        return localFile.isPresent() && GzipInput.isGzip(localFile.orElseThrow());
+    }
+
+    /**
+     * Gets the host of a URL source, so the sources of the same host can be limited together.
+     *
+     * @return the host or empty for local files and names which aren't URLs
+     */
+    public Optional<String> host() {
+        if (localFile.isPresent()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.ofNullable(new URI(name).getHost());
+        } catch (URISyntaxException e) {
+            return Optional.empty();
+        }
+    }
+
+    private Path requireLocalFile() {
+        return localFile.orElseThrow(() -> new UnsupportedOperationException(name + " is not a local file"));
+    }
 }
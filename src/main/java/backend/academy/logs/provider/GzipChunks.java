@@ -0,0 +1,317 @@
+package backend.academy.logs.provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import lombok.experimental.UtilityClass;
+import org.apache.commons.io.function.Uncheck;
+import org.apache.commons.io.input.BoundedInputStream;
+
+/**
+ * Splits gzip files of several members (e.g. concatenated rotated logs) into ranges of whole members,
+ * so the members are inflated in parallel.
+ * Members don't have to end with a line: as for plain files, a range owns the lines starting after its first
+ * line feed, the first range also owns the first line, and the last line of a range is completed
+ * with the beginning of the next members.
+ */
+@UtilityClass
+class GzipChunks {
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+    private static final int HEADER_SIZE = 10;
+    private static final int TRAILER_SIZE = 8;
+    private static final int DEFLATE = 8;
+    private static final int FLAG_HEADER_CRC = 0x02;
+    private static final int FLAG_EXTRA = 0x04;
+    private static final int FLAG_NAME = 0x08;
+    private static final int FLAG_COMMENT = 0x10;
+    private static final int RESERVED_FLAGS = 0xe0;
+    private static final int FLAGS_POSITION = 3;
+    private static final int EXTRA_FLAGS_POSITION = 8;
+    private static final int OS_POSITION = 9;
+    private static final int EXTRA_FLAGS_MAX_COMPRESSION = 2;
+    private static final int EXTRA_FLAGS_FASTEST = 4;
+    private static final int MAX_KNOWN_OS = 13;
+    private static final int UNKNOWN_OS = 255;
+    private static final int BYTE_MASK = 0xff;
+
+    static List<FileView> split(FileView view, Path file, int parts, long minChunkSize) throws IOException {
+        long size = Files.size(file);
+        long chunksCount = Math.min(parts, size / Math.max(1, minChunkSize));
+        if (chunksCount < 2) {
+            return List.of(view);
+        }
+
+        List<Long> starts = new ArrayList<>();
+        starts.add(0L);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (long i = 1; i < chunksCount; i++) {
+                long start = nextMemberStart(channel, Math.max(starts.getLast() + 1, size * i / chunksCount));
+                if (start >= size) {
+                    // there are no more members, so there is no reason to scan the rest again
+                    break;
+                }
+                starts.add(start);
+            }
+        }
+        if (starts.size() < 2) {
+            return List.of(view);
+        }
+
+        List<FileView> chunks = new ArrayList<>(starts.size());
+        for (int i = 0; i < starts.size(); i++) {
+            long start = starts.get(i);
+            long end = i + 1 < starts.size() ? starts.get(i + 1) : size;
+            boolean first = i == 0;
+            chunks.add(new FileView(view.name(), () -> Uncheck.get(() -> openChunk(file, start, end, first))));
+        }
+        return chunks;
+    }
+
+    /**
+     * Finds the first gzip member starting at or after the given position.
+     * The candidates are the magic bytes followed by a valid header and the beginning of a valid deflate stream.
+     *
+     * @return the position of the member or the channel size if there are no more members
+     */
+    static long nextMemberStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long current = position;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, current);
+            if (read < 2) {
+                return channel.size();
+            }
+            for (int i = 0; i + 1 < read; i++) {
+                if ((buffer.get(i) & BYTE_MASK) == GzipInput.ID1 && (buffer.get(i + 1) & BYTE_MASK) == GzipInput.ID2
+                    && isMemberStart(channel, current + i)) {
+                    return current + i;
+                }
+            }
+            // the last byte may be the first magic byte
+            current += read - 1;
+        }
+    }
+
+    /**
+     * Checks that the member header is valid and the deflate stream after it can be inflated.
+     * If the member is short enough to end in the scanned bytes, its trailer is checked too.
+     */
+    private static boolean isMemberStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        int read = Math.max(0, channel.read(buffer, position));
+        byte[] bytes = buffer.array();
+        int dataStart = headerEnd(bytes, read);
+        return dataStart >= 0 && inflatesAsMember(bytes, dataStart, read);
+    }
+
+    private static boolean inflatesAsMember(byte[] bytes, int dataStart, int read) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(bytes, dataStart, read - dataStart);
+            byte[] output = new byte[SCAN_BUFFER_SIZE];
+            CRC32 crc = new CRC32();
+            long inflated = 0;
+            while (!inflater.finished() && !inflater.needsInput() && inflated < SCAN_BUFFER_SIZE) {
+                int length = inflater.inflate(output);
+                if (length == 0 && inflater.needsDictionary()) {
+                    return false;
+                }
+                crc.update(output, 0, length);
+                inflated += length;
+            }
+            if (!inflater.finished()) {
+                return inflated > 0;
+            }
+            int trailer = read - inflater.getRemaining();
+            return trailer + TRAILER_SIZE <= read
+                && littleEndianInt(bytes, trailer) == (int) crc.getValue()
+                && littleEndianInt(bytes, trailer + Integer.BYTES) == (int) inflated;
+        } catch (DataFormatException e) {
+            return false;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Parses the member header.
+     *
+     * @return the position of the deflate stream or -1 if the header isn't valid
+     */
+    private static int headerEnd(byte[] bytes, int length) {
+        if (length < HEADER_SIZE || !isValidHeader(bytes)) {
+            return -1;
+        }
+        int flags = bytes[FLAGS_POSITION] & BYTE_MASK;
+        int position = HEADER_SIZE;
+        if ((flags & FLAG_EXTRA) != 0) {
+            if (position + 2 > length) {
+                return -1;
+            }
+            position += 2 + ((bytes[position] & BYTE_MASK) | (bytes[position + 1] & BYTE_MASK) << Byte.SIZE);
+        }
+        if ((flags & FLAG_NAME) != 0) {
+            position = skipZeroTerminated(bytes, position, length);
+        }
+        if ((flags & FLAG_COMMENT) != 0) {
+            position = skipZeroTerminated(bytes, position, length);
+        }
+        if ((flags & FLAG_HEADER_CRC) != 0 && position >= 0) {
+            position += 2;
+        }
+        return position >= 0 && position < length ? position : -1;
+    }
+
+    private static boolean isValidHeader(byte[] bytes) {
+        int flags = bytes[FLAGS_POSITION] & BYTE_MASK;
+        int extraFlags = bytes[EXTRA_FLAGS_POSITION] & BYTE_MASK;
+        int os = bytes[OS_POSITION] & BYTE_MASK;
+        return (bytes[2] & BYTE_MASK) == DEFLATE
+            && (flags & RESERVED_FLAGS) == 0
+            && (extraFlags == 0 || extraFlags == EXTRA_FLAGS_MAX_COMPRESSION || extraFlags == EXTRA_FLAGS_FASTEST)
+            && (os <= MAX_KNOWN_OS || os == UNKNOWN_OS);
+    }
+
+    private static int skipZeroTerminated(byte[] bytes, int position, int length) {
+        if (position < 0) {
+            return -1;
+        }
+        for (int i = position; i < length; i++) {
+            if (bytes[i] == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int littleEndianInt(byte[] bytes, int position) {
+        int value = 0;
+        for (int i = Integer.BYTES - 1; i >= 0; i--) {
+            value = value << Byte.SIZE | bytes[position + i] & BYTE_MASK;
+        }
+        return value;
+    }
+
+    private static InputStream openChunk(Path file, long start, long end, boolean first) throws IOException {
+        InputStream members = inflateRange(file, start, end);
+        long size = Files.size(file);
+        return new LineAlignedInputStream(
+            members, !first, end < size ? () -> Uncheck.get(() -> inflateRange(file, end, size)) : null
+        );
+    }
+
+    private static InputStream inflateRange(Path file, long start, long end) throws IOException {
+        InputStream input = Files.newInputStream(file);
+        try {
+            input.skipNBytes(start);
+            InputStream range = BoundedInputStream.builder().setInputStream(input).setMaxCount(end - start).get();
+            return new GZIPInputStream(range, GzipInput.BUFFER_SIZE);
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Inflated members of a range without the bytes before the first line feed (unless it's the first range)
+     * followed by the bytes of the next members up to their first line feed.
+     */
+    private static final class LineAlignedInputStream extends InputStream {
+        private InputStream current;
+        private boolean skipFirstLine;
+        private Supplier<InputStream> next;
+        private boolean tail = false;
+        private boolean finished = false;
+
+        private LineAlignedInputStream(
+            InputStream members,
+            boolean skipFirstLine,
+            Supplier<InputStream> next
+        ) {
+            this.current = members;
+            this.skipFirstLine = skipFirstLine;
+            this.next = next;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int read = read(single, 0, 1);
+            return read < 0 ? -1 : single[0] & BYTE_MASK;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (!finished) {
+                if (skipFirstLine) {
+                    skipFirstLine = false;
+                    if (!skipLine()) {
+                        // no line starts in the range, its bytes belong to the lines of the previous range
+                        finished = true;
+                        break;
+                    }
+                }
+                int read = current.read(buffer, offset, length);
+                if (read < 0) {
+                    switchToTail();
+                } else if (tail) {
+                    return readTail(buffer, offset, read);
+                } else {
+                    return read;
+                }
+            }
+            return -1;
+        }
+
+        private boolean skipLine() throws IOException {
+            int c = current.read();
+            while (c >= 0 && c != '\n') {
+                c = current.read();
+            }
+            return c == '\n';
+        }
+
+        private void switchToTail() throws IOException {
+            current.close();
+            if (tail || next == null) {
+                finished = true;
+            } else {
+                current = next.get();
+                next = null;
+                tail = true;
+            }
+        }
+
+        private int readTail(byte[] buffer, int offset, int read) throws IOException {
+            for (int i = offset; i < offset + read; i++) {
+                if (buffer[i] == '\n') {
+                    finished = true;
+                    current.close();
+                    return i - offset + 1;
+                }
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            finished = true;
+            current.close();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package backend.academy.logs.provider;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Detects gzip sources by their magic bytes and inflates them while streaming.
+ * {@link GZIPInputStream} reads all the members of concatenated gzip files one after another.
+ */
+@UtilityClass
+class GzipInput {
+    static final int ID1 = 0x1f;
+    static final int ID2 = 0x8b;
+    static final int BUFFER_SIZE = 256 * 1024;
+
+    /**
+     * Wraps the input to inflate it if it starts with the gzip magic bytes.
+     *
+     * @return the buffered plain or inflated input
+     * @throws IOException if the gzip header is corrupt
+     */
+    static InputStream open(InputStream input) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(input, BUFFER_SIZE);
+        try {
+            buffered.mark(2);
+            boolean gzip = buffered.read() == ID1 && buffered.read() == ID2;
+            buffered.reset();
+            return gzip ? new GZIPInputStream(buffered, BUFFER_SIZE) : buffered;
+        } catch (IOException e) {
+            buffered.close();
+            throw e;
+        }
+    }
+
+    static boolean isGzip(Path file) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return input.read() == ID1 && input.read() == ID2;
+        }
+    }
+}
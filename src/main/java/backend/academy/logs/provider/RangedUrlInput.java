@@ -0,0 +1,243 @@
+package backend.academy.logs.provider;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Input of a URL downloaded by parallel HTTP range requests. The content is split into segments, a window of them
+ * is downloaded at once, and every segment is read as soon as its first bytes arrive, so the reader waits only
+ * for the segment it is at while the next ones are being downloaded. The segments are read in order, so the lines
+ * crossing their ends are rejoined as they were. The memory taken is the window of segments.
+ * Every opened input has an HTTP client of its own, which is shut down when the input is closed.
+ */
+final class RangedUrlInput extends InputStream {
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes \\d+-\\d+/(\\d+)");
+    private static final String RANGE = "Range";
+    private static final int OK = 200;
+    private static final int PARTIAL_CONTENT = 206;
+    private static final int READ_SIZE = 64 * 1024;
+
+    private final HttpClient client;
+    private final URI uri;
+    private final long size;
+    private final int segmentSize;
+    private final ExecutorService downloads = Executors.newVirtualThreadPerTaskExecutor();
+    private final Deque<Segment> window = new ArrayDeque<>();
+    private long nextSegmentStart;
+    private int position;
+    private boolean closed;
+
+    private RangedUrlInput(HttpClient client, URI uri, long size, int connections, int segmentSize) {
+        this.client = client;
+        this.uri = uri;
+        this.size = size;
+        this.segmentSize = segmentSize;
+        for (int i = 0; i < connections && nextSegmentStart < size; i++) {
+            downloadNext();
+        }
+    }
+
+    /**
+     * Opens the URL with parallel range requests if the server accepts ranges and the content is larger than
+     * a segment, otherwise opens it as a single response.
+     *
+     * @param connections maximum number of segments downloaded at once
+     * @param segmentSize size of a segment in bytes
+     * @return the content of the URL, closing it shuts the client down
+     * @throws IOException if the server can't be reached or responds with an error
+     */
+    static InputStream open(URI uri, int connections, int segmentSize) throws IOException {
+        HttpClient client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL).build();
+        try {
+            return open(client, uri, connections, segmentSize);
+        } catch (IOException | RuntimeException e) {
+            client.shutdownNow();
+            throw e;
+        }
+    }
+
+    private static InputStream open(HttpClient client, URI uri, int connections, int segmentSize)
+        throws IOException {
+        HttpResponse<InputStream> probe = send(client, HttpRequest.newBuilder(uri).header(RANGE, "bytes=0-0").build());
+        Optional<Long> size = probe.statusCode() == PARTIAL_CONTENT
+            ? probe.headers().firstValue("Content-Range").map(CONTENT_RANGE::matcher).filter(Matcher::matches)
+            .map(matcher -> Long.parseLong(matcher.group(1)))
+            : Optional.empty();
+        if (probe.statusCode() == OK) {
+            return new ClientBody(probe.body(), client);
+        }
+        probe.body().close();
+        if (size.isPresent() && size.orElseThrow() > segmentSize) {
+            return new RangedUrlInput(client, uri, size.orElseThrow(), connections, segmentSize);
+        }
+        HttpResponse<InputStream> whole = send(client, HttpRequest.newBuilder(uri).build());
+        if (whole.statusCode() != OK) {
+            whole.body().close();
+            throw new IOException(uri + " responded with status " + whole.statusCode());
+        }
+        return new ClientBody(whole.body(), client);
+    }
+
+    private static HttpResponse<InputStream> send(HttpClient client, HttpRequest request) throws IOException {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while requesting " + request.uri());
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : Byte.toUnsignedInt(single[0]);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (!window.isEmpty() && position == window.peekFirst().data.length) {
+            window.removeFirst();
+            position = 0;
+            if (nextSegmentStart < size) {
+                downloadNext();
+            }
+        }
+        if (window.isEmpty()) {
+            return -1;
+        }
+        if (len == 0) {
+            return 0;
+        }
+        Segment segment = window.peekFirst();
+        int count = Math.min(len, segment.awaitBeyond(position) - position);
+        System.arraycopy(segment.data, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        window.clear();
+        downloads.shutdownNow();
+        client.shutdownNow();
+    }
+
+    private void downloadNext() {
+        Segment segment = new Segment(nextSegmentStart, (int) Math.min(segmentSize, size - nextSegmentStart));
+        nextSegmentStart += segment.data.length;
+        window.addLast(segment);
+        downloads.execute(() -> download(segment));
+    }
+
+    private void download(Segment segment) {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .header(RANGE, "bytes=" + segment.start + "-" + (segment.start + segment.data.length - 1))
+            .build();
+        try {
+            HttpResponse<InputStream> response = send(client, request);
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != PARTIAL_CONTENT) {
+                    throw new IOException(uri + " responded to a range request with status " + response.statusCode());
+                }
+                int filled = 0;
+                while (filled < segment.data.length) {
+                    int read = body.read(segment.data, filled, Math.min(READ_SIZE, segment.data.length - filled));
+                    if (read < 0) {
+                        throw new IOException(uri + " closed the range starting at " + segment.start + " after "
+                            + filled + " of " + segment.data.length + " bytes");
+                    }
+                    filled += read;
+                    segment.fill(filled);
+                }
+            }
+        } catch (IOException e) {
+            segment.fail(e);
+        }
+    }
+
+    /**
+     * Body of a single response which shuts its client down when it's closed.
+     */
+    private static final class ClientBody extends FilterInputStream {
+        private final HttpClient client;
+
+        private ClientBody(InputStream body, HttpClient client) {
+            super(body);
+            this.client = client;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                client.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Bytes of a range being downloaded, the downloaded part is published to the reader.
+     */
+    private static final class Segment {
+        private final long start;
+        private final byte[] data;
+        private int filled;
+        private IOException failure;
+
+        private Segment(long start, int length) {
+            this.start = start;
+            this.data = new byte[length];
+        }
+
+        private synchronized void fill(int downloaded) {
+            filled = downloaded;
+            notifyAll();
+        }
+
+        private synchronized void fail(IOException e) {
+            failure = e;
+            notifyAll();
+        }
+
+        /**
+         * Waits until the bytes after the position are downloaded.
+         *
+         * @return the end of the downloaded bytes
+         * @throws IOException if the download has failed before the position
+         */
+        private synchronized int awaitBeyond(int position) throws IOException {
+            while (filled <= position && failure == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while downloading the range starting at " + start);
+                }
+            }
+            if (filled > position) {
+                return filled;
+            }
+            throw new IOException(failure.getMessage(), failure);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package backend.academy.logs.provider;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Spliterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads the lines of sources ahead of their consumers. Every source gets its own reader thread, which reads,
+ * inflates and decodes the bytes and fills batches of lines taken from a pool. The filled batches are passed
+ * to the consumer through a bounded ring buffer and given back to the pool after they are consumed, so the reader
+ * stops when the consumer is a whole ring behind. The time the reader waits for a free batch shows a consumer bound
+ * run, the time the consumer waits for a filled batch shows a read bound one. Thread-safe, the stats of all
+ * the sources are added up.
+ */
+public class ReadAhead {
+    public static final int DEFAULT_BATCH_LINES = 1024;
+
+    private final int depth;
+    private final int batchLines;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder lines = new LongAdder();
+    private final LongAdder queuedBatches = new LongAdder();
+    private final LongAccumulator maxQueuedBatches = new LongAccumulator(Math::max, 0);
+    private final LongAdder readerStallNanos = new LongAdder();
+    private final LongAdder consumerStallNanos = new LongAdder();
+
+    private ReadAhead(int depth, int batchLines) {
+        this.depth = depth;
+        this.batchLines = batchLines;
+    }
+
+    /**
+     * Creates the read-ahead of the sources.
+     *
+     * @param depth      number of the batches of a source the ring buffer holds
+     * @param batchLines number of the lines in a batch
+     */
+    public static ReadAhead create(int depth, int batchLines) {
+        if (depth < 1 || batchLines < 1) {
+            throw new IllegalArgumentException("Depth and batch size of the read-ahead must be positive");
+        }
+        return new ReadAhead(depth, batchLines);
+    }
+
+    /**
+     * Gets the stream of lines of the source read ahead as {@link FileView#getContent()}.
+     * Closing the stream stops the reader thread and waits for it, so it must be closed after its usage.
+     *
+     * @return the sequential stream of lines
+     */
+    public Stream<String> lines(FileView file) {
+        RingSpliterator ring = new RingSpliterator(file);
+        return StreamSupport.stream(ring, false).onClose(ring::close);
+    }
+
+    public ReadAheadStats stats() {
+        return new ReadAheadStats(
+            depth,
+            batches.sum(),
+            lines.sum(),
+            batches.sum() == 0 ? 0 : (double) queuedBatches.sum() / batches.sum(),
+            maxQueuedBatches.get(),
+            readerStallNanos.sum(),
+            consumerStallNanos.sum()
+        );
+    }
+
+    /**
+     * Batch of lines, reused after it is consumed.
+     */
+    private static final class Batch {
+        private final String[] lines;
+        private int size;
+        private boolean last;
+        private RuntimeException failure;
+
+        private Batch(int capacity) {
+            lines = new String[capacity];
+        }
+    }
+
+    /**
+     * Consumer side of the ring buffer of a source, it starts the reader thread.
+     */
+    private final class RingSpliterator implements Spliterator<String> {
+        private final BlockingQueue<Batch> filled = new ArrayBlockingQueue<>(depth);
+        // the reader fills one batch and the consumer reads another one while the ring is full
+        private final BlockingQueue<Batch> free = new ArrayBlockingQueue<>(depth + 2);
+        private final FileView file;
+        private final Thread reader;
+        private Batch current;
+        private int position;
+
+        private RingSpliterator(FileView file) {
+            this.file = file;
+            for (int i = 0; i < depth + 2; i++) {
+                free.add(new Batch(batchLines));
+            }
+            reader = Thread.ofVirtual().name("read-ahead " + file.name()).start(this::read);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action) {
+            while (current == null || position == current.size) {
+                if (current != null && current.last) {
+                    if (current.failure != null) {
+                        throw current.failure;
+                    }
+                    return false;
+                }
+                next();
+            }
+            String line = current.lines[position];
+            current.lines[position++] = null;
+            action.accept(line);
+            return true;
+        }
+
+        @Override
+        public Spliterator<String> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+
+        private void next() {
+            if (current != null) {
+                free.add(current);
+            }
+            int queued = filled.size();
+            queuedBatches.add(queued);
+            maxQueuedBatches.accumulate(queued);
+            long start = System.nanoTime();
+            try {
+                current = filled.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Reading " + file.name() + " was interrupted", e);
+            }
+            consumerStallNanos.add(System.nanoTime() - start);
+            batches.increment();
+            lines.add(current.size);
+            position = 0;
+        }
+
+        /**
+         * Fills the batches until the end of the source, a failure (of any kind, so the consumer never waits
+         * for a batch which won't come) is passed after the lines read before it.
+         */
+        private void read() {
+            try {
+                Batch batch = takeFree();
+                try (BufferedReader input = open()) {
+                    for (String line = input.readLine(); line != null; line = input.readLine()) {
+                        batch.lines[batch.size++] = line;
+                        if (batch.size == batchLines) {
+                            putFilled(batch);
+                            batch = takeFree();
+                        }
+                    }
+                } catch (IOException e) {
+                    batch.failure = new UncheckedIOException(e);
+                } catch (RuntimeException e) {
+                    batch.failure = e;
+                }
+                batch.last = true;
+                putFilled(batch);
+            } catch (InterruptedException e) {
+                // the consumer has closed the stream
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private BufferedReader open() throws IOException {
+            InputStream input = GzipInput.open(file.inputSupplier().get());
+            return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), GzipInput.BUFFER_SIZE);
+        }
+
+        private void putFilled(Batch batch) throws InterruptedException {
+            long start = System.nanoTime();
+            filled.put(batch);
+            readerStallNanos.add(System.nanoTime() - start);
+        }
+
+        private Batch takeFree() throws InterruptedException {
+            long start = System.nanoTime();
+            Batch batch = free.take();
+            readerStallNanos.add(System.nanoTime() - start);
+            batch.size = 0;
+            batch.last = false;
+            batch.failure = null;
+            return batch;
+        }
+
+        private void close() {
+            reader.interrupt();
+            try {
+                reader.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package backend.academy.logs.provider;
+
+/**
+ * Stats of the read-ahead of the sources.
+ *
+ * @param depth               number of the batches of a source the ring buffer holds
+ * @param batches             number of the consumed batches
+ * @param lines               number of the consumed lines
+ * @param averageQueued       average number of the filled batches waiting in the ring when a batch is consumed
+ * @param maxQueued           maximum number of the filled batches waiting in the ring
+ * @param readerStallNanos    time the readers waited for the consumers to free a batch
+ * @param consumerStallNanos  time the consumers waited for the readers to fill a batch
+ */
+public record ReadAheadStats(
+    int depth,
+    long batches,
+    long lines,
+    double averageQueued,
+    long maxQueued,
+    long readerStallNanos,
+    long consumerStallNanos
+) {
+    /**
+     * Checks whether the consumers waited for the reads longer than the reads waited for the consumers.
+     */
+    public boolean readBound() {
+        return consumerStallNanos > readerStallNanos;
+    }
+}
@@ -1,25 +1,64 @@
 package backend.academy.logs.provider;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.List;
+import java.util.Set;
 import org.apache.commons.io.function.Uncheck;
 
+/**
+ * Provider of a URL source. HTTP sources are downloaded by parallel range requests if the server accepts them,
+ * other sources and sources of servers without ranges are read as a single stream.
+ */
 public class UrlLogProvider implements LogProvider {
+    public static final int DEFAULT_CONNECTIONS = 4;
+    public static final int DEFAULT_SEGMENT_SIZE = 8 * 1024 * 1024;
+
+    private static final Set<String> HTTP_SCHEMES = Set.of("http", "https");
+
+    private final URI uri;
     private final URL url;
+    private final int connections;
+    private final int segmentSize;
 
-    private UrlLogProvider(URL url) {
-        this.url = url;
+    private UrlLogProvider(URI uri, int connections, int segmentSize) throws MalformedURLException {
+        this.uri = uri;
+        this.url = uri.toURL();
+        this.connections = connections;
+        this.segmentSize = segmentSize;
     }
 
     public static UrlLogProvider create(String url) throws MalformedURLException, URISyntaxException {
-        return new UrlLogProvider(new URI(url).toURL());
+        return create(url, DEFAULT_CONNECTIONS, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates the provider of the URL.
+     *
+     * @param connections maximum number of range requests at once, 1 to download over a single connection
+     * @param segmentSize bytes requested by a range request
+     */
+    public static UrlLogProvider create(String url, int connections, int segmentSize)
+        throws MalformedURLException, URISyntaxException {
+        if (connections < 1 || segmentSize < 1) {
+            throw new IllegalArgumentException("Connections and segment size must be positive");
+        }
+        return new UrlLogProvider(new URI(url), connections, segmentSize);
     }
 
     @Override
     public List<FileView> getLogs() {
-        return List.of(new FileView(url.toString(), () -> Uncheck.get(url::openStream)));
+        return List.of(new FileView(url.toString(), () -> Uncheck.get(this::open)));
+    }
+
+    private InputStream open() throws IOException {
+        if (connections < 2 || !HTTP_SCHEMES.contains(url.getProtocol())) {
+            return url.openStream();
+        }
+        return RangedUrlInput.open(uri, connections, segmentSize);
     }
 }
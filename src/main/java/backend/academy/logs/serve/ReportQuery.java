@@ -0,0 +1,88 @@
+package backend.academy.logs.serve;
+
+import backend.academy.logs.filter.LogFilter;
+import backend.academy.logs.filter.LogFilterDate;
+import backend.academy.logs.filter.LogFilterField;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Filters of a report request, the same as the filter options of the analyzer.
+ *
+ * @param from           time logs are reported after
+ * @param to             time logs are reported before
+ * @param filterFields   fields to filter, paired with the patterns in their order
+ * @param filterPatterns patterns the fields must match
+ */
+public record ReportQuery(
+    Optional<OffsetDateTime> from,
+    Optional<OffsetDateTime> to,
+    List<String> filterFields,
+    List<String> filterPatterns
+) {
+    public static final String FROM = "from";
+    public static final String TO = "to";
+    public static final String FILTER_FIELD = "filter-field";
+    public static final String FILTER_PATTERN = "filter-pattern";
+    public static final ReportQuery ALL = new ReportQuery(Optional.empty(), Optional.empty(), List.of(), List.of());
+
+    public ReportQuery {
+        filterFields = List.copyOf(filterFields);
+        filterPatterns = List.copyOf(filterPatterns);
+        if (filterFields.size() != filterPatterns.size()) {
+            throw new IllegalArgumentException("fields and patterns to filter should have the same length");
+        }
+    }
+
+    /**
+     * Reads the query from the request parameters named as the long options of the analyzer,
+     * other parameters are ignored.
+     *
+     * @param parameters values of the parameters by their names in the order of the request
+     * @throws IllegalArgumentException if a time is given twice or isn't in ISO8601 format
+     */
+    public static ReportQuery parse(Map<String, List<String>> parameters) {
+        return new ReportQuery(
+            time(parameters, FROM),
+            time(parameters, TO),
+            parameters.getOrDefault(FILTER_FIELD, List.of()),
+            parameters.getOrDefault(FILTER_PATTERN, List.of())
+        );
+    }
+
+    private static Optional<OffsetDateTime> time(Map<String, List<String>> parameters, String name) {
+        List<String> values = parameters.getOrDefault(name, List.of());
+        if (values.size() > 1) {
+            throw new IllegalArgumentException(name + " should be given once");
+        }
+        try {
+            return values.stream()
+                .map(value -> DateTimeFormatter.ISO_OFFSET_DATE_TIME.parse(value, OffsetDateTime::from))
+                .findFirst();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid time: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates the filters of the query.
+     *
+     * @throws backend.academy.logs.exceptions.BadFieldException if a field is unknown
+     * @throws java.util.regex.PatternSyntaxException            if a pattern is invalid
+     */
+    public List<LogFilter> filters() {
+        List<LogFilter> filters = new ArrayList<>();
+        if (from.isPresent() || to.isPresent()) {
+            filters.add(LogFilterDate.create(from.orElse(null), to.orElse(null)));
+        }
+        for (int i = 0; i < filterFields.size(); i++) {
+            filters.add(LogFilterField.create(filterFields.get(i), filterPatterns.get(i)));
+        }
+        return filters;
+    }
+}
@@ -0,0 +1,18 @@
+package backend.academy.logs.serve;
+
+import backend.academy.logs.analyzer.AnalysisResult;
+import backend.academy.logs.filter.LogFilter;
+import java.util.List;
+
+@FunctionalInterface
+public interface ReportRenderer {
+    /**
+     * Renders the report of the analysis.
+     *
+     * @param filters all the filters the logs have passed
+     * @param format  name of the output format
+     * @return the report
+     * @throws IllegalArgumentException if the format is unknown
+     */
+    String render(AnalysisResult analysis, List<LogFilter> filters, String format);
+}
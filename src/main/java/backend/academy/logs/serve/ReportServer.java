@@ -0,0 +1,140 @@
+package backend.academy.logs.serve;
+
+import backend.academy.logs.exceptions.BadFieldException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local HTTP endpoint of the reports of a {@link ReportService}. {@code GET /report} takes the parameters
+ * {@code from}, {@code to}, {@code filter-field}, {@code filter-pattern} and {@code format} named as the options
+ * of the analyzer, e.g. {@code /report?from=2015-05-17T08:00:00Z&filter-field=agent&filter-pattern=curl.*}.
+ * It responds with the rendered report, or with 400 and the reason if the parameters are invalid.
+ * The server listens only on the loopback address, every request is handled by its own virtual thread.
+ */
+public class ReportServer implements Closeable {
+    public static final String PATH = "/report";
+    public static final String FORMAT = "format";
+
+    private static final Set<String> PARAMETERS = Set.of(
+        ReportQuery.FROM, ReportQuery.TO, ReportQuery.FILTER_FIELD, ReportQuery.FILTER_PATTERN, FORMAT
+    );
+    private static final int OK = 200;
+    private static final int BAD_REQUEST = 400;
+    private static final int METHOD_NOT_ALLOWED = 405;
+    private static final int INTERNAL_ERROR = 500;
+
+    private final ReportService service;
+    private final String defaultFormat;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private ReportServer(ReportService service, String defaultFormat, HttpServer server) {
+        this.service = service;
+        this.defaultFormat = defaultFormat;
+        this.server = server;
+    }
+
+    /**
+     * Starts serving the reports.
+     *
+     * @param port          port on the loopback address, 0 for any free port
+     * @param defaultFormat format of the reports of the requests without the format
+     * @return the started server to be closed after usage
+     * @throws IOException if the port can't be bound
+     */
+    public static ReportServer start(ReportService service, int port, String defaultFormat) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        ReportServer reports = new ReportServer(service, defaultFormat, server);
+        server.createContext(PATH, reports::handle);
+        server.setExecutor(reports.executor);
+        server.start();
+        return reports;
+    }
+
+    public URI uri() {
+        InetSocketAddress address = server.getAddress();
+        return URI.create("http://" + address.getHostString() + ":" + address.getPort() + PATH);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Splits the raw query of a request into the decoded values of the parameters.
+     *
+     * @throws IllegalArgumentException if a parameter is unknown or the format is given twice
+     */
+    static Map<String, List<String>> parameters(String rawQuery) {
+        Map<String, List<String>> parameters = new LinkedHashMap<>();
+        if (Objects.isNull(rawQuery) || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = URLDecoder.decode(
+                equals < 0 ? parameter : parameter.substring(0, equals), StandardCharsets.UTF_8
+            );
+            if (!PARAMETERS.contains(name)) {
+                throw new IllegalArgumentException("Unknown parameter " + name + ", expected one of " + PARAMETERS);
+            }
+            String value = equals < 0 ? "" : URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8);
+            parameters.computeIfAbsent(name, key -> new ArrayList<>()).add(value);
+        }
+        if (parameters.getOrDefault(FORMAT, List.of()).size() > 1) {
+            throw new IllegalArgumentException(FORMAT + " should be given once");
+        }
+        return parameters;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            int status = OK;
+            String body;
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                status = METHOD_NOT_ALLOWED;
+                body = "Only GET requests are served";
+            } else {
+                try {
+                    Map<String, List<String>> parameters = parameters(exchange.getRequestURI().getRawQuery());
+                    String format = parameters.getOrDefault(FORMAT, List.of(defaultFormat)).getFirst();
+                    body = service.report(ReportQuery.parse(parameters), format);
+                } catch (IllegalArgumentException | BadFieldException e) {
+                    status = BAD_REQUEST;
+                    body = "Bad report request: " + e.getMessage();
+                } catch (UncheckedIOException e) {
+                    status = INTERNAL_ERROR;
+                    body = "Can't read provided source: " + e.getMessage();
+                } catch (RuntimeException e) {
+                    status = INTERNAL_ERROR;
+                    body = "Can't make the report: " + e;
+                }
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(bytes);
+            }
+        }
+    }
+}
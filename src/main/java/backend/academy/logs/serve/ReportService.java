@@ -0,0 +1,183 @@
+package backend.academy.logs.serve;
+
+import backend.academy.logs.analyzer.AnalysisResult;
+import backend.academy.logs.analyzer.FollowingAnalysis;
+import backend.academy.logs.analyzer.LogAnalyzer;
+import backend.academy.logs.filter.LogFilter;
+import backend.academy.logs.provider.FileFollower;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Keeps the analysis of the sources in memory and answers report queries from it. The sources are ingested once
+ * with the configured filters and a query adds its own filters to them. A query without filters is answered
+ * from the ingested result, other queries analyze the sources again with their filters and their results are
+ * kept for the most recent queries, so a repeated query costs only rendering its report, and a report already
+ * rendered in the format is returned as it is. In the follow mode the ingested result is updated with the lines
+ * appended to the followed files, and the results of the other queries are dropped whenever lines are appended.
+ * Thread-safe, the queries which aren't kept are analyzed in parallel.
+ */
+public class ReportService {
+    public static final int DEFAULT_CACHED_QUERIES = 64;
+
+    private final LogAnalyzer analyzer;
+    private final List<LogFilter> filters;
+    private final Function<LogAnalyzer, AnalysisResult> analysis;
+    private final ReportRenderer renderer;
+    private final Map<ReportQuery, CachedResult> queries;
+    private CachedResult ingested;
+    private FollowingAnalysis following;
+    private long generation;
+
+    private ReportService(
+        LogAnalyzer analyzer,
+        List<LogFilter> filters,
+        Function<LogAnalyzer, AnalysisResult> analysis,
+        ReportRenderer renderer,
+        int cachedQueries
+    ) {
+        this.analyzer = analyzer;
+        this.filters = filters;
+        this.analysis = analysis;
+        this.renderer = renderer;
+        this.queries = new LinkedHashMap<>(cachedQueries, 1, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ReportQuery, CachedResult> eldest) {
+                return size() > cachedQueries;
+            }
+        };
+    }
+
+    /**
+     * Creates the service, nothing is analyzed until the sources are ingested or polled.
+     *
+     * @param analyzer      analyzer of the sources with the configured filters
+     * @param filters       the configured filters, queries add their filters to them
+     * @param analysis      analysis of the sources by the analyzer, it is given the analyzer with the filters
+     *                      of a query
+     * @param renderer      renderer of the reports
+     * @param cachedQueries number of the most recent queries whose results are kept
+     * @return the service
+     */
+    public static ReportService create(
+        LogAnalyzer analyzer,
+        List<LogFilter> filters,
+        Function<LogAnalyzer, AnalysisResult> analysis,
+        ReportRenderer renderer,
+        int cachedQueries
+    ) {
+        if (cachedQueries < 1) {
+            throw new IllegalArgumentException("Number of cached queries must be positive, got " + cachedQueries);
+        }
+        return new ReportService(analyzer, List.copyOf(filters), analysis, renderer, cachedQueries);
+    }
+
+    /**
+     * Analyzes the sources with the configured filters, the result answers the queries without filters.
+     *
+     * @throws java.io.UncheckedIOException if the sources can't be read
+     */
+    public void ingest() {
+        AnalysisResult result = analysis.apply(analyzer);
+        synchronized (this) {
+            ingested = new CachedResult(result);
+            queries.clear();
+            generation++;
+        }
+    }
+
+    /**
+     * Reads the lines appended to the followed files into the ingested result,
+     * the first poll reads the files from the start.
+     *
+     * @throws IOException if the files can't be read
+     */
+    public void poll(FileFollower follower) throws IOException {
+        follower.poll(this::append);
+    }
+
+    /**
+     * Polls the followed files every interval until the thread is interrupted.
+     *
+     * @throws IOException          if the files can't be read
+     * @throws InterruptedException when the thread is interrupted
+     */
+    public void follow(FileFollower follower, Duration interval) throws IOException, InterruptedException {
+        while (true) {
+            long start = System.nanoTime();
+            poll(follower);
+            long elapsed = System.nanoTime() - start;
+            Thread.sleep(Duration.ofNanos(Math.max(0, interval.toNanos() - elapsed)));
+        }
+    }
+
+    /**
+     * Gets the report of the logs passing the configured filters and the filters of the query.
+     *
+     * @param format name of the output format
+     * @return the rendered report
+     * @throws IllegalArgumentException if a filter or the format is invalid
+     * @throws java.io.UncheckedIOException if the sources can't be read
+     */
+    public String report(ReportQuery query, String format) {
+        List<LogFilter> queryFilters = new ArrayList<>(filters);
+        queryFilters.addAll(query.filters());
+        long analyzedGeneration;
+        synchronized (this) {
+            // nothing is ingested in the follow mode until the first lines, so the query is kept as the others
+            CachedResult cached = ReportQuery.ALL.equals(query) && Objects.nonNull(ingested)
+                ? ingested
+                : queries.get(query);
+            if (Objects.nonNull(cached)) {
+                return cached.report(queryFilters, format);
+            }
+            analyzedGeneration = generation;
+        }
+        CachedResult result = new CachedResult(analysis.apply(analyzer.withFilters(queryFilters)));
+        synchronized (this) {
+            if (analyzedGeneration == generation) {
+                queries.put(query, result);
+            }
+            return result.report(queryFilters, format);
+        }
+    }
+
+    private synchronized void append(long readId, String fileName, List<String> lines) {
+        if (Objects.isNull(following)) {
+            following = analyzer.follow();
+        }
+        following.append(readId, fileName, lines);
+        // the collector of the following analysis is live, so its reports are rendered again
+        ingested = new CachedResult(following.result());
+        queries.clear();
+        generation++;
+    }
+
+    /**
+     * Result of a query with its reports by their formats, guarded by the service.
+     */
+    private final class CachedResult {
+        private final AnalysisResult result;
+        private final Map<String, String> reports = new HashMap<>();
+
+        private CachedResult(AnalysisResult result) {
+            this.result = result;
+        }
+
+        private String report(List<LogFilter> queryFilters, String format) {
+            String report = reports.get(format);
+            if (Objects.isNull(report)) {
+                report = renderer.render(result, queryFilters, format);
+                reports.put(format, report);
+            }
+            return report;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package backend.academy.logs.state;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Directory keeping a {@link FileCheckpoint} per analyzed file, so the next analysis reads only the appended bytes.
+ * Checkpoints of another configuration, of files which have been replaced or truncated since,
+ * and unreadable ones (e.g. written by another version) are ignored, so such files are analyzed from the start.
+ */
+public class CheckpointStore {
+    private static final String EXTENSION = ".checkpoint";
+    /**
+     * Only the statistics and the classes of the standard library they consist of are deserialized.
+     */
+    private static final String CLASSES = "backend.academy.logs.**;it.unimi.dsi.fastutil.**;java.base/*;!*";
+
+    private final SidecarStore<FileCheckpoint> checkpoints;
+    private final String configuration;
+
+    private CheckpointStore(SidecarStore<FileCheckpoint> checkpoints, String configuration) {
+        this.checkpoints = checkpoints;
+        this.configuration = configuration;
+    }
+
+    /**
+     * Creates the store in the directory, the directory is created if it doesn't exist.
+     *
+     * @param configuration description of the analysis options the statistics depend on,
+     *                      checkpoints of other configurations are ignored
+     * @return the store
+     * @throws IOException if the directory can't be created
+     */
+    public static CheckpointStore create(String dir, String configuration) throws IOException {
+        return new CheckpointStore(
+            SidecarStore.create(dir, EXTENSION, FileCheckpoint.class, CLASSES), configuration
+        );
+    }
+
+    public String configuration() {
+        return configuration;
+    }
+
+    /**
+     * Loads the checkpoint of the file if it can be continued.
+     *
+     * @return the checkpoint or empty if the file has never been analyzed with this configuration,
+     *     has changed other than by appending or if the checkpoint can't be read
+     * @throws IOException if the file can't be read
+     */
+    public Optional<FileCheckpoint> load(Path file) throws IOException {
+        Optional<FileCheckpoint> checkpoint = checkpoints.load(file);
+        if (checkpoint.isEmpty() || !configuration.equals(checkpoint.orElseThrow().configuration())
+            || !checkpoint.orElseThrow().identity().isPrefixOf(file)) {
+            return Optional.empty();
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Saves the checkpoint of the file replacing the previous one atomically.
+     *
+     * @throws IOException if the checkpoint can't be written
+     */
+    public void save(Path file, FileCheckpoint checkpoint) throws IOException {
+        checkpoints.save(file, checkpoint);
+    }
+}
@@ -0,0 +1,35 @@
+package backend.academy.logs.state;
+
+import backend.academy.logs.parser.MalformedLines;
+import backend.academy.logs.statistic.StatisticCollector;
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Progress of the analysis of a file.
+ *
+ * @param configuration description of the analysis options the statistics depend on
+ * @param identity      identity of the file when it was analyzed
+ * @param offset        number of the bytes analyzed, the incomplete last line is left to the next analysis
+ * @param collector     statistics of the analyzed bytes
+ * @param malformed     malformed lines skipped in the analyzed bytes
+ * @param badLogs       error message of the bad log which stopped the analysis of the file or null
+ */
+public record FileCheckpoint(
+    String configuration,
+    FileIdentity identity,
+    long offset,
+    StatisticCollector collector,
+    MalformedLines malformed,
+    String badLogs
+) implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Whether the rest of the file isn't analyzed because of a bad log or too many malformed lines.
+     */
+    public boolean stopped() {
+        return badLogs != null || malformed.limitExceeded();
+    }
+}
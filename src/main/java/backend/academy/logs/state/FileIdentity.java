@@ -0,0 +1,74 @@
+package backend.academy.logs.state;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * Identity of a log file: the file key (e.g. the device and the inode), the size
+ * and the hash of the first bytes, which tell a rotated or rewritten file from an appended one.
+ *
+ * @param key        file key of the file system or the absolute path if the file system has no file keys
+ * @param size       size of the file in bytes
+ * @param headLength number of the first bytes hashed
+ * @param headHash   CRC32 of the first bytes
+ */
+public record FileIdentity(String key, long size, int headLength, long headHash) implements Serializable {
+    public static final int HEAD_LENGTH = 4096;
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Gets the identity of the file hashing at most {@link #HEAD_LENGTH} first bytes.
+     *
+     * @return the identity
+     * @throws IOException if the file can't be read
+     */
+    public static FileIdentity of(Path file) throws IOException {
+        return of(file, HEAD_LENGTH);
+    }
+
+    /**
+     * Gets the identity of the file.
+     *
+     * @param maxHeadLength maximum number of the first bytes to hash
+     * @return the identity
+     * @throws IOException if the file can't be read
+     */
+    public static FileIdentity of(Path file, int maxHeadLength) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        Object fileKey = attributes.fileKey();
+        byte[] head;
+        try (InputStream input = Files.newInputStream(file)) {
+            head = input.readNBytes(maxHeadLength);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(head);
+        return new FileIdentity(
+            Objects.isNull(fileKey) ? file.toAbsolutePath().toString() : fileKey.toString(),
+            attributes.size(),
+            head.length,
+            crc.getValue()
+        );
+    }
+
+    /**
+     * Checks whether the file is this one with some bytes possibly appended.
+     *
+     * @param file file at the same path now
+     * @return false if the file has been replaced, truncated or rewritten
+     * @throws IOException if the file can't be read
+     */
+    public boolean isPrefixOf(Path file) throws IOException {
+        FileIdentity current = of(file, headLength);
+        return key.equals(current.key) && current.size >= size && current.headHash == headHash
+            && current.headLength == headLength;
+    }
+}
@@ -0,0 +1,106 @@
+package backend.academy.logs.state;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * Directory keeping a serialized object per analyzed file, named after the hash of the absolute path of the file.
+ * An object is replaced atomically, so a reader never sees a partially written one,
+ * and an unreadable object (e.g. written by another version) is treated as missing.
+ *
+ * @param <T> type of the objects
+ */
+public class SidecarStore<T extends Serializable> {
+    private final Path dir;
+    private final String extension;
+    private final Class<T> type;
+    private final ObjectInputFilter filter;
+
+    private SidecarStore(Path dir, String extension, Class<T> type, ObjectInputFilter filter) {
+        this.dir = dir;
+        this.extension = extension;
+        this.type = type;
+        this.filter = filter;
+    }
+
+    /**
+     * Creates the store in the directory, the directory is created if it doesn't exist.
+     *
+     * @param extension extension of the files of the objects
+     * @param type      type of the objects
+     * @param classes   pattern of the classes allowed to be deserialized, see {@link ObjectInputFilter.Config}
+     * @return the store
+     * @throws IOException if the directory can't be created
+     */
+    @SuppressFBWarnings(
+        value = "PATH_TRAVERSAL_IN",
+        justification = "The state can be kept anywhere, so we can't filter the path anyhow"
+    )
+    public static <T extends Serializable> SidecarStore<T> create(
+        String dir, String extension, Class<T> type, String classes
+    ) throws IOException {
+        Path path = Paths.get(dir);
+        Files.createDirectories(path);
+        return new SidecarStore<>(path, extension, type, ObjectInputFilter.Config.createFilter(classes));
+    }
+
+    /**
+     * Loads the object of the file.
+     *
+     * @return the object or empty if there is none or it can't be read
+     */
+    @SuppressFBWarnings(
+        value = "OBJECT_DESERIALIZATION",
+        justification = "The state directory is written by the analyzer, the classes are filtered anyway"
+    )
+    public Optional<T> load(Path file) {
+        Path sidecar = sidecar(file);
+        if (!Files.isRegularFile(sidecar)) {
+            return Optional.empty();
+        }
+        try (InputStream stream = Files.newInputStream(sidecar);
+             ObjectInputStream input = new ObjectInputStream(stream)) {
+            input.setObjectInputFilter(filter);
+            return Optional.of(type.cast(input.readObject()));
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Saves the object of the file replacing the previous one atomically.
+     *
+     * @throws IOException if the object can't be written
+     */
+    public void save(Path file, T value) throws IOException {
+        Path sidecar = sidecar(file);
+        Path temporary = Files.createTempFile(dir, sidecar.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream output = Files.newOutputStream(temporary);
+                 ObjectOutputStream objects = new ObjectOutputStream(output)) {
+                objects.writeObject(value);
+            }
+            Files.move(temporary, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private Path sidecar(Path file) {
+        String absolutePath = file.toAbsolutePath().normalize().toString();
+        return dir.resolve(DigestUtils.sha256Hex(absolutePath.getBytes(StandardCharsets.UTF_8)) + extension);
+    }
+}
@@ -0,0 +1,124 @@
+package backend.academy.logs.statistic;
+
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongMaps;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Counts long keys which are mostly close to each other, like status codes or epoch days.
+ * The counts are kept in an array indexed by the key offset, the array grows to cover new keys
+ * while its span is at most {@code maxSpan}, rarer keys out of it are counted in a hash map.
+ */
+public class DenseCounter implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final int maxSpan;
+    private long base = 0;
+    private long[] counts = new long[0];
+    private final Long2LongOpenHashMap outliers = new Long2LongOpenHashMap();
+
+    /**
+     * Creates an empty counter.
+     *
+     * @param maxSpan maximum number of consecutive keys counted in the array
+     */
+    public DenseCounter(int maxSpan) {
+        if (maxSpan < 1) {
+            throw new IllegalArgumentException("Span must be positive, got " + maxSpan);
+        }
+        this.maxSpan = maxSpan;
+    }
+
+    public void increment(long key) {
+        add(key, 1);
+    }
+
+    public void add(long key, long count) {
+        long index = key - base;
+        if (index >= 0 && index < counts.length) {
+            counts[(int) index] += count;
+        } else if (growTo(key)) {
+            counts[(int) (key - base)] += count;
+        } else {
+            outliers.addTo(key, count);
+        }
+    }
+
+    /**
+     * Adds all the counts of another counter to this one.
+     *
+     * @param other counter to take counts from, it's left unchanged
+     */
+    public void merge(DenseCounter other) {
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0) {
+                add(other.base + i, other.counts[i]);
+            }
+        }
+        for (Long2LongMap.Entry entry : Long2LongMaps.fastIterable(other.outliers)) {
+            add(entry.getLongKey(), entry.getLongValue());
+        }
+    }
+
+    public long get(long key) {
+        long index = key - base;
+        return index >= 0 && index < counts.length ? counts[(int) index] : outliers.get(key);
+    }
+
+    /**
+     * Calls the action for every key with a non-zero count in no particular order.
+     */
+    public void forEach(EntryConsumer action) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                action.accept(base + i, counts[i]);
+            }
+        }
+        for (Long2LongMap.Entry entry : Long2LongMaps.fastIterable(outliers)) {
+            if (entry.getLongValue() != 0) {
+                action.accept(entry.getLongKey(), entry.getLongValue());
+            }
+        }
+    }
+
+    /**
+     * Grows the array to cover the key if the span allows it.
+     * The array at least doubles, so adding increasing or decreasing keys takes amortized constant time.
+     *
+     * @return whether the key is covered by the array now
+     */
+    private boolean growTo(long key) {
+        long low = counts.length == 0 ? key : Math.min(base, key);
+        long high = counts.length == 0 ? key : Math.max(base + counts.length - 1, key);
+        if (high - low >= maxSpan || high - low < 0) {
+            return false;
+        }
+
+        int length = (int) Math.min(maxSpan, Math.max(high - low + 1, 2L * counts.length));
+        long newBase = key < base ? high - length + 1 : low;
+        long[] newCounts = new long[length];
+        if (counts.length > 0) {
+            System.arraycopy(counts, 0, newCounts, (int) (base - newBase), counts.length);
+        }
+        base = newBase;
+        counts = newCounts;
+
+        outliers.long2LongEntrySet().removeIf(entry -> {
+            long index = entry.getLongKey() - newBase;
+            if (index >= 0 && index < newCounts.length) {
+                newCounts[(int) index] += entry.getLongValue();
+                return true;
+            }
+            return false;
+        });
+        return true;
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long count);
+    }
+}
@@ -0,0 +1,48 @@
+package backend.academy.logs.statistic;
+
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMaps;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts every distinct key, so the memory grows with the number of distinct keys.
+ */
+public class ExactKeyCounter implements KeyCounter {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Object2LongOpenHashMap<String> counts = new Object2LongOpenHashMap<>();
+
+    @Override
+    public void increment(String key) {
+        counts.addTo(key, 1);
+    }
+
+    @Override
+    public void merge(KeyCounter other) {
+        if (!(other instanceof ExactKeyCounter exact)) {
+            throw new IllegalArgumentException("Can't merge exact counts with " + other.getClass().getSimpleName());
+        }
+        for (Object2LongMap.Entry<String> entry : Object2LongMaps.fastIterable(exact.counts)) {
+            counts.addTo(entry.getKey(), entry.getLongValue());
+        }
+    }
+
+    @Override
+    public List<KeyCount> top() {
+        List<KeyCount> top = new ArrayList<>(counts.size());
+        for (Object2LongMap.Entry<String> entry : Object2LongMaps.fastIterable(counts)) {
+            top.add(new KeyCount(entry.getKey(), entry.getLongValue(), 0));
+        }
+        top.sort(LARGEST_FIRST);
+        return top;
+    }
+
+    @Override
+    public boolean isExact() {
+        return true;
+    }
+}
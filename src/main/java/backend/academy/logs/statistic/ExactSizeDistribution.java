@@ -0,0 +1,65 @@
+package backend.academy.logs.statistic;
+
+import java.io.Serial;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Keeps every size, so the percentiles are exact, but the memory grows with the number of logs.
+ */
+public class ExactSizeDistribution implements SizeDistribution {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] sizes = new int[INITIAL_CAPACITY];
+    private int count = 0;
+    private boolean sorted = true;
+
+    @Override
+    public void add(int size) {
+        ensureCapacity(count + 1);
+        sizes[count++] = size;
+        sorted = false;
+    }
+
+    @Override
+    public void merge(SizeDistribution other) {
+        if (!(other instanceof ExactSizeDistribution exact)) {
+            throw new IllegalArgumentException("Can't merge exact sizes with " + other.getClass().getSimpleName());
+        }
+        ensureCapacity(count + exact.count);
+        System.arraycopy(exact.sizes, 0, sizes, count, exact.count);
+        count += exact.count;
+        sorted = false;
+    }
+
+    @Override
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public Optional<Integer> percentile(double percentile) {
+        long rank = Percentiles.rank(count, percentile);
+        if (count == 0) {
+            return Optional.empty();
+        }
+        if (!sorted) {
+            Arrays.sort(sizes, 0, count);
+            sorted = true;
+        }
+        return Optional.of(sizes[(int) rank]);
+    }
+
+    @Override
+    public double relativeError() {
+        return 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > sizes.length) {
+            sizes = Arrays.copyOf(sizes, Math.max(capacity, sizes.length + (sizes.length >> 1)));
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package backend.academy.logs.statistic;
+
+/**
+ * Estimated number of occurrences of the key.
+ * The true count is between {@code count - error} and {@code count}, the error is 0 for exact counts.
+ */
+public record KeyCount(String key, long count, long error) {
+}
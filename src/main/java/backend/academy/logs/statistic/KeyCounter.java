@@ -0,0 +1,39 @@
+package backend.academy.logs.statistic;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Counts occurrences of string keys like requested resources.
+ * Counters of the same kind can be merged, so the logs can be collected in parallel.
+ */
+public interface KeyCounter extends Serializable {
+    /**
+     * Orders the counts from the largest one, ties are ordered by the key to make reports reproducible.
+     */
+    Comparator<KeyCount> LARGEST_FIRST = Comparator.comparingLong(KeyCount::count).reversed()
+        .thenComparing(KeyCount::key);
+
+    void increment(String key);
+
+    /**
+     * Adds all the counts of another counter of the same kind to this one.
+     *
+     * @param other counter to take counts from, it's left unchanged
+     * @throws IllegalArgumentException if the other counter is of another kind or size
+     */
+    void merge(KeyCounter other);
+
+    /**
+     * Gets the counts ordered by {@link #LARGEST_FIRST}.
+     *
+     * @return all the counts if they are exact or the largest ones otherwise
+     */
+    List<KeyCount> top();
+
+    /**
+     * Whether all the keys are counted exactly.
+     */
+    boolean isExact();
+}
@@ -0,0 +1,117 @@
+package backend.academy.logs.statistic;
+
+import java.io.Serial;
+import java.util.Optional;
+
+/**
+ * Sketch of the sizes in fixed memory in the manner of HDR histograms.
+ * Sizes below {@code 2^precision} are counted exactly, larger sizes fall into log-linear buckets:
+ * every range {@code [2^k, 2^(k+1))} is split into {@code 2^precision} equal buckets.
+ * The percentile is reported as the middle of its bucket (but not more than the maximum size),
+ * so its relative error is at most {@code 2^-(precision+1)}, e.g. 0.39% for the default precision 7.
+ * The sketch takes {@code (32 - precision) * 2^precision} counters whatever the number of sizes is.
+ */
+public class LogLinearSizeDistribution implements SizeDistribution {
+    public static final int DEFAULT_PRECISION = 7;
+    public static final int MAX_PRECISION = 16;
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final int precision;
+    private final int subBuckets;
+    private final long[] counts;
+    private long count = 0;
+    private int max = 0;
+
+    public LogLinearSizeDistribution() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param precision binary logarithm of the number of buckets every power of two range is split into
+     */
+    public LogLinearSizeDistribution(int precision) {
+        if (precision < 1 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(
+                "Precision must be between 1 and " + MAX_PRECISION + ", got " + precision
+            );
+        }
+        this.precision = precision;
+        this.subBuckets = 1 << precision;
+        this.counts = new long[(Integer.SIZE - precision) * subBuckets];
+    }
+
+    @Override
+    public void add(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size can't be negative, got " + size);
+        }
+        counts[bucketOf(size)]++;
+        count++;
+        max = Math.max(max, size);
+    }
+
+    @Override
+    public void merge(SizeDistribution other) {
+        if (!(other instanceof LogLinearSizeDistribution sketch) || sketch.precision != precision) {
+            throw new IllegalArgumentException("Can't merge sketches of different kinds or precisions");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += sketch.counts[i];
+        }
+        count += sketch.count;
+        max = Math.max(max, sketch.max);
+    }
+
+    @Override
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public Optional<Integer> percentile(double percentile) {
+        long rank = Percentiles.rank(count, percentile);
+        if (count == 0) {
+            return Optional.empty();
+        }
+        long seen = 0;
+        int bucket = 0;
+        while (seen + counts[bucket] <= rank) {
+            seen += counts[bucket];
+            bucket++;
+        }
+        long lowest = lowestOf(bucket);
+        long middle = lowest + (highestOf(bucket) - lowest) / 2;
+        return Optional.of((int) Math.min(middle, max));
+    }
+
+    @Override
+    public double relativeError() {
+        return 1.0 / (subBuckets * 2);
+    }
+
+    private int bucketOf(int size) {
+        if (size < subBuckets) {
+            return size;
+        }
+        int shift = Integer.SIZE - Integer.numberOfLeadingZeros(size) - 1 - precision;
+        return (shift + 1) * subBuckets + (size >>> shift) - subBuckets;
+    }
+
+    private long lowestOf(int bucket) {
+        if (bucket < subBuckets) {
+            return bucket;
+        }
+        int shift = bucket / subBuckets - 1;
+        return (long) (subBuckets + bucket % subBuckets) << shift;
+    }
+
+    private long highestOf(int bucket) {
+        if (bucket < subBuckets) {
+            return bucket;
+        }
+        return lowestOf(bucket) + (1L << (bucket / subBuckets - 1)) - 1;
+    }
+}
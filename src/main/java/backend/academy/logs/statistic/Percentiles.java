@@ -0,0 +1,26 @@
+package backend.academy.logs.statistic;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+class Percentiles {
+    private static final int MAX_PERCENTILE = 100;
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(MAX_PERCENTILE);
+
+    /**
+     * Finds the 0-based position of the percentile in the sorted sizes.
+     * The position is computed in decimals, so percentiles like 99.9 are not affected by binary rounding.
+     */
+    static long rank(long count, double percentile) {
+        if (!(percentile >= 0 && percentile <= MAX_PERCENTILE)) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+        long position = BigDecimal.valueOf(count)
+            .multiply(BigDecimal.valueOf(percentile))
+            .divide(HUNDRED, 0, RoundingMode.CEILING)
+            .longValueExact();
+        return Math.max(0, position - 1);
+    }
+}
@@ -0,0 +1,36 @@
+package backend.academy.logs.statistic;
+
+import java.io.Serializable;
+import java.util.Optional;
+
+/**
+ * Distribution of response sizes which can answer percentile queries.
+ * Distributions of the same kind can be merged, so the logs can be collected in parallel.
+ */
+public interface SizeDistribution extends Serializable {
+    void add(int size);
+
+    /**
+     * Adds all the sizes of another distribution of the same kind to this one.
+     *
+     * @param other distribution to take sizes from, it's left unchanged
+     * @throws IllegalArgumentException if the other distribution is of another kind or precision
+     */
+    void merge(SizeDistribution other);
+
+    long count();
+
+    /**
+     * Finds the size at the percentile: the smallest size which is greater than or equal to
+     * the given percentage of all sizes.
+     *
+     * @param percentile percentage between 0 and 100, fractions like 99.9 are allowed
+     * @return the size or empty if there are no sizes
+     */
+    Optional<Integer> percentile(double percentile);
+
+    /**
+     * Maximum relative error of the percentiles, 0 if they are exact.
+     */
+    double relativeError();
+}
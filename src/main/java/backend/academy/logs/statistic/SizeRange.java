@@ -0,0 +1,7 @@
+package backend.academy.logs.statistic;
+
+/**
+ * Number of responses with the size between {@code from} and {@code to} inclusive.
+ */
+public record SizeRange(int from, int to, long count) {
+}
@@ -0,0 +1,190 @@
+package backend.academy.logs.statistic;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Approximate counter of the most frequent keys in fixed memory by the Space-Saving algorithm.
+ * At most {@code capacity} keys are monitored. A new key replaces the monitored key with the smallest count
+ * and inherits its count as the error, so every count is overestimated by at most its error,
+ * which is at most {@code N / capacity} for N increments. Every key occurring more than {@code N / capacity}
+ * times is monitored. Counters are merged as mergeable summaries: a key missing in a full counter
+ * is assumed to have its smallest count, which keeps the bounds valid.
+ */
+public class SpaceSavingKeyCounter implements KeyCounter {
+    public static final int DEFAULT_CAPACITY_FACTOR = 10;
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final int limit;
+    private final int capacity;
+    private final Object2IntOpenHashMap<String> slots;
+    private final String[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    /**
+     * Min-heap of the slots by their counts.
+     */
+    private final int[] heap;
+    private final int[] heapPositions;
+    private int size = 0;
+
+    /**
+     * Creates the counter monitoring {@link #DEFAULT_CAPACITY_FACTOR} times more keys than reported.
+     *
+     * @param limit number of the most frequent keys to report
+     */
+    public SpaceSavingKeyCounter(int limit) {
+        this(limit, (int) Math.min(Integer.MAX_VALUE, (long) limit * DEFAULT_CAPACITY_FACTOR));
+    }
+
+    /**
+     * Creates the counter.
+     *
+     * @param limit    number of the most frequent keys to report
+     * @param capacity number of monitored keys, the more keys the smaller the errors are
+     */
+    public SpaceSavingKeyCounter(int limit, int capacity) {
+        if (limit < 1 || capacity < limit) {
+            throw new IllegalArgumentException(
+                "Capacity must be at least the limit and the limit must be positive, got " + capacity + " and " + limit
+            );
+        }
+        this.limit = limit;
+        this.capacity = capacity;
+        this.slots = new Object2IntOpenHashMap<>();
+        this.slots.defaultReturnValue(-1);
+        this.keys = new String[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.heap = new int[capacity];
+        this.heapPositions = new int[capacity];
+    }
+
+    @Override
+    public void increment(String key) {
+        int slot = slots.getInt(key);
+        if (slot >= 0) {
+            counts[slot]++;
+            siftDown(heapPositions[slot]);
+        } else if (size < capacity) {
+            insert(key, 1, 0);
+        } else {
+            slot = heap[0];
+            slots.removeInt(keys[slot]);
+            slots.put(key, slot);
+            keys[slot] = key;
+            errors[slot] = counts[slot];
+            counts[slot]++;
+            siftDown(0);
+        }
+    }
+
+    @Override
+    public void merge(KeyCounter other) {
+        if (!(other instanceof SpaceSavingKeyCounter sketch) || sketch.capacity != capacity) {
+            throw new IllegalArgumentException("Can't merge counters of different kinds or capacities");
+        }
+        long missingCount = smallestCount();
+        long otherMissingCount = sketch.smallestCount();
+
+        List<KeyCount> merged = new ArrayList<>(size + sketch.size);
+        for (int slot = 0; slot < size; slot++) {
+            int otherSlot = sketch.slots.getInt(keys[slot]);
+            long otherCount = otherSlot >= 0 ? sketch.counts[otherSlot] : otherMissingCount;
+            long otherError = otherSlot >= 0 ? sketch.errors[otherSlot] : otherMissingCount;
+            merged.add(new KeyCount(keys[slot], counts[slot] + otherCount, errors[slot] + otherError));
+        }
+        for (int otherSlot = 0; otherSlot < sketch.size; otherSlot++) {
+            String key = sketch.keys[otherSlot];
+            if (!slots.containsKey(key)) {
+                merged.add(new KeyCount(
+                    key, sketch.counts[otherSlot] + missingCount, sketch.errors[otherSlot] + missingCount
+                ));
+            }
+        }
+        merged.sort(LARGEST_FIRST);
+
+        slots.clear();
+        size = 0;
+        for (int i = Math.min(merged.size(), capacity) - 1; i >= 0; i--) {
+            KeyCount count = merged.get(i);
+            insert(count.key(), count.count(), count.error());
+        }
+    }
+
+    @Override
+    public List<KeyCount> top() {
+        List<KeyCount> top = new ArrayList<>(size);
+        for (int slot = 0; slot < size; slot++) {
+            top.add(new KeyCount(keys[slot], counts[slot], errors[slot]));
+        }
+        top.sort(LARGEST_FIRST);
+        return top.size() > limit ? top.subList(0, limit) : top;
+    }
+
+    @Override
+    public boolean isExact() {
+        return false;
+    }
+
+    /**
+     * Upper bound of the count of any key which isn't monitored.
+     */
+    private long smallestCount() {
+        return size < capacity ? 0 : counts[heap[0]];
+    }
+
+    private void insert(String key, long count, long error) {
+        int slot = size++;
+        slots.put(key, slot);
+        keys[slot] = key;
+        counts[slot] = count;
+        errors[slot] = error;
+        heap[slot] = slot;
+        heapPositions[slot] = slot;
+        siftUp(slot);
+    }
+
+    private void siftUp(int position) {
+        int current = position;
+        while (current > 0) {
+            int parent = (current - 1) / 2;
+            if (counts[heap[parent]] <= counts[heap[current]]) {
+                return;
+            }
+            swap(current, parent);
+            current = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        int current = position;
+        while (true) {
+            int smallest = current;
+            int left = 2 * current + 1;
+            int right = left + 1;
+            if (left < size && counts[heap[left]] < counts[heap[smallest]]) {
+                smallest = left;
+            }
+            if (right < size && counts[heap[right]] < counts[heap[smallest]]) {
+                smallest = right;
+            }
+            if (smallest == current) {
+                return;
+            }
+            swap(current, smallest);
+            current = smallest;
+        }
+    }
+
+    private void swap(int first, int second) {
+        int slot = heap[first];
+        heap[first] = heap[second];
+        heap[second] = slot;
+        heapPositions[heap[first]] = first;
+        heapPositions[heap[second]] = second;
+    }
+}
@@ -1,66 +1,276 @@
 package backend.academy.logs.statistic;
 
+import backend.academy.logs.parser.LogField;
 import backend.academy.logs.parser.LogRecord;
+import it.unimi.dsi.fastutil.ints.Int2LongMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMaps;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import java.io.Serial;
+import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import lombok.Getter;
 
-public class StatisticCollector {
+public class StatisticCollector implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Days are counted in an array while they fit in about 180 years.
+     */
+    private static final int MAX_DAYS_SPAN = 65_536;
+    /**
+     * Status codes are counted in an array while they fit in a range of 1000 codes, e.g. 0-999.
+     */
+    private static final int MAX_STATUS_SPAN = 1000;
+    private static final Set<LogField> REQUIRED_FIELDS = Collections.unmodifiableSet(EnumSet.of(
+        LogField.TIME, LogField.METHOD, LogField.RESOURCE, LogField.STATUS, LogField.BYTES_SENT
+    ));
+
     @Getter
     private long totalResponseSize = 0;
     @Getter
     private long maxRequestsSize = 0;
 
-    private final List<Integer> bytesSent = new ArrayList<>();
+    private final SizeDistribution bytesSent;
+    /**
+     * Counts of sizes by their bit length: 0, 1, 2-3, 4-7 and so on.
+     */
+    private final long[] sizeHistogram = new long[Integer.SIZE];
 
-    @Getter
-    private final Map<LocalDate, Integer> requestsPerDay = new HashMap<>();
-    @Getter
-    private final Map<String, Integer> resourcesCount = new HashMap<>();
-    @Getter
-    private final Map<Integer, Integer> statusCount = new HashMap<>();
-    @Getter
-    private final Map<String, Integer> methodsCount = new HashMap<>();
+    private final DenseCounter requestsPerDay = new DenseCounter(MAX_DAYS_SPAN);
+    private final KeyCounter resourcesCount;
+    private final DenseCounter statusCount = new DenseCounter(MAX_STATUS_SPAN);
+    private final Object2LongOpenHashMap<String> methodsCount = new Object2LongOpenHashMap<>();
+    private final TimeSeries timeSeries;
+
+    /**
+     * Creates the collector which keeps all the response sizes to compute exact percentiles.
+     */
+    public StatisticCollector() {
+        this(new ExactSizeDistribution());
+    }
+
+    /**
+     * Creates the collector which counts every resource exactly.
+     *
+     * @param bytesSent empty distribution to collect response sizes to, e.g. a fixed-memory sketch for large inputs
+     */
+    public StatisticCollector(SizeDistribution bytesSent) {
+        this(bytesSent, new ExactKeyCounter());
+    }
+
+    /**
+     * Creates the collector.
+     *
+     * @param bytesSent      empty distribution to collect response sizes to
+     * @param resourcesCount empty counter of resources, e.g. a fixed-memory top-K counter for many distinct resources
+     */
+    public StatisticCollector(SizeDistribution bytesSent, KeyCounter resourcesCount) {
+        this(bytesSent, resourcesCount, Optional.empty());
+    }
+
+    /**
+     * Creates the collector.
+     *
+     * @param seriesResolution resolution of the time series to collect, it isn't collected if empty
+     * @see #StatisticCollector(SizeDistribution, KeyCounter)
+     */
+    public StatisticCollector(
+        SizeDistribution bytesSent,
+        KeyCounter resourcesCount,
+        Optional<TimeResolution> seriesResolution
+    ) {
+        this.bytesSent = bytesSent;
+        this.resourcesCount = resourcesCount;
+        this.timeSeries = seriesResolution.map(TimeSeries::new).orElse(null);
+    }
+
+    /**
+     * Fields of the logs read by {@link #addLog(LogRecord)}, the parser may skip the others.
+     */
+    public Set<LogField> requiredFields() {
+        return REQUIRED_FIELDS;
+    }
 
     public void addLog(LogRecord log) {
         totalResponseSize += log.bytesSent();
         bytesSent.add(log.bytesSent());
+        sizeHistogram[sizeClass(log.bytesSent())]++;
         maxRequestsSize = Math.max(maxRequestsSize, log.bytesSent());
 
-        addToCount(resourcesCount, log.resource());
-        addToCount(statusCount, log.status());
-        addToCount(requestsPerDay, log.timeLocal().toLocalDate());
-        addToCount(methodsCount, log.method());
+        resourcesCount.increment(log.resource());
+        statusCount.increment(log.status());
+        requestsPerDay.increment(log.timeLocal().toLocalDate().toEpochDay());
+        methodsCount.addTo(log.method(), 1);
+        if (Objects.nonNull(timeSeries)) {
+            timeSeries.add(log.timeLocal(), log.status(), log.bytesSent());
+        }
+    }
+
+    /**
+     * Adds all the statistics gathered by another collector to this one.
+     * The result is the same as if all the logs of the other collector were added to this one.
+     * Both collectors must use response size distributions, resource counters and time series of the same kind.
+     *
+     * @param other collector to take statistics from, it's left unchanged
+     */
+    public void merge(StatisticCollector other) {
+        if (Objects.isNull(timeSeries) != Objects.isNull(other.timeSeries)) {
+            throw new IllegalArgumentException("Can't merge collectors with and without time series");
+        }
+        totalResponseSize += other.totalResponseSize;
+        bytesSent.merge(other.bytesSent);
+        for (int i = 0; i < sizeHistogram.length; i++) {
+            sizeHistogram[i] += other.sizeHistogram[i];
+        }
+        maxRequestsSize = Math.max(maxRequestsSize, other.maxRequestsSize);
+
+        resourcesCount.merge(other.resourcesCount);
+        statusCount.merge(other.statusCount);
+        requestsPerDay.merge(other.requestsPerDay);
+        mergeCounts(methodsCount, other.methodsCount);
+        if (Objects.nonNull(timeSeries)) {
+            timeSeries.merge(other.timeSeries);
+        }
+    }
+
+    private static <T> void mergeCounts(Object2LongOpenHashMap<T> countMap, Object2LongMap<T> otherCountMap) {
+        for (Object2LongMap.Entry<T> entry : Object2LongMaps.fastIterable(otherCountMap)) {
+            countMap.addTo(entry.getKey(), entry.getLongValue());
+        }
+    }
+
+    /**
+     * Counts of the requested resources.
+     *
+     * @return all the resources ordered from the most requested one if they are counted exactly,
+     *     or the most requested ones with the bounds of their count errors otherwise
+     */
+    public List<KeyCount> topResources() {
+        return resourcesCount.top();
+    }
+
+    public boolean resourcesCountedExactly() {
+        return resourcesCount.isExact();
+    }
+
+    /**
+     * Counts of requests by the method.
+     *
+     * @return a read-only view of the counts, it's updated by the next logs
+     */
+    public Object2LongMap<String> methodsCount() {
+        return Object2LongMaps.unmodifiable(methodsCount);
+    }
+
+    /**
+     * Calls the action for every status code with a non-zero count in no particular order.
+     */
+    public void forEachStatus(StatusCountConsumer action) {
+        statusCount.forEach((status, count) -> action.accept((int) status, count));
+    }
+
+    /**
+     * Calls the action for every day with a non-zero count in no particular order,
+     * the days are represented by {@link LocalDate#toEpochDay()}.
+     */
+    public void forEachEpochDay(DenseCounter.EntryConsumer action) {
+        requestsPerDay.forEach(action);
+    }
+
+    /**
+     * Counts of requests by the status code.
+     *
+     * @return a new map of the non-zero counts, use {@link #forEachStatus} to only iterate them
+     */
+    public Int2LongMap statusCount() {
+        Int2LongMap counts = new Int2LongOpenHashMap();
+        statusCount.forEach((status, count) -> counts.put((int) status, count));
+        return counts;
     }
 
-    private static <T> void addToCount(Map<T, Integer> countMap, T key) {
-        countMap.compute(key, (k, v) -> v == null ? 1 : v + 1);
+    /**
+     * Counts of requests by the day, the days are represented by {@link LocalDate#toEpochDay()}.
+     *
+     * @return a new map of the non-zero counts, use {@link #forEachEpochDay} to only iterate them
+     */
+    public Long2LongMap requestsPerEpochDay() {
+        Long2LongMap counts = new Long2LongOpenHashMap();
+        requestsPerDay.forEach(counts::put);
+        return counts;
+    }
+
+    /**
+     * Statistics of the logs by time buckets, if the collector was created with their resolution.
+     * The series is the live one, it's updated by the next logs.
+     */
+    public Optional<TimeSeries> timeSeries() {
+        return Optional.ofNullable(timeSeries);
+    }
+
+    /**
+     * Gets the class of the response size by its bit length: 0 for 0, 1 for 1, 2 for 2-3, 3 for 4-7 and so on.
+     */
+    static int sizeClass(int size) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(size);
     }
 
     public long requestsCount() {
-        return bytesSent.size();
+        return bytesSent.count();
     }
 
-    @SuppressWarnings(value = "MagicNumber") // 100 is not a magic number, it is a maximum percentage
-    public Optional<Integer> percentile(int a) {
-        if (a < 0 || a > 100) {
-            throw new IllegalArgumentException("percentile must be between 0 and 100");
-        }
-        if (bytesSent.isEmpty()) {
-            return Optional.empty();
-        }
+    /**
+     * Finds the response size at the percentile.
+     *
+     * @param percentile percentage between 0 and 100, fractions like 99.9 are allowed
+     * @return the size or empty if there are no logs
+     * @see #percentileRelativeError()
+     */
+    public Optional<Integer> percentile(double percentile) {
+        return bytesSent.percentile(percentile);
+    }
+
+    /**
+     * Maximum relative error of {@link #percentile(double)}, 0 if the percentiles are exact.
+     */
+    public double percentileRelativeError() {
+        return bytesSent.relativeError();
+    }
 
-        Collections.sort(bytesSent);
-        int k = Math.max(0, Math.ceilDiv(bytesSent.size() * a, 100) - 1);
-        return Optional.of(bytesSent.get(k));
+    /**
+     * Counts the response sizes in power of two ranges, the counts are exact whatever distribution is used.
+     *
+     * @return the non-empty ranges ordered by size
+     */
+    public List<SizeRange> sizeHistogram() {
+        List<SizeRange> ranges = new ArrayList<>();
+        for (int i = 0; i < sizeHistogram.length; i++) {
+            if (sizeHistogram[i] > 0) {
+                int from = i == 0 ? 0 : 1 << (i - 1);
+                int to = i == 0 ? 0 : (int) ((1L << i) - 1);
+                ranges.add(new SizeRange(from, to, sizeHistogram[i]));
+            }
+        }
+        return ranges;
     }
 
     public double average() {
         return totalResponseSize / (double) requestsCount();
     }
+
+    @FunctionalInterface
+    public interface StatusCountConsumer {
+        void accept(int status, long count);
+    }
 }
@@ -0,0 +1,44 @@
+package backend.academy.logs.statistic;
+
+import java.time.LocalDateTime;
+
+/**
+ * Statistics of the logs of a bucket of a {@link TimeSeries}.
+ *
+ * @param start         start of the bucket in the time of the logs
+ * @param bytes         total response size
+ * @param statusClasses counts of the statuses 1xx to 5xx
+ * @param sizeClasses   counts of the response sizes by their bit length: 0, 1, 2-3, 4-7 and so on,
+ *                      the last class counts all the larger sizes too
+ */
+public record TimeBucket(LocalDateTime start, long requests, long bytes, int[] statusClasses, int[] sizeClasses) {
+    private static final int STATUS_CLASS_SIZE = 100;
+
+    /**
+     * Gets the count of the status class.
+     *
+     * @param status any status of the class, e.g. 500 for 5xx
+     */
+    public long statusClassCount(int status) {
+        int statusClass = status / STATUS_CLASS_SIZE - 1;
+        return statusClass >= 0 && statusClass < statusClasses.length ? statusClasses[statusClass] : 0;
+    }
+
+    /**
+     * Finds the size class of the response size at the percentile.
+     *
+     * @param percentile percentage between 0 and 100, fractions like 99.9 are allowed
+     * @return the range of the sizes of the class with its count, the last class ends with the maximum int
+     */
+    public SizeRange sizePercentile(double percentile) {
+        long rank = Percentiles.rank(requests, percentile);
+        long seen = 0;
+        int sizeClass = 0;
+        while (sizeClass < sizeClasses.length - 1 && seen + sizeClasses[sizeClass] <= rank) {
+            seen += sizeClasses[sizeClass++];
+        }
+        int from = sizeClass == 0 ? 0 : 1 << (sizeClass - 1);
+        int to = sizeClass == sizeClasses.length - 1 ? Integer.MAX_VALUE : (int) ((1L << sizeClass) - 1);
+        return new SizeRange(from, to, sizeClasses[sizeClass]);
+    }
+}
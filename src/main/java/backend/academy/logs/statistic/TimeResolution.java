@@ -0,0 +1,22 @@
+package backend.academy.logs.statistic;
+
+import java.time.Duration;
+
+/**
+ * Length of the buckets of a {@link TimeSeries}, the buckets start at the multiples of it since the epoch.
+ */
+public enum TimeResolution {
+    MINUTE(Duration.ofMinutes(1)),
+    HOUR(Duration.ofHours(1)),
+    DAY(Duration.ofDays(1));
+
+    private final long seconds;
+
+    TimeResolution(Duration length) {
+        this.seconds = length.toSeconds();
+    }
+
+    public long seconds() {
+        return seconds;
+    }
+}
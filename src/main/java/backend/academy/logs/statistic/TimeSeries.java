@@ -0,0 +1,149 @@
+package backend.academy.logs.statistic;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Statistics of the logs by time buckets of a fixed resolution: requests, bytes, counts of the status classes
+ * and a small sketch of the response sizes by their bit length per bucket.
+ * The buckets are kept in pages of {@value #PAGE_BUCKETS} consecutive buckets with a primitive array
+ * per statistic, a page is allocated when a log falls into it for the first time. So a bucket takes 132 bytes
+ * whatever the number of its logs is, e.g. 30 days of minutes take about 6 MB, and a log far from the others
+ * costs only its page. The counts of the statuses and the sizes of a bucket must fit in an int.
+ */
+public class TimeSeries implements Serializable {
+    static final int PAGE_BUCKETS = 1024;
+    /**
+     * Sizes are classified by their bit length up to 2^22 - 1, larger sizes fall into the last class.
+     */
+    static final int SIZE_CLASSES = 24;
+    @Serial
+    private static final long serialVersionUID = 1L;
+    /**
+     * Statuses 1xx to 5xx, other statuses are counted only as requests.
+     */
+    private static final int STATUS_CLASSES = 5;
+    private static final int STATUS_CLASS_SIZE = 100;
+
+    private final TimeResolution resolution;
+    private final Long2ObjectOpenHashMap<Page> pages = new Long2ObjectOpenHashMap<>();
+    /**
+     * The page of the previous log, consecutive logs mostly fall into the same page.
+     */
+    private transient Page lastPage;
+    private transient long lastPageIndex;
+
+    public TimeSeries(TimeResolution resolution) {
+        this.resolution = Objects.requireNonNull(resolution);
+    }
+
+    public TimeResolution resolution() {
+        return resolution;
+    }
+
+    /**
+     * Adds a log to the bucket of its time.
+     *
+     * @param time time of the log in the time zone of the logs
+     */
+    public void add(LocalDateTime time, int status, int bytesSent) {
+        long bucket = Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), resolution.seconds());
+        Page page = page(Math.floorDiv(bucket, PAGE_BUCKETS));
+        int offset = Math.floorMod(bucket, PAGE_BUCKETS);
+        page.requests[offset]++;
+        page.bytes[offset] += bytesSent;
+        int statusClass = status / STATUS_CLASS_SIZE - 1;
+        if (statusClass >= 0 && statusClass < STATUS_CLASSES) {
+            page.statusClasses[offset * STATUS_CLASSES + statusClass]++;
+        }
+        page.sizeClasses[offset * SIZE_CLASSES + Math.min(StatisticCollector.sizeClass(bytesSent), SIZE_CLASSES - 1)]++;
+    }
+
+    /**
+     * Adds all the buckets of another series to this one.
+     *
+     * @param other series of the same resolution, it's left unchanged
+     */
+    public void merge(TimeSeries other) {
+        if (other.resolution != resolution) {
+            throw new IllegalArgumentException(
+                "Can't merge series by " + other.resolution + " into series by " + resolution
+            );
+        }
+        for (Long2ObjectMap.Entry<Page> entry : Long2ObjectMaps.fastIterable(other.pages)) {
+            page(entry.getLongKey()).merge(entry.getValue());
+        }
+    }
+
+    /**
+     * Gets the buckets with logs.
+     *
+     * @return the buckets in the order of time
+     */
+    public List<TimeBucket> buckets() {
+        long[] pageIndexes = pages.keySet().toLongArray();
+        Arrays.sort(pageIndexes);
+        List<TimeBucket> buckets = new ArrayList<>();
+        for (long pageIndex : pageIndexes) {
+            Page page = pages.get(pageIndex);
+            for (int offset = 0; offset < PAGE_BUCKETS; offset++) {
+                if (page.requests[offset] > 0) {
+                    long start = (pageIndex * PAGE_BUCKETS + offset) * resolution.seconds();
+                    int statuses = offset * STATUS_CLASSES;
+                    int sizes = offset * SIZE_CLASSES;
+                    buckets.add(new TimeBucket(
+                        LocalDateTime.ofEpochSecond(start, 0, ZoneOffset.UTC),
+                        page.requests[offset],
+                        page.bytes[offset],
+                        Arrays.copyOfRange(page.statusClasses, statuses, statuses + STATUS_CLASSES),
+                        Arrays.copyOfRange(page.sizeClasses, sizes, sizes + SIZE_CLASSES)
+                    ));
+                }
+            }
+        }
+        return buckets;
+    }
+
+    private Page page(long index) {
+        if (Objects.isNull(lastPage) || lastPageIndex != index) {
+            lastPage = pages.computeIfAbsent(index, key -> new Page());
+            lastPageIndex = index;
+        }
+        return lastPage;
+    }
+
+    /**
+     * Statistics of consecutive buckets, the counts of the classes of a bucket are adjacent.
+     */
+    private static final class Page implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final long[] requests = new long[PAGE_BUCKETS];
+        private final long[] bytes = new long[PAGE_BUCKETS];
+        private final int[] statusClasses = new int[PAGE_BUCKETS * STATUS_CLASSES];
+        private final int[] sizeClasses = new int[PAGE_BUCKETS * SIZE_CLASSES];
+
+        private void merge(Page other) {
+            for (int i = 0; i < PAGE_BUCKETS; i++) {
+                requests[i] += other.requests[i];
+                bytes[i] += other.bytes[i];
+            }
+            for (int i = 0; i < statusClasses.length; i++) {
+                statusClasses[i] += other.statusClasses[i];
+            }
+            for (int i = 0; i < sizeClasses.length; i++) {
+                sizeClasses[i] += other.sizeClasses[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package backend.academy.logs;
+
+import backend.academy.logs.provider.FileLogProvider;
+import backend.academy.logs.provider.FileView;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MainTest {
+    @Test
+    public void filesOfLocalGlobAreAnalyzedByThreads() throws IOException {
+        Path dir = Files.createTempDirectory("main");
+        Files.writeString(dir.resolve("access.log"), "");
+        Files.writeString(dir.resolve("access.log.1"), "");
+        List<FileView> files = FileLogProvider.create(dir.toString(), "**access.log*").getLogs();
+
+        assertThat(files).hasSize(2);
+        assertThat(Main.limitsSources(List.of(dir + "/access.log*"), files)).isFalse();
+        assertThat(Main.limitsSources(List.of(dir + "/access.log", dir + "/access.log.1"), files)).isTrue();
+        assertThat(Main.limitsSources(List.of(dir + "/access.log", dir + "/missing.log"), files.subList(0, 1)))
+            .isFalse();
+    }
+
+    @Test
+    public void remoteFilesAreAnalyzedAsSources() {
+        List<FileView> files = List.of(
+            new FileView("https://edge-1/access.log", () -> new ByteArrayInputStream(new byte[0])),
+            new FileView("https://edge-2/access.log", () -> new ByteArrayInputStream(new byte[0]))
+        );
+
+        assertThat(Main.limitsSources(List.of("https://edge-*/access.log"), files)).isTrue();
+    }
+}
@@ -0,0 +1,201 @@
+package backend.academy.logs.analyzer;
+
+import backend.academy.logs.generator.GeneratorSettings;
+import backend.academy.logs.generator.LogGenerator;
+import backend.academy.logs.parser.NginxLogParser;
+import backend.academy.logs.provider.FileView;
+import backend.academy.logs.provider.UrlLogProvider;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrentSourcesAnalysisTest {
+    private static final int LINES = 2000;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final Map<String, AtomicInteger> activeByHost = new ConcurrentHashMap<>();
+    private final Map<String, Integer> maxActiveByHost = new ConcurrentHashMap<>();
+    private final CountDownLatch stalled = new CountDownLatch(1);
+    private final ByteArrayOutputStream errors = new ByteArrayOutputStream();
+    private ExecutorService executor;
+    private HttpServer server;
+    private byte[] content;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+            LogGenerator.create(GeneratorSettings.defaults().withLines(LINES)).write(writer);
+        }
+        content = bytes.toByteArray();
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::serve);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        stalled.countDown();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            if (path.startsWith("/missing")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            if (path.startsWith("/stalled")) {
+                stalled.await();
+                return;
+            }
+            String host = exchange.getRequestHeaders().getFirst("Host").replaceAll(":\\d+$", "");
+            AtomicInteger hostActive = activeByHost.computeIfAbsent(host, key -> new AtomicInteger());
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            maxActiveByHost.merge(host, hostActive.incrementAndGet(), Math::max);
+            try {
+                // latency of the host, the sources read at once overlap in it
+                Thread.sleep(30);
+            } finally {
+                hostActive.decrementAndGet();
+                active.decrementAndGet();
+            }
+            exchange.sendResponseHeaders(200, content.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(content);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private FileView url(String host, String path) throws Exception {
+        String url = "http://" + host + ":" + server.getAddress().getPort() + path;
+        return UrlLogProvider.create(url, 1, UrlLogProvider.DEFAULT_SEGMENT_SIZE).getLogs().getFirst();
+    }
+
+    private LogAnalyzer analyzer() {
+        PrintStream errorStream = new PrintStream(errors, true, StandardCharsets.UTF_8);
+        return LogAnalyzer.create(new NginxLogParser(), List.of(), 1, errorStream);
+    }
+
+    @Test
+    public void sourcesAreLimitedPerHostAndOverall() throws Exception {
+        List<FileView> sources = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            sources.add(url(i % 2 == 0 ? "localhost" : "127.0.0.1", "/edge-" + i + ".log"));
+        }
+        Path local = Files.createTempFile("edge", ".log");
+        Files.write(local, content);
+        sources.add(FileView.ofLocalFile(local));
+
+        AnalysisResult result = analyzer().analyze(sources, new SourceLimits(3, 2, Optional.empty()));
+
+        assertThat(result.collector().requestsCount()).isEqualTo(13L * LINES);
+        assertThat(result.fileNames()).containsExactlyElementsOf(sources.stream().map(FileView::name).toList());
+        assertThat(result.failedSources()).isEmpty();
+        assertThat(maxActiveByHost).containsOnlyKeys("localhost", "127.0.0.1");
+        assertThat(maxActiveByHost.values()).allMatch(max -> max <= 2);
+        assertThat(maxActive.get()).isGreaterThan(1).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    public void failedAndSlowSourcesAreSkipped() throws Exception {
+        List<FileView> sources = List.of(
+            url("localhost", "/stalled.log"),
+            url("localhost", "/edge-1.log"),
+            url("localhost", "/missing.log"),
+            url("127.0.0.1", "/edge-2.log")
+        );
+        long start = System.nanoTime();
+
+        SourceLimits limits = new SourceLimits(8, 2, Optional.of(Duration.ofMillis(500)));
+        AnalysisResult result = analyzer().analyze(sources, limits);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(10));
+        assertThat(result.collector().requestsCount()).isEqualTo(2L * LINES);
+        assertThat(result.fileNames()).containsExactly(sources.get(1).name(), sources.get(3).name());
+        assertThat(result.failedSources()).containsOnlyKeys(sources.get(0).name(), sources.get(2).name());
+        assertThat(result.failedSources().get(sources.get(0).name())).contains("PT0.5S");
+        assertThat(errors.toString(StandardCharsets.UTF_8)).contains("missing.log is skipped");
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void unexpectedFailureFailsOnlyItsSource(boolean timeout) throws Exception {
+        List<FileView> sources = List.of(
+            new FileView("broken.log", () -> {
+                throw new IllegalStateException("unexpected response");
+            }),
+            url("localhost", "/edge-1.log")
+        );
+
+        SourceLimits limits = new SourceLimits(8, 2, timeout ? Optional.of(Duration.ofSeconds(10)) : Optional.empty());
+        AnalysisResult result = analyzer().analyze(sources, limits);
+
+        assertThat(result.collector().requestsCount()).isEqualTo(LINES);
+        assertThat(result.fileNames()).containsExactly(sources.get(1).name());
+        assertThat(result.failedSources()).containsOnlyKeys("broken.log");
+        assertThat(result.failedSources().get("broken.log")).contains("unexpected response");
+    }
+
+    @Test
+    public void timedOutSourceKeepsItsPermitUntilItStops() {
+        AtomicInteger reading = new AtomicInteger();
+        AtomicInteger maxReading = new AtomicInteger();
+        List<FileView> sources = List.of(
+            new FileView("uninterruptible.log", () -> {
+                maxReading.accumulateAndGet(reading.incrementAndGet(), Math::max);
+                long end = System.nanoTime() + Duration.ofMillis(300).toNanos();
+                while (System.nanoTime() < end) {
+                    Thread.onSpinWait();
+                }
+                reading.decrementAndGet();
+                return new ByteArrayInputStream(new byte[0]);
+            }),
+            new FileView("quick.log", () -> {
+                maxReading.accumulateAndGet(reading.incrementAndGet(), Math::max);
+                reading.decrementAndGet();
+                return new ByteArrayInputStream(new byte[0]);
+            })
+        );
+
+        AnalysisResult result = analyzer().analyze(sources, new SourceLimits(1, 1, Optional.of(Duration.ofMillis(50))));
+
+        assertThat(maxReading).hasValue(1);
+        assertThat(result.failedSources()).containsOnlyKeys("uninterruptible.log");
+        assertThat(result.fileNames()).containsExactly("quick.log");
+    }
+}
@@ -0,0 +1,511 @@
+package backend.academy.logs.analyzer;
+
+import backend.academy.logs.filter.LogFilter;
+import backend.academy.logs.filter.LogFilterDate;
+import backend.academy.logs.filter.LogFilterField;
+import backend.academy.logs.parser.LogRecord;
+import backend.academy.logs.parser.MalformedLines;
+import backend.academy.logs.parser.MalformedReason;
+import backend.academy.logs.parser.MalformedSample;
+import backend.academy.logs.parser.NginxLogParser;
+import backend.academy.logs.provider.FileFollower;
+import backend.academy.logs.provider.FileLogProvider;
+import backend.academy.logs.provider.FileView;
+import backend.academy.logs.state.CheckpointStore;
+import backend.academy.logs.state.FileIdentity;
+import backend.academy.logs.statistic.StatisticCollector;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import org.apache.commons.io.function.Uncheck;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LogAnalyzerTest {
+    private static final String[] METHODS = {"GET", "POST", "HEAD", "PUT"};
+    private static final int[] STATUSES = {200, 304, 404, 500};
+
+    private static String logLine(Random random) {
+        return String.format(
+            "10.0.0.%d - - [%02d/May/2015:%02d:05:26 +0000] \"%s /downloads/product_%d HTTP/1.1\" %d %d \"-\" \"agent\"",
+            random.nextInt(256),
+            random.nextInt(1, 29),
+            random.nextInt(24),
+            METHODS[random.nextInt(METHODS.length)],
+            random.nextInt(10),
+            STATUSES[random.nextInt(STATUSES.length)],
+            random.nextInt(100_000)
+        );
+    }
+
+    private static FileView fileOf(String name, List<String> lines) {
+        byte[] content = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        return new FileView(name, () -> new ByteArrayInputStream(content));
+    }
+
+    private static List<FileView> generateFiles(int count, int badFile) {
+        Random random = new Random(count);
+        List<FileView> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            List<String> lines = new ArrayList<>();
+            for (int j = random.nextInt(50, 200); j > 0; j--) {
+                lines.add(logLine(random));
+            }
+            if (i == badFile) {
+                lines.add(lines.size() / 2, "definitely not a log line");
+            }
+            files.add(fileOf("file" + i, lines));
+        }
+        return files;
+    }
+
+    private static void assertSameStatistics(StatisticCollector actual, StatisticCollector expected) {
+        assertThat(actual.requestsCount()).isEqualTo(expected.requestsCount());
+        assertThat(actual.totalResponseSize()).isEqualTo(expected.totalResponseSize());
+        assertThat(actual.maxRequestsSize()).isEqualTo(expected.maxRequestsSize());
+        assertThat(actual.topResources()).isEqualTo(expected.topResources());
+        assertThat(actual.statusCount()).isEqualTo(expected.statusCount());
+        assertThat(actual.methodsCount()).isEqualTo(expected.methodsCount());
+        assertThat(actual.requestsPerEpochDay()).isEqualTo(expected.requestsPerEpochDay());
+        assertThat(actual.percentile(95)).isEqualTo(expected.percentile(95));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 3, 8, 64})
+    public void parallelMatchesSequential(int threads) {
+        List<FileView> files = generateFiles(23, 7);
+        List<LogFilter> filters = List.of(LogFilterField.create("method", "GET|POST"));
+        ByteArrayOutputStream sequentialErrors = new ByteArrayOutputStream();
+        ByteArrayOutputStream parallelErrors = new ByteArrayOutputStream();
+
+        AnalysisResult sequential = LogAnalyzer.create(
+            new NginxLogParser(), filters, 1, new PrintStream(sequentialErrors, true, StandardCharsets.UTF_8)
+        ).analyze(files);
+        AnalysisResult parallel = LogAnalyzer.create(
+            new NginxLogParser(), filters, threads, new PrintStream(parallelErrors, true, StandardCharsets.UTF_8)
+        ).analyze(files);
+
+        assertThat(parallel.fileNames()).isEqualTo(sequential.fileNames());
+        assertSameStatistics(parallel.collector(), sequential.collector());
+        assertThat(parallelErrors.toString(StandardCharsets.UTF_8))
+            .isEqualTo(sequentialErrors.toString(StandardCharsets.UTF_8))
+            .contains("file7");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {-1, 0, 150, 399})
+    public void chunkedFileMatchesSequential(int badLine) throws IOException {
+        Random random = new Random(badLine);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            lines.add(i == badLine ? "definitely not a log line" : logLine(random));
+        }
+        Path file = Files.createTempFile("analyzer", ".log");
+        Files.write(file, lines);
+        List<FileView> files = List.of(new FileView(
+            "big", () -> Uncheck.get(() -> Files.newInputStream(file)), Optional.of(file)
+        ));
+        ByteArrayOutputStream sequentialErrors = new ByteArrayOutputStream();
+        ByteArrayOutputStream parallelErrors = new ByteArrayOutputStream();
+
+        AnalysisResult sequential = LogAnalyzer.create(
+            new NginxLogParser(), List.of(), 1, new PrintStream(sequentialErrors, true, StandardCharsets.UTF_8)
+        ).analyze(files);
+        AnalysisResult parallel = LogAnalyzer.create(
+            new NginxLogParser(), List.of(), AnalyzerOptions.defaults().withThreads(7).withMinChunkSize(1024),
+            new PrintStream(parallelErrors, true, StandardCharsets.UTF_8)
+        ).analyze(files);
+
+        assertThat(files.getFirst().split(7, 1024)).hasSize(7);
+        assertThat(parallel.fileNames()).isEqualTo(List.of("big"));
+        assertSameStatistics(parallel.collector(), sequential.collector());
+        assertThat(parallelErrors.toString(StandardCharsets.UTF_8))
+            .isEqualTo(sequentialErrors.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void lineFiltersKeepResults() {
+        Random random = new Random(18);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            lines.add(logLine(random));
+        }
+        List<LogFilter> filters = List.of(
+            LogFilterDate.create(
+                OffsetDateTime.of(2015, 5, 10, 0, 0, 0, 0, ZoneOffset.UTC),
+                OffsetDateTime.of(2015, 5, 12, 12, 0, 0, 0, ZoneOffset.ofHours(3))
+            ),
+            LogFilterField.create("resource", "/downloads/product_[1-3]")
+        );
+        StatisticCollector expected = new StatisticCollector();
+        Stream<LogRecord> logs = new NginxLogParser().parse(lines.stream());
+        for (LogFilter filter : filters) {
+            logs = filter.filter(logs);
+        }
+        logs.forEach(expected::addLog);
+
+        AnalysisResult result = LogAnalyzer.create(new NginxLogParser(), filters, 1, System.err)
+            .analyze(List.of(fileOf("file", lines)));
+
+        assertThat(expected.requestsCount()).isPositive();
+        assertSameStatistics(result.collector(), expected);
+    }
+
+    @Test
+    public void lineFiltersKeepMalformedLines() {
+        FileView file = fileOf("file", List.of(
+            "1.1.1.1 - - [18/May/2015:06:05:26 +0000] \"GET /downloads/a HTTP/1.1\" 200 10 \"-\" \"x\"",
+            "1.1.1.1 - - [01/May/2015:06:05:26 +0000] \"GET /b HTTP/1.1\" 2o0 20 \"-\" \"x\"",
+            "1.1.1.1 - - [18/May/2015:06:05:26 +0000] \"GET /downloads/c HTTP/1.1\" 200 30 \"-\" \"x\"",
+            "1.1.1.1 - - [01/May/2015:06:05:26 +0000] \"GET /d HTTP/1.1\" 200 99999999999 \"-\" \"x\"",
+            "1.1.1.1 - - [01/May/2015:06:05:26 +0000] \"GET /downloads/e HTTP/1.1\" 200 50 \"-\" \"x\""
+        ));
+        List<LogFilter> filters = List.of(
+            LogFilterDate.create(OffsetDateTime.of(2015, 5, 10, 0, 0, 0, 0, ZoneOffset.UTC), null),
+            LogFilterField.create("resource", "/downloads/.*")
+        );
+        ByteArrayOutputStream unfilteredErrors = new ByteArrayOutputStream();
+        ByteArrayOutputStream filteredErrors = new ByteArrayOutputStream();
+
+        AnalysisResult unfiltered = LogAnalyzer.create(
+            new NginxLogParser(), List.of(), 1, new PrintStream(unfilteredErrors, true, StandardCharsets.UTF_8)
+        ).analyze(List.of(file));
+        AnalysisResult filtered = LogAnalyzer.create(
+            new NginxLogParser(), filters, 1, new PrintStream(filteredErrors, true, StandardCharsets.UTF_8)
+        ).analyze(List.of(file));
+
+        assertThat(unfiltered.collector().requestsCount()).isEqualTo(1);
+        assertThat(filtered.collector().requestsCount()).isEqualTo(1);
+        assertThat(filteredErrors.toString(StandardCharsets.UTF_8))
+            .contains("2o0")
+            .isEqualTo(unfilteredErrors.toString(StandardCharsets.UTF_8));
+
+        AnalyzerOptions options = AnalyzerOptions.defaults()
+            .withMalformedPolicy(MalformedLinesPolicy.skipUpTo(5))
+            .withMinChunkSize(1024);
+        MalformedLines unfilteredMalformed = LogAnalyzer.create(new NginxLogParser(), List.of(), options, System.err)
+            .analyze(List.of(file)).malformedLines().get("file");
+        AnalysisResult skipping = LogAnalyzer.create(new NginxLogParser(), filters, options, System.err)
+            .analyze(List.of(file));
+        MalformedLines filteredMalformed = skipping.malformedLines().get("file");
+
+        assertThat(skipping.collector().totalResponseSize()).isEqualTo(40);
+        assertThat(filteredMalformed.count(MalformedReason.FORMAT)).isEqualTo(1);
+        assertThat(filteredMalformed.count(MalformedReason.NUMBER)).isEqualTo(1);
+        assertThat(filteredMalformed.count()).isEqualTo(unfilteredMalformed.count());
+        assertThat(filteredMalformed.samples()).isEqualTo(unfilteredMalformed.samples());
+    }
+
+    @Test
+    public void badLogsStopOnlyTheirFile() {
+        FileView good = fileOf("good", List.of(
+            "1.1.1.1 - - [18/May/2015:06:05:26 +0000] \"GET /a HTTP/1.1\" 200 10 \"-\" \"x\""
+        ));
+        FileView bad = fileOf("bad", List.of(
+            "1.1.1.1 - - [18/May/2015:06:05:26 +0000] \"GET /b HTTP/1.1\" 200 20 \"-\" \"x\"",
+            "broken",
+            "1.1.1.1 - - [18/May/2015:06:05:26 +0000] \"GET /c HTTP/1.1\" 200 30 \"-\" \"x\""
+        ));
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+
+        AnalysisResult result = LogAnalyzer.create(
+            new NginxLogParser(), List.of(), 2, new PrintStream(errors, true, StandardCharsets.UTF_8)
+        ).analyze(List.of(bad, good));
+
+        assertThat(result.fileNames()).containsExactly("bad", "good");
+        assertThat(result.collector().requestsCount()).isEqualTo(2);
+        assertThat(result.collector().totalResponseSize()).isEqualTo(30);
+        assertThat(errors.toString(StandardCharsets.UTF_8)).startsWith("Bad logs in file bad:");
+    }
+
+    private static AnalysisResult analyzeSkipping(List<FileView> files, long limit, int threads, PrintStream errors) {
+        return LogAnalyzer.create(new NginxLogParser(), List.of(), skipping(limit, threads), errors).analyze(files);
+    }
+
+    private static AnalyzerOptions skipping(long limit, int threads) {
+        return AnalyzerOptions.defaults()
+            .withMalformedPolicy(MalformedLinesPolicy.skipUpTo(limit))
+            .withThreads(threads)
+            .withMinChunkSize(1024);
+    }
+
+    @Test
+    public void malformedLinesAreSkipped() {
+        FileView bad = fileOf("bad", List.of(
+            "1.1.1.1 - - [18/May/2015:06:05:26 +0000] \"GET /b HTTP/1.1\" 200 20 \"-\" \"x\"",
+            "broken",
+            "1.1.1.1 - - [32/May/2015:06:05:26 +0000] \"GET /b HTTP/1.1\" 200 20 \"-\" \"x\"",
+            "1.1.1.1 - - [18/May/2015:06:05:26 +0000] \"GET /c HTTP/1.1\" 200 30 \"-\" \"x\""
+        ));
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+
+        AnalysisResult result = analyzeSkipping(
+            List.of(bad), MalformedLines.UNLIMITED, 1, new PrintStream(errors, true, StandardCharsets.UTF_8)
+        );
+
+        assertThat(result.collector().requestsCount()).isEqualTo(2);
+        assertThat(result.collector().totalResponseSize()).isEqualTo(50);
+        MalformedLines malformed = result.malformedLines().get("bad");
+        assertThat(malformed.count(MalformedReason.FORMAT)).isEqualTo(1);
+        assertThat(malformed.count(MalformedReason.TIME)).isEqualTo(1);
+        assertThat(malformed.samples()).extracting(MalformedSample::line).first().isEqualTo("broken");
+        assertThat(errors.toString(StandardCharsets.UTF_8)).isEmpty();
+    }
+
+    @Test
+    public void malformedLinesLimitStopsTheFile() {
+        FileView bad = fileOf("bad", List.of(
+            "1.1.1.1 - - [18/May/2015:06:05:26 +0000] \"GET /b HTTP/1.1\" 200 20 \"-\" \"x\"",
+            "broken",
+            "1.1.1.1 - - [18/May/2015:06:05:26 +0000] \"GET /c HTTP/1.1\" 200 30 \"-\" \"x\"",
+            "broken again",
+            "1.1.1.1 - - [18/May/2015:06:05:26 +0000] \"GET /d HTTP/1.1\" 200 40 \"-\" \"x\"",
+            "broken once more"
+        ));
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+
+        AnalysisResult result = analyzeSkipping(
+            List.of(bad), 1, 1, new PrintStream(errors, true, StandardCharsets.UTF_8)
+        );
+
+        assertThat(result.collector().totalResponseSize()).isEqualTo(50);
+        assertThat(result.malformedLines().get("bad").count()).isEqualTo(2);
+        assertThat(result.malformedLines().get("bad").limitExceeded()).isTrue();
+        assertThat(errors.toString(StandardCharsets.UTF_8)).startsWith("Too many malformed logs in file bad:");
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 3, 17, 40, MalformedLines.UNLIMITED})
+    public void chunkedSkippingMatchesSequential(long limit) throws IOException {
+        Random random = new Random(limit);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            lines.add(random.nextInt(60) == 0 ? "definitely not a log line " + i : logLine(random));
+        }
+        Path file = Files.createTempFile("analyzer", ".log");
+        Files.write(file, lines);
+        List<FileView> files = List.of(new FileView(
+            "big", () -> Uncheck.get(() -> Files.newInputStream(file)), Optional.of(file)
+        ));
+        ByteArrayOutputStream sequentialErrors = new ByteArrayOutputStream();
+        ByteArrayOutputStream parallelErrors = new ByteArrayOutputStream();
+
+        AnalysisResult sequential = analyzeSkipping(
+            files, limit, 1, new PrintStream(sequentialErrors, true, StandardCharsets.UTF_8)
+        );
+        AnalysisResult parallel = analyzeSkipping(
+            files, limit, 8, new PrintStream(parallelErrors, true, StandardCharsets.UTF_8)
+        );
+
+        assertSameStatistics(parallel.collector(), sequential.collector());
+        MalformedLines sequentialMalformed = sequential.malformedLines().get("big");
+        MalformedLines parallelMalformed = parallel.malformedLines().get("big");
+        assertThat(parallelMalformed.count()).isEqualTo(sequentialMalformed.count()).isPositive();
+        assertThat(parallelMalformed.samples()).isEqualTo(sequentialMalformed.samples());
+        assertThat(parallelErrors.toString(StandardCharsets.UTF_8))
+            .isEqualTo(sequentialErrors.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void nonPositiveThreads() {
+        assertThatThrownBy(() -> LogAnalyzer.create(new NginxLogParser(), List.of(), 0, System.err))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 3, 17, MalformedLines.UNLIMITED})
+    public void followingMatchesBatch(long limit) {
+        Random random = new Random(limit);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            lines.add(random.nextInt(60) == 0 ? "definitely not a log line " + i : logLine(random));
+        }
+        ByteArrayOutputStream batchErrors = new ByteArrayOutputStream();
+        ByteArrayOutputStream followingErrors = new ByteArrayOutputStream();
+        AnalysisResult batch = analyzeSkipping(
+            List.of(fileOf("big", lines)), limit, 1, new PrintStream(batchErrors, true, StandardCharsets.UTF_8)
+        );
+
+        FollowingAnalysis following = LogAnalyzer.create(
+            new NginxLogParser(), List.of(), skipping(limit, 1),
+            new PrintStream(followingErrors, true, StandardCharsets.UTF_8)
+        ).follow();
+        int start = 0;
+        while (start < lines.size()) {
+            int end = Math.min(lines.size(), start + random.nextInt(300));
+            following.append("big", lines.subList(start, end));
+            start = end;
+        }
+        AnalysisResult result = following.result();
+
+        assertThat(result.fileNames()).isEqualTo(List.of("big"));
+        assertSameStatistics(result.collector(), batch.collector());
+        assertThat(result.malformedLines().get("big").count()).isEqualTo(batch.malformedLines().get("big").count());
+        assertThat(followingErrors.toString(StandardCharsets.UTF_8))
+            .isEqualTo(batchErrors.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void followReportsAppendedLines() throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory("analyzer");
+        Path file = dir.resolve("access.log");
+        Random random = new Random(42);
+        Files.writeString(file, logLine(random) + "\n" + logLine(random) + "\n");
+        List<Long> reportedCounts = new CopyOnWriteArrayList<>();
+        FollowingAnalysis following = LogAnalyzer.create(new NginxLogParser(), List.of(), 1, System.err).follow();
+
+        try (FileFollower follower = FileFollower.create(FileLogProvider.create(dir.toString(), "**.log"))) {
+            Thread thread = Thread.ofPlatform().start(() -> assertThatThrownBy(() -> following.follow(
+                follower, Duration.ofMillis(10), result -> reportedCounts.add(result.collector().requestsCount())
+            )).isInstanceOf(InterruptedException.class));
+            awaitCount(reportedCounts, 2);
+            Files.writeString(file, logLine(random) + "\n", StandardOpenOption.APPEND);
+            awaitCount(reportedCounts, 3);
+            thread.interrupt();
+            thread.join();
+        }
+
+        assertThat(reportedCounts).isSorted().contains(2L, 3L);
+        assertThat(following.result().fileNames()).isEqualTo(List.of(file.toString()));
+    }
+
+    @Test
+    public void followedFileReplacedByRotationIsAnalyzedAfterBadLog() throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory("analyzer");
+        Path file = dir.resolve("access.log");
+        Path rotated = dir.resolve("access.log.1");
+        Random random = new Random(7);
+        Files.writeString(file, logLine(random) + "\nnot a log line\n" + logLine(random) + "\n");
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        FollowingAnalysis following = LogAnalyzer.create(
+            new NginxLogParser(), List.of(), 1, new PrintStream(errors, true, StandardCharsets.UTF_8)
+        ).follow();
+
+        try (FileFollower follower = FileFollower.create(FileLogProvider.create(dir.toString(), "**access.log*"))) {
+            follower.poll((readId, fileName, lines) -> following.append(readId, fileName, lines));
+            assertThat(following.result().collector().requestsCount()).isEqualTo(1);
+
+            Files.writeString(file, logLine(random) + "\n", StandardOpenOption.APPEND);
+            Files.move(file, rotated);
+            Files.writeString(file, logLine(random) + "\n" + logLine(random) + "\n");
+            Instant deadline = Instant.now().plusSeconds(15);
+            while (following.result().collector().requestsCount() < 3 && Instant.now().isBefore(deadline)) {
+                follower.poll((readId, fileName, lines) -> following.append(readId, fileName, lines));
+                Thread.sleep(10);
+            }
+        }
+
+        // the rotated file is still stopped, the new file with the same name is analyzed from the start
+        assertThat(following.result().collector().requestsCount()).isEqualTo(3);
+        assertThat(following.result().fileNames()).startsWith(file.toString());
+        assertThat(errors.toString(StandardCharsets.UTF_8)).containsOnlyOnce("not a log line");
+    }
+
+    private static void awaitCount(List<Long> reportedCounts, long count) throws InterruptedException {
+        Instant deadline = Instant.now().plusSeconds(15);
+        while (!reportedCounts.contains(count) && Instant.now().isBefore(deadline)) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static AnalysisResult analyzeWithCheckpoints(Path file, CheckpointStore checkpoints, int threads) {
+        List<FileView> files = List.of(new FileView(
+            "big", () -> Uncheck.get(() -> Files.newInputStream(file)), Optional.of(file)
+        ));
+        return LogAnalyzer.create(new NginxLogParser(), List.of(), skipping(100, threads), System.err)
+            .analyze(files, checkpoints);
+    }
+
+    private static AnalysisResult analyzeLines(List<String> lines) {
+        return analyzeSkipping(List.of(fileOf("big", lines)), 100, 1, System.err);
+    }
+
+    private static List<String> generateLines(Random random, int count) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            lines.add(random.nextInt(60) == 0 ? "definitely not a log line " + i : logLine(random));
+        }
+        return lines;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    public void checkpointsReadOnlyAppendedBytes(int threads) throws IOException {
+        Random random = new Random(threads);
+        Path file = Files.createTempFile("analyzer", ".log");
+        CheckpointStore checkpoints = CheckpointStore.create(Files.createTempDirectory("state").toString(), "test");
+        List<String> lines = generateLines(random, 1000);
+        Files.writeString(file, String.join("\n", lines) + "\nincomplete");
+
+        AnalysisResult first = analyzeWithCheckpoints(file, checkpoints, threads);
+        assertSameStatistics(first.collector(), analyzeLines(lines).collector());
+
+        // the line is changed after the hashed head, but it has already been analyzed
+        String content = Files.readString(file);
+        int changed = content.indexOf('\n', FileIdentity.HEAD_LENGTH) + 1;
+        Files.writeString(file, content.substring(0, changed) + "#" + content.substring(changed + 1));
+        List<String> appended = generateLines(random, 500);
+        Files.writeString(file, " line\n" + String.join("\n", appended) + "\n", StandardOpenOption.APPEND);
+        lines.add("incomplete line");
+        lines.addAll(appended);
+
+        AnalysisResult second = analyzeWithCheckpoints(file, checkpoints, threads);
+        AnalysisResult unchanged = analyzeWithCheckpoints(file, checkpoints, threads);
+
+        assertSameStatistics(second.collector(), analyzeLines(lines).collector());
+        assertThat(second.malformedLines().get("big").count())
+            .isEqualTo(analyzeLines(lines).malformedLines().get("big").count());
+        assertSameStatistics(unchanged.collector(), second.collector());
+    }
+
+    @Test
+    public void changedFilesAreAnalyzedAgain() throws IOException {
+        Random random = new Random(7);
+        Path file = Files.createTempFile("analyzer", ".log");
+        String state = Files.createTempDirectory("state").toString();
+        CheckpointStore checkpoints = CheckpointStore.create(state, "test");
+        List<String> lines = generateLines(random, 1000);
+        Files.write(file, lines);
+        analyzeWithCheckpoints(file, checkpoints, 1);
+
+        List<String> truncated = lines.subList(0, 10);
+        Files.write(file, truncated);
+        assertSameStatistics(
+            analyzeWithCheckpoints(file, checkpoints, 1).collector(), analyzeLines(truncated).collector()
+        );
+
+        List<String> replaced = generateLines(random, 1000);
+        Files.delete(file);
+        Files.write(file, replaced);
+        assertSameStatistics(
+            analyzeWithCheckpoints(file, checkpoints, 1).collector(), analyzeLines(replaced).collector()
+        );
+
+        Files.write(file, lines);
+        Files.write(file, replaced, StandardOpenOption.APPEND);
+        List<String> both = new ArrayList<>(lines);
+        both.addAll(replaced);
+        assertSameStatistics(
+            analyzeWithCheckpoints(file, CheckpointStore.create(state, "other"), 1).collector(),
+            analyzeLines(both).collector()
+        );
+    }
+}
@@ -0,0 +1,218 @@
+package backend.academy.logs.columnar;
+
+import backend.academy.logs.analyzer.AnalysisResult;
+import backend.academy.logs.analyzer.AnalyzerOptions;
+import backend.academy.logs.analyzer.LogAnalyzer;
+import backend.academy.logs.filter.LogFilter;
+import backend.academy.logs.filter.LogFilterDate;
+import backend.academy.logs.filter.LogFilterField;
+import backend.academy.logs.parser.LogField;
+import backend.academy.logs.parser.LogRecord;
+import backend.academy.logs.parser.NginxLogParser;
+import backend.academy.logs.provider.FileView;
+import backend.academy.logs.statistic.StatisticCollector;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ColumnarLogParserTest {
+    private static final String[] METHODS = {"GET", "POST", "HEAD", "PUT"};
+    private static final int[] STATUSES = {200, 304, 404, 500};
+
+    private static List<String> logLines(int count, int resources, long seed) {
+        Random random = new Random(seed);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            lines.add(String.format(
+                "10.0.%d.%d - - [%02d/May/2015:%02d:05:26 +0300] \"%s /downloads/product_%d HTTP/1.1\" %d %d \"-\" \"агент\"",
+                random.nextInt(256),
+                random.nextInt(256),
+                random.nextInt(1, 29),
+                random.nextInt(24),
+                METHODS[random.nextInt(METHODS.length)],
+                random.nextInt(resources),
+                STATUSES[random.nextInt(STATUSES.length)],
+                random.nextInt(100_000)
+            ));
+        }
+        return lines;
+    }
+
+    private static Path ingest(Path textFile, boolean skipMalformed, PrintStream errors) throws IOException {
+        ColumnarLogParser parser = new ColumnarLogParser(new NginxLogParser());
+        return ColumnarIngest.create(parser, skipMalformed, errors)
+            .ingest(List.of(FileView.ofLocalFile(textFile)), textFile.resolveSibling("columnar"))
+            .getFirst();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 1000, 70_000})
+    public void roundTrip(int resources) throws IOException {
+        List<String> lines = logLines(100_000, resources, resources);
+        Path textFile = Files.write(Files.createTempDirectory("columnar").resolve("access.log"), lines);
+
+        Path columnarFile = ingest(textFile, false, System.err);
+
+        ColumnarLogParser parser = new ColumnarLogParser(new NginxLogParser());
+        assertThat(parser.isPreparsed(columnarFile)).isTrue();
+        assertThat(parser.isPreparsed(textFile)).isFalse();
+        try (Stream<LogRecord> logs = parser.parseFile(columnarFile, LogField.ALL)) {
+            assertThat(logs.toList()).isEqualTo(new NginxLogParser().parse(lines.stream()).toList());
+        }
+        try (ColumnarReader reader = ColumnarReader.open(columnarFile)) {
+            assertThat(reader.rows()).isEqualTo(lines.size());
+            assertThat(reader.sourceName()).isEqualTo(textFile.toString());
+        }
+    }
+
+    @Test
+    public void onlyNeededFieldsAreRead() throws IOException {
+        List<String> lines = logLines(10, 5, 1);
+        Path textFile = Files.write(Files.createTempDirectory("columnar").resolve("access.log"), lines);
+        Path columnarFile = ingest(textFile, false, System.err);
+
+        List<LogRecord> logs = new ColumnarLogParser(new NginxLogParser())
+            .parseFile(columnarFile, EnumSet.of(LogField.STATUS, LogField.RESOURCE))
+            .toList();
+
+        List<LogRecord> expected = new NginxLogParser().parse(lines.stream()).toList();
+        for (int i = 0; i < lines.size(); i++) {
+            assertThat(logs.get(i)).isEqualTo(new LogRecord(
+                null, null, null, null, expected.get(i).resource(), expected.get(i).status(), 0, null, null
+            ));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    public void analysisMatchesText(int threads) throws IOException {
+        Path textFile = Files.write(
+            Files.createTempDirectory("columnar").resolve("access.log"), logLines(5000, 20, threads)
+        );
+        Path columnarFile = ingest(textFile, false, System.err);
+        List<LogFilter> filters = List.of(
+            LogFilterDate.create(OffsetDateTime.of(2015, 5, 10, 0, 0, 0, 0, ZoneOffset.UTC), null),
+            LogFilterField.create("method", "GET|POST")
+        );
+        ColumnarLogParser parser = new ColumnarLogParser(new NginxLogParser());
+
+        AnalyzerOptions options = AnalyzerOptions.defaults().withThreads(threads).withMinChunkSize(1024);
+        StatisticCollector text = LogAnalyzer.create(parser, filters, options, System.err)
+            .analyze(List.of(FileView.ofLocalFile(textFile))).collector();
+        AnalysisResult columnar = LogAnalyzer.create(parser, filters, options, System.err)
+            .analyze(List.of(FileView.ofLocalFile(columnarFile), FileView.ofLocalFile(columnarFile)));
+
+        assertThat(text.requestsCount()).isPositive();
+        assertThat(columnar.collector().requestsCount()).isEqualTo(2 * text.requestsCount());
+        assertThat(columnar.collector().totalResponseSize()).isEqualTo(2 * text.totalResponseSize());
+        assertThat(columnar.collector().maxRequestsSize()).isEqualTo(text.maxRequestsSize());
+        assertThat(columnar.collector().percentile(95)).isEqualTo(text.percentile(95));
+        StatisticCollector doubled = new StatisticCollector();
+        doubled.merge(text);
+        doubled.merge(text);
+        assertThat(columnar.collector().statusCount()).isEqualTo(doubled.statusCount());
+        assertThat(columnar.collector().methodsCount()).isEqualTo(doubled.methodsCount());
+        assertThat(columnar.collector().topResources()).isEqualTo(doubled.topResources());
+        assertThat(columnar.collector().requestsPerEpochDay()).isEqualTo(doubled.requestsPerEpochDay());
+    }
+
+    @Test
+    public void badLogsStopTheIngest() throws IOException {
+        List<String> lines = new ArrayList<>(logLines(10, 5, 2));
+        lines.add(4, "broken");
+        Path textFile = Files.write(Files.createTempDirectory("columnar").resolve("access.log"), lines);
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+
+        Path stopped = ingest(textFile, false, new PrintStream(errors, true, StandardCharsets.UTF_8));
+        try (ColumnarReader reader = ColumnarReader.open(stopped)) {
+            assertThat(reader.rows()).isEqualTo(4);
+        }
+        assertThat(errors.toString(StandardCharsets.UTF_8)).startsWith("Bad logs in file " + textFile);
+
+        Path skipped = ingest(textFile, true, new PrintStream(errors, true, StandardCharsets.UTF_8));
+        try (ColumnarReader reader = ColumnarReader.open(skipped)) {
+            assertThat(reader.rows()).isEqualTo(10);
+        }
+        assertThat(errors.toString(StandardCharsets.UTF_8)).contains("Skipped 1 malformed logs");
+    }
+
+    @Test
+    public void failedReadLeavesNoFile() throws IOException {
+        byte[] content = String.join("\n", logLines(1000, 5, 5)).getBytes(StandardCharsets.UTF_8);
+        FileView failing = new FileView("access.log", () -> new FilterInputStream(new ByteArrayInputStream(content)) {
+            private int read = 0;
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                if (read > content.length / 2) {
+                    throw new IOException("connection reset");
+                }
+                int count = super.read(bytes, offset, length);
+                read += Math.max(count, 0);
+                return count;
+            }
+        });
+        Path dir = Files.createTempDirectory("columnar");
+
+        assertThatThrownBy(() -> ColumnarIngest.create(new ColumnarLogParser(new NginxLogParser()), false, System.err)
+            .ingest(List.of(failing), dir)).hasRootCauseMessage("connection reset");
+
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    public void sameFileNamesAreNumbered() throws IOException {
+        Path dir = Files.createTempDirectory("columnar");
+        Path first = Files.write(Files.createDirectory(dir.resolve("a")).resolve("access.log"), logLines(3, 2, 3));
+        Path second = Files.write(Files.createDirectory(dir.resolve("b")).resolve("access.log"), logLines(5, 2, 4));
+
+        List<Path> written = ColumnarIngest.create(new ColumnarLogParser(new NginxLogParser()), false, System.err)
+            .ingest(List.of(FileView.ofLocalFile(first), FileView.ofLocalFile(second)), dir.resolve("columnar"));
+
+        assertThat(written).containsExactly(
+            dir.resolve("columnar/access.log.logcols"), dir.resolve("columnar/access.log-2.logcols")
+        );
+    }
+
+    @Test
+    public void largeSourceIsSplitIntoParts() throws IOException {
+        List<String> lines = logLines(5, 2, 5);
+        Path textFile = Files.write(Files.createTempDirectory("columnar").resolve("access.log"), lines);
+        ColumnarLogParser parser = new ColumnarLogParser(new NginxLogParser());
+
+        List<Path> written = ColumnarIngest.create(parser, false, System.err, 2)
+            .ingest(List.of(FileView.ofLocalFile(textFile)), textFile.resolveSibling("columnar"));
+
+        assertThat(written).containsExactly(
+            textFile.resolveSibling("columnar/access.log.logcols"),
+            textFile.resolveSibling("columnar/access.log.part2.logcols"),
+            textFile.resolveSibling("columnar/access.log.part3.logcols")
+        );
+        List<LogRecord> logs = new ArrayList<>();
+        for (Path part : written) {
+            try (Stream<LogRecord> partLogs = parser.parseFile(part, LogField.ALL)) {
+                logs.addAll(partLogs.toList());
+            }
+        }
+        assertThat(logs).isEqualTo(new NginxLogParser().parse(lines.stream()).toList());
+    }
+}
@@ -2,8 +2,10 @@ package backend.academy.logs.filter;
 
 import backend.academy.logs.parser.LogRecord;
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 import org.instancio.Instancio;
 import org.junit.jupiter.api.Test;
@@ -85,4 +87,26 @@ public class LogFilterDateTest {
 
         assertThat(filtered).isEmpty();
     }
+
+    @Test
+    public void rawLinesOutOfRange() {
+        LogFilter filter = LogFilterDate.create(
+            OffsetDateTime.of(2015, 5, 18, 6, 0, 0, 0, ZoneOffset.UTC),
+            OffsetDateTime.of(2015, 5, 18, 10, 0, 0, 0, ZoneOffset.ofHours(3))
+        );
+        Predicate<String> lineFilter = filter.createLineFilter().orElseThrow();
+
+        assertThat(lineFilter).accepts(
+            "1.1.1.1 - - [18/May/2015:06:05:26 +0000] \"GET / HTTP/1.1\" 200 1 \"-\" \"-\"",
+            "1.1.1.1 - - [18/May/2015:12:05:26 +0600] \"GET / HTTP/1.1\" 200 1 \"-\" \"-\"",
+            "1.1.1.1 - - [18/May/2015:6:05:26 +0000] \"GET / HTTP/1.1\" 200 1 \"-\" \"-\"",
+            "not a log line"
+        );
+        assertThat(lineFilter).rejects(
+            "1.1.1.1 - - [18/May/2015:06:00:00 +0000] \"GET / HTTP/1.1\" 200 1 \"-\" \"-\"",
+            "1.1.1.1 - - [18/May/2015:04:05:26 +0000] \"GET / HTTP/1.1\" 200 1 \"-\" \"-\"",
+            "1.1.1.1 - - [19/May/2015:05:05:26 +0000] \"GET / HTTP/1.1\" 200 1 \"-\" \"-\""
+        );
+        assertThat(LogFilterDate.create(null, null).createLineFilter()).isEmpty();
+    }
 }
@@ -1,7 +1,9 @@
 package backend.academy.logs.filter;
 
+import backend.academy.logs.parser.LogField;
 import backend.academy.logs.parser.LogRecord;
 import java.util.List;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 import org.instancio.Instancio;
 import org.junit.jupiter.api.Test;
@@ -55,4 +57,20 @@ public class LogFilterFieldTest {
 
         assertThat(filtered).containsExactly(log3);
     }
+
+    @Test
+    public void requiresOnlyFilteredField() {
+        assertThat(LogFilterField.create("agent", ".*").requiredFields()).containsExactly(LogField.AGENT);
+        assertThat(LogFilterField.create("bytesSent", "\\d+").requiredFields()).containsExactly(LogField.BYTES_SENT);
+    }
+
+    @Test
+    public void rawLinesWithoutLiterals() {
+        Predicate<String> lineFilter = LogFilterField.create("resource", "/downloads/.*_1\\d").createLineFilter()
+            .orElseThrow();
+
+        assertThat(lineFilter).accepts("1.1.1.1 - - [18/May/2015:06:05:26 +0000] \"GET /downloads/x_10 HTTP/1.1\"");
+        assertThat(lineFilter).rejects("1.1.1.1 - - [18/May/2015:06:05:26 +0000] \"GET /files/x_10 HTTP/1.1\"");
+        assertThat(LogFilterField.create("method", "GET|POST").createLineFilter()).isEmpty();
+    }
 }
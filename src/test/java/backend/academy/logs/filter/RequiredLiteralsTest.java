@@ -0,0 +1,73 @@
+package backend.academy.logs.filter;
+
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RequiredLiteralsTest {
+    private static final String[] PARTS = {
+        "a", "b", "ab", "\\.", ".", "\\d", "[ab]", "[^a]", "[]a]", "(a|b)", "(ab)", "?", "*", "+", "{2}", "{0,1}",
+        "??", "*+", "^", "$", "|", "\\x61", "\\u0061", "\\p{L}", "\\t", "\\\\", "-", "/", "😀", "é"
+    };
+    private static final String ALPHABET = "abé😀./-\\\t1";
+
+    private static Stream<Arguments> expressions() {
+        return Stream.of(
+            Arguments.of("POST", List.of("POST")),
+            Arguments.of("/downloads/product_\\d+", List.of("/downloads/product_")),
+            Arguments.of(".*Mozilla.*Linux.*", List.of("Mozilla", "Linux")),
+            Arguments.of("ab?c", List.of("a", "c")),
+            Arguments.of("ab+c", List.of("ab", "c")),
+            Arguments.of("ab{2,3}c", List.of("a", "c")),
+            Arguments.of("a\\.b[xy]z", List.of("a.b", "z")),
+            Arguments.of("a(b|c)d", List.of("a", "d")),
+            Arguments.of("[]x]y", List.of("y")),
+            Arguments.of("GET|POST", List.of()),
+            Arguments.of("(?i)post", List.of()),
+            Arguments.of("\\Qa.b\\E", List.of()),
+            Arguments.of("\\x41B", List.of()),
+            Arguments.of(".*", List.of())
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("expressions")
+    public void requiredLiterals(String regex, List<String> literals) {
+        assertThat(RequiredLiterals.of(regex)).isEqualTo(literals);
+    }
+
+    @Test
+    public void matchingStringsContainLiterals() {
+        Random random = new Random(20_241_018);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder regex = new StringBuilder();
+            for (int j = random.nextInt(1, 6); j > 0; j--) {
+                regex.append(PARTS[random.nextInt(PARTS.length)]);
+            }
+            Pattern pattern;
+            try {
+                pattern = Pattern.compile(regex.toString());
+            } catch (RuntimeException e) {
+                continue;
+            }
+            List<String> literals = RequiredLiterals.of(regex.toString());
+            for (int j = 0; j < 50; j++) {
+                StringBuilder text = new StringBuilder();
+                for (int k = random.nextInt(6); k > 0; k--) {
+                    text.appendCodePoint(ALPHABET.codePointAt(ALPHABET.offsetByCodePoints(
+                        0, random.nextInt(ALPHABET.codePointCount(0, ALPHABET.length()))
+                    )));
+                }
+                if (pattern.matcher(text).matches()) {
+                    assertThat(literals).as(regex + " " + text).allMatch(literal -> text.toString().contains(literal));
+                }
+            }
+        }
+    }
+}
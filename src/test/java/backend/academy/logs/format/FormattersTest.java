@@ -2,12 +2,24 @@ package backend.academy.logs.format;
 
 import backend.academy.logs.filter.LogFilterDate;
 import backend.academy.logs.filter.LogFilterField;
+import backend.academy.logs.parser.LogRecord;
+import backend.academy.logs.parser.MalformedLines;
+import backend.academy.logs.parser.MalformedReason;
+import backend.academy.logs.statistic.DenseCounter;
+import backend.academy.logs.statistic.ExactKeyCounter;
+import backend.academy.logs.statistic.ExactSizeDistribution;
+import backend.academy.logs.statistic.KeyCounter;
+import backend.academy.logs.statistic.SizeDistribution;
+import backend.academy.logs.statistic.SpaceSavingKeyCounter;
 import backend.academy.logs.statistic.StatisticCollector;
+import backend.academy.logs.statistic.TimeResolution;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.ZoneOffset;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Stream;
 import org.instancio.Instancio;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -23,29 +35,53 @@ public class FormattersTest {
         );
     }
 
+    private static SizeDistribution distributionOf(int... sizes) {
+        SizeDistribution distribution = new ExactSizeDistribution();
+        for (int size : sizes) {
+            distribution.add(size);
+        }
+        return distribution;
+    }
+
+    private static KeyCounter keyCounterOf(Map<String, Integer> counts) {
+        KeyCounter counter = new ExactKeyCounter();
+        counts.forEach((key, count) -> {
+            for (int i = 0; i < count; i++) {
+                counter.increment(key);
+            }
+        });
+        return counter;
+    }
+
+    private static DenseCounter counterOf(Map<Long, Long> counts) {
+        DenseCounter counter = new DenseCounter(1000);
+        counts.forEach(counter::add);
+        return counter;
+    }
+
     @ParameterizedTest
     @MethodSource("getFormatters")
     public void allMetricsAppears(StatisticFormatter formatter) {
         StatisticCollector collector = Instancio.of(StatisticCollector.class)
             .set(field("totalResponseSize"), 13)
             .set(field("maxRequestsSize"), 17)
-            .set(field("bytesSent"), new ArrayList<>(List.of(3, 1, 2, 4, 5, 6, 11, 10, 8, 7, 9)))
-            .set(field("resourcesCount"), Map.of(
+            .set(field("bytesSent"), distributionOf(3, 1, 2, 4, 5, 6, 11, 10, 8, 7, 9))
+            .set(field("resourcesCount"), keyCounterOf(Map.of(
                 "github.io", 27,
                 "niuitmo.ru", 26
-            ))
-            .set(field("statusCount"), Map.of(
-                5000, 0
-            ))
-            .set(field("methodsCount"), Map.of(
-                "get", 51,
-                "put", 50,
-                "head", 52
-            ))
-            .set(field("requestsPerDay"), Map.of(
-                LocalDate.of(2024, 12, 11), 21,
-                LocalDate.of(2024, 12, 10), 23
-            ))
+            )))
+            .set(field("statusCount"), counterOf(Map.of(
+                5000L, 1L
+            )))
+            .set(field("methodsCount"), new Object2LongOpenHashMap<>(Map.of(
+                "get", 51L,
+                "put", 50L,
+                "head", 52L
+            )))
+            .set(field("requestsPerDay"), counterOf(Map.of(
+                LocalDate.of(2024, 12, 11).toEpochDay(), 21L,
+                LocalDate.of(2024, 12, 10).toEpochDay(), 23L
+            )))
             .create();
         FormaterAdditionalData additionalData = new FormaterAdditionalData(
             List.of("f1", "f2"), List.of(
@@ -78,22 +114,23 @@ public class FormattersTest {
     @MethodSource("getFormatters")
     public void metricsSorted(StatisticFormatter formatter) {
         StatisticCollector collector = Instancio.of(StatisticCollector.class)
-            .set(field("resourcesCount"), Map.of(
+            .set(field("bytesSent"), distributionOf(1, 2))
+            .set(field("resourcesCount"), keyCounterOf(Map.of(
                 "github.io", 27,
                 "niuitmo.ru", 26
-            ))
-            .set(field("statusCount"), Map.of(
-                5000, 0
-            ))
-            .set(field("methodsCount"), Map.of(
-                "get", 51,
-                "put", 50,
-                "head", 52
-            ))
-            .set(field("requestsPerDay"), Map.of(
-                LocalDate.of(2024, 12, 11), 21,
-                LocalDate.of(2024, 12, 10), 23
-            ))
+            )))
+            .set(field("statusCount"), counterOf(Map.of(
+                5000L, 1L
+            )))
+            .set(field("methodsCount"), new Object2LongOpenHashMap<>(Map.of(
+                "get", 51L,
+                "put", 50L,
+                "head", 52L
+            )))
+            .set(field("requestsPerDay"), counterOf(Map.of(
+                LocalDate.of(2024, 12, 11).toEpochDay(), 21L,
+                LocalDate.of(2024, 12, 10).toEpochDay(), 23L
+            )))
             .create();
         FormaterAdditionalData additionalData = new FormaterAdditionalData(List.of(), List.of());
 
@@ -110,9 +147,7 @@ public class FormattersTest {
     @ParameterizedTest
     @MethodSource("getFormatters")
     public void defaultMetrics(StatisticFormatter formatter) {
-        StatisticCollector collector = Instancio.of(StatisticCollector.class)
-            .set(field("bytesSent"), new ArrayList<>())
-            .create();
+        StatisticCollector collector = new StatisticCollector();
         FormaterAdditionalData additionalData = new FormaterAdditionalData(List.of(), List.of());
 
         String res = formatter.format(collector, additionalData);
@@ -122,4 +157,105 @@ public class FormattersTest {
             "95p response size", "-", "Max response size"
         );
     }
+
+    @ParameterizedTest
+    @MethodSource("getFormatters")
+    public void percentilesAndHistogram(StatisticFormatter formatter) {
+        StatisticCollector collector = new StatisticCollector();
+        for (int size = 0; size < 1000; size++) {
+            collector.addLog(Instancio.of(LogRecord.class).set(field("bytesSent"), size).create());
+        }
+        FormaterAdditionalData additionalData = new FormaterAdditionalData(List.of(), List.of());
+
+        String res = formatter.format(collector, additionalData);
+
+        assertThat(res).containsSubsequence(
+            "50p response size", "499",
+            "90p response size", "899",
+            "95p response size", "949",
+            "99p response size", "989",
+            "99.9p response size", "998",
+            "Percentiles relative error", "exact",
+            "Response sizes", "Size", "Count",
+            "0", "1", "1", "1", "2-3", "2", "4-7", "4", "512-1023", "488"
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("getFormatters")
+    public void timeSeries(StatisticFormatter formatter) {
+        StatisticCollector collector = new StatisticCollector(
+            new ExactSizeDistribution(), new ExactKeyCounter(), Optional.of(TimeResolution.HOUR)
+        );
+        LocalDateTime time = LocalDateTime.of(2015, 5, 17, 8, 5);
+        for (int status : List.of(200, 200, 404, 500)) {
+            collector.addLog(Instancio.of(LogRecord.class)
+                .set(field("timeLocal"), time).set(field("status"), status).set(field("bytesSent"), 100)
+                .create());
+        }
+        collector.addLog(Instancio.of(LogRecord.class)
+            .set(field("timeLocal"), time.plusHours(2)).set(field("status"), 301).set(field("bytesSent"), 10_000_000)
+            .create());
+        FormaterAdditionalData additionalData = new FormaterAdditionalData(List.of(), List.of());
+
+        String res = formatter.format(collector, additionalData);
+
+        assertThat(res).containsSubsequence(
+            "Requests per hour",
+            "Time", "Requests", "Bytes", "1xx", "2xx", "3xx", "4xx", "5xx", "5xx rate", "50p size", "99p size",
+            "2015-05-17T08:00", "4", "400", "0", "2", "0", "1", "1", "25.00%", "64-127", "64-127",
+            "2015-05-17T10:00", "1", "10000000", "0", "0", "1", "0", "0", "0.00%", "4194304+", "4194304+"
+        );
+        assertThat(new MarkdownFormatter().format(new StatisticCollector(), additionalData))
+            .doesNotContain("Requests per hour");
+    }
+
+    @ParameterizedTest
+    @MethodSource("getFormatters")
+    public void approximateTopResources(StatisticFormatter formatter) {
+        StatisticCollector collector = new StatisticCollector(new ExactSizeDistribution(), new SpaceSavingKeyCounter(2, 2));
+        for (String resource : List.of("/a", "/a", "/a", "/b", "/b", "/c")) {
+            collector.addLog(Instancio.of(LogRecord.class).set(field("resource"), resource).create());
+        }
+        FormaterAdditionalData additionalData = new FormaterAdditionalData(List.of(), List.of());
+
+        String res = formatter.format(collector, additionalData);
+
+        assertThat(res).containsSubsequence(
+            "Accessed resources", "Resource", "Count (at most)", "Overcount (at most)",
+            "/a", "3", "0",
+            "/c", "3", "2",
+            "Status codes"
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("getFormatters")
+    public void malformedLines(StatisticFormatter formatter) {
+        MalformedLines malformed = new MalformedLines(1);
+        malformed.add("not | a log", MalformedReason.FORMAT);
+        malformed.add("1.1.1.1 - - [32/Jan/2015:06:05:26 +0000]", MalformedReason.TIME);
+        FormaterAdditionalData additionalData = new FormaterAdditionalData(
+            List.of("a.log"), List.of(), List.of(), Map.of("a.log", malformed)
+        );
+
+        String res = formatter.format(new StatisticCollector(), additionalData);
+
+        assertThat(res).containsSubsequence(
+            "Malformed lines skipped", "2",
+            "Malformed lines", "File", "Bad format", "Invalid time", "Status or size out of range", "Total",
+            "a.log", "1", "1", "0", "2", "yes",
+            "Malformed line samples", "File", "Reason", "Line",
+            "a.log", "Bad format", "not \\| a log",
+            "a.log", "Invalid time", "[32/Jan/2015:06:05:26 +0000]"
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("getFormatters")
+    public void noMalformedLinesSection(StatisticFormatter formatter) {
+        String res = formatter.format(new StatisticCollector(), new FormaterAdditionalData(List.of(), List.of()));
+
+        assertThat(res).doesNotContain("Malformed");
+    }
 }
@@ -0,0 +1,154 @@
+package backend.academy.logs.generator;
+
+import backend.academy.logs.parser.LogField;
+import backend.academy.logs.parser.LogRecord;
+import backend.academy.logs.parser.MalformedLines;
+import backend.academy.logs.parser.MalformedReason;
+import backend.academy.logs.parser.NginxLogParser;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+public class LogGeneratorTest {
+    private static List<String> generate(GeneratorSettings settings) {
+        LogGenerator generator = LogGenerator.create(settings);
+        List<String> lines = new ArrayList<>();
+        while (generator.hasNext()) {
+            lines.add(generator.nextLine());
+        }
+        return lines;
+    }
+
+    @Test
+    public void sameSeedGivesSameLines() {
+        GeneratorSettings settings = GeneratorSettings.defaults().withLines(1000).withMalformedRatio(0.1);
+
+        assertThat(generate(settings)).isEqualTo(generate(settings));
+        assertThat(generate(settings.withSeed(1))).isNotEqualTo(generate(settings));
+    }
+
+    @Test
+    public void validLinesAreParsed() {
+        GeneratorSettings settings = GeneratorSettings.defaults().withLines(50_000).withOutOfOrderRatio(0);
+        List<String> lines = generate(settings);
+
+        List<LogRecord> logs = new NginxLogParser().parse(lines.stream()).toList();
+
+        assertThat(logs).hasSize(lines.size());
+        assertThat(logs.getFirst().timeLocal()).isEqualTo(settings.start().toLocalDateTime());
+        assertThat(logs.getLast().timeLocal()).isEqualTo(settings.start().plus(settings.span()).toLocalDateTime());
+        assertThat(logs).isSortedAccordingTo((a, b) -> a.timeLocal().compareTo(b.timeLocal()));
+        assertThat(logs.stream().map(LogRecord::httpUserAgent).distinct().count()).isEqualTo(settings.agents());
+        assertThat(logs.stream().map(LogRecord::status).distinct()).allMatch(settings.statusMix()::containsKey);
+    }
+
+    @Test
+    public void distributionsFollowTheSettings() {
+        GeneratorSettings settings = GeneratorSettings.defaults()
+            .withLines(200_000)
+            .withResources(1000)
+            .withResourceSkew(1)
+            .withStatusMix(Map.of(200, 3.0, 404, 1.0))
+            .withMinBytes(100)
+            .withBytesTailIndex(1.5);
+        List<LogRecord> logs = new NginxLogParser().parse(generate(settings).stream()).toList();
+
+        Map<String, Long> resources = logs.stream()
+            .collect(Collectors.groupingBy(LogRecord::resource, Collectors.counting()));
+        List<Long> counts = resources.values().stream().sorted((a, b) -> Long.compare(b, a)).toList();
+        // Zipf with the exponent 1: the second resource is half as popular as the first one
+        assertThat((double) counts.get(1) / counts.get(0)).isCloseTo(0.5, within(0.05));
+        assertThat((double) counts.get(0) / logs.size()).isCloseTo(1 / 7.485, within(0.01));
+
+        double okShare = (double) logs.stream().filter(l -> l.status() == 200).count() / logs.size();
+        assertThat(okShare).isCloseTo(0.75, within(0.01));
+
+        // Pareto: P(X > x) = (min / x) ^ tail index
+        assertThat(logs).allMatch(l -> l.bytesSent() >= 100);
+        double largerThan1000 = (double) logs.stream().filter(l -> l.bytesSent() > 1000).count() / logs.size();
+        assertThat(largerThan1000).isCloseTo(Math.pow(0.1, 1.5), within(0.005));
+    }
+
+    @Test
+    public void outOfOrderLinesAreDelayed() {
+        GeneratorSettings settings = GeneratorSettings.defaults()
+            .withLines(100_000)
+            .withSpan(Duration.ofDays(10))
+            .withOutOfOrderRatio(0.2)
+            .withMaxDelay(Duration.ofHours(1));
+        List<LocalDateTime> times = new NginxLogParser().parse(generate(settings).stream())
+            .map(LogRecord::timeLocal)
+            .toList();
+
+        int outOfOrder = 0;
+        for (int i = 1; i < times.size(); i++) {
+            if (times.get(i).isBefore(times.get(i - 1))) {
+                outOfOrder++;
+                assertThat(Duration.between(times.get(i), times.get(i - 1))).isLessThanOrEqualTo(Duration.ofHours(1));
+            }
+        }
+        // a delayed line is out of order unless the previous one is delayed even longer
+        assertThat((double) outOfOrder / times.size()).isCloseTo(0.2 * (0.8 + 0.2 / 2), within(0.01));
+    }
+
+    @Test
+    public void malformedLinesHaveEveryReason() {
+        GeneratorSettings settings = GeneratorSettings.defaults().withLines(20_000).withMalformedRatio(0.1);
+        MalformedLines malformed = new MalformedLines();
+
+        long parsed = new NginxLogParser().parse(generate(settings).stream(), LogField.ALL, malformed).count();
+
+        assertThat(parsed + malformed.count()).isEqualTo(settings.lines());
+        assertThat((double) malformed.count() / settings.lines()).isCloseTo(0.1, within(0.01));
+        for (MalformedReason reason : MalformedReason.values()) {
+            assertThat(malformed.count(reason)).isPositive();
+        }
+    }
+
+    @Test
+    public void plainAndGzipFilesHaveTheSameLines() throws IOException {
+        GeneratorSettings settings = GeneratorSettings.defaults().withLines(10_000).withSeed(7);
+        Path dir = Files.createTempDirectory("generated");
+        Path plain = dir.resolve("access.log");
+        Path gzip = dir.resolve("access.log.gz");
+
+        LogGenerator.write(settings, plain, false);
+        LogGenerator.write(settings, gzip, true);
+
+        List<String> expected = generate(settings);
+        assertThat(Files.readAllLines(plain)).isEqualTo(expected);
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(gzip))) {
+            assertThat(new String(input.readAllBytes(), StandardCharsets.UTF_8).lines().toList()).isEqualTo(expected);
+        }
+        assertThat(Files.size(gzip)).isLessThan(Files.size(plain));
+    }
+
+    @Test
+    public void badSettingsAreRejected() {
+        GeneratorSettings settings = GeneratorSettings.defaults();
+        List<Function<GeneratorSettings, GeneratorSettings>> changes = List.of(
+            s -> s.withResources(0),
+            s -> s.withMalformedRatio(1.5),
+            s -> s.withStatusMix(Map.of(42, 1.0)),
+            s -> s.withBytesTailIndex(0),
+            s -> s.withSpan(Duration.ofSeconds(-1))
+        );
+        for (Function<GeneratorSettings, GeneratorSettings> change : changes) {
+            assertThatThrownBy(() -> change.apply(settings)).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package backend.academy.logs.index;
+
+import backend.academy.logs.analyzer.AnalysisResult;
+import backend.academy.logs.analyzer.AnalyzerOptions;
+import backend.academy.logs.analyzer.LogAnalyzer;
+import backend.academy.logs.filter.LogFilter;
+import backend.academy.logs.filter.LogFilterDate;
+import backend.academy.logs.parser.NginxLogParser;
+import backend.academy.logs.provider.FileView;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.BiPredicate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimeIndexStoreTest {
+    private static final OffsetDateTime START = OffsetDateTime.of(2015, 5, 17, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final NginxLogParser PARSER = new NginxLogParser();
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z", Locale.US);
+
+    /**
+     * Lines a minute apart with some of them a few minutes out of order.
+     */
+    private static List<String> logLines(int count, int firstMinute, Random random) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int minute = firstMinute + i - (random.nextInt(10) == 0 ? random.nextInt(5) : 0);
+            lines.add(String.format(
+                "10.0.0.%d - - [%s] \"GET /downloads/product_%d HTTP/1.1\" 200 %d \"-\" \"agent\"",
+                random.nextInt(256),
+                START.plusMinutes(minute).format(TIME_FORMAT),
+                random.nextInt(10),
+                random.nextInt(100_000)
+            ));
+        }
+        return lines;
+    }
+
+    private static BiPredicate<LocalDateTime, LocalDateTime> timeRange(int fromMinute, int toMinute) {
+        return LogFilterDate.create(START.plusMinutes(fromMinute), START.plusMinutes(toMinute))
+            .createTimeRangeFilter()
+            .orElseThrow();
+    }
+
+    @ParameterizedTest
+    @CsvSource({"100, 200, 1", "100, 200, 4", "-10, 5, 1", "1990, 3000, 4", "3000, 4000, 1", "0, 2000, 4"})
+    public void indexedAnalysisMatchesFullScan(int fromMinute, int toMinute, int threads) throws IOException {
+        List<String> lines = logLines(2000, 0, new Random(fromMinute));
+        lines.add(1500, "");
+        lines.add(300, lines.get(300).replace("\" 200 ", "\" 2o0 "));
+        Path file = Files.write(Files.createTempFile("indexed", ".log"), lines);
+        List<LogFilter> filters = List.of(
+            LogFilterDate.create(START.plusMinutes(fromMinute), START.plusMinutes(toMinute))
+        );
+        ByteArrayOutputStream expectedErrors = new ByteArrayOutputStream();
+        ByteArrayOutputStream actualErrors = new ByteArrayOutputStream();
+        TimeIndexStore store = TimeIndexStore.create(Files.createTempDirectory("index").toString(), 4096);
+
+        AnalyzerOptions options = AnalyzerOptions.defaults().withThreads(threads).withMinChunkSize(1024);
+
+        AnalysisResult expected = LogAnalyzer.create(
+            new NginxLogParser(), filters, options, new PrintStream(expectedErrors, true, StandardCharsets.UTF_8)
+        ).analyze(List.of(FileView.ofLocalFile(file)));
+        for (int run = 0; run < 2; run++) {
+            actualErrors.reset();
+            AnalysisResult actual = LogAnalyzer.create(
+                new NginxLogParser(), filters, options.withTimeIndexes(Optional.of(store)),
+                new PrintStream(actualErrors, true, StandardCharsets.UTF_8)
+            ).analyze(List.of(FileView.ofLocalFile(file)));
+
+            assertThat(actual.collector().requestsCount()).isEqualTo(expected.collector().requestsCount());
+            assertThat(actual.collector().totalResponseSize()).isEqualTo(expected.collector().totalResponseSize());
+            assertThat(actual.collector().requestsPerEpochDay()).isEqualTo(expected.collector().requestsPerEpochDay());
+            assertThat(actualErrors.toString(StandardCharsets.UTF_8))
+                .isEqualTo(expectedErrors.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void rangeCoversOnlyTheBlocksOfTheTimes() throws IOException {
+        List<String> lines = logLines(2000, 0, new Random(1));
+        Path file = Files.write(Files.createTempFile("indexed", ".log"), lines);
+        TimeIndex index = TimeIndexStore.create(Files.createTempDirectory("index").toString(), 4096).get(file, PARSER);
+        long size = Files.size(file);
+
+        TimeIndex.Range range = index.coveringRange(timeRange(1000, 1060), size);
+
+        assertThat(index.end()).isEqualTo(size);
+        assertThat(index.starts().length).isGreaterThan(40);
+        assertThat(range.end() - range.start()).isPositive().isLessThan(size / 10);
+        long lineStart = 0;
+        for (String line : lines) {
+            OffsetDateTime time = OffsetDateTime.parse(line.substring(line.indexOf('[') + 1, line.indexOf(']')), TIME_FORMAT);
+            if (time.isAfter(START.plusMinutes(1000)) && time.isBefore(START.plusMinutes(1060))) {
+                assertThat(lineStart).isBetween(range.start(), range.end() - 1);
+            }
+            lineStart += line.length() + 1;
+        }
+        assertThat(index.coveringRange(timeRange(5000, 6000), size).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void changedFilesAreIndexedAgain() throws IOException {
+        Path file = Files.write(Files.createTempFile("indexed", ".log"), logLines(1000, 0, new Random(2)));
+        TimeIndexStore store = TimeIndexStore.create(Files.createTempDirectory("index").toString(), 4096);
+        TimeIndex first = store.get(file, PARSER);
+        TimeIndex loaded = store.get(file, PARSER);
+        assertThat(loaded.identity()).isEqualTo(first.identity());
+        assertThat(loaded.starts()).isEqualTo(first.starts());
+
+        Files.write(file, logLines(500, 1000, new Random(3)), StandardOpenOption.APPEND);
+        Files.writeString(file, "incomplete", StandardOpenOption.APPEND);
+        TimeIndex appended = store.get(file, PARSER);
+        assertThat(appended.starts()).startsWith(first.starts());
+        assertThat(appended.end()).isEqualTo(Files.size(file) - "incomplete".length());
+        assertThat(appended.coveringRange(timeRange(1200, 1300), Files.size(file)).start()).isGreaterThan(first.end());
+
+        Files.write(file, logLines(1000, 5000, new Random(4)));
+        TimeIndex rewritten = store.get(file, PARSER);
+        assertThat(rewritten.coveringRange(timeRange(0, 1500), Files.size(file)).isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,120 @@
+package backend.academy.logs.jfr;
+
+import backend.academy.logs.analyzer.AnalysisResult;
+import backend.academy.logs.analyzer.AnalyzerOptions;
+import backend.academy.logs.analyzer.LogAnalyzer;
+import backend.academy.logs.analyzer.MalformedLinesPolicy;
+import backend.academy.logs.filter.LogFilter;
+import backend.academy.logs.filter.LogFilterField;
+import backend.academy.logs.format.FormaterAdditionalData;
+import backend.academy.logs.format.MarkdownFormatter;
+import backend.academy.logs.generator.GeneratorSettings;
+import backend.academy.logs.generator.LogGenerator;
+import backend.academy.logs.parser.MalformedLines;
+import backend.academy.logs.parser.NginxLogParser;
+import backend.academy.logs.provider.FileView;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AnalyzerEventsTest {
+    private static Path generate(long lines) throws IOException {
+        Path file = Files.createTempFile("events", ".log");
+        LogGenerator.write(GeneratorSettings.defaults().withLines(lines), file, false);
+        return file;
+    }
+
+    private static List<RecordedEvent> record(Runnable analysis) throws IOException {
+        Path dump = Files.createTempFile("events", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (Class<?> event : List.of(FileAnalysisEvent.class, ParseBatchEvent.class,
+                FilterEvaluationEvent.class, CollectorMergeEvent.class, ReportFormatEvent.class)) {
+                recording.enable(event.getName()).withoutThreshold();
+            }
+            recording.start();
+            analysis.run();
+            recording.stop();
+            recording.dump(dump);
+        }
+        return RecordingFile.readAllEvents(dump);
+    }
+
+    private static List<RecordedEvent> events(List<RecordedEvent> events, Class<?> type) {
+        String name = type.getAnnotation(jdk.jfr.Name.class).value();
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).toList();
+    }
+
+    private static long sum(List<RecordedEvent> events, String field) {
+        return events.stream().mapToLong(event -> event.getLong(field)).sum();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    public void eventsCountTheLinesOfTheFile(int threads) throws IOException {
+        Path file = generate(200_000);
+        List<LogFilter> filters = List.of(LogFilterField.create("method", "GET"), LogFilterField.create("status", "200"));
+        AnalyzerOptions options = AnalyzerOptions.defaults()
+            .withMalformedPolicy(MalformedLinesPolicy.skipUpTo(MalformedLines.UNLIMITED))
+            .withThreads(threads)
+            .withMinChunkSize(64 * 1024);
+        LogAnalyzer analyzer = LogAnalyzer.create(new NginxLogParser(), filters, options, System.err);
+        AnalysisResult[] result = new AnalysisResult[1];
+
+        List<RecordedEvent> events = record(() -> {
+            result[0] = analyzer.analyze(List.of(FileView.ofLocalFile(file)));
+            new MarkdownFormatter().format(result[0].collector(), new FormaterAdditionalData(
+                result[0].fileNames(), filters, List.of(), result[0].malformedLines()
+            ));
+        });
+
+        List<RecordedEvent> files = events(events, FileAnalysisEvent.class);
+        assertThat(files).isNotEmpty().allMatch(event -> event.getString("file").equals(file.toString()));
+        assertThat(sum(files, "lines")).isEqualTo(200_000);
+        assertThat(sum(files, "bytes")).isEqualTo(Files.size(file));
+        assertThat(sum(files, "collected")).isEqualTo(result[0].collector().requestsCount());
+        assertThat(sum(files, "filterTime")).isPositive();
+
+        List<RecordedEvent> batches = events(events, ParseBatchEvent.class);
+        assertThat(batches).hasSizeGreaterThanOrEqualTo((int) (200_000 / AnalyzerEvents.BATCH_LINES));
+        assertThat(sum(batches, "lines")).isEqualTo(200_000);
+        assertThat(sum(batches, "logs")).isEqualTo(sum(files, "logs"));
+
+        List<RecordedEvent> evaluations = events(events, FilterEvaluationEvent.class);
+        assertThat(evaluations).hasSize(files.size() * filters.size());
+        assertThat(evaluations).noneMatch(event -> event.hasField("filterTime"));
+        assertThat(evaluations.stream().filter(event -> event.getString("filter").equals(filters.getLast().toString())))
+            .extracting(event -> event.getLong("logsPassed"))
+            .containsExactlyInAnyOrderElementsOf(files.stream().map(event -> event.getLong("collected")).toList());
+
+        List<RecordedEvent> merges = events(events, CollectorMergeEvent.class);
+        if (threads > 1) {
+            assertThat(files).hasSizeGreaterThan(1);
+            assertThat(merges).hasSize(files.size());
+            assertThat(sum(merges, "requests")).isEqualTo(result[0].collector().requestsCount());
+        }
+
+        List<RecordedEvent> reports = events(events, ReportFormatEvent.class);
+        assertThat(reports).singleElement()
+            .satisfies(event -> assertThat(event.getString("formatter")).isEqualTo("MarkdownFormatter"))
+            .satisfies(event -> assertThat(event.getInt("files")).isEqualTo(1));
+    }
+
+    @Test
+    public void nothingIsRecordedWhileTheEventsAreDisabled() {
+        List<LogFilter> filters = List.of(LogFilterField.create("method", "GET"));
+        assertThat(AnalyzerEvents.begin("access.log", filters)).isEmpty();
+        try (Recording recording = new Recording()) {
+            recording.enable(FileAnalysisEvent.class);
+            recording.start();
+            assertThat(AnalyzerEvents.begin("access.log", filters)).isPresent();
+        }
+    }
+}
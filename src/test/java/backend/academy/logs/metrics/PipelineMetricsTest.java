@@ -0,0 +1,113 @@
+package backend.academy.logs.metrics;
+
+import backend.academy.logs.analyzer.AnalysisResult;
+import backend.academy.logs.analyzer.AnalyzerOptions;
+import backend.academy.logs.analyzer.LogAnalyzer;
+import backend.academy.logs.analyzer.MalformedLinesPolicy;
+import backend.academy.logs.filter.LogFilter;
+import backend.academy.logs.filter.LogFilterDate;
+import backend.academy.logs.filter.LogFilterField;
+import backend.academy.logs.format.FormaterAdditionalData;
+import backend.academy.logs.format.MarkdownFormatter;
+import backend.academy.logs.generator.GeneratorSettings;
+import backend.academy.logs.generator.LogGenerator;
+import backend.academy.logs.parser.MalformedLines;
+import backend.academy.logs.parser.NginxLogParser;
+import backend.academy.logs.provider.FileView;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PipelineMetricsTest {
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    public void stagesAreCountedWithoutChangingTheResult(int threads) throws IOException {
+        GeneratorSettings settings = GeneratorSettings.defaults().withLines(20_000).withMalformedRatio(0.01);
+        Path file = Files.createTempFile("metrics", ".log");
+        LogGenerator.write(settings, file, false);
+        List<LogFilter> filters = List.of(
+            LogFilterDate.create(OffsetDateTime.of(2015, 5, 17, 6, 0, 0, 0, ZoneOffset.UTC), null),
+            LogFilterField.create("method", "GET"),
+            LogFilterField.create("status", "200")
+        );
+        AnalyzerOptions options = AnalyzerOptions.defaults()
+            .withMalformedPolicy(MalformedLinesPolicy.skipUpTo(MalformedLines.UNLIMITED))
+            .withThreads(threads)
+            .withMinChunkSize(64 * 1024);
+        PipelineMetrics metrics = PipelineMetrics.create(filters);
+
+        AnalysisResult expected = LogAnalyzer.create(new NginxLogParser(), filters, options, System.err)
+            .analyze(List.of(FileView.ofLocalFile(file)));
+        AnalysisResult actual = LogAnalyzer.create(
+            new NginxLogParser(), filters, options.withMetrics(Optional.of(metrics)), System.err
+        ).analyze(List.of(FileView.ofLocalFile(file), FileView.ofLocalFile(file)));
+        MetricsReport report = metrics.report();
+
+        assertThat(actual.collector().requestsCount()).isEqualTo(2 * expected.collector().requestsCount());
+        assertThat(report.files()).hasSize(1);
+        MetricsReport.FileMetrics fileMetrics = report.files().getFirst();
+        assertThat(fileMetrics.file()).isEqualTo(file.toString());
+        assertThat(fileMetrics.lines()).isEqualTo(2 * settings.lines());
+        assertThat(fileMetrics.bytes()).isEqualTo(2 * Files.size(file));
+        assertThat(fileMetrics.busyNanos()).isPositive();
+        Map<Stage, MetricsReport.StageTime> stages = fileMetrics.stages().stream()
+            .collect(Collectors.toMap(MetricsReport.StageTime::stage, stage -> stage));
+        assertThat(stages.get(Stage.READ).items()).isEqualTo(2 * settings.lines());
+        assertThat(stages.get(Stage.LINE_FILTER).items()).isEqualTo(2 * settings.lines());
+        assertThat(stages.get(Stage.FILTER).items()).isEqualTo(fileMetrics.logs());
+        assertThat(stages.get(Stage.COLLECT).items()).isEqualTo(actual.collector().requestsCount());
+        assertThat(stages.values()).allMatch(stage -> stage.nanos() > 0);
+
+        // every filter checks the raw lines passed by the previous ones and the malformed lines they reject,
+        // then the parsed logs
+        long malformed = actual.malformedLines().values().stream().mapToLong(MalformedLines::count).sum();
+        MetricsReport.FilterMetrics date = report.filters().get(0);
+        MetricsReport.FilterMetrics method = report.filters().get(1);
+        MetricsReport.FilterMetrics status = report.filters().get(2);
+        assertThat(date.linesChecked()).isEqualTo(2 * settings.lines());
+        assertThat(method.linesChecked()).isBetween(date.linesPassed(), date.linesPassed() + malformed);
+        assertThat(status.linesChecked()).isBetween(method.linesPassed(), method.linesPassed() + malformed);
+        assertThat(date.logsChecked()).isEqualTo(fileMetrics.logs());
+        assertThat(method.logsChecked()).isEqualTo(date.logsPassed());
+        assertThat(status.logsChecked()).isEqualTo(method.logsPassed());
+        assertThat(status.logsPassed()).isEqualTo(actual.collector().requestsCount());
+        assertThat(status.logsPassed()).isLessThan(status.logsChecked());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void reportIsRenderedAndWrittenAsJson(boolean empty) throws IOException {
+        Path file = Files.createTempFile("metrics", ".log");
+        LogGenerator.write(GeneratorSettings.defaults().withLines(empty ? 0 : 1000), file, false);
+        List<LogFilter> filters = List.of(LogFilterField.create("method", "GET"));
+        PipelineMetrics metrics = PipelineMetrics.create(filters);
+        AnalyzerOptions options = AnalyzerOptions.defaults().withMetrics(Optional.of(metrics));
+        AnalysisResult analysis = LogAnalyzer.create(new NginxLogParser(), filters, options, System.err)
+            .analyze(List.of(FileView.ofLocalFile(file)));
+        MetricsReport report = metrics.report();
+        Path json = Files.createTempFile("metrics", ".json");
+
+        report.writeJson(json);
+        String formatted = new MarkdownFormatter().format(analysis.collector(), new FormaterAdditionalData(
+            analysis.fileNames(), filters, List.of(), analysis.malformedLines(), Optional.of(report)
+        ));
+
+        JsonNode written = new ObjectMapper().readTree(json.toFile());
+        assertThat(written.get("files").get(0).get("lines").asLong()).isEqualTo(report.files().getFirst().lines());
+        assertThat(written.get("files").get(0).get("stages")).hasSize(Stage.values().length);
+        assertThat(written.get("filters")).hasSize(filters.size());
+        assertThat(written.get("peakHeapBytes").asLong()).isPositive();
+        assertThat(formatted).contains("### Pipeline metrics", "Parse, ns per item", "Logs pass ratio");
+    }
+}
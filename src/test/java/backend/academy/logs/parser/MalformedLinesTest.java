@@ -0,0 +1,57 @@
+package backend.academy.logs.parser;
+
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MalformedLinesTest {
+    @Test
+    public void countsPerReasonAndKeepsFirstSamples() {
+        MalformedLines malformed = new MalformedLines();
+        for (int i = 0; i < 10; i++) {
+            malformed.add("line" + i, i % 3 == 0 ? MalformedReason.TIME : MalformedReason.FORMAT);
+        }
+        malformed.add("x".repeat(1000), MalformedReason.NUMBER);
+
+        assertThat(malformed.count()).isEqualTo(11);
+        assertThat(malformed.count(MalformedReason.TIME)).isEqualTo(4);
+        assertThat(malformed.count(MalformedReason.FORMAT)).isEqualTo(6);
+        assertThat(malformed.count(MalformedReason.NUMBER)).isEqualTo(1);
+        assertThat(malformed.samples()).hasSize(MalformedLines.DEFAULT_MAX_SAMPLES)
+            .extracting(MalformedSample::line)
+            .containsExactly("line0", "line1", "line2", "line3", "line4");
+        assertThat(malformed.limitExceeded()).isFalse();
+    }
+
+    @Test
+    public void mergeKeepsOrderOfSamples() {
+        MalformedLines first = new MalformedLines(3);
+        first.add("a", MalformedReason.FORMAT);
+        first.add("b", MalformedReason.FORMAT);
+        MalformedLines second = new MalformedLines(3);
+        for (String line : new String[] {"c", "d", "e", "f"}) {
+            second.add(line, MalformedReason.NUMBER);
+        }
+
+        first.merge(second);
+
+        assertThat(first.count()).isEqualTo(6);
+        assertThat(first.count(MalformedReason.NUMBER)).isEqualTo(4);
+        assertThat(first.samples()).extracting(MalformedSample::line).containsExactly("a", "b", "c", "d", "e");
+        assertThat(first.limitExceeded()).isTrue();
+    }
+
+    @Test
+    public void longSamplesAreTruncated() {
+        MalformedLines malformed = new MalformedLines(0);
+        malformed.add("y".repeat(1000), MalformedReason.FORMAT);
+
+        assertThat(malformed.samples().getFirst().line()).hasSizeLessThan(300).startsWith("yyy").endsWith("...");
+        assertThat(malformed.limitExceeded()).isTrue();
+    }
+
+    @Test
+    public void negativeLimit() {
+        assertThatThrownBy(() -> new MalformedLines(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,309 @@
+package backend.academy.logs.parser;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NginxScanningLogParserTest {
+    private static final String[] METHODS = {"GET", "POST", "HEAD", "", "M_1", "GE T", "GET\""};
+    private static final String[] MONTHS = {"Jan", "Feb", "May", "Jun", "Dec", "may", "Foo"};
+    private static final String[] OFFSETS = {"+0000", "+0800", "-1753", "+1900", "+00", "Z"};
+    private static final String[] NUMBERS = {"0", "200", "007", "", "-3", "2147483647", "2147483648", "99999999999"};
+    private static final String[] INSERTIONS = {" ", "\"", "]", "[", "\t", "\u2028", "\u0085", "a", "5", "] \"", "-"};
+    private static final String AGENT_CHARS = "abcXYZ019 ()/;.,-_\"[]é中";
+
+    private static String randomOf(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String randomAgent(Random random) {
+        int length = random.nextInt(10) == 0 ? random.nextInt(500, 3000) : random.nextInt(40);
+        StringBuilder agent = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            agent.append(AGENT_CHARS.charAt(random.nextInt(AGENT_CHARS.length())));
+        }
+        return agent.toString();
+    }
+
+    private static String randomLine(Random random) {
+        boolean valid = random.nextInt(4) != 0;
+        String date = String.format(
+            "%02d/%s/%04d:%02d:%02d:%02d %s",
+            random.nextInt(valid ? 1 : 0, valid ? 29 : 40),
+            valid ? "May" : randomOf(random, MONTHS),
+            random.nextInt(1990, 2030),
+            random.nextInt(valid ? 24 : 30),
+            random.nextInt(60),
+            random.nextInt(60),
+            valid ? "+0000" : randomOf(random, OFFSETS)
+        );
+        return String.format(
+            "%d.%d.%d.%d - %s [%s] \"%s /downloads/product_%d%s HTTP/1.1\" %s %s \"%s\" \"%s\"",
+            random.nextInt(256), random.nextInt(256), random.nextInt(256), random.nextInt(256),
+            random.nextBoolean() ? "-" : "user" + random.nextInt(10),
+            date,
+            valid ? "GET" : randomOf(random, METHODS),
+            random.nextInt(100),
+            random.nextBoolean() ? "" : "?q=" + random.nextInt(),
+            valid ? "200" : randomOf(random, NUMBERS),
+            valid ? String.valueOf(random.nextInt(1 << 20)) : randomOf(random, NUMBERS),
+            random.nextBoolean() ? "-" : "http://example.com/" + random.nextInt(10),
+            randomAgent(random)
+        );
+    }
+
+    private static String mutate(Random random, String line) {
+        StringBuilder mutated = new StringBuilder(line);
+        for (int i = random.nextInt(1, 3); i > 0 && !mutated.isEmpty(); i--) {
+            int position = random.nextInt(mutated.length());
+            if (random.nextBoolean()) {
+                mutated.deleteCharAt(position);
+            } else {
+                mutated.insert(position, randomOf(random, INSERTIONS));
+            }
+        }
+        return mutated.toString();
+    }
+
+    private static Object outcome(Function<String, LogRecord> parser, String line) {
+        try {
+            return parser.apply(line);
+        } catch (RuntimeException e) {
+            return e.getClass().getName() + ": " + e.getMessage();
+        }
+    }
+
+    @Test
+    public void sameAsRegularExpressionOnGeneratedCorpus() {
+        Random random = new Random(20_150_518);
+        NginxTimestampDecoder scanningDecoder = new NginxTimestampDecoder();
+        NginxTimestampDecoder regexDecoder = new NginxTimestampDecoder();
+        FieldExtractor extractor = new FieldExtractor(LogField.ALL, new StringDictionary(64));
+        int scanned = 0;
+        int total = 200_000;
+        for (int i = 0; i < total; i++) {
+            String line = randomLine(random);
+            if (random.nextInt(3) == 0) {
+                line = mutate(random, line);
+            }
+
+            assertThat(outcome(l -> NginxScanningLogParser.parseNginx(l, scanningDecoder, extractor), line))
+                .as(line)
+                .isEqualTo(outcome(l -> NginxLogParser.parseNginx(l, regexDecoder, FieldExtractor.ALL_FIELDS), line));
+            Object scannedOutcome = outcome(
+                l -> NginxScanningLogParser.scan(l, scanningDecoder, FieldExtractor.ALL_FIELDS), line
+            );
+            if (scannedOutcome instanceof LogRecord) {
+                scanned++;
+            }
+        }
+
+        assertThat(scanned).isGreaterThan(total / 3);
+    }
+
+    @Test
+    public void lineTimeSameAsParsedOnGeneratedCorpus() {
+        Random random = new Random(20_241_019);
+        NginxTimestampDecoder lineDecoder = new NginxTimestampDecoder();
+        NginxTimestampDecoder decoder = new NginxTimestampDecoder();
+        int decoded = 0;
+        for (int i = 0; i < 50_000; i++) {
+            String line = randomLine(random);
+            if (random.nextInt(3) == 0) {
+                line = mutate(random, line);
+            }
+
+            LocalDateTime lineTime = lineDecoder.decodeLineTime(line);
+            if (lineTime != null && outcome(l -> NginxLogParser.parseNginx(l, decoder, FieldExtractor.ALL_FIELDS), line)
+                instanceof LogRecord log) {
+                assertThat(lineTime).as(line).isEqualTo(log.timeLocal());
+                decoded++;
+            }
+        }
+
+        assertThat(decoded).isGreaterThan(10_000);
+    }
+
+    private static Object tolerantOutcome(Object strictOutcome) {
+        if (strictOutcome instanceof LogRecord) {
+            return strictOutcome;
+        }
+        String error = (String) strictOutcome;
+        if (error.contains("Invalid Nginx log line")) {
+            return MalformedReason.FORMAT;
+        }
+        return error.contains("Invalid date") ? MalformedReason.TIME : MalformedReason.NUMBER;
+    }
+
+    @Test
+    public void tolerantParsersSkipSameLinesAsStrict() {
+        Random random = new Random(20_241_020);
+        List<String> lines = new ArrayList<>();
+        List<Object> expected = new ArrayList<>();
+        NginxTimestampDecoder decoder = new NginxTimestampDecoder();
+        for (int i = 0; i < 50_000; i++) {
+            String line = randomLine(random);
+            if (random.nextInt(3) == 0) {
+                line = mutate(random, line);
+            }
+            lines.add(line);
+            expected.add(tolerantOutcome(
+                outcome(l -> NginxLogParser.parseNginx(l, decoder, FieldExtractor.ALL_FIELDS), line)
+            ));
+        }
+
+        for (LogParser parser : List.of(new NginxLogParser(), new NginxScanningLogParser())) {
+            List<Object> actual = new ArrayList<>();
+            MalformedLines malformed = new MalformedLines();
+            parser.parse(lines.stream().peek(line -> actual.add(null)), LogField.ALL, malformed)
+                .forEach(log -> actual.set(actual.size() - 1, log));
+            for (int i = 0; i < actual.size(); i++) {
+                if (actual.get(i) == null) {
+                    actual.set(i, "malformed");
+                }
+            }
+
+            assertThat(actual).isEqualTo(expected.stream()
+                .map(outcome -> outcome instanceof LogRecord ? outcome : "malformed")
+                .toList());
+            for (MalformedReason reason : MalformedReason.values()) {
+                assertThat(malformed.count(reason)).as(reason.name())
+                    .isEqualTo(expected.stream().filter(reason::equals).count())
+                    .isPositive();
+            }
+        }
+    }
+
+    @Test
+    public void lineChecksAcceptSameLinesAsStrict() {
+        Random random = new Random(20_241_021);
+        NginxTimestampDecoder decoder = new NginxTimestampDecoder();
+        List<Predicate<String>> checks = List.of(
+            new NginxLogParser().createLineCheck(), new NginxScanningLogParser().createLineCheck()
+        );
+        int rejected = 0;
+        for (int i = 0; i < 50_000; i++) {
+            String line = randomLine(random);
+            if (random.nextInt(3) == 0) {
+                line = mutate(random, line);
+            }
+            boolean expected = outcome(l -> NginxLogParser.parseNginx(l, decoder, FieldExtractor.NO_FIELDS), line)
+                instanceof LogRecord;
+            if (!expected) {
+                rejected++;
+            }
+
+            for (Predicate<String> check : checks) {
+                assertThat(check.test(line)).as(line).isEqualTo(expected);
+            }
+        }
+
+        assertThat(rejected).isGreaterThan(1000);
+    }
+
+    private static Object projectedOutcome(Object outcome, Set<LogField> fields) {
+        if (!(outcome instanceof LogRecord log)) {
+            return outcome;
+        }
+        return new LogRecord(
+            fields.contains(LogField.ADDRESS) ? log.remoteAddr() : null,
+            fields.contains(LogField.USER) ? log.remoteUser() : null,
+            log.timeLocal(),
+            fields.contains(LogField.METHOD) ? log.method() : null,
+            fields.contains(LogField.RESOURCE) ? log.resource() : null,
+            log.status(),
+            log.bytesSent(),
+            fields.contains(LogField.REFERER) ? log.httpReferer() : null,
+            fields.contains(LogField.AGENT) ? log.httpUserAgent() : null
+        );
+    }
+
+    @Test
+    public void projectionSkipsOnlyUnusedFields() {
+        Random random = new Random(20_241_018);
+        LogField[] fields = LogField.values();
+        for (int i = 0; i < 50_000; i++) {
+            String line = randomLine(random);
+            if (random.nextInt(3) == 0) {
+                line = mutate(random, line);
+            }
+            Set<LogField> projection = EnumSet.noneOf(LogField.class);
+            for (LogField field : fields) {
+                if (random.nextBoolean()) {
+                    projection.add(field);
+                }
+            }
+            FieldExtractor extractor = new FieldExtractor(projection, new StringDictionary(16));
+
+            Object expected = projectedOutcome(
+                outcome(l -> NginxLogParser.parseNginx(l, new NginxTimestampDecoder(), FieldExtractor.ALL_FIELDS), line),
+                projection
+            );
+            assertThat(outcome(l -> NginxScanningLogParser.parseNginx(l, new NginxTimestampDecoder(), extractor), line))
+                .as(line + " " + projection)
+                .isEqualTo(expected);
+            assertThat(outcome(l -> NginxLogParser.parseNginx(l, new NginxTimestampDecoder(), extractor), line))
+                .as(line + " " + projection)
+                .isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void parseWithFields() {
+        String line = "54.207.57.55 - - [18/May/2015:06:05:26 +0000] \"GET /downloads/product_2 HTTP/1.1\" 304 0 \"-\" \"APT\"";
+
+        List<LogRecord> logs = new NginxScanningLogParser(16)
+            .parse(Stream.of(line), EnumSet.of(LogField.RESOURCE, LogField.TIME))
+            .toList();
+
+        assertThat(logs).containsExactly(new LogRecord(
+            null, null, LocalDateTime.of(2015, 5, 18, 6, 5, 26), null, "/downloads/product_2", 304, 0, null, null
+        ));
+    }
+
+    @Test
+    public void ambiguousLinesAreLeftToRegularExpression() {
+        String line = "1.1.1.1 - - [18/May/2015:06:05:26 +0000] \"GET /a HTTP/1.1\" 200 1 \"-\" "
+            + "\"x] \"GET /b HTTP/1.1\" 200 2 \"-\" \"y\"";
+
+        assertThat(NginxScanningLogParser.scan(line, new NginxTimestampDecoder(), FieldExtractor.ALL_FIELDS)).isNull();
+        assertThat(outcome(
+            l -> NginxScanningLogParser.parseNginx(l, new NginxTimestampDecoder(), FieldExtractor.ALL_FIELDS), line
+        )).isEqualTo(outcome(
+            l -> NginxLogParser.parseNginx(l, new NginxTimestampDecoder(), FieldExtractor.ALL_FIELDS), line
+        ));
+    }
+
+    @Test
+    public void validLogs() {
+        LogParser parser = new NginxScanningLogParser();
+        Stream<String> rawLogs = Stream.of(
+            "54.207.57.55 - - [18/May/2015:06:05:26 +0800] \"GET /downloads/product_2 HTTP/1.1\" 304 0 \"-\" \"Debian APT-HTTP/1.3 (0.9.7.9)\"",
+            "79.136.114.202 - example [04/Jun/2015:07:06:47 +0000] \"TRACE /downloads/product_1 HTTP/1.1\" 404 340 \"comonad\" \"Winmac\""
+        );
+
+        List<LogRecord> logs = parser.parse(rawLogs).toList();
+
+        assertThat(logs).containsExactly(
+            new LogRecord(
+                "54.207.57.55", "-",
+                DateTimeFormatter.ISO_LOCAL_DATE_TIME.parse("2015-05-17T22:05:26", LocalDateTime::from),
+                "GET", "/downloads/product_2", 304, 0, "-", "Debian APT-HTTP/1.3 (0.9.7.9)"
+            ),
+            new LogRecord(
+                "79.136.114.202", "example",
+                DateTimeFormatter.ISO_LOCAL_DATE_TIME.parse("2015-06-04T07:06:47", LocalDateTime::from),
+                "TRACE", "/downloads/product_1", 404, 340, "comonad", "Winmac"
+            )
+        );
+    }
+}
@@ -0,0 +1,118 @@
+package backend.academy.logs.parser;
+
+import backend.academy.logs.exceptions.ParseException;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class NginxTimestampDecoderTest {
+    private static final String[] MONTHS = {"Jan", "Feb", "Mar", "Apr", "Dec", "may", "MAY", "Foo", "Ma"};
+    private static final String[] OFFSETS = {
+        "+0000", "-0000", "+0800", "-0330", "+1400", "-1800", "+1800", "+1801", "+1900", "+0060", "+00", "Z", "0000"
+    };
+
+    private static Object outcome(Function<String, LocalDateTime> decoder, String text) {
+        try {
+            return decoder.apply(text);
+        } catch (ParseException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static String randomTimestamp(Random random) {
+        boolean valid = random.nextInt(4) != 0;
+        return String.format(
+            valid ? "%02d/%s/%04d:%02d:%02d:%02d %s" : "%d/%s/%d:%02d:%d:%02d %s",
+            random.nextInt(valid ? 1 : 0, valid ? 29 : 33),
+            valid ? MONTHS[random.nextInt(4)] : MONTHS[random.nextInt(MONTHS.length)],
+            valid ? random.nextInt(1, 3000) : random.nextInt(0, 12_000),
+            random.nextInt(valid ? 24 : 26),
+            random.nextInt(valid ? 60 : 62),
+            random.nextInt(valid ? 60 : 62),
+            valid ? OFFSETS[random.nextInt(4)] : OFFSETS[random.nextInt(OFFSETS.length)]
+        );
+    }
+
+    @Test
+    public void sameAsFormatterOnGeneratedTimestamps() {
+        Random random = new Random(20_150_518);
+        NginxTimestampDecoder decoder = new NginxTimestampDecoder();
+        for (int i = 0; i < 100_000; i++) {
+            String text = randomTimestamp(random);
+
+            assertThat(outcome(decoder::decode, text))
+                .as(text)
+                .isEqualTo(outcome(NginxLogParser::parseTime, text));
+        }
+    }
+
+    @Test
+    public void sameAsFormatterOnOrderedTimestamps() {
+        NginxTimestampDecoder decoder = new NginxTimestampDecoder();
+        LocalDateTime time = LocalDateTime.of(2015, 12, 31, 15, 59, 0);
+        for (int i = 0; i < 10_000; i++) {
+            String text = String.format("%02d/Dec/%d:%02d:%02d:%02d -0800",
+                time.getDayOfMonth(), time.getYear(), time.getHour(), time.getMinute(), time.getSecond());
+
+            assertThat(decoder.decode(text)).as(text).isEqualTo(NginxLogParser.parseTime(text));
+            assertThat(decoder.decode(text)).as(text).isEqualTo(NginxLogParser.parseTime(text));
+            time = time.plusSeconds(i % 3);
+        }
+    }
+
+    @Test
+    public void decodeInsideLine() {
+        NginxTimestampDecoder decoder = new NginxTimestampDecoder();
+        String line = "[18/May/2015:06:05:26 +0300] [18/May/2015:06:05:27 +0300]";
+
+        assertThat(decoder.decode(line, 1, 27)).isEqualTo(LocalDateTime.of(2015, 5, 18, 3, 5, 26));
+        assertThat(decoder.decode(line, 30, 56)).isEqualTo(LocalDateTime.of(2015, 5, 18, 3, 5, 27));
+        assertThat(decoder.decode(line, 1, 27)).isEqualTo(LocalDateTime.of(2015, 5, 18, 3, 5, 26));
+    }
+
+    @Test
+    public void decodeLineTime() {
+        NginxTimestampDecoder decoder = new NginxTimestampDecoder();
+        String line = "1.1.1.1 - user [18/May/2015:06:05:26 +0300] \"GET /a HTTP/1.1\" 200 1 \"-\" \"[01/Jan/2000:00:00:00 +0000] \"\"";
+
+        assertThat(decoder.decodeLineTime(line)).isEqualTo(LocalDateTime.of(2015, 5, 18, 3, 5, 26));
+        assertThat(decoder.decodeLineTime(line)).isEqualTo(LocalDateTime.of(2015, 5, 18, 3, 5, 26));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "1.1.1.1 - - [32/Jan/2015:06:05:26 +0000] \"GET / HTTP/1.1\" 200 1 \"-\" \"-\"",
+        "1.1.1.1 - - [18/May/2015:06:05:26 +0000]\"GET / HTTP/1.1\" 200 1 \"-\" \"-\"",
+        "1.1.1.1 - a b [18/May/2015:06:05:26 +0000] \"GET / HTTP/1.1\" 200 1 \"-\" \"-\"",
+        "1.1.1.1 -- [18/May/2015:06:05:26 +0000] \"GET / HTTP/1.1\" 200 1 \"-\" \"-\"",
+        "1.1.1.1 - - [18/May/2015:6:05:26 +0000] \"GET / HTTP/1.1\" 200 1 \"-\" \"-\"",
+        "1.1.1.1 - - [18/May/2015:06:05:26 +0000",
+        "1.1.1.1 - - [10/Oct/20a5:12:00:00 +0000] \"GET / HTTP/1.1\" 200 1 \"-\" \"-\"",
+        "1.1.1.1 - - [10/Oct/2a15:12:00:00 +0000] \"GET / HTTP/1.1\" 200 1 \"-\" \"-\"",
+        ""
+    })
+    public void undecodableLineTime(String line) {
+        assertThat(new NginxTimestampDecoder().decodeLineTime(line)).isNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "32/Jan/2015:06:05:26 +0000", "18/May/2015:24:05:26 +0000", "18/may/2015:06:05:26 +0000",
+        "18/May/2015:06:05:26 +1900", "18/May/2015:06:05:26", "18/May/2015:06:05:26 +0000 ", "",
+        "10/Oct/20a5:12:00:00 +0000", "10/Oct/2a15:12:00:00 +0000", "10/Oct/ 015:12:00:00 +0000"
+    })
+    public void invalidTimestamps(String text) {
+        NginxTimestampDecoder decoder = new NginxTimestampDecoder();
+
+        assertThat(decoder.tryDecode(text, 0, text.length())).isNull();
+
+        assertThatThrownBy(() -> decoder.decode(text))
+            .isInstanceOf(ParseException.class)
+            .hasMessage("Invalid date in Nginx log: " + text);
+    }
+}
@@ -0,0 +1,61 @@
+package backend.academy.logs.parser;
+
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StringDictionaryTest {
+    @Test
+    public void repeatedValuesAreCanonical() {
+        StringDictionary dictionary = new StringDictionary(16);
+        String line = "GET POST GET";
+
+        String first = dictionary.intern(line, 0, 3);
+        String post = dictionary.intern(line, 4, 8);
+        String second = dictionary.intern(line, 9, 12);
+
+        assertThat(first).isEqualTo("GET").isSameAs(second);
+        assertThat(post).isEqualTo("POST");
+        assertThat(dictionary.stats()).isEqualTo(new DictionaryStats(1, 2, 0));
+    }
+
+    @Test
+    public void sizeIsBounded() {
+        StringDictionary dictionary = new StringDictionary(4);
+        for (int i = 0; i < 100; i++) {
+            String value = "agent" + i;
+            assertThat(dictionary.intern(value, 0, value.length())).isEqualTo(value);
+        }
+
+        DictionaryStats stats = dictionary.stats();
+        assertThat(stats.misses()).isEqualTo(100);
+        assertThat(stats.evictions()).isBetween(96L, 100L);
+    }
+
+    @Test
+    public void longAndDisabledValuesAreCopied() {
+        StringDictionary dictionary = new StringDictionary(4);
+        String line = "x".repeat(StringDictionary.MAX_VALUE_LENGTH + 1);
+
+        assertThat(dictionary.intern(line, 0, line.length())).isEqualTo(line);
+        assertThat(StringDictionary.NONE.intern("abc", 1, 3)).isEqualTo("bc");
+        assertThat(dictionary.stats()).isEqualTo(DictionaryStats.EMPTY);
+        assertThat(StringDictionary.NONE.stats()).isEqualTo(DictionaryStats.EMPTY);
+    }
+
+    @Test
+    public void parserReportsStats() {
+        String line = "1.1.1.1 - - [18/May/2015:06:05:26 +0000] \"GET /a HTTP/1.1\" 200 1 \"-\" \"agent\"";
+        for (LogParser parser : List.of(new NginxLogParser(64), new NginxScanningLogParser(64))) {
+            List<LogRecord> logs;
+            try (Stream<String> lines = Stream.of(line, line, line)) {
+                logs = parser.parse(lines).toList();
+            }
+
+            assertThat(logs.get(0).httpUserAgent()).isSameAs(logs.get(2).httpUserAgent());
+            assertThat(parser.dictionaryStats()).contains(new DictionaryStats(9, 3, 0));
+        }
+        assertThat(new NginxLogParser().dictionaryStats()).isEmpty();
+    }
+}
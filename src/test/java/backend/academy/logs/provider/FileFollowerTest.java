@@ -0,0 +1,145 @@
+package backend.academy.logs.provider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileFollowerTest {
+    private static Map<String, List<String>> poll(FileFollower follower) throws IOException {
+        Map<String, List<String>> lines = new LinkedHashMap<>();
+        follower.poll((name, batch) -> lines.computeIfAbsent(name, key -> new ArrayList<>()).addAll(batch));
+        return lines;
+    }
+
+    private static void append(Path file, String content) throws IOException {
+        Files.writeString(file, content, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static FileFollower follower(Path dir) throws IOException {
+        return FileFollower.create(FileLogProvider.create(dir.toString(), "**access.log*"));
+    }
+
+    @Test
+    public void appendedLines() throws IOException {
+        Path dir = Files.createTempDirectory(".");
+        Path file = dir.resolve("access.log");
+        append(file, "first\nsecond\r\nthi");
+
+        try (FileFollower follower = follower(dir)) {
+            assertThat(poll(follower)).isEqualTo(Map.of(file.toString(), List.of("first", "second")));
+            assertThat(poll(follower)).isEmpty();
+
+            append(file, "rd\nfourth");
+            assertThat(poll(follower)).isEqualTo(Map.of(file.toString(), List.of("third")));
+
+            append(file, "\n");
+            assertThat(poll(follower)).isEqualTo(Map.of(file.toString(), List.of("fourth")));
+        }
+    }
+
+    @Test
+    public void emptyFileIsReported() throws IOException {
+        Path dir = Files.createTempDirectory(".");
+        Path file = Files.createFile(dir.resolve("access.log"));
+
+        try (FileFollower follower = follower(dir)) {
+            assertThat(poll(follower)).isEqualTo(Map.of(file.toString(), List.of()));
+        }
+    }
+
+    @Test
+    public void rotation() throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory(".");
+        Path file = dir.resolve("access.log");
+        Path rotated = dir.resolve("access.log.1");
+        Path archived = dir.resolve("old.log");
+        append(file, "first\n");
+
+        try (FileFollower follower = follower(dir)) {
+            assertThat(poll(follower)).isEqualTo(Map.of(file.toString(), List.of("first")));
+
+            append(file, "second\nlast");
+            Files.move(file, rotated);
+            append(file, "new\n");
+            awaitDirectoryChange(follower);
+            Map<String, List<String>> lines = poll(follower);
+            assertThat(lines).isEqualTo(Map.of(
+                rotated.toString(), List.of("second"),
+                file.toString(), List.of("new")
+            ));
+
+            Files.move(rotated, archived);
+            awaitDirectoryChange(follower);
+            assertThat(poll(follower)).isEqualTo(Map.of(rotated.toString(), List.of("last")));
+        }
+    }
+
+    @Test
+    public void truncation() throws IOException {
+        Path dir = Files.createTempDirectory(".");
+        Path file = dir.resolve("access.log");
+        append(file, "first line\nsecond line\n");
+
+        try (FileFollower follower = follower(dir)) {
+            assertThat(poll(follower)).isEqualTo(Map.of(file.toString(), List.of("first line", "second line")));
+
+            Files.writeString(file, "new\n", StandardOpenOption.TRUNCATE_EXISTING);
+            assertThat(poll(follower)).isEqualTo(Map.of(file.toString(), List.of("new")));
+        }
+    }
+
+    @Test
+    public void newFilesAndDirectories() throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory(".");
+        try (FileFollower follower = follower(dir)) {
+            assertThat(poll(follower)).isEmpty();
+
+            Path subDir = Files.createDirectory(dir.resolve("sub"));
+            awaitDirectoryChange(follower);
+            assertThat(poll(follower)).isEmpty();
+
+            Path file = subDir.resolve("access.log");
+            append(file, "created\n");
+            append(dir.resolve("error.log"), "not matching\n");
+            awaitDirectoryChange(follower);
+            assertThat(poll(follower)).isEqualTo(Map.of(file.toString(), List.of("created")));
+        }
+    }
+
+    @Test
+    public void gzipFilesAreIgnored() throws IOException {
+        Path dir = Files.createTempDirectory(".");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write("compressed\n".getBytes(StandardCharsets.UTF_8));
+        }
+        Files.write(dir.resolve("access.log.2.gz"), bytes.toByteArray());
+
+        try (FileFollower follower = follower(dir)) {
+            assertThat(poll(follower)).isEmpty();
+        }
+    }
+
+    /**
+     * Waits for the file system watcher, which may report the events with a delay (e.g. when polling).
+     */
+    private static void awaitDirectoryChange(FileFollower follower) throws InterruptedException {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(15));
+        while (!follower.hasDirectoryChanges() && Instant.now().isBefore(deadline)) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -1,12 +1,19 @@
 package backend.academy.logs.provider;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.io.function.Uncheck;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 
@@ -17,6 +24,31 @@ public class FileLogProviderTest {
         }
     }
 
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes the content as concatenated gzip members of the given sizes, the last member takes the rest.
+     */
+    private static Path writeMembers(String content, int... memberSizes) throws IOException {
+        Path dir = Files.createTempDirectory(".");
+        Path file = Files.createTempFile(dir, "crocodileTEST", ".gz");
+        try (OutputStream output = Files.newOutputStream(file)) {
+            int start = 0;
+            for (int size : memberSizes) {
+                output.write(gzip(content.substring(start, start + size)));
+                start += size;
+            }
+            output.write(gzip(content.substring(start)));
+        }
+        return file;
+    }
+
     @Test
     public void oneFile() throws IOException {
         Path dir = Files.createTempDirectory(".");
@@ -82,4 +114,98 @@ public class FileLogProviderTest {
 
         assertThat(actual).contains(List.of("main dir"), List.of("First sub"), List.of("second sub"));
     }
+
+    @ParameterizedTest
+    @CsvSource({
+        "1, 1",
+        "2, 1",
+        "7, 1",
+        "16, 100",
+        "3, 100000",
+        "64, 1",
+    })
+    public void splitKeepsLines(int parts, long minChunkSize) throws IOException {
+        Path dir = Files.createTempDirectory(".");
+        Path file = Files.createTempFile(dir, "crocodileTEST", null);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            content.append("line number ").append(i).append(i % 7 == 0 ? "\r\n" : "\n");
+            if (i % 50 == 0) {
+                content.append("\n");
+            }
+        }
+        content.append("last line without a line feed");
+        Files.writeString(file, content);
+
+        FileView view = FileLogProvider.create(dir.toString(), "**crocodileTEST*").getLogs().getFirst();
+        List<FileView> chunks = view.split(parts, minChunkSize);
+
+        assertThat(chunks).hasSizeLessThanOrEqualTo(parts).allMatch(chunk -> chunk.name().equals(view.name()));
+        assertThat(chunks.stream().flatMap(chunk -> getString(chunk).stream()).toList())
+            .isEqualTo(getString(view));
+    }
+
+    @Test
+    public void splitLongLine() throws IOException {
+        Path dir = Files.createTempDirectory(".");
+        Path file = Files.createTempFile(dir, "crocodileTEST", null);
+        Files.writeString(file, "a".repeat(1000) + "\nshort\n" + "b".repeat(1000));
+
+        FileView view = FileLogProvider.create(dir.toString(), "**crocodileTEST*").getLogs().getFirst();
+        List<FileView> chunks = view.split(8, 1);
+
+        assertThat(chunks).hasSize(3);
+        assertThat(chunks.stream().flatMap(chunk -> getString(chunk).stream()).toList())
+            .isEqualTo(List.of("a".repeat(1000), "short", "b".repeat(1000)));
+    }
+
+    @Test
+    public void gzipFile() throws IOException {
+        String content = "first line\nsecond line\r\nthird line";
+        Path file = writeMembers(content);
+        Path multiMember = writeMembers(content, 3, 12, 0);
+
+        assertThat(getString(new FileView("gzip", () -> Uncheck.get(() -> Files.newInputStream(file)))))
+            .isEqualTo(List.of("first line", "second line", "third line"));
+        assertThat(getString(new FileView("gzip", () -> Uncheck.get(() -> Files.newInputStream(multiMember)))))
+            .isEqualTo(List.of("first line", "second line", "third line"));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "1, 1",
+        "2, 1",
+        "7, 1",
+        "16, 100",
+        "3, 100000",
+        "64, 1",
+    })
+    public void splitGzipKeepsLines(int parts, long minChunkSize) throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            content.append("line number ").append(i).append(i % 7 == 0 ? "\r\n" : "\n");
+        }
+        content.append("last line without a line feed");
+        // members end in the middle of lines, on line feeds and one member has no line feeds at all
+        int[] memberSizes = {5, 1000, 3, 7, 2000, 16, 16, 4000, 1};
+        Path file = writeMembers(content.toString(), memberSizes);
+
+        FileView view = FileLogProvider.create(file.getParent().toString(), "**crocodileTEST*").getLogs().getFirst();
+        List<FileView> chunks = view.split(parts, minChunkSize);
+
+        assertThat(chunks).hasSizeLessThanOrEqualTo(parts).allMatch(chunk -> chunk.name().equals(view.name()));
+        assertThat(chunks).hasSizeGreaterThan(parts > 2 && minChunkSize == 1 ? 1 : 0);
+        assertThat(getString(view)).isEqualTo(content.toString().lines().toList());
+        assertThat(chunks.stream().flatMap(chunk -> getString(chunk).stream()).toList())
+            .isEqualTo(getString(view));
+    }
+
+    @Test
+    public void splitGzipOfOneMember() throws IOException {
+        Path file = writeMembers("a\n".repeat(10_000));
+
+        FileView view = FileLogProvider.create(file.getParent().toString(), "**crocodileTEST*").getLogs().getFirst();
+
+        assertThat(view.split(8, 1)).hasSize(1);
+    }
 }
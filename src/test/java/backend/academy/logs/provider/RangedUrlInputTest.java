@@ -0,0 +1,199 @@
+package backend.academy.logs.provider;
+
+import backend.academy.logs.generator.GeneratorSettings;
+import backend.academy.logs.generator.LogGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RangedUrlInputTest {
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private ExecutorService executor;
+    private HttpServer server;
+    private byte[] content;
+    private boolean acceptRanges;
+    private long failingRangeStart = -1;
+
+    private static List<String> lines(long count) throws IOException {
+        LogGenerator generator = LogGenerator.create(GeneratorSettings.defaults().withLines(count));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+            generator.write(writer);
+        }
+        return bytes.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    private static byte[] join(List<String> lines) {
+        return (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        executor = Executors.newFixedThreadPool(8);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/access.log", this::serve);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try (exchange) {
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            Matcher matcher = range == null ? null : RANGE.matcher(range);
+            if (!acceptRanges || matcher == null || !matcher.matches()) {
+                send(exchange, 200, 0, content.length);
+                return;
+            }
+            int start = Integer.parseInt(matcher.group(1));
+            int end = Math.min(content.length - 1, Integer.parseInt(matcher.group(2)));
+            if (start == failingRangeStart) {
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+            // latency of the server, the ranges requested at once overlap in it
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } finally {
+                active.decrementAndGet();
+            }
+            send(exchange, 206, start, end - start + 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void send(HttpExchange exchange, int status, int offset, int length) throws IOException {
+        exchange.sendResponseHeaders(status, length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(content, offset, length);
+        }
+    }
+
+    private List<String> download(int connections) throws Exception {
+        LogProvider provider = UrlLogProvider.create(
+            "http://localhost:" + server.getAddress().getPort() + "/access.log", connections, SEGMENT_SIZE
+        );
+        try (Stream<String> lines = provider.getLogs().getFirst().getContent()) {
+            return lines.toList();
+        }
+    }
+
+    @Test
+    public void segmentsAreDownloadedInParallelAndJoined() throws Exception {
+        List<String> expected = lines(10_000);
+        content = join(expected);
+        acceptRanges = true;
+
+        assertThat(download(4)).isEqualTo(expected);
+        // the probe and every segment
+        assertThat(requests.get()).isEqualTo(1 + (content.length + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+        assertThat(maxActive.get()).isGreaterThan(1).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    public void serverWithoutRangesIsReadAsSingleResponse() throws Exception {
+        List<String> expected = lines(10_000);
+        content = join(expected);
+        acceptRanges = false;
+
+        assertThat(download(4)).isEqualTo(expected);
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void smallSourceIsReadAsSingleResponse() throws Exception {
+        List<String> expected = lines(10);
+        content = join(expected);
+        acceptRanges = true;
+
+        assertThat(download(4)).isEqualTo(expected);
+        assertThat(requests.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void gzipSegmentsAreInflatedAsWhole() throws Exception {
+        List<String> expected = lines(20_000);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (OutputStream output = new GZIPOutputStream(gzip)) {
+            output.write(join(expected));
+        }
+        content = gzip.toByteArray();
+        acceptRanges = true;
+
+        assertThat(content.length).isGreaterThan(2 * SEGMENT_SIZE);
+        assertThat(download(3)).isEqualTo(expected);
+    }
+
+    private static Set<Thread> clientThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> thread.getName().startsWith("HttpClient-"))
+            .collect(Collectors.toSet());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void clientsAreShutDownWithTheirInputs(boolean ranges) throws Exception {
+        content = join(lines(10_000));
+        acceptRanges = ranges;
+        Set<Thread> before = clientThreads();
+
+        download(4);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!before.containsAll(clientThreads()) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(before).containsAll(clientThreads());
+    }
+
+    @Test
+    public void failedSegmentFailsTheRead() throws IOException {
+        content = join(lines(10_000));
+        acceptRanges = true;
+        failingRangeStart = 2 * SEGMENT_SIZE;
+
+        assertThatThrownBy(() -> download(4))
+            .isInstanceOf(UncheckedIOException.class)
+            .hasMessageContaining("status 500");
+    }
+}
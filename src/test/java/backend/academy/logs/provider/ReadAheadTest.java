@@ -0,0 +1,186 @@
+package backend.academy.logs.provider;
+
+import backend.academy.logs.analyzer.AnalysisResult;
+import backend.academy.logs.analyzer.AnalyzerOptions;
+import backend.academy.logs.analyzer.LogAnalyzer;
+import backend.academy.logs.analyzer.MalformedLinesPolicy;
+import backend.academy.logs.generator.GeneratorSettings;
+import backend.academy.logs.generator.LogGenerator;
+import backend.academy.logs.parser.MalformedLines;
+import backend.academy.logs.parser.NginxLogParser;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ReadAheadTest {
+    private static FileView lines(int count, int failAfter, long delayNanos) {
+        byte[] content = IntStream.range(0, count).mapToObj(i -> "line " + i)
+            .collect(Collectors.joining("\n", "", "\n"))
+            .getBytes(StandardCharsets.UTF_8);
+        return new FileView("lines", () -> new SlowInput(new ByteArrayInputStream(content), failAfter, delayNanos));
+    }
+
+    private static List<String> read(ReadAhead readAhead, FileView file) {
+        try (Stream<String> lines = readAhead.lines(file)) {
+            return lines.toList();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    public void linesAreTheSameAsTheContent(boolean gzip) throws IOException {
+        Path file = Files.createTempFile("read-ahead", gzip ? ".log.gz" : ".log");
+        LogGenerator.write(GeneratorSettings.defaults().withLines(10_000), file, gzip);
+        ReadAhead readAhead = ReadAhead.create(4, 100);
+
+        List<String> expected;
+        try (Stream<String> lines = FileView.ofLocalFile(file).getContent()) {
+            expected = lines.toList();
+        }
+
+        assertThat(read(readAhead, FileView.ofLocalFile(file))).isEqualTo(expected);
+        assertThat(readAhead.stats().lines()).isEqualTo(10_000);
+        assertThat(readAhead.stats().batches()).isEqualTo(10_000 / 100 + 1);
+        assertThat(readAhead.stats().maxQueued()).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    public void slowParserStallsTheReader() {
+        ReadAhead readAhead = ReadAhead.create(2, 10);
+
+        try (Stream<String> lines = readAhead.lines(lines(2000, -1, 0))) {
+            lines.forEach(line -> sleep(100_000));
+        }
+
+        assertThat(readAhead.stats().readBound()).isFalse();
+        assertThat(readAhead.stats().readerStallNanos()).isPositive();
+        assertThat(readAhead.stats().averageQueued()).isGreaterThan(1);
+        assertThat(readAhead.stats().maxQueued()).isEqualTo(2);
+    }
+
+    @Test
+    public void slowReadsStallTheParser() {
+        ReadAhead readAhead = ReadAhead.create(8, 10);
+
+        assertThat(read(readAhead, lines(200, -1, 1_000_000))).hasSize(200);
+
+        assertThat(readAhead.stats().readBound()).isTrue();
+        assertThat(readAhead.stats().averageQueued()).isLessThan(1);
+    }
+
+    @Test
+    public void failureFollowsTheLinesReadBeforeIt() {
+        ReadAhead readAhead = ReadAhead.create(2, 10);
+        List<String> consumed = new ArrayList<>();
+
+        assertThatThrownBy(() -> {
+            try (Stream<String> lines = readAhead.lines(lines(1000, 1000, 0))) {
+                lines.forEach(consumed::add);
+            }
+        }).isInstanceOf(UncheckedIOException.class).hasMessageContaining("connection reset");
+        assertThat(consumed).isNotEmpty().allMatch(line -> line.startsWith("line "));
+        assertThat(consumed.getLast()).isNotEqualTo("line 999");
+    }
+
+    @Test
+    public void unexpectedFailureIsPassedToTheConsumer() {
+        ReadAhead readAhead = ReadAhead.create(2, 10);
+        FileView broken = new FileView("broken", () -> {
+            throw new IllegalStateException("no input");
+        });
+
+        assertThatThrownBy(() -> read(readAhead, broken))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("no input");
+    }
+
+    @Test
+    public void closingEarlyStopsTheReader() {
+        ReadAhead readAhead = ReadAhead.create(2, 10);
+
+        try (Stream<String> lines = readAhead.lines(lines(100_000, -1, 0))) {
+            assertThat(lines.limit(5).toList()).containsExactly("line 0", "line 1", "line 2", "line 3", "line 4");
+        }
+
+        assertThat(Thread.getAllStackTraces().keySet()).noneMatch(thread -> thread.getName().startsWith("read-ahead"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    public void analysisIsTheSameWithReadAhead(int threads) throws IOException {
+        Path file = Files.createTempFile("read-ahead", ".log");
+        LogGenerator.write(GeneratorSettings.defaults().withLines(50_000).withMalformedRatio(0.01), file, false);
+        AnalyzerOptions options = AnalyzerOptions.defaults()
+            .withMalformedPolicy(MalformedLinesPolicy.skipUpTo(MalformedLines.UNLIMITED))
+            .withThreads(threads)
+            .withMinChunkSize(64 * 1024);
+        ReadAhead readAhead = ReadAhead.create(4, ReadAhead.DEFAULT_BATCH_LINES);
+
+        AnalysisResult expected = LogAnalyzer.create(new NginxLogParser(), List.of(), options, System.err)
+            .analyze(List.of(FileView.ofLocalFile(file)));
+        AnalysisResult actual = LogAnalyzer.create(
+            new NginxLogParser(), List.of(), options.withReadAhead(Optional.of(readAhead)), System.err
+        ).analyze(List.of(FileView.ofLocalFile(file)));
+
+        assertThat(actual.collector().requestsCount()).isEqualTo(expected.collector().requestsCount());
+        assertThat(actual.collector().totalResponseSize()).isEqualTo(expected.collector().totalResponseSize());
+        assertThat(actual.malformedLines().get(file.toString()).count())
+            .isEqualTo(expected.malformedLines().get(file.toString()).count());
+        assertThat(readAhead.stats().lines()).isEqualTo(50_000);
+    }
+
+    private static void sleep(long nanos) {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Input which takes its time for every read and may fail after some bytes.
+     */
+    private static final class SlowInput extends FilterInputStream {
+        private final long failAfter;
+        private final long delayNanos;
+        private long read;
+
+        private SlowInput(InputStream input, long failAfter, long delayNanos) {
+            super(input);
+            this.failAfter = failAfter;
+            this.delayNanos = delayNanos;
+        }
+
+        @Override
+        public int available() {
+            // as a network input, so the buffers above don't read it all at once
+            return 0;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (failAfter >= 0 && read >= failAfter) {
+                throw new IOException("connection reset");
+            }
+            sleep(delayNanos);
+            int count = super.read(b, off, (int) Math.min(len, failAfter >= 0 ? failAfter - read : 64));
+            read += Math.max(0, count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package backend.academy.logs.serve;
+
+import backend.academy.logs.analyzer.AnalysisResult;
+import backend.academy.logs.analyzer.LogAnalyzer;
+import backend.academy.logs.filter.LogFilter;
+import backend.academy.logs.format.AdocFormatter;
+import backend.academy.logs.format.FormaterAdditionalData;
+import backend.academy.logs.format.MarkdownFormatter;
+import backend.academy.logs.parser.NginxLogParser;
+import backend.academy.logs.provider.FileFollower;
+import backend.academy.logs.provider.FileLogProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.function.Uncheck;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReportServerTest {
+    private static final String LINES = """
+        54.207.57.55 - - [18/May/2015:06:05:26 +0000] "GET /downloads/product_2 HTTP/1.1" 304 0 "-" "Debian APT"
+        62.75.198.179 - example [17/May/2015:08:05:06 +0000] "POST /downloads/product_2 HTTP/1.1" 200 490 "-" "curl"
+        79.136.114.202 - - [04/Jun/2015:07:06:47 +0000] "TRACE /downloads/product_1 HTTP/1.1" 404 340 "-" "curl"
+        """;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final AtomicInteger analyses = new AtomicInteger();
+    private Path dir;
+    private Path file;
+    private FileLogProvider provider;
+    private ReportService service;
+    private ReportServer server;
+
+    @BeforeEach
+    public void createService() throws IOException {
+        dir = Files.createTempDirectory("serve");
+        file = Files.writeString(dir.resolve("access.log"), LINES);
+        provider = FileLogProvider.create(dir.toString(), "**access.log");
+        PrintStream errors = new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8);
+        LogAnalyzer analyzer = LogAnalyzer.create(new NginxLogParser(), List.of(), 1, errors);
+        service = ReportService.create(analyzer, List.of(), queried -> {
+            analyses.incrementAndGet();
+            return queried.analyze(Uncheck.get(provider::getLogs));
+        }, ReportServerTest::render, ReportService.DEFAULT_CACHED_QUERIES);
+        server = ReportServer.start(service, 0, "markdown");
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.close();
+    }
+
+    private static String render(AnalysisResult analysis, List<LogFilter> filters, String format) {
+        FormaterAdditionalData additionalData = new FormaterAdditionalData(analysis.fileNames(), filters);
+        return switch (format) {
+            case "markdown" -> new MarkdownFormatter().format(analysis.collector(), additionalData);
+            case "adoc" -> new AdocFormatter().format(analysis.collector(), additionalData);
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+    }
+
+    private HttpResponse<String> get(String query) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(server.uri() + query)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void queriesAreAnsweredFromTheIngestedAndCachedResults() throws Exception {
+        service.ingest();
+
+        HttpResponse<String> all = get("");
+        assertThat(all.statusCode()).isEqualTo(200);
+        assertThat(all.body()).contains("| Requests count | 3 |").contains(file.toString());
+        assertThat(analyses).hasValue(1);
+
+        String query = "?from=" + encode("2015-05-17T09:00:00+01:00") + "&to=2015-06-01T00:00:00Z"
+            + "&filter-field=agent&filter-pattern=curl";
+        HttpResponse<String> filtered = get(query);
+        assertThat(filtered.statusCode()).isEqualTo(200);
+        assertThat(filtered.body()).contains("| Requests count | 1 |");
+        assertThat(analyses).hasValue(2);
+
+        assertThat(get(query).body()).isEqualTo(filtered.body());
+        assertThat(get(query + "&format=adoc").body()).contains("|Requests count |1");
+        assertThat(get("?format=adoc").statusCode()).isEqualTo(200);
+        assertThat(analyses).hasValue(2);
+    }
+
+    @Test
+    public void badRequestsAreRejected() throws Exception {
+        service.ingest();
+
+        assertThat(get("?since=2015-05-17T00:00:00Z").statusCode()).isEqualTo(400);
+        assertThat(get("?from=yesterday").statusCode()).isEqualTo(400);
+        assertThat(get("?filter-field=unknown&filter-pattern=x").statusCode()).isEqualTo(400);
+        assertThat(get("?filter-field=agent").statusCode()).isEqualTo(400);
+        HttpResponse<String> format = get("?format=html");
+        assertThat(format.statusCode()).isEqualTo(400);
+        assertThat(format.body()).contains("Unknown format html");
+    }
+
+    @Test
+    public void followedLinesUpdateTheReports() throws Exception {
+        try (FileFollower follower = FileFollower.create(provider)) {
+            service.poll(follower);
+            assertThat(get("").body()).contains("| Requests count | 3 |");
+            assertThat(get("?filter-field=agent&filter-pattern=curl").body()).contains("| Requests count | 2 |");
+
+            Files.writeString(file, LINES, StandardOpenOption.APPEND);
+            service.poll(follower);
+
+            assertThat(get("").body()).contains("| Requests count | 6 |");
+            assertThat(get("?filter-field=agent&filter-pattern=curl").body()).contains("| Requests count | 4 |");
+            assertThat(analyses).hasValue(2);
+        }
+    }
+
+    @Test
+    public void unfilteredQueriesAreKeptUntilFollowedLines() throws Exception {
+        Files.delete(file);
+        try (FileFollower follower = FileFollower.create(provider)) {
+            service.poll(follower);
+
+            assertThat(get("").body()).contains("| Requests count | 0 |");
+            assertThat(get("").body()).contains("| Requests count | 0 |");
+            assertThat(analyses).hasValue(1);
+        }
+    }
+
+    @Test
+    public void unexpectedFailuresAreInternalErrors() throws Exception {
+        LogAnalyzer analyzer = LogAnalyzer.create(new NginxLogParser(), List.of(), 1, System.err);
+        ReportService failing = ReportService.create(analyzer, List.of(), queried -> {
+            throw new IllegalStateException("broken analysis");
+        }, ReportServerTest::render, ReportService.DEFAULT_CACHED_QUERIES);
+
+        try (ReportServer failingServer = ReportServer.start(failing, 0, "markdown")) {
+            HttpRequest request = HttpRequest.newBuilder(failingServer.uri()).build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertThat(response.statusCode()).isEqualTo(500);
+            assertThat(response.body()).contains("broken analysis");
+        }
+    }
+}
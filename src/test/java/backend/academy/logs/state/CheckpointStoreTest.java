@@ -0,0 +1,83 @@
+package backend.academy.logs.state;
+
+import backend.academy.logs.parser.LogRecord;
+import backend.academy.logs.parser.MalformedLines;
+import backend.academy.logs.parser.MalformedReason;
+import backend.academy.logs.statistic.LogLinearSizeDistribution;
+import backend.academy.logs.statistic.SpaceSavingKeyCounter;
+import backend.academy.logs.statistic.StatisticCollector;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CheckpointStoreTest {
+    private static StatisticCollector collector() {
+        StatisticCollector collector = new StatisticCollector(new LogLinearSizeDistribution(), new SpaceSavingKeyCounter(2));
+        for (int i = 0; i < 100; i++) {
+            collector.addLog(new LogRecord(
+                null, null, LocalDateTime.of(2015, 5, 18 + i % 3, 6, 5), "GET", "/r" + i % 7, 200 + i % 2, i * 10,
+                null, null
+            ));
+        }
+        return collector;
+    }
+
+    private static FileCheckpoint checkpoint(Path file, String configuration) throws IOException {
+        MalformedLines malformed = new MalformedLines(10);
+        malformed.add("broken", MalformedReason.FORMAT);
+        return new FileCheckpoint(configuration, FileIdentity.of(file), Files.size(file), collector(), malformed, null);
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        Path file = Files.createTempFile("checkpoint", ".log");
+        Files.writeString(file, "line\n");
+        CheckpointStore store = CheckpointStore.create(Files.createTempDirectory("state").toString(), "config");
+
+        assertThat(store.load(file)).isEmpty();
+        store.save(file, checkpoint(file, "config"));
+        Files.writeString(file, "appended\n", StandardOpenOption.APPEND);
+        Optional<FileCheckpoint> loaded = store.load(file);
+
+        assertThat(loaded).isPresent();
+        StatisticCollector expected = collector();
+        StatisticCollector actual = loaded.orElseThrow().collector();
+        assertThat(actual.requestsCount()).isEqualTo(expected.requestsCount());
+        assertThat(actual.topResources()).isEqualTo(expected.topResources());
+        assertThat(actual.percentile(95)).isEqualTo(expected.percentile(95));
+        assertThat(actual.statusCount()).isEqualTo(expected.statusCount());
+        assertThat(actual.requestsPerEpochDay()).isEqualTo(expected.requestsPerEpochDay());
+        assertThat(loaded.orElseThrow().malformed().count(MalformedReason.FORMAT)).isEqualTo(1);
+        assertThat(loaded.orElseThrow().offset()).isEqualTo(5);
+    }
+
+    @Test
+    public void otherConfigurationIsIgnored() throws IOException {
+        Path file = Files.createTempFile("checkpoint", ".log");
+        Files.writeString(file, "line\n");
+        String dir = Files.createTempDirectory("state").toString();
+        CheckpointStore.create(dir, "config").save(file, checkpoint(file, "config"));
+
+        assertThat(CheckpointStore.create(dir, "other").load(file)).isEmpty();
+    }
+
+    @Test
+    public void corruptCheckpointIsIgnored() throws IOException {
+        Path file = Files.createTempFile("checkpoint", ".log");
+        Files.writeString(file, "line\n");
+        Path dir = Files.createTempDirectory("state");
+        CheckpointStore store = CheckpointStore.create(dir.toString(), "config");
+        store.save(file, checkpoint(file, "config"));
+        try (Stream<Path> checkpoints = Files.list(dir)) {
+            Files.writeString(checkpoints.findFirst().orElseThrow(), "garbage");
+        }
+
+        assertThat(store.load(file)).isEmpty();
+    }
+}
@@ -0,0 +1,57 @@
+package backend.academy.logs.statistic;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DenseCounterTest {
+    private static Map<Long, Long> toMap(DenseCounter counter) {
+        Map<Long, Long> counts = new HashMap<>();
+        counter.forEach((key, count) -> assertThat(counts.put(key, count)).isNull());
+        return counts;
+    }
+
+    @Test
+    public void sameAsMap() {
+        Random random = new Random(16);
+        DenseCounter counter = new DenseCounter(100);
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            long key = random.nextInt(10) == 0 ? random.nextLong(-1000, 1000) : random.nextLong(-30, 60) + i / 100;
+            counter.increment(key);
+            expected.merge(key, 1L, Long::sum);
+        }
+
+        assertThat(toMap(counter)).isEqualTo(expected);
+        expected.forEach((key, count) -> assertThat(counter.get(key)).isEqualTo(count));
+        assertThat(counter.get(5000)).isZero();
+    }
+
+    @Test
+    public void outliersMoveToArray() {
+        DenseCounter counter = new DenseCounter(10);
+        counter.increment(0);
+        counter.add(15, 2);
+        counter.increment(-5);
+        counter.increment(9);
+
+        assertThat(toMap(counter)).isEqualTo(Map.of(0L, 1L, 15L, 2L, -5L, 1L, 9L, 1L));
+    }
+
+    @Test
+    public void mergeLargeCounts() {
+        DenseCounter first = new DenseCounter(1000);
+        DenseCounter second = new DenseCounter(1000);
+        first.add(200, Integer.MAX_VALUE);
+        first.increment(404);
+        second.add(200, Integer.MAX_VALUE);
+        second.increment(5000);
+
+        first.merge(second);
+
+        assertThat(toMap(first)).isEqualTo(Map.of(200L, 2L * Integer.MAX_VALUE, 404L, 1L, 5000L, 1L));
+        assertThat(toMap(second)).isEqualTo(Map.of(200L, (long) Integer.MAX_VALUE, 5000L, 1L));
+    }
+}
@@ -0,0 +1,98 @@
+package backend.academy.logs.statistic;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LogLinearSizeDistributionTest {
+    private static final double[] PERCENTILES = {0, 1, 25, 50, 90, 95, 99, 99.9, 99.99, 100};
+
+    private static int randomSize(Random random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> random.nextInt(200);
+            case 1 -> random.nextInt(100_000);
+            case 2 -> (int) Math.min(Integer.MAX_VALUE, Math.exp(random.nextGaussian() * 3 + 10));
+            default -> random.nextInt(Integer.MAX_VALUE - 1000, Integer.MAX_VALUE) + 1;
+        };
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 7, 12})
+    public void errorIsBounded(int precision) {
+        Random random = new Random(precision);
+        LogLinearSizeDistribution sketch = new LogLinearSizeDistribution(precision);
+        ExactSizeDistribution exact = new ExactSizeDistribution();
+        for (int i = 0; i < 100_000; i++) {
+            int size = randomSize(random);
+            sketch.add(size);
+            exact.add(size);
+        }
+
+        assertThat(sketch.count()).isEqualTo(exact.count());
+        assertThat(sketch.relativeError()).isEqualTo(Math.pow(2, -(precision + 1)));
+        for (double percentile : PERCENTILES) {
+            int expected = exact.percentile(percentile).orElseThrow();
+            int actual = sketch.percentile(percentile).orElseThrow();
+            assertThat((double) Math.abs(actual - expected))
+                .as("p%s", percentile)
+                .isLessThanOrEqualTo(expected * sketch.relativeError());
+        }
+    }
+
+    @Test
+    public void smallSizesAreExact() {
+        LogLinearSizeDistribution sketch = new LogLinearSizeDistribution();
+        ExactSizeDistribution exact = new ExactSizeDistribution();
+        for (int size = 0; size < 128; size++) {
+            sketch.add(size);
+            exact.add(size);
+        }
+
+        for (double percentile : PERCENTILES) {
+            assertThat(sketch.percentile(percentile)).isEqualTo(exact.percentile(percentile));
+        }
+    }
+
+    @Test
+    public void mergeIsSameAsAddingAll() {
+        Random random = new Random(7);
+        LogLinearSizeDistribution all = new LogLinearSizeDistribution();
+        LogLinearSizeDistribution first = new LogLinearSizeDistribution();
+        LogLinearSizeDistribution second = new LogLinearSizeDistribution();
+        for (int i = 0; i < 10_000; i++) {
+            int size = randomSize(random);
+            all.add(size);
+            (i % 3 == 0 ? first : second).add(size);
+        }
+
+        first.merge(second);
+
+        assertThat(first.count()).isEqualTo(all.count());
+        for (double percentile : PERCENTILES) {
+            assertThat(first.percentile(percentile)).isEqualTo(all.percentile(percentile));
+        }
+    }
+
+    @Test
+    public void mergeOfDifferentKinds() {
+        LogLinearSizeDistribution sketch = new LogLinearSizeDistribution(7);
+
+        assertThatThrownBy(() -> sketch.merge(new LogLinearSizeDistribution(8)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sketch.merge(new ExactSizeDistribution()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void emptyAndInvalid() {
+        LogLinearSizeDistribution sketch = new LogLinearSizeDistribution();
+
+        assertThat(sketch.percentile(50)).isEmpty();
+        assertThatThrownBy(() -> sketch.percentile(100.5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sketch.add(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new LogLinearSizeDistribution(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,103 @@
+package backend.academy.logs.statistic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SpaceSavingKeyCounterTest {
+    private static final int CAPACITY = 100;
+
+    /**
+     * Generates keys with Zipf-like frequencies mixed with unique keys like crawled query strings.
+     */
+    private static List<String> generateKeys(int count) {
+        Random random = new Random(count);
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (random.nextInt(3) == 0) {
+                keys.add("/search?q=" + i);
+            } else {
+                keys.add("/product_" + (int) Math.floor(Math.pow(1000, random.nextDouble())));
+            }
+        }
+        return keys;
+    }
+
+    private static void assertBounds(SpaceSavingKeyCounter counter, List<String> keys, int limit) {
+        Map<String, Long> expected = new HashMap<>();
+        keys.forEach(key -> expected.merge(key, 1L, Long::sum));
+        long maxError = keys.size() / CAPACITY;
+
+        List<KeyCount> top = counter.top();
+
+        assertThat(top).hasSize(limit).isSortedAccordingTo(KeyCounter.LARGEST_FIRST);
+        for (KeyCount count : top) {
+            long trueCount = expected.get(count.key());
+            assertThat(trueCount).as(count.key()).isBetween(count.count() - count.error(), count.count());
+            assertThat(count.error()).isLessThanOrEqualTo(maxError);
+        }
+        List<String> frequent = expected.entrySet().stream()
+            .filter(entry -> entry.getValue() > top.getLast().count())
+            .map(Map.Entry::getKey)
+            .toList();
+        assertThat(top).extracting(KeyCount::key).containsAll(frequent);
+    }
+
+    @Test
+    public void countsAreBounded() {
+        List<String> keys = generateKeys(100_000);
+        SpaceSavingKeyCounter counter = new SpaceSavingKeyCounter(10, CAPACITY);
+
+        keys.forEach(counter::increment);
+
+        assertBounds(counter, keys, 10);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 3, 8})
+    public void mergedCountsAreBounded(int parts) {
+        List<String> keys = generateKeys(100_000);
+        SpaceSavingKeyCounter merged = new SpaceSavingKeyCounter(10, CAPACITY);
+
+        for (int part = 0; part < parts; part++) {
+            SpaceSavingKeyCounter counter = new SpaceSavingKeyCounter(10, CAPACITY);
+            keys.subList(keys.size() * part / parts, keys.size() * (part + 1) / parts).forEach(counter::increment);
+            merged.merge(counter);
+        }
+
+        assertBounds(merged, keys, 10);
+    }
+
+    @Test
+    public void fewKeysAreExact() {
+        SpaceSavingKeyCounter first = new SpaceSavingKeyCounter(3, 5);
+        SpaceSavingKeyCounter second = new SpaceSavingKeyCounter(3, 5);
+        List.of("a", "b", "a", "c", "d").forEach(first::increment);
+        List.of("a", "d", "d").forEach(second::increment);
+
+        first.merge(second);
+
+        assertThat(first.top()).containsExactly(
+            new KeyCount("a", 3, 0),
+            new KeyCount("d", 3, 0),
+            new KeyCount("b", 1, 0)
+        );
+    }
+
+    @Test
+    public void invalidArguments() {
+        assertThatThrownBy(() -> new SpaceSavingKeyCounter(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SpaceSavingKeyCounter(10, 9)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SpaceSavingKeyCounter(10, 100).merge(new SpaceSavingKeyCounter(10, 50)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SpaceSavingKeyCounter(10).merge(new ExactKeyCounter()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
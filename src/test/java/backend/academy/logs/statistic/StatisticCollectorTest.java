@@ -5,6 +5,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -13,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.instancio.Select.field;
 
 public class StatisticCollectorTest {
@@ -51,11 +53,9 @@ public class StatisticCollectorTest {
 
         records.forEach(collector::addLog);
 
-        assertThat(collector.resourcesCount()).isEqualTo(
-            Map.of(
-                "nop", 2,
-                "noop", 1
-            )
+        assertThat(collector.topResources()).containsExactly(
+            new KeyCount("nop", 2, 0),
+            new KeyCount("noop", 1, 0)
         );
     }
 
@@ -72,10 +72,29 @@ public class StatisticCollectorTest {
 
         assertThat(collector.statusCount()).isEqualTo(
             Map.of(
-                404, 1,
-                321, 2
+                404, 1L,
+                321, 2L
             )
         );
+        Map<Integer, Long> iterated = new HashMap<>();
+        collector.forEachStatus(iterated::put);
+        assertThat(iterated).isEqualTo(collector.statusCount());
+    }
+
+    @Test
+    public void testMethodsCount() {
+        StatisticCollector collector = new StatisticCollector();
+        List<LogRecord> records = List.of(
+            Instancio.of(LogRecord.class).set(field("method"), "GET").create(),
+            Instancio.of(LogRecord.class).set(field("method"), "HEAD").create(),
+            Instancio.of(LogRecord.class).set(field("method"), "GET").create()
+        );
+
+        records.forEach(collector::addLog);
+
+        assertThat(collector.methodsCount()).isEqualTo(Map.of("GET", 2L, "HEAD", 1L));
+        assertThatThrownBy(() -> collector.methodsCount().put("POST", 1L))
+            .isInstanceOf(UnsupportedOperationException.class);
     }
 
     @Test
@@ -91,13 +110,16 @@ public class StatisticCollectorTest {
 
         records.forEach(collector::addLog);
 
-        assertThat(collector.requestsPerDay()).isEqualTo(
+        assertThat(collector.requestsPerEpochDay()).isEqualTo(
             Map.of(
-                LocalDate.of(2024, 11, 12), 3,
-                LocalDate.of(2024, 12, 12), 1,
-                LocalDate.of(2023, 11, 12), 1
+                LocalDate.of(2024, 11, 12).toEpochDay(), 3L,
+                LocalDate.of(2024, 12, 12).toEpochDay(), 1L,
+                LocalDate.of(2023, 11, 12).toEpochDay(), 1L
             )
         );
+        Map<Long, Long> iterated = new HashMap<>();
+        collector.forEachEpochDay(iterated::put);
+        assertThat(iterated).isEqualTo(collector.requestsPerEpochDay());
     }
 
     @Test
@@ -145,4 +167,78 @@ public class StatisticCollectorTest {
 
         assertThat(collector.percentile(95)).isEmpty();
     }
+
+    @Test
+    public void testMerge() {
+        List<LogRecord> records = Instancio.ofList(LogRecord.class).size(60).create();
+        StatisticCollector expected = new StatisticCollector();
+        StatisticCollector first = new StatisticCollector();
+        StatisticCollector second = new StatisticCollector();
+
+        records.forEach(expected::addLog);
+        records.subList(0, 25).forEach(first::addLog);
+        records.subList(25, records.size()).forEach(second::addLog);
+        first.merge(second);
+
+        assertThat(first.requestsCount()).isEqualTo(expected.requestsCount());
+        assertThat(first.totalResponseSize()).isEqualTo(expected.totalResponseSize());
+        assertThat(first.maxRequestsSize()).isEqualTo(expected.maxRequestsSize());
+        assertThat(first.topResources()).isEqualTo(expected.topResources());
+        assertThat(first.statusCount()).isEqualTo(expected.statusCount());
+        assertThat(first.methodsCount()).isEqualTo(expected.methodsCount());
+        assertThat(first.requestsPerEpochDay()).isEqualTo(expected.requestsPerEpochDay());
+        for (int percentile = 0; percentile <= 100; percentile += 5) {
+            assertThat(first.percentile(percentile)).isEqualTo(expected.percentile(percentile));
+        }
+    }
+
+    @Test
+    public void testMergeEmpty() {
+        StatisticCollector collector = new StatisticCollector();
+        collector.addLog(Instancio.of(LogRecord.class).set(field("bytesSent"), 7).create());
+
+        collector.merge(new StatisticCollector());
+
+        assertThat(collector.requestsCount()).isEqualTo(1);
+        assertThat(collector.percentile(50)).isEqualTo(Optional.of(7));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "99.9, 1000, 998",
+        "99.9, 1001, 999",
+        "99.99, 1000, 999",
+        "0.1, 1000, 0",
+        "50.5, 200, 100",
+    })
+    public void testFractionalPercentile(double percentile, int length, int expected) {
+        StatisticCollector collector = new StatisticCollector();
+        for (int i = 0; i < length; i++) {
+            collector.addLog(Instancio.of(LogRecord.class).set(field("bytesSent"), i).create());
+        }
+
+        assertThat(collector.percentile(percentile)).isEqualTo(Optional.of(expected));
+    }
+
+    @Test
+    public void testSizeHistogram() {
+        StatisticCollector first = new StatisticCollector(new LogLinearSizeDistribution());
+        StatisticCollector second = new StatisticCollector(new LogLinearSizeDistribution());
+        List.of(0, 1, 2, 3, 4, 1000).forEach(size ->
+            first.addLog(Instancio.of(LogRecord.class).set(field("bytesSent"), size).create()));
+        List.of(0, Integer.MAX_VALUE).forEach(size ->
+            second.addLog(Instancio.of(LogRecord.class).set(field("bytesSent"), size).create()));
+
+        first.merge(second);
+
+        assertThat(first.sizeHistogram()).containsExactly(
+            new SizeRange(0, 0, 2),
+            new SizeRange(1, 1, 1),
+            new SizeRange(2, 3, 2),
+            new SizeRange(4, 7, 1),
+            new SizeRange(512, 1023, 1),
+            new SizeRange(1 << 30, Integer.MAX_VALUE, 1)
+        );
+        assertThat(first.percentileRelativeError()).isPositive();
+    }
 }
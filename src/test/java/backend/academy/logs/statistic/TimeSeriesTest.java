@@ -0,0 +1,93 @@
+package backend.academy.logs.statistic;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TimeSeriesTest {
+    private static final LocalDateTime START = LocalDateTime.of(2015, 5, 17, 8, 0);
+
+    private static int serializedSize(TimeSeries series) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(series);
+        }
+        return bytes.size();
+    }
+
+    @Test
+    public void logsAreCountedInTheirBuckets() {
+        TimeSeries series = new TimeSeries(TimeResolution.MINUTE);
+        series.add(START.plusSeconds(59), 200, 10);
+        series.add(START.plusMinutes(5), 503, 0);
+        series.add(START, 404, 1000);
+        series.add(START.plusMinutes(5).plusSeconds(30), 99, 3);
+
+        List<TimeBucket> buckets = series.buckets();
+
+        assertThat(buckets).extracting(TimeBucket::start).containsExactly(START, START.plusMinutes(5));
+        assertThat(buckets).extracting(TimeBucket::requests).containsExactly(2L, 2L);
+        assertThat(buckets).extracting(TimeBucket::bytes).containsExactly(1010L, 3L);
+        assertThat(buckets.get(0).statusClasses()).containsExactly(0, 1, 0, 1, 0);
+        assertThat(buckets.get(1).statusClasses()).containsExactly(0, 0, 0, 0, 1);
+        assertThat(buckets.get(1).statusClassCount(500)).isEqualTo(1);
+        assertThat(buckets.get(0).sizePercentile(50)).isEqualTo(new SizeRange(8, 15, 1));
+        assertThat(buckets.get(0).sizePercentile(100)).isEqualTo(new SizeRange(512, 1023, 1));
+        assertThat(buckets.get(1).sizePercentile(0)).isEqualTo(new SizeRange(0, 0, 1));
+    }
+
+    @Test
+    public void bucketsBeforeTheEpochAndByDay() {
+        TimeSeries series = new TimeSeries(TimeResolution.DAY);
+        LocalDateTime old = LocalDateTime.of(1969, 12, 31, 23, 59);
+        series.add(old, 200, 1);
+        series.add(START, 200, 1);
+
+        assertThat(series.buckets()).extracting(TimeBucket::start)
+            .containsExactly(old.toLocalDate().atStartOfDay(), START.toLocalDate().atStartOfDay());
+    }
+
+    @Test
+    public void mergeIsTheSameAsAddingAllTheLogs() {
+        Random random = new Random(25);
+        TimeSeries all = new TimeSeries(TimeResolution.HOUR);
+        TimeSeries first = new TimeSeries(TimeResolution.HOUR);
+        TimeSeries second = new TimeSeries(TimeResolution.HOUR);
+        for (int i = 0; i < 10_000; i++) {
+            LocalDateTime time = START.plusSeconds(random.nextLong(-3_600_000, 3_600_000));
+            int status = 100 + random.nextInt(500);
+            int size = random.nextInt(1 << random.nextInt(30));
+            all.add(time, status, size);
+            (i % 3 == 0 ? first : second).add(time, status, size);
+        }
+
+        first.merge(second);
+
+        assertThat(first.buckets()).usingRecursiveFieldByFieldElementComparator().isEqualTo(all.buckets());
+        assertThatThrownBy(() -> first.merge(new TimeSeries(TimeResolution.MINUTE)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void monthOfMinutesIsCompact() throws IOException {
+        TimeSeries series = new TimeSeries(TimeResolution.MINUTE);
+        for (int minute = 0; minute < 30 * 24 * 60; minute++) {
+            for (int i = 0; i < 3; i++) {
+                series.add(START.plusMinutes(minute).plusSeconds(i), 200 + 100 * i, 100 * i);
+            }
+        }
+        TimeSeries sparse = new TimeSeries(TimeResolution.MINUTE);
+        sparse.add(LocalDateTime.of(1970, 1, 1, 0, 0), 200, 0);
+        sparse.add(START, 200, 0);
+
+        assertThat(series.buckets()).hasSize(30 * 24 * 60).allMatch(bucket -> bucket.requests() == 3);
+        assertThat(serializedSize(series)).isLessThan(6 * 1024 * 1024);
+        assertThat(serializedSize(sparse)).isLessThan(300 * 1024);
+    }
+}